@@ -0,0 +1,50 @@
+package in.newdevpoint.bootcamp.aop;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the method timing recorded by {@link LoggingAspect}, bound from {@code
+ * aop.metrics.*}.
+ *
+ * <p>Sample rates range from 0 (never timed) to 1 (every call timed). A class uses the rate of the
+ * longest matching entry in {@link #packages}, e.g. {@code
+ * aop.metrics.packages[in.newdevpoint.bootcamp.service]=0.1}, and {@link #sampleRate} otherwise.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "aop.metrics")
+public class AopMetricsProperties {
+  /** Whether the aspect records anything at all. */
+  private boolean enabled = true;
+
+  /** Sample rate of classes not matched by {@link #packages}. */
+  private double sampleRate = 1.0;
+
+  /** Sample rates by package or class name prefix. */
+  private Map<String, Double> packages = new LinkedHashMap<>();
+
+  /**
+   * Returns the sample rate that applies to a class.
+   *
+   * @param className the fully qualified class name
+   * @return the sample rate between 0 and 1, or 0 if the aspect is disabled
+   */
+  public double sampleRateFor(String className) {
+    if (!enabled) {
+      return 0;
+    }
+    String bestMatch = null;
+    for (String prefix : packages.keySet()) {
+      boolean matches = className.equals(prefix) || className.startsWith(prefix + ".");
+      if (matches && (bestMatch == null || prefix.length() > bestMatch.length())) {
+        bestMatch = prefix;
+      }
+    }
+    double rate = bestMatch != null ? packages.get(bestMatch) : sampleRate;
+    return Math.max(0, Math.min(1, rate));
+  }
+}
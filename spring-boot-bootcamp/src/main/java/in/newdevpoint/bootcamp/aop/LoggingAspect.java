@@ -1,51 +1,157 @@
 package in.newdevpoint.bootcamp.aop;
 
-import in.newdevpoint.bootcamp.repository.ExceptionLogRepository;
-import lombok.AllArgsConstructor;
+import in.newdevpoint.bootcamp.diagnostics.ExceptionLogPipeline;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.*;
 import org.springframework.stereotype.Component;
 
+/**
+ * Records the latency of controller and {@code UserService} methods as Micrometer timers.
+ *
+ * <ul>
+ *   <li>{@code controller.duration}, tagged with {@code controller}, {@code method} and {@code
+ *       outcome}
+ *   <li>{@code service.duration}, tagged with {@code service}, {@code method} and {@code outcome}
+ * </ul>
+ *
+ * <p>The outcome is {@code success} or the simple name of the thrown exception. Timers publish
+ * percentile histograms so p95/p99 can be aggregated across instances. Durations are measured with
+ * {@link System#nanoTime()}; for methods returning a {@link CompletionStage} the timer stops when
+ * the stage completes. Everything derived from a join point's signature is computed once per join
+ * point, and each call can be sampled or skipped per package through {@link AopMetricsProperties}.
+ */
 @Aspect
 @Component
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class LoggingAspect {
 
-  private final ExceptionLogRepository exceptionLogRepository;
+  private final ExceptionLogPipeline exceptionLogPipeline;
+  private final MeterRegistry meterRegistry;
+  private final AopMetricsProperties properties;
 
-  @Around("execution(* in.newdevpoint.bootcamp.controller.*.*(..))") // Pointcut expression
-  public Object logExecutionTime(ProceedingJoinPoint joinPoint) throws Throwable {
-    long startTime = System.currentTimeMillis();
+  private final Map<JoinPoint.StaticPart, TimedMethod> timedMethods = new ConcurrentHashMap<>();
 
-    // Proceed with the method execution
-    Object proceed = joinPoint.proceed();
+  // Last exception captured on each thread, so one propagating through layers is logged once
+  private final ThreadLocal<WeakReference<Throwable>> lastCaptured = new ThreadLocal<>();
 
-    long timeTaken = System.currentTimeMillis() - startTime;
-    System.out.println(joinPoint.getSignature() + " executed in " + timeTaken + " ms");
+  @Around("execution(* in.newdevpoint.bootcamp.controller.*.*(..))") // Pointcut expression
+  public Object logExecutionTime(ProceedingJoinPoint joinPoint) throws Throwable {
+    return time(joinPoint, "controller.duration", "controller");
+  }
 
-    return proceed;
+  @Around("execution(* in.newdevpoint.bootcamp.service.UserService.*(..))") // Pointcut expression
+  public Object timeUserService(ProceedingJoinPoint joinPoint) throws Throwable {
+    return time(joinPoint, "service.duration", "service");
   }
 
-  @Before("execution(* in.newdevpoint.bootcamp.service.UserService.*(..))") // Pointcut expression
-  public void logBeforeMethod() {
-    System.out.println("Before method execution");
+  /**
+   * Hands exceptions thrown by controllers and services to the asynchronous exception log. An
+   * exception is captured once, where it is first seen, even if it propagates through several
+   * advised methods.
+   *
+   * @param joinPoint the method that threw or propagated the exception
+   * @param exception the exception
+   */
+  @AfterThrowing(
+      pointcut =
+          "execution(* in.newdevpoint.bootcamp.controller..*(..))"
+              + " || execution(* in.newdevpoint.bootcamp.service..*(..))",
+      throwing = "exception")
+  public void logException(JoinPoint joinPoint, Throwable exception) {
+    WeakReference<Throwable> last = lastCaptured.get();
+    if (last != null && last.get() == exception) {
+      return;
+    }
+    lastCaptured.set(new WeakReference<>(exception));
+    Signature signature = joinPoint.getStaticPart().getSignature();
+    exceptionLogPipeline.capture(
+        exception, signature.getDeclaringType().getSimpleName(), signature.getName());
   }
 
-  @After("execution(* in.newdevpoint.bootcamp.service.UserService.*(..))")
-  public void logAfterMethod() {
-    System.out.println("After method execution");
+  private Object time(ProceedingJoinPoint joinPoint, String metricName, String classTag)
+      throws Throwable {
+    TimedMethod method =
+        timedMethods.computeIfAbsent(
+            joinPoint.getStaticPart(),
+            staticPart -> new TimedMethod(staticPart, metricName, classTag));
+    if (!method.sampled()) {
+      return joinPoint.proceed();
+    }
+
+    long start = System.nanoTime();
+    Object result;
+    try {
+      result = joinPoint.proceed();
+    } catch (Throwable e) {
+      method.record(start, e);
+      throw e;
+    }
+    if (result instanceof CompletionStage) {
+      ((CompletionStage<?>) result).whenComplete((value, error) -> method.record(start, error));
+    } else {
+      method.record(start, null);
+    }
+    return result;
   }
 
-  /*@AfterThrowing(pointcut = "execution(* in.newdevpoint.bootcamp..*(..))", throwing = "exception")
-  public void logException(JoinPoint joinPoint, Throwable exception) {
-    exception.printStackTrace();
-    ExceptionLog log = new ExceptionLog();
-    log.setExceptionMessage(exception.getMessage());
-    log.setStackTrace(Arrays.toString(exception.getStackTrace()));
-    log.setMethodName(joinPoint.getSignature().getName());
-    log.setClassName(joinPoint.getSignature().getDeclaringTypeName());
-    log.setTimestamp(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
-
-    exceptionLogRepository.save(log);
-  }*/
+  /** Signature-derived state of one advised method, computed on its first call. */
+  private final class TimedMethod {
+    private final String metricName;
+    private final String classTag;
+    private final String className;
+    private final String methodName;
+    private final double sampleRate;
+    private final Timer success;
+    private final Map<Class<?>, Timer> failures = new ConcurrentHashMap<>();
+
+    private TimedMethod(JoinPoint.StaticPart staticPart, String metricName, String classTag) {
+      this.metricName = metricName;
+      this.classTag = classTag;
+      this.className = staticPart.getSignature().getDeclaringType().getSimpleName();
+      this.methodName = staticPart.getSignature().getName();
+      this.sampleRate = properties.sampleRateFor(staticPart.getSignature().getDeclaringTypeName());
+      // Methods that are never sampled do not register any meters
+      this.success = sampleRate > 0 ? timer("success") : null;
+    }
+
+    private boolean sampled() {
+      return sampleRate >= 1
+          || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    private void record(long start, Throwable error) {
+      // Failed stages report their cause wrapped; the outcome names the original exception
+      while ((error instanceof CompletionException || error instanceof ExecutionException)
+          && error.getCause() != null) {
+        error = error.getCause();
+      }
+      Timer timer =
+          error == null
+              ? success
+              : failures.computeIfAbsent(error.getClass(), type -> timer(type.getSimpleName()));
+      timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String outcome) {
+      return Timer.builder(metricName)
+          .tag(classTag, className)
+          .tag("method", methodName)
+          .tag("outcome", outcome)
+          .publishPercentileHistogram()
+          .register(meterRegistry);
+    }
+  }
 }
@@ -1,6 +1,7 @@
 package in.newdevpoint.bootcamp.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -8,12 +9,13 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class CorsConfiguration implements WebMvcConfigurer {
 
   /****
-   * Configures CORS to allow requests from any origin on all endpoints.
+   * Configures CORS to allow requests from any origin on all endpoints, and lets browser clients
+   * read the ETag they send back in conditional requests.
    *
    * @param registry the CORS registry to which the configuration is applied
    */
   @Override
   public void addCorsMappings(CorsRegistry registry) {
-    registry.addMapping("/**").allowedOrigins("*");
+    registry.addMapping("/**").allowedOrigins("*").exposedHeaders(HttpHeaders.ETAG);
   }
 }
@@ -0,0 +1,20 @@
+package in.newdevpoint.bootcamp.config;
+
+import org.openapitools.jackson.nullable.JsonNullableModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+  /**
+   * Registers {@link JsonNullableModule} with the application's ObjectMapper so merge-patch
+   * requests can tell a field that was sent as {@code null} from one that was left out.
+   *
+   * @return the Jackson module for {@code JsonNullable} properties
+   */
+  @Bean
+  JsonNullableModule jsonNullableModule() {
+    return new JsonNullableModule();
+  }
+}
@@ -0,0 +1,191 @@
+package in.newdevpoint.bootcamp.config;
+
+import in.newdevpoint.bootcamp.entity.MailOutboxEntry;
+import in.newdevpoint.bootcamp.entity.Product;
+import in.newdevpoint.bootcamp.entity.RevokedToken;
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the indexes the application's lookups and searches rely on once the application is ready,
+ * then reads the index catalogue back to verify them. The bootstrap runs on its own thread, so a
+ * slow or unreachable MongoDB does not hold up startup.
+ *
+ * <ul>
+ *   <li>unique {@code users.username} and {@code users.email}, used by login and signup
+ *   <li>unique {@code products.name}, used when a product is created
+ *   <li>{@code (field, _id)} on {@code users} for every field in {@code
+ *       mongo.indexes.userSortFields}, matching the sort of cursor-paged searches
+ *   <li>a TTL index on {@code revoked_tokens.expiresAt}, and {@code revokedAt} for polling
+ *   <li>{@code (status, nextAttemptAt)} and {@code claimToken} on {@code mail_outbox}, used to
+ *       claim due retries
+ * </ul>
+ *
+ * <p>Creating an index that already exists is a no-op. An index that cannot be created, for example
+ * a unique index over existing duplicates, is logged and reported by {@link #getMissingIndexes()}
+ * without stopping the application. If MongoDB cannot be reached at all, the bootstrap stops at the
+ * first failure instead of waiting out the server selection timeout once per index.
+ */
+@Component
+public class MongoIndexBootstrapper {
+  private static final Logger logger = LoggerFactory.getLogger(MongoIndexBootstrapper.class);
+
+  private final MongoTemplate template;
+
+  @Value("${mongo.indexes.enabled:true}")
+  private boolean enabled;
+
+  @Value("${mongo.indexes.userSortFields:username,email}")
+  private List<String> userSortFields;
+
+  private volatile List<String> missingIndexes = List.of();
+
+  public MongoIndexBootstrapper(MongoTemplate template) {
+    this.template = template;
+  }
+
+  /** Starts creating and verifying the indexes once the application is ready, if enabled. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    if (!enabled) {
+      return;
+    }
+    Thread worker = new Thread(this::bootstrap, "mongo-index-bootstrap");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  private void bootstrap() {
+    try {
+      ensureIndexes();
+    } catch (DataAccessException e) {
+      logger.error("Indexes could not be bootstrapped: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Creates all expected indexes and verifies that they exist.
+   *
+   * @return a description of every expected index that is missing afterwards
+   * @throws DataAccessResourceFailureException if MongoDB cannot be reached; the remaining indexes
+   *     are not attempted
+   */
+  public List<String> ensureIndexes() {
+    Map<Index, Class<?>> expected = expectedIndexes();
+    expected.forEach(
+        (index, entityType) -> {
+          try {
+            template.indexOps(entityType).ensureIndex(index);
+          } catch (DataAccessResourceFailureException e) {
+            throw e;
+          } catch (DataAccessException e) {
+            logger.error(
+                "Index {} on {} could not be created: {}",
+                index.getIndexKeys().toJson(),
+                template.getCollectionName(entityType),
+                e.getMessage());
+          }
+        });
+
+    List<String> missing = new ArrayList<>();
+    expected.forEach(
+        (index, entityType) -> {
+          if (!exists(template.indexOps(entityType).getIndexInfo(), index)) {
+            missing.add(template.getCollectionName(entityType) + " " + describe(index));
+          }
+        });
+    missingIndexes = Collections.unmodifiableList(missing);
+
+    if (missing.isEmpty()) {
+      logger.info("Verified {} MongoDB indexes", expected.size());
+    } else {
+      logger.warn("Missing MongoDB indexes: {}", missing);
+    }
+    return missingIndexes;
+  }
+
+  /**
+   * Returns the expected indexes that were missing at the last verification.
+   *
+   * @return descriptions of the missing indexes, empty if all exist or nothing was verified yet
+   */
+  public List<String> getMissingIndexes() {
+    return missingIndexes;
+  }
+
+  private Map<Index, Class<?>> expectedIndexes() {
+    Map<Index, Class<?>> indexes = new LinkedHashMap<>();
+    indexes.put(
+        new Index().on("username", Sort.Direction.ASC).unique().named("username_unique"),
+        UserEntity.class);
+    indexes.put(
+        new Index().on("email", Sort.Direction.ASC).unique().named("email_unique"),
+        UserEntity.class);
+    indexes.put(
+        new Index().on("name", Sort.Direction.ASC).unique().named("name_unique"), Product.class);
+    indexes.put(
+        new Index()
+            .on("expiresAt", Sort.Direction.ASC)
+            .expire(0, TimeUnit.SECONDS)
+            .named("expiresAt_ttl"),
+        RevokedToken.class);
+    indexes.put(
+        new Index().on("revokedAt", Sort.Direction.ASC).named("revokedAt"), RevokedToken.class);
+    indexes.put(
+        new Index()
+            .on("status", Sort.Direction.ASC)
+            .on("nextAttemptAt", Sort.Direction.ASC)
+            .named("status_nextAttemptAt"),
+        MailOutboxEntry.class);
+    indexes.put(
+        new Index().on("claimToken", Sort.Direction.ASC).sparse().named("claimToken"),
+        MailOutboxEntry.class);
+    for (String field : userSortFields) {
+      indexes.put(
+          new Index()
+              .on(field.trim(), Sort.Direction.ASC)
+              .on("_id", Sort.Direction.ASC)
+              .named(field.trim() + "_id_sort"),
+          UserEntity.class);
+    }
+    return indexes;
+  }
+
+  private static boolean exists(List<IndexInfo> existing, Index index) {
+    List<String> keys = new ArrayList<>(index.getIndexKeys().keySet());
+    boolean unique = Boolean.TRUE.equals(index.getIndexOptions().get("unique"));
+    for (IndexInfo info : existing) {
+      List<String> fields = new ArrayList<>();
+      for (IndexField field : info.getIndexFields()) {
+        fields.add(field.getKey());
+      }
+      if (fields.equals(keys) && (!unique || info.isUnique())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String describe(Index index) {
+    boolean unique = Boolean.TRUE.equals(index.getIndexOptions().get("unique"));
+    return index.getIndexKeys().toJson() + (unique ? " unique" : "");
+  }
+}
@@ -1,19 +1,106 @@
 package in.newdevpoint.bootcamp.config;
 
+import in.newdevpoint.bootcamp.http.CachingHttpRequestInterceptor;
+import in.newdevpoint.bootcamp.http.HttpClientProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class RestTemplateConfig {
 
   /**
-   * Creates and provides a new {@link RestTemplate} bean for performing HTTP requests.
+   * Creates the pooled Apache HttpClient used for all outbound HTTP calls. Pool size, timeouts and
+   * keep-alive come from {@code http.client.*}; pool usage is published under {@code
+   * httpcomponents.httpclient.pool.*} with {@code httpclient=outbound}.
    *
-   * @return a new instance of RestTemplate
+   * @param properties the client settings
+   * @param meterRegistry the registry for pool metrics
+   * @return the pooled HTTP client
+   */
+  @Bean(destroyMethod = "close")
+  public CloseableHttpClient outboundHttpClient(
+      HttpClientProperties properties, MeterRegistry meterRegistry) {
+    PoolingHttpClientConnectionManager connectionManager =
+        PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(properties.getMaxTotal())
+            .setMaxConnPerRoute(properties.getMaxPerRoute())
+            .setDefaultConnectionConfig(
+                ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.ofMilliseconds(properties.getConnectTimeoutMs()))
+                    .setSocketTimeout(Timeout.ofMilliseconds(properties.getReadTimeoutMs()))
+                    .setValidateAfterInactivity(
+                        TimeValue.ofMilliseconds(properties.getValidateAfterInactivityMs()))
+                    .build())
+            .build();
+    new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "outbound")
+        .bindTo(meterRegistry);
+
+    return HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(
+            RequestConfig.custom()
+                .setConnectionRequestTimeout(
+                    Timeout.ofMilliseconds(properties.getConnectionRequestTimeoutMs()))
+                .setResponseTimeout(Timeout.ofMilliseconds(properties.getReadTimeoutMs()))
+                .setDefaultKeepAlive(properties.getKeepAliveMs(), TimeUnit.MILLISECONDS)
+                .build())
+        .evictExpiredConnections()
+        .evictIdleConnections(TimeValue.ofMilliseconds(properties.getIdleEvictMs()))
+        .build();
+  }
+
+  /**
+   * Creates the response cache placed in front of the pooled client.
+   *
+   * @param outboundHttpClient the pooled HTTP client
+   * @param properties the client settings
+   * @param meterRegistry the registry for cache metrics
+   * @return the caching interceptor
+   */
+  @Bean
+  public CachingHttpRequestInterceptor httpResponseCache(
+      CloseableHttpClient outboundHttpClient,
+      HttpClientProperties properties,
+      MeterRegistry meterRegistry) {
+    return new CachingHttpRequestInterceptor(
+        requestFactory(outboundHttpClient),
+        properties.getCache(),
+        meterRegistry,
+        Clock.systemUTC());
+  }
+
+  /**
+   * Creates the {@link RestTemplate} bean for performing HTTP requests through the pooled client
+   * and the response cache.
+   *
+   * @param outboundHttpClient the pooled HTTP client
+   * @param httpResponseCache the caching interceptor
+   * @return the configured RestTemplate
    */
   @Bean
-  public RestTemplate getRestTemplate() {
-    return new RestTemplate();
+  public RestTemplate getRestTemplate(
+      CloseableHttpClient outboundHttpClient, CachingHttpRequestInterceptor httpResponseCache) {
+    RestTemplate restTemplate = new RestTemplate(requestFactory(outboundHttpClient));
+    restTemplate.getInterceptors().add(httpResponseCache);
+    return restTemplate;
+  }
+
+  private static ClientHttpRequestFactory requestFactory(CloseableHttpClient httpClient) {
+    return new HttpComponentsClientHttpRequestFactory(httpClient);
   }
 }
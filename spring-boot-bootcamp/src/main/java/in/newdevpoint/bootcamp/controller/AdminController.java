@@ -1,18 +1,45 @@
 package in.newdevpoint.bootcamp.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.newdevpoint.bootcamp.dto.UserReq;
+import in.newdevpoint.bootcamp.exceptions.UserNotFoundException;
+import in.newdevpoint.bootcamp.payload.response.MessageResponse;
+import in.newdevpoint.bootcamp.security.jwt.TokenRevocationRegistry;
+import in.newdevpoint.bootcamp.usecase.UserUseCase;
 import in.newdevpoint.bootcamp.utility.BigONotation;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/admin")
 // @PreAuthorize(RoleConstants.ADMIN_CRUD)
 public class AdminController {
+  private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+
+  private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
   @Autowired BigONotation bigONotation;
 
+  @Autowired UserUseCase userUseCase;
+
+  @Autowired ObjectMapper objectMapper;
+
+  @Autowired TokenRevocationRegistry revocationRegistry;
+
   @GetMapping("/get-report")
   // @PreAuthorize(RoleConstants.ADMIN_CRUD)
   public String getActiveProfile() {
@@ -26,4 +53,54 @@ public class AdminController {
 
     return "testing done";
   }
+
+  /**
+   * Signs a user out everywhere by revoking every token issued to them so far.
+   *
+   * @param userId the unique identifier of the user
+   * @return HTTP 200 once the tokens are revoked; other nodes apply it within one poll interval
+   * @throws UserNotFoundException if no user has the given id
+   */
+  @PostMapping("/users/{userId}/signout")
+  public ResponseEntity<MessageResponse> forceSignOut(@PathVariable("userId") String userId) {
+    UserReq user = userUseCase.revokeTokens(userId);
+    revocationRegistry.revokeAll(user.getUsername());
+    return ResponseEntity.ok(new MessageResponse("User signed out everywhere"));
+  }
+
+  /**
+   * Exports all users matching an optional RSQL query as newline-delimited JSON.
+   *
+   * <p>Users are written to the response as they are read from a MongoDB cursor, so the export runs
+   * in constant memory. If the client disconnects, the failed write ends the export and closes the
+   * cursor.
+   *
+   * @param query an optional RSQL expression, as accepted by the user search
+   * @return HTTP 200 response streaming one JSON user per line
+   */
+  @GetMapping(value = "/users/export", produces = "application/x-ndjson")
+  public ResponseEntity<StreamingResponseBody> exportUsers(
+      @RequestParam(value = "query", required = false) String query) {
+    StreamingResponseBody body =
+        outputStream -> {
+          long exported = 0;
+          try (Stream<UserReq> users = userUseCase.streamUsers(query)) {
+            Iterator<UserReq> iterator = users.iterator();
+            while (iterator.hasNext()) {
+              writeLine(outputStream, iterator.next());
+              exported++;
+            }
+            outputStream.flush();
+            logger.info("Exported {} users", exported);
+          } catch (IOException e) {
+            logger.info("User export cancelled after {} users: {}", exported, e.getMessage());
+          }
+        };
+    return ResponseEntity.ok().contentType(NDJSON).body(body);
+  }
+
+  private void writeLine(OutputStream outputStream, UserReq user) throws IOException {
+    outputStream.write(objectMapper.writeValueAsBytes(user));
+    outputStream.write('\n');
+  }
 }
@@ -1,74 +1,161 @@
 package in.newdevpoint.bootcamp.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import in.newdevpoint.bootcamp.entity.ERole;
 import in.newdevpoint.bootcamp.entity.Role;
 import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.event.RolesChangedEvent;
+import in.newdevpoint.bootcamp.event.UserChangedEvent;
 import in.newdevpoint.bootcamp.payload.request.LoginRequest;
 import in.newdevpoint.bootcamp.payload.request.SignupRequest;
+import in.newdevpoint.bootcamp.payload.response.BulkImportResponse;
 import in.newdevpoint.bootcamp.payload.response.JwtResponse;
 import in.newdevpoint.bootcamp.payload.response.MessageResponse;
 import in.newdevpoint.bootcamp.repository.RoleRepository;
 import in.newdevpoint.bootcamp.repository.UserRepository;
 import in.newdevpoint.bootcamp.security.jwt.JwtUtils;
+import in.newdevpoint.bootcamp.security.jwt.JwtVerifier;
+import in.newdevpoint.bootcamp.security.jwt.TokenRevocationRegistry;
 import in.newdevpoint.bootcamp.security.services.UserDetailsImpl;
+import in.newdevpoint.bootcamp.service.PasswordHashingService;
+import in.newdevpoint.bootcamp.service.RoleService;
+import in.newdevpoint.bootcamp.service.UserImportService;
+import in.newdevpoint.bootcamp.utility.RoleConstants;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsChecker;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
-  @Autowired AuthenticationManager authenticationManager;
+  @Autowired UserDetailsService userDetailsService;
 
   @Autowired UserRepository userRepository;
 
   @Autowired RoleRepository roleRepository;
 
-  @Autowired PasswordEncoder encoder;
+  @Autowired RoleService roleService;
+
+  @Autowired PasswordHashingService hashingService;
 
   @Autowired JwtUtils jwtUtils;
 
+  @Autowired JwtVerifier jwtVerifier;
+
+  @Autowired TokenRevocationRegistry revocationRegistry;
+
+  @Autowired ApplicationEventPublisher eventPublisher;
+
+  @Autowired UserImportService userImportService;
+
+  @Autowired ObjectMapper objectMapper;
+
+  // Runs the MongoDB work that follows password hashing, off the hashing pool
+  @Autowired
+  @Qualifier("applicationTaskExecutor")
+  Executor ioExecutor;
+
+  private final UserDetailsChecker accountStatusChecker = new AccountStatusUserDetailsChecker();
+
   /**
    * Authenticates a user with the provided credentials and returns a JWT token along with user
    * details.
    *
+   * <p>The user is loaded on the request thread and only the BCrypt check runs on the password
+   * hashing pool, so that pool never waits on MongoDB. The token is then issued on the application
+   * task executor, since it may read the user's token version. When the hashing pool is saturated
+   * the request is refused with HTTP 503 and a {@code Retry-After} header.
+   *
    * @param loginRequest the login credentials containing username and password
-   * @return a response entity containing the JWT token, user ID, username, email, and assigned
-   *     roles
+   * @return a future response entity containing the JWT token, user ID, username, email, and
+   *     assigned roles
    */
   @PostMapping("/signin")
-  public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+  public CompletableFuture<ResponseEntity<?>> authenticateUser(
+      @Valid @RequestBody LoginRequest loginRequest) {
+    UserDetails user;
+    try {
+      user = userDetailsService.loadUserByUsername(loginRequest.getUsername());
+    } catch (UsernameNotFoundException e) {
+      user = null;
+    }
+    UserDetails principal = user;
 
-    Authentication authentication =
-        authenticationManager.authenticate(
-            new UsernamePasswordAuthenticationToken(
-                loginRequest.getUsername(), loginRequest.getPassword()));
+    return hashingService
+        .matches(loginRequest.getPassword(), principal != null ? principal.getPassword() : null)
+        .thenApplyAsync(
+            matched -> {
+              if (!matched) {
+                throw new BadCredentialsException("Bad credentials");
+              }
+              accountStatusChecker.check(principal);
+              Authentication authentication =
+                  UsernamePasswordAuthenticationToken.authenticated(
+                      principal, null, principal.getAuthorities());
+              String jwt = jwtUtils.generateJwtToken(authentication);
 
-    SecurityContextHolder.getContext().setAuthentication(authentication);
-    String jwt = jwtUtils.generateJwtToken(authentication);
+              UserDetailsImpl userDetails = (UserDetailsImpl) principal;
+              List<String> roles =
+                  userDetails.getAuthorities().stream()
+                      .map(item -> item.getAuthority())
+                      .collect(Collectors.toList());
 
-    UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-    List<String> roles =
-        userDetails.getAuthorities().stream()
-            .map(item -> item.getAuthority())
-            .collect(Collectors.toList());
+              return ResponseEntity.ok(
+                  new JwtResponse(
+                      jwt,
+                      userDetails.getId(),
+                      userDetails.getUsername(),
+                      userDetails.getEmail(),
+                      roles));
+            },
+            ioExecutor);
+  }
 
-    return ResponseEntity.ok(
-        new JwtResponse(
-            jwt, userDetails.getId(), userDetails.getUsername(), userDetails.getEmail(), roles));
+  /**
+   * Signs out by revoking the bearer token of the request on every node.
+   *
+   * @param authorization the {@code Authorization} header carrying the token to revoke
+   * @return HTTP 200 if the token was revoked, or HTTP 400 if the request carries no valid token
+   */
+  @PostMapping("/signout")
+  public ResponseEntity<?> signOut(
+      @RequestHeader(value = "Authorization", required = false) String authorization) {
+    String token =
+        authorization != null && authorization.startsWith("Bearer ")
+            ? authorization.substring(7)
+            : null;
+    boolean revoked =
+        token != null && jwtVerifier.verify(token).map(revocationRegistry::revoke).orElse(false);
+    if (!revoked) {
+      return ResponseEntity.badRequest()
+          .body(new MessageResponse("Error: No valid token to revoke"));
+    }
+    return ResponseEntity.ok(new MessageResponse("Signed out successfully"));
   }
 
   /**
@@ -83,6 +170,7 @@ public class AuthController {
     for (Role role : roleList) {
       roleRepository.save(role);
     }
+    eventPublisher.publishEvent(new RolesChangedEvent());
 
     return ResponseEntity.status(HttpStatus.CREATED)
         .body(new MessageResponse("Roles created successfully"));
@@ -98,69 +186,99 @@ public class AuthController {
    * @param signUpRequest the signup request containing username, email, password, and optional
    *     roles
    * @return HTTP 200 with a success message if registration is successful, or HTTP 400 with an
-   *     error message if the username or email already exists
+   *     error message if the username or email already exists; HTTP 503 if the password hashing
+   *     pool is saturated
    */
   @PostMapping("/signup")
-  public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
+  public CompletableFuture<ResponseEntity<?>> registerUser(
+      @Valid @RequestBody SignupRequest signUpRequest) {
     if (userRepository.existsByUsername(signUpRequest.getUsername())) {
-      return ResponseEntity.badRequest()
-          .body(new MessageResponse("Error: Username is already taken!"));
+      return CompletableFuture.completedFuture(
+          ResponseEntity.badRequest()
+              .body(new MessageResponse("Error: Username is already taken!")));
     }
 
     if (userRepository.existsByEmail(signUpRequest.getEmail())) {
-      return ResponseEntity.badRequest()
-          .body(new MessageResponse("Error: Email is already in use!"));
+      return CompletableFuture.completedFuture(
+          ResponseEntity.badRequest().body(new MessageResponse("Error: Email is already in use!")));
+    }
+
+    return hashingService
+        .encode(signUpRequest.getPassword())
+        .thenApplyAsync(
+            encodedPassword -> {
+              // Create new user's account
+              UserEntity user =
+                  new UserEntity(
+                      signUpRequest.getUsername(), signUpRequest.getEmail(), encodedPassword);
+
+              roleService.assignRoles(user, roleService.resolveRoleNames(signUpRequest.getRoles()));
+              userRepository.save(user);
+              eventPublisher.publishEvent(
+                  new UserChangedEvent(
+                      UserChangedEvent.Type.CREATED, user.getId(), user.getUsername()));
+
+              return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
+            },
+            ioExecutor);
+  }
+
+  /**
+   * Registers many users in one request, applying the same rules as {@link #registerUser}.
+   *
+   * <p>The body is either a JSON array of signup requests or NDJSON with one request per line. Rows
+   * are read as a stream and imported in chunks, so the upload is never held in memory at once. A
+   * row that fails does not stop the others; if the body becomes unreadable part way through, the
+   * rows read so far are still imported and the report carries the parse error.
+   *
+   * @param body the JSON array or NDJSON upload
+   * @return HTTP 200 with a per-row report of created and rejected users
+   * @throws IOException if the body cannot be read at all
+   */
+  @PreAuthorize(RoleConstants.ADMIN_CRUD)
+  @PostMapping(
+      value = "/signup/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+  public ResponseEntity<BulkImportResponse> registerUsers(InputStream body) throws IOException {
+    try (MappingIterator<SignupRequest> rows =
+        objectMapper.readerFor(SignupRequest.class).readValues(body)) {
+      ParseGuard guard = new ParseGuard(rows);
+      BulkImportResponse response = userImportService.importUsers(guard);
+      response.setError(guard.error);
+      return ResponseEntity.ok(response);
     }
+  }
+
+  /** Ends the import at the first unreadable row and remembers why, instead of failing it all. */
+  private static final class ParseGuard implements Iterator<SignupRequest> {
+    private final MappingIterator<SignupRequest> rows;
+    private String error;
 
-    // Create new user's account
-    UserEntity user =
-        new UserEntity(
-            signUpRequest.getUsername(),
-            signUpRequest.getEmail(),
-            encoder.encode(signUpRequest.getPassword()));
-
-    Set<String> strRoles = signUpRequest.getRoles();
-    Set<Role> roles = new HashSet<>();
-
-    if (strRoles == null) {
-      Role userRole =
-          roleRepository
-              .findByName(ERole.ROLE_USER)
-              .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-      roles.add(userRole);
-    } else {
-      strRoles.forEach(
-          role -> {
-            switch (role) {
-              case "admin":
-                Role adminRole =
-                    roleRepository
-                        .findByName(ERole.ROLE_ADMIN)
-                        .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-                roles.add(adminRole);
-
-                break;
-              case "mod":
-                Role modRole =
-                    roleRepository
-                        .findByName(ERole.ROLE_MODERATOR)
-                        .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-                roles.add(modRole);
-
-                break;
-              default:
-                Role userRole =
-                    roleRepository
-                        .findByName(ERole.ROLE_USER)
-                        .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-                roles.add(userRole);
-            }
-          });
+    private ParseGuard(MappingIterator<SignupRequest> rows) {
+      this.rows = rows;
     }
 
-    user.setRoles(roles);
-    userRepository.save(user);
+    @Override
+    public boolean hasNext() {
+      if (error != null) {
+        return false;
+      }
+      try {
+        return rows.hasNextValue();
+      } catch (IOException e) {
+        error = "Error: Could not read row: " + e.getMessage();
+        return false;
+      }
+    }
 
-    return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
+    @Override
+    public SignupRequest next() {
+      try {
+        return rows.nextValue();
+      } catch (IOException e) {
+        error = "Error: Could not read row: " + e.getMessage();
+        throw new UncheckedIOException(error, e);
+      }
+    }
   }
 }
@@ -0,0 +1,151 @@
+package in.newdevpoint.bootcamp.controller;
+
+import in.newdevpoint.bootcamp.service.ProfileImageService;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+@RestController
+@RequestMapping("/images")
+public class ProfileImageController {
+  // Request attributes through which Tomcat's NIO connector sends a file with sendfile(2)
+  private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+  @Autowired ProfileImageService imageService;
+
+  @Value("${images.cacheMaxAgeDays:365}")
+  private long cacheMaxAgeDays;
+
+  /**
+   * Serves a profile image, or one of its resized variants, by content hash.
+   *
+   * <p>Since an image's URL is derived from its content, responses carry a strong ETag of the hash
+   * and an immutable {@code Cache-Control}, and a matching {@code If-None-Match} is answered with
+   * 304. Originals support single and multiple {@code Range} requests; when the servlet container
+   * offers sendfile, a full or single-range response is written by the kernel without copying the
+   * file through the JVM.
+   *
+   * @param hash the content hash of the image
+   * @param size an optional variant size, such as 64 or 256, to serve a thumbnail instead
+   * @param range the optional {@code Range} header
+   * @param request the current request
+   * @return the image, a 206 partial response, 304 if unchanged, or 404 if there is no such image
+   * @throws IOException if the image cannot be read
+   */
+  @GetMapping("/{hash}")
+  public ResponseEntity<?> getImage(
+      @PathVariable("hash") String hash,
+      @RequestParam(value = "size", required = false) Integer size,
+      @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+      HttpServletRequest request)
+      throws IOException {
+    String etag = "\"" + hash + (size != null ? "-" + size : "") + "\"";
+    if (new ServletWebRequest(request).checkNotModified(etag)) {
+      return null;
+    }
+    CacheControl cacheControl =
+        CacheControl.maxAge(cacheMaxAgeDays, TimeUnit.DAYS).cachePrivate().immutable();
+
+    if (size != null) {
+      return imageService
+          .variant(hash, size)
+          .<ResponseEntity<?>>map(
+              bytes ->
+                  ResponseEntity.ok()
+                      .eTag(etag)
+                      .cacheControl(cacheControl)
+                      .contentType(MediaType.IMAGE_PNG)
+                      .body(bytes))
+          .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    Optional<Path> original = imageService.original(hash);
+    if (original.isEmpty()) {
+      return ResponseEntity.notFound().build();
+    }
+    Path path = original.get();
+    MediaType contentType = imageService.contentType(path);
+
+    List<HttpRange> ranges;
+    try {
+      ranges = range != null ? HttpRange.parseRanges(range) : List.of();
+    } catch (IllegalArgumentException e) {
+      return rangeNotSatisfiable(Files.size(path));
+    }
+    if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)) && ranges.size() <= 1) {
+      return sendFile(request, path, ranges, etag, cacheControl, contentType);
+    }
+    // Spring answers Range requests for Resource bodies itself, including multipart ranges
+    return ResponseEntity.ok()
+        .eTag(etag)
+        .cacheControl(cacheControl)
+        .contentType(contentType)
+        .body(new FileSystemResource(path));
+  }
+
+  /** Hands the file, or a single range of it, to the container's sendfile support. */
+  private ResponseEntity<?> sendFile(
+      HttpServletRequest request,
+      Path path,
+      List<HttpRange> ranges,
+      String etag,
+      CacheControl cacheControl,
+      MediaType contentType)
+      throws IOException {
+    long length = Files.size(path);
+    long start = 0;
+    long end = length - 1;
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (!ranges.isEmpty()) {
+      try {
+        start = ranges.get(0).getRangeStart(length);
+        end = ranges.get(0).getRangeEnd(length);
+      } catch (IllegalArgumentException e) {
+        return rangeNotSatisfiable(length);
+      }
+      response =
+          ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+              .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+    }
+
+    request.setAttribute(SENDFILE_FILENAME, path.toString());
+    request.setAttribute(SENDFILE_START, start);
+    request.setAttribute(SENDFILE_END, end + 1);
+    return response
+        .eTag(etag)
+        .cacheControl(cacheControl)
+        .contentType(contentType)
+        .contentLength(end - start + 1)
+        .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+        .build();
+  }
+
+  private static ResponseEntity<?> rangeNotSatisfiable(long length) {
+    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+        .build();
+  }
+}
@@ -1,13 +1,18 @@
 package in.newdevpoint.bootcamp.controller;
 
 import in.newdevpoint.bootcamp.data.SampleData;
+import in.newdevpoint.bootcamp.entity.CoffeeEntity;
+import in.newdevpoint.bootcamp.http.UpstreamResult;
 import in.newdevpoint.bootcamp.service.OrderService;
 import in.newdevpoint.bootcamp.service.SystemService;
+import java.util.List;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,10 +24,15 @@ public class SystemController {
 
   private static final Logger logger = LoggerFactory.getLogger(SystemController.class);
 
+  static final String DEGRADED_REASON_HEADER = "X-Degraded-Reason";
+
   private final Environment environment;
   private final SystemService systemService;
   private final OrderService orderService;
 
+  @Value("${system.process.delayMs:2000}")
+  private long processDelayMs = 2000;
+
   /**
    * Returns the active Spring profiles and selected environment properties as a formatted string.
    *
@@ -80,17 +90,24 @@ public class SystemController {
   /**
    * Fetches data from an external API and returns the result.
    *
-   * @return the data retrieved from the external API, or a 404 response with "Data Not Found" if an
-   *     error occurs
+   * <p>When the external API is degraded and an earlier response is served instead, the response
+   * carries a {@code Warning: 110} header, an {@code X-Degraded-Reason} header and the time the
+   * data was fetched as {@code Last-Modified}. If no earlier response exists the request fails with
+   * 503 and a {@code Retry-After} header.
+   *
+   * @return the data retrieved from the external API, possibly stale
    */
   @GetMapping("/external-rest-api")
-  public Object fetchExternalApi() {
-    try {
-      return systemService.fetchExternalApi();
-    } catch (Exception e) {
-      logger.error("Error fetching external API", e);
-      return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Data Not Found");
+  public ResponseEntity<List<CoffeeEntity>> fetchExternalApi() {
+    UpstreamResult<List<CoffeeEntity>> result = systemService.fetchExternalApi();
+    if (!result.isStale()) {
+      return ResponseEntity.ok(result.getBody());
     }
+    return ResponseEntity.ok()
+        .header(HttpHeaders.WARNING, "110 - \"Response is Stale\"")
+        .header(DEGRADED_REASON_HEADER, result.getDegradedReason())
+        .lastModified(result.getFetchedAt())
+        .body(result.getBody());
   }
 
   /**
@@ -140,14 +157,15 @@ public class SystemController {
   }
 
   /**
-   * Simulates a processing delay and returns the name of the thread that handled the request.
+   * Simulates a blocking call of {@code system.process.delayMs} and returns the name of the thread
+   * that handled the request.
    *
    * @return a message indicating which thread processed the request
    */
   @GetMapping("/process")
   public String processRequest() {
     try {
-      Thread.sleep(2000);
+      Thread.sleep(processDelayMs);
     } catch (InterruptedException e) {
       logger.error("Error during process simulation", e);
       Thread.currentThread().interrupt();
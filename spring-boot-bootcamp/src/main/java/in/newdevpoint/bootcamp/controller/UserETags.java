@@ -0,0 +1,88 @@
+package in.newdevpoint.bootcamp.controller;
+
+import in.newdevpoint.bootcamp.exceptions.PreconditionFailedException;
+import in.newdevpoint.bootcamp.exceptions.PreconditionRequiredException;
+import java.util.Arrays;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Strong ETags for user representations, derived from the user's version and, for sparse fieldsets,
+ * the selected fields. An ETag looks like {@code "3"} for the full representation and {@code
+ * "3-1a2b3c"} for a sparse one, so the version can be read back from either in {@code If-Match}.
+ */
+final class UserETags {
+
+  private UserETags() {}
+
+  /**
+   * Builds the ETag of a user representation.
+   *
+   * @param version the user's version, or null for documents written before versioning
+   * @param fields the requested fields, or blank for all
+   * @return the quoted strong ETag
+   */
+  static String of(Long version, String fields) {
+    String tag = String.valueOf(version == null ? 0L : version);
+    if (StringUtils.isNotBlank(fields)) {
+      // Field order does not change the representation, so it must not change the ETag either
+      String selection =
+          Arrays.stream(fields.split(","))
+              .map(String::trim)
+              .collect(Collectors.toCollection(TreeSet::new))
+              .toString();
+      tag += "-" + Integer.toHexString(selection.hashCode());
+    }
+    return "\"" + tag + "\"";
+  }
+
+  /**
+   * Evaluates {@code If-None-Match} with the weak comparison RFC 9110 prescribes for it.
+   *
+   * @param ifNoneMatch the header value, or null
+   * @param etag the current ETag
+   * @return true if the client's copy is current and 304 should be returned
+   */
+  static boolean matchesAny(String ifNoneMatch, String etag) {
+    if (StringUtils.isBlank(ifNoneMatch)) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = StringUtils.removeStart(candidate.trim(), "W/");
+      if (tag.equals("*") || tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Reads the version a write is based on from {@code If-Match}.
+   *
+   * @param ifMatch the header value, or null
+   * @return the expected version, or null for {@code *}, which only requires the user to exist
+   * @throws PreconditionRequiredException if the header is missing
+   * @throws PreconditionFailedException if the header is not a single strong ETag of a user
+   */
+  static Long requiredVersion(String ifMatch) {
+    if (StringUtils.isBlank(ifMatch)) {
+      throw new PreconditionRequiredException(
+          "If-Match is required; send the ETag of the user this change is based on");
+    }
+    String tag = ifMatch.trim();
+    if (tag.equals("*")) {
+      return null;
+    }
+    if (!tag.startsWith("\"") || !tag.endsWith("\"") || tag.length() < 3) {
+      // Weak ETags and lists never match under the strong comparison If-Match requires
+      throw new PreconditionFailedException("If-Match must be a single strong ETag: " + tag);
+    }
+    String version = StringUtils.substringBefore(tag.substring(1, tag.length() - 1), "-");
+    try {
+      return Long.parseLong(version);
+    } catch (NumberFormatException e) {
+      throw new PreconditionFailedException("If-Match does not match the user: " + tag);
+    }
+  }
+}
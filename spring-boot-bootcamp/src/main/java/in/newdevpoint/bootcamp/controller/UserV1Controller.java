@@ -1,18 +1,27 @@
 package in.newdevpoint.bootcamp.controller;
 
 import in.newdevpoint.bootcamp.api.UsersApi;
+import in.newdevpoint.bootcamp.dto.UserBatchGetReq;
+import in.newdevpoint.bootcamp.dto.UserBatchGetRes;
+import in.newdevpoint.bootcamp.dto.UserPatch;
 import in.newdevpoint.bootcamp.dto.UserReq;
+import in.newdevpoint.bootcamp.exceptions.PreconditionFailedException;
+import in.newdevpoint.bootcamp.payload.response.CursorPageResponse;
 import in.newdevpoint.bootcamp.usecase.UserUseCase;
 import in.newdevpoint.bootcamp.utility.RoleConstants;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.CrossOrigin;
-import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
@@ -27,83 +36,202 @@ public class UserV1Controller implements UsersApi {
   /**
    * Retrieves user information by user ID.
    *
+   * <p>The response carries a strong ETag. If {@code If-None-Match} names the current ETag, HTTP
+   * 304 is returned without a body; when the user's version is already indexed in memory, MongoDB
+   * is not read at all.
+   *
    * @param userId the unique identifier of the user to retrieve
-   * @return HTTP 200 response containing the user's data
+   * @param fields comma-separated fields to return, or null for all
+   * @param ifNoneMatch ETags of the client's cached copies, or null
+   * @return HTTP 200 response containing the user's data, or 304 if the cached copy is current
    */
   @Override
   @PreAuthorize(RoleConstants.ADMIN_CRUD)
-  public ResponseEntity<UserReq> getUserById(String userId) {
-    UserReq userProfile = userUseCase.getUserById(userId);
-    return ResponseEntity.ok(userProfile);
+  public ResponseEntity<UserReq> getUserById(String userId, String fields, String ifNoneMatch) {
+    Optional<String> knownETag =
+        userUseCase.knownVersionById(userId).map(version -> UserETags.of(version, fields));
+    if (knownETag.isPresent() && UserETags.matchesAny(ifNoneMatch, knownETag.get())) {
+      return notModified(knownETag.get());
+    }
+    UserReq userProfile = userUseCase.getUserById(userId, fields);
+    return conditionalOk(userProfile, fields, ifNoneMatch);
   }
 
   /**
    * Retrieves the details of the currently authenticated user.
    *
-   * @return HTTP 200 response containing the authenticated user's information
+   * <p>Conditional requests are answered like {@link #getUserById}.
+   *
+   * @param fields comma-separated fields to return, or null for all
+   * @param ifNoneMatch ETags of the client's cached copies, or null
+   * @return HTTP 200 response containing the authenticated user's information, or 304 if the cached
+   *     copy is current
    */
   @Override
   @PreAuthorize(RoleConstants.USER_CRUD)
-  public ResponseEntity<UserReq> getUserDetails() {
+  public ResponseEntity<UserReq> getUserDetails(String fields, String ifNoneMatch) {
 
     Authentication auth = SecurityContextHolder.getContext().getAuthentication();
     String username = auth.getName();
 
-    UserReq userProfile = userUseCase.getUser(username);
+    Optional<String> knownETag =
+        userUseCase.knownVersionByUsername(username).map(version -> UserETags.of(version, fields));
+    if (knownETag.isPresent() && UserETags.matchesAny(ifNoneMatch, knownETag.get())) {
+      return notModified(knownETag.get());
+    }
+    UserReq userProfile = userUseCase.getUser(username, fields);
+
+    return conditionalOk(userProfile, fields, ifNoneMatch);
+  }
+
+  /**
+   * Resolves many users by id or username with a single query, for pages that show many authors or
+   * owners at once. Concurrent requests for the same users share one lookup.
+   *
+   * @param batchGetReq the ids and usernames to resolve
+   * @param fields comma-separated fields to return, or null for all
+   * @return HTTP 200 response with the found users keyed by id and the keys that were not found
+   */
+  @Override
+  @PreAuthorize(RoleConstants.ADMIN_CRUD)
+  public ResponseEntity<UserBatchGetRes> batchGetUsers(
+      @RequestBody UserBatchGetReq batchGetReq, String fields) {
+    return ResponseEntity.ok(userUseCase.batchGetUsers(batchGetReq, fields));
+  }
 
-    return ResponseEntity.ok(userProfile);
+  /**
+   * Suggests users for type-ahead inputs from an in-memory index of usernames and emails, instead
+   * of a regex search per keystroke.
+   *
+   * @param prefix the start of the username or email, matched ignoring case
+   * @param limit the most users to return
+   * @return HTTP 200 response with the matching users, ordered by the matched value
+   */
+  @Override
+  @PreAuthorize(RoleConstants.ADMIN_CRUD)
+  public ResponseEntity<List<UserReq>> autocompleteUsers(String prefix, Integer limit) {
+    return ResponseEntity.ok(userUseCase.autocompleteUsers(prefix, limit));
   }
 
   /**
    * Searches for users with pagination, sorting, and optional query filtering.
    *
+   * <p>In {@code offset} paging the response is a numbered page; with {@code includeTotal=false}
+   * the total count is skipped. In {@code cursor} paging the response carries a {@code nextCursor}
+   * that is passed back as {@code cursor} for the following page, and the total is only counted
+   * when {@code includeTotal=true}.
+   *
    * @param size the number of users per page
-   * @param page the page number to retrieve
    * @param sortDir the direction of sorting ("asc" or "desc")
    * @param query an optional search query to filter users
    * @param sortBy the field to sort by
+   * @param page the page number to retrieve in offset paging
+   * @param paging the paging mode, {@code offset} or {@code cursor}
+   * @param cursor the cursor of the previous page in cursor paging
+   * @param includeTotal whether to count all matching users
+   * @param fields comma-separated fields to return, or null for all
    * @return a ResponseEntity containing a paginated list of users with HTTP status 201 (Created)
    */
   @Override
   @PreAuthorize(RoleConstants.ADMIN_CRUD)
   public ResponseEntity<Object> searchUsers(
-      Integer size, Integer page, String sortDir, String query, String sortBy) {
-    Page<UserReq> userEntityList = userUseCase.searchUser(size, page, sortDir, query, sortBy);
+      Integer size,
+      String sortDir,
+      String query,
+      String sortBy,
+      Integer page,
+      String paging,
+      String cursor,
+      Boolean includeTotal,
+      String fields) {
+    if ("cursor".equalsIgnoreCase(paging)) {
+      CursorPageResponse<UserReq> userPage =
+          userUseCase.searchUserByCursor(
+              size, sortDir, query, sortBy, cursor, Boolean.TRUE.equals(includeTotal), fields);
+      return ResponseEntity.status(HttpStatus.CREATED).body(userPage);
+    }
+    if (Boolean.FALSE.equals(includeTotal)) {
+      Slice<UserReq> userSlice =
+          userUseCase.searchUserSlice(size, page, sortDir, query, sortBy, fields);
+      return ResponseEntity.status(HttpStatus.CREATED).body(userSlice);
+    }
+    Page<UserReq> userEntityList =
+        userUseCase.searchUser(size, page, sortDir, query, sortBy, fields);
     return ResponseEntity.status(HttpStatus.CREATED).body(userEntityList);
   }
 
   /**
    * Updates an existing user's information.
    *
-   * <p>If the user is found and updated, returns the updated user data with HTTP 200 OK. If the
-   * user does not exist, returns HTTP 404 Not Found.
+   * <p>If the user is found and updated, returns the updated user data and its new ETag with HTTP
+   * 200 OK. If the user does not exist, returns HTTP 404 Not Found. {@code If-Match} is required:
+   * HTTP 428 is returned without it, and HTTP 412 if the user has changed since that ETag. The
+   * version in {@code If-Match} takes precedence over one in the body.
    *
    * @param userEntity the user data to update
+   * @param ifMatch the ETag the update is based on, or {@code *}
    * @return the updated user data if successful, or 404 Not Found if the user does not exist
    */
   @Override
   @PreAuthorize(RoleConstants.ADMIN_CRUD)
-  public ResponseEntity<UserReq> updateUser(@RequestBody UserReq userEntity) {
-    UserReq updatedUserEntity = userUseCase.updateUser(userEntity);
+  public ResponseEntity<UserReq> updateUser(@RequestBody UserReq userEntity, String ifMatch) {
+    Long expectedVersion = UserETags.requiredVersion(ifMatch);
+    if (expectedVersion != null) {
+      userEntity.setVersion(expectedVersion);
+    }
+    UserReq updatedUserEntity = ifMatched(ifMatch, () -> userUseCase.updateUser(userEntity));
     if (updatedUserEntity != null) {
-      return ResponseEntity.ok(updatedUserEntity);
+      return ResponseEntity.ok()
+          .eTag(UserETags.of(updatedUserEntity.getVersion(), null))
+          .body(updatedUserEntity);
     } else {
       return ResponseEntity.notFound().build();
     }
   }
 
+  /**
+   * Partially updates a user with a JSON Merge Patch document.
+   *
+   * <p>Fields left out of the document are unchanged. Preconditions are handled like {@link
+   * #updateUser}.
+   *
+   * @param userId the ID of the user to patch
+   * @param userPatch the merge-patch document
+   * @param ifMatch the ETag the patch is based on, or {@code *}
+   * @return the updated user data and its new ETag
+   */
+  @Override
+  @PreAuthorize(RoleConstants.ADMIN_CRUD)
+  public ResponseEntity<UserReq> patchUser(
+      String userId, @RequestBody UserPatch userPatch, String ifMatch) {
+    Long expectedVersion = UserETags.requiredVersion(ifMatch);
+    if (expectedVersion != null) {
+      userPatch.setVersion(expectedVersion);
+    }
+    UserReq patchedUser = ifMatched(ifMatch, () -> userUseCase.patchUser(userId, userPatch));
+    return ResponseEntity.ok().eTag(UserETags.of(patchedUser.getVersion(), null)).body(patchedUser);
+  }
+
   /**
    * Deletes a user by their unique identifier.
    *
-   * <p>Returns HTTP 204 No Content upon successful deletion.
+   * <p>Returns HTTP 204 No Content upon successful deletion. Preconditions are handled like {@link
+   * #updateUser}.
    *
-   * @param id the unique identifier of the user to delete
+   * @param userId the unique identifier of the user to delete
+   * @param ifMatch the ETag the deletion is based on, or {@code *}
    * @return a response entity with HTTP 204 status if deletion is successful
    */
   @Override
   @PreAuthorize(RoleConstants.ADMIN_CRUD)
-  public ResponseEntity<Void> deleteUser(@PathVariable String id) {
-    userUseCase.deleteUser(id);
+  public ResponseEntity<Void> deleteUser(String userId, String ifMatch) {
+    Long expectedVersion = UserETags.requiredVersion(ifMatch);
+    ifMatched(
+        ifMatch,
+        () -> {
+          userUseCase.deleteUser(userId, expectedVersion);
+          return null;
+        });
     return ResponseEntity.noContent().build();
   }
 
@@ -122,4 +250,26 @@ public class UserV1Controller implements UsersApi {
 
     return ResponseEntity.ok(updatedUserEntity);
   }
+
+  private static ResponseEntity<UserReq> notModified(String etag) {
+    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+  }
+
+  private static ResponseEntity<UserReq> conditionalOk(
+      UserReq userProfile, String fields, String ifNoneMatch) {
+    String etag = UserETags.of(userProfile.getVersion(), fields);
+    if (UserETags.matchesAny(ifNoneMatch, etag)) {
+      return notModified(etag);
+    }
+    return ResponseEntity.ok().eTag(etag).body(userProfile);
+  }
+
+  /** Runs a write guarded by {@code If-Match}, answering a lost race with 412 instead of 409. */
+  private static <T> T ifMatched(String ifMatch, Supplier<T> write) {
+    try {
+      return write.get();
+    } catch (OptimisticLockingFailureException e) {
+      throw new PreconditionFailedException("User has changed since ETag " + ifMatch);
+    }
+  }
 }
@@ -0,0 +1,253 @@
+package in.newdevpoint.bootcamp.diagnostics;
+
+import in.newdevpoint.bootcamp.entity.ExceptionLog;
+import in.newdevpoint.bootcamp.utility.RingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Persists captured exceptions to the {@code exception_logs} collection off the request threads.
+ *
+ * <p>{@link #capture} only places the exception on a bounded lock-free {@link RingBuffer}; when the
+ * buffer is full the event is dropped and counted rather than blocking the caller. A background
+ * thread drains the buffer in batches of up to {@code exceptions.capture.batchSize}, formats the
+ * stack traces, and folds identical ones together by a fingerprint of the exception type and stack
+ * frames. Each batch is written with one unordered bulk upsert keyed by fingerprint, which inserts
+ * new failures and increments {@code occurrences} of known ones.
+ *
+ * <p>Published metrics: {@code exceptions.capture.captured}, {@code exceptions.capture.dropped},
+ * {@code exceptions.capture.failed} (events lost to a failed write) and {@code
+ * exceptions.capture.queue}.
+ */
+@Component
+public class ExceptionLogPipeline {
+  private static final Logger logger = LoggerFactory.getLogger(ExceptionLogPipeline.class);
+
+  private static final int MAX_FRAMES = 100;
+
+  private final MongoTemplate template;
+  private final RingBuffer<CapturedException> buffer;
+  private final int batchSize;
+  private final long flushIntervalNanos;
+  private final boolean enabled;
+  private final Counter captured;
+  private final Counter dropped;
+  private final Counter failed;
+
+  private volatile boolean running;
+  private Thread drainer;
+
+  public ExceptionLogPipeline(
+      MongoTemplate template,
+      MeterRegistry meterRegistry,
+      @Value("${exceptions.capture.enabled:true}") boolean enabled,
+      @Value("${exceptions.capture.bufferSize:1024}") int bufferSize,
+      @Value("${exceptions.capture.batchSize:100}") int batchSize,
+      @Value("${exceptions.capture.flushIntervalMs:1000}") long flushIntervalMs) {
+    this.template = template;
+    this.enabled = enabled;
+    this.buffer = new RingBuffer<>(bufferSize);
+    this.batchSize = batchSize;
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+    this.captured = meterRegistry.counter("exceptions.capture.captured");
+    this.dropped = meterRegistry.counter("exceptions.capture.dropped");
+    this.failed = meterRegistry.counter("exceptions.capture.failed");
+    Gauge.builder("exceptions.capture.queue", buffer, RingBuffer::size).register(meterRegistry);
+  }
+
+  /** Starts the background thread that drains the buffer. */
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    drainer = new Thread(this::drainLoop, "exception-log-drainer");
+    drainer.setDaemon(true);
+    drainer.start();
+  }
+
+  /** Stops the background thread after writing whatever is still buffered. */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    if (drainer != null) {
+      LockSupport.unpark(drainer);
+      drainer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+  }
+
+  /**
+   * Queues an exception for persistence without blocking.
+   *
+   * @param exception the exception
+   * @param className the simple name of the class that threw or propagated it
+   * @param methodName the name of the method that threw or propagated it
+   * @return false if the exception was dropped because the buffer is full or capture is disabled
+   */
+  public boolean capture(Throwable exception, String className, String methodName) {
+    if (!enabled) {
+      return false;
+    }
+    if (buffer.offer(
+        new CapturedException(exception, className, methodName, System.currentTimeMillis()))) {
+      captured.increment();
+      return true;
+    }
+    dropped.increment();
+    return false;
+  }
+
+  /**
+   * Drains and writes up to one batch of buffered exceptions.
+   *
+   * @return the number of exceptions drained
+   */
+  int drainBatch() {
+    Map<String, ExceptionGroup> groups = new LinkedHashMap<>();
+    int drained = 0;
+    CapturedException event;
+    while (drained < batchSize && (event = buffer.poll()) != null) {
+      drained++;
+      String stackTrace = format(event.exception);
+      String fingerprint = fingerprint(event.exception.getClass().getName(), stackTrace);
+      ExceptionGroup group = groups.get(fingerprint);
+      if (group == null) {
+        groups.put(fingerprint, new ExceptionGroup(event, stackTrace));
+      } else {
+        group.add(event);
+      }
+    }
+    if (groups.isEmpty()) {
+      return 0;
+    }
+
+    BulkOperations bulk = template.bulkOps(BulkOperations.BulkMode.UNORDERED, ExceptionLog.class);
+    groups.forEach(
+        (fingerprint, group) ->
+            bulk.upsert(Query.query(Criteria.where("_id").is(fingerprint)), group.toUpdate()));
+    try {
+      bulk.execute();
+    } catch (DataAccessException e) {
+      failed.increment(drained);
+      logger.warn("Could not write {} exception logs: {}", drained, e.getMessage());
+    }
+    return drained;
+  }
+
+  private void drainLoop() {
+    while (running) {
+      try {
+        if (drainBatch() < batchSize) {
+          LockSupport.parkNanos(flushIntervalNanos);
+        }
+      } catch (RuntimeException e) {
+        logger.warn("Exception log drain failed: {}", e.getMessage());
+      }
+    }
+    while (drainBatch() > 0) {
+      // Flush what was captured before shutdown
+    }
+  }
+
+  private static String format(Throwable exception) {
+    StackTraceElement[] frames = exception.getStackTrace();
+    StringBuilder stackTrace = new StringBuilder(exception.getClass().getName());
+    int limit = Math.min(frames.length, MAX_FRAMES);
+    for (int i = 0; i < limit; i++) {
+      stackTrace.append("\n\tat ").append(frames[i]);
+    }
+    if (frames.length > limit) {
+      stackTrace.append("\n\t... ").append(frames.length - limit).append(" more");
+    }
+    if (exception.getCause() != null && exception.getCause() != exception) {
+      stackTrace.append("\nCaused by: ").append(exception.getCause().getClass().getName());
+    }
+    return stackTrace.toString();
+  }
+
+  private static String fingerprint(String exceptionClass, String stackTrace) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(exceptionClass.getBytes(StandardCharsets.UTF_8));
+      digest.update(stackTrace.getBytes(StandardCharsets.UTF_8));
+      return String.format("%064x", new BigInteger(1, digest.digest()));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static final class CapturedException {
+    private final Throwable exception;
+    private final String className;
+    private final String methodName;
+    private final long timestamp;
+
+    private CapturedException(
+        Throwable exception, String className, String methodName, long timestamp) {
+      this.exception = exception;
+      this.className = className;
+      this.methodName = methodName;
+      this.timestamp = timestamp;
+    }
+  }
+
+  /** Identical exceptions drained in one batch, written as a single upsert. */
+  private static final class ExceptionGroup {
+    private final CapturedException first;
+    private final String stackTrace;
+    private CapturedException last;
+    private long count = 1;
+
+    private ExceptionGroup(CapturedException first, String stackTrace) {
+      this.first = first;
+      this.last = first;
+      this.stackTrace = stackTrace;
+    }
+
+    private void add(CapturedException event) {
+      last = event;
+      count++;
+    }
+
+    private Update toUpdate() {
+      return new Update()
+          .setOnInsert("exceptionClass", first.exception.getClass().getName())
+          .setOnInsert("stackTrace", stackTrace)
+          .setOnInsert("className", first.className)
+          .setOnInsert("methodName", first.methodName)
+          .setOnInsert(
+              "timestamp",
+              DateTimeFormatter.ISO_DATE_TIME.format(
+                  Instant.ofEpochMilli(first.timestamp).atZone(ZoneId.systemDefault())))
+          .set("exceptionMessage", last.exception.getMessage())
+          .set("lastSeen", new Date(last.timestamp))
+          .inc("occurrences", count);
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package in.newdevpoint.bootcamp.diagnostics;
+
+import com.mongodb.MongoException;
+import in.newdevpoint.bootcamp.config.MongoIndexBootstrapper;
+import in.newdevpoint.bootcamp.diagnostics.QueryShapeRecorder.QueryShape;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint ({@code /actuator/queryshapes}) that explains the most frequent recorded query
+ * shapes.
+ *
+ * <p>Each of the top shapes is explained with its sample filter and sort at {@code queryPlanner}
+ * verbosity. Plans that scan the whole collection are flagged with {@code collscan}, and plans that
+ * sort in memory with {@code blockingSort}. The response also lists the expected indexes that were
+ * missing at startup.
+ */
+@Component
+@Endpoint(id = "queryshapes")
+public class QueryShapeEndpoint {
+  private final QueryShapeRecorder recorder;
+  private final MongoTemplate template;
+  private final MongoIndexBootstrapper indexBootstrapper;
+  private final int defaultTop;
+
+  public QueryShapeEndpoint(
+      QueryShapeRecorder recorder,
+      MongoTemplate template,
+      MongoIndexBootstrapper indexBootstrapper,
+      @Value("${diagnostics.queryShapes.top:10}") int defaultTop) {
+    this.recorder = recorder;
+    this.template = template;
+    this.indexBootstrapper = indexBootstrapper;
+    this.defaultTop = defaultTop;
+  }
+
+  /**
+   * Explains the most frequently executed query shapes.
+   *
+   * @param top the number of shapes to explain, defaults to {@code diagnostics.queryShapes.top}
+   * @return the explained shapes, the number of untracked executions and the missing indexes
+   */
+  @ReadOperation
+  public Map<String, Object> queryShapes(@Nullable Integer top) {
+    String database = template.getDb().getName();
+    List<Map<String, Object>> explained = new ArrayList<>();
+    for (QueryShape shape : recorder.top(top == null ? defaultTop : top)) {
+      Map<String, Object> entry = new LinkedHashMap<>();
+      entry.put("shape", shape.getShape());
+      entry.put("executions", shape.getExecutions());
+      if (database.equals(shape.getDatabase())) {
+        explain(shape, entry);
+      }
+      explained.add(entry);
+    }
+
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("shapes", explained);
+    result.put("droppedExecutions", recorder.getDropped());
+    result.put("missingIndexes", indexBootstrapper.getMissingIndexes());
+    return result;
+  }
+
+  /** Forgets all recorded shapes, e.g. after indexes were added. */
+  @DeleteOperation
+  public void reset() {
+    recorder.reset();
+  }
+
+  private void explain(QueryShape shape, Map<String, Object> entry) {
+    Document find =
+        new Document("find", shape.getCollection())
+            .append("filter", shape.getSampleFilter())
+            .append("sort", shape.getSampleSort());
+    try {
+      Document explain =
+          template
+              .getDb()
+              .runCommand(new Document("explain", find).append("verbosity", "queryPlanner"));
+      Object winningPlan = ((Document) explain.get("queryPlanner")).get("winningPlan");
+      Set<String> stages = new LinkedHashSet<>();
+      collectStages(winningPlan, stages);
+      entry.put("stages", stages);
+      entry.put("collscan", stages.contains("COLLSCAN"));
+      entry.put("blockingSort", stages.contains("SORT"));
+    } catch (MongoException e) {
+      entry.put("error", e.getMessage());
+    }
+  }
+
+  /** Collects the stage names of a plan tree, whatever its nesting ({@code inputStage(s)}). */
+  private static void collectStages(Object node, Set<String> stages) {
+    if (node instanceof Document) {
+      Document document = (Document) node;
+      Object stage = document.get("stage");
+      if (stage instanceof String) {
+        stages.add((String) stage);
+      }
+      document.values().forEach(value -> collectStages(value, stages));
+    } else if (node instanceof List) {
+      ((List<?>) node).forEach(value -> collectStages(value, stages));
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package in.newdevpoint.bootcamp.diagnostics;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the shapes of the queries the application sends to MongoDB.
+ *
+ * <p>Registered as a driver {@link CommandListener}. For every {@code find}, {@code count}, {@code
+ * distinct} and {@code findAndModify} it derives a shape from the filter's structure and the sort,
+ * with every literal replaced by {@code ?}, and counts executions per shape. The first filter and
+ * sort seen for a shape are kept as a sample so the shape can be explained later. At most {@code
+ * diagnostics.queryShapes.maxShapes} shapes are tracked; further new shapes are only counted as
+ * dropped.
+ */
+@Component
+public class QueryShapeRecorder implements CommandListener, MongoClientSettingsBuilderCustomizer {
+  private static final Set<String> RECORDED_COMMANDS =
+      Set.of("find", "count", "distinct", "findAndModify");
+
+  private final Map<String, QueryShape> shapes = new ConcurrentHashMap<>();
+  private final LongAdder dropped = new LongAdder();
+  private final int maxShapes;
+
+  public QueryShapeRecorder(@Value("${diagnostics.queryShapes.maxShapes:200}") int maxShapes) {
+    this.maxShapes = maxShapes;
+  }
+
+  @Override
+  public void customize(MongoClientSettings.Builder builder) {
+    builder.addCommandListener(this);
+  }
+
+  @Override
+  public void commandStarted(CommandStartedEvent event) {
+    String commandName = event.getCommandName();
+    if (!RECORDED_COMMANDS.contains(commandName)) {
+      return;
+    }
+    BsonDocument command = event.getCommand();
+    if (!command.isString(commandName)) {
+      return;
+    }
+    String collection = command.getString(commandName).getValue();
+    BsonDocument filter = document(command, commandName.equals("find") ? "filter" : "query");
+    BsonDocument sort = document(command, "sort");
+    String key =
+        event.getDatabaseName()
+            + '.'
+            + collection
+            + ' '
+            + shapeOf(filter)
+            + (sort.isEmpty() ? "" : " sort " + sort.toJson());
+
+    QueryShape shape = shapes.get(key);
+    if (shape == null) {
+      if (shapes.size() >= maxShapes) {
+        dropped.increment();
+        return;
+      }
+      // Command documents may be backed by pooled buffers, so the sample is copied
+      shape =
+          shapes.computeIfAbsent(
+              key,
+              k ->
+                  new QueryShape(
+                      k,
+                      event.getDatabaseName(),
+                      collection,
+                      Document.parse(filter.toJson()),
+                      Document.parse(sort.toJson())));
+    }
+    shape.executions.increment();
+  }
+
+  /**
+   * Returns the most frequently executed shapes.
+   *
+   * @param limit the maximum number of shapes to return
+   * @return the shapes ordered by execution count, highest first
+   */
+  public List<QueryShape> top(int limit) {
+    return shapes.values().stream()
+        .sorted(Comparator.comparingLong(QueryShape::getExecutions).reversed())
+        .limit(limit)
+        .collect(Collectors.toCollection(ArrayList::new));
+  }
+
+  /**
+   * Returns the number of executions of shapes that were not tracked because the limit was reached.
+   *
+   * @return the number of dropped executions
+   */
+  public long getDropped() {
+    return dropped.sum();
+  }
+
+  /** Forgets all recorded shapes. */
+  public void reset() {
+    shapes.clear();
+    dropped.reset();
+  }
+
+  private static BsonDocument document(BsonDocument command, String key) {
+    BsonValue value = command.get(key);
+    return value != null && value.isDocument() ? value.asDocument() : new BsonDocument();
+  }
+
+  /**
+   * Renders the structure of a filter with its literals replaced by {@code ?}. Arrays of documents,
+   * such as the operands of {@code $and}, keep their structure; arrays of values, such as the
+   * operand of {@code $in}, collapse to {@code [?]}.
+   */
+  static String shapeOf(BsonValue value) {
+    if (value.isDocument()) {
+      StringBuilder shape = new StringBuilder("{");
+      for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+        if (shape.length() > 1) {
+          shape.append(", ");
+        }
+        shape.append(entry.getKey()).append(": ").append(shapeOf(entry.getValue()));
+      }
+      return shape.append('}').toString();
+    }
+    if (value.isArray()) {
+      List<BsonValue> values = value.asArray().getValues();
+      if (!values.isEmpty() && values.get(0).isDocument()) {
+        return values.stream()
+            .map(QueryShapeRecorder::shapeOf)
+            .collect(Collectors.joining(", ", "[", "]"));
+      }
+      return "[?]";
+    }
+    return "?";
+  }
+
+  /** A recorded query shape with its execution count and a sample filter and sort. */
+  public static final class QueryShape {
+    private final String shape;
+    private final String database;
+    private final String collection;
+    private final Document sampleFilter;
+    private final Document sampleSort;
+    private final LongAdder executions = new LongAdder();
+
+    QueryShape(
+        String shape,
+        String database,
+        String collection,
+        Document sampleFilter,
+        Document sampleSort) {
+      this.shape = shape;
+      this.database = database;
+      this.collection = collection;
+      this.sampleFilter = sampleFilter;
+      this.sampleSort = sampleSort;
+    }
+
+    public String getShape() {
+      return shape;
+    }
+
+    public String getDatabase() {
+      return database;
+    }
+
+    public String getCollection() {
+      return collection;
+    }
+
+    public Document getSampleFilter() {
+      return sampleFilter;
+    }
+
+    public Document getSampleSort() {
+      return sampleSort;
+    }
+
+    public long getExecutions() {
+      return executions.sum();
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package in.newdevpoint.bootcamp.diagnostics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread when the application runs
+ * with {@code spring.threads.virtual.enabled=true}.
+ *
+ * <p>A pinned virtual thread holds its carrier for the whole time it is blocked, so a few of them
+ * inside a {@code synchronized} block or below a native frame can starve the small carrier pool.
+ * From startup on, this monitor subscribes to the JFR {@code jdk.VirtualThreadPinned} event with a
+ * threshold of {@code diagnostics.pinning.thresholdMs}. Each pinning is counted under {@code
+ * jvm.threads.virtual.pinned}, tagged with whether a native frame is on the stack, and the first
+ * occurrence per call site is logged with its stack.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+  private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+  static final String EVENT = "jdk.VirtualThreadPinned";
+
+  private static final String CONTINUATION = "jdk.internal.vm.Continuation";
+
+  private static final int MAX_REPORTED_SITES = 1000;
+  private static final int LOGGED_FRAMES = 12;
+
+  private final MeterRegistry meterRegistry;
+  private final boolean enabled;
+  private final Duration threshold;
+  private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+
+  private RecordingStream stream;
+
+  public VirtualThreadPinningMonitor(
+      MeterRegistry meterRegistry,
+      @Value("${diagnostics.pinning.enabled:true}") boolean enabled,
+      @Value("${diagnostics.pinning.thresholdMs:20}") long thresholdMs) {
+    this.meterRegistry = meterRegistry;
+    this.enabled = enabled;
+    this.threshold = Duration.ofMillis(thresholdMs);
+  }
+
+  /** Starts the JFR event stream in the background. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    stream = new RecordingStream();
+    stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+    stream.onEvent(EVENT, this::onPinned);
+    stream.onError(e -> logger.warn("Virtual thread pinning stream failed", e));
+    stream.startAsync();
+    logger.info("Reporting virtual threads pinned for longer than {} ms", threshold.toMillis());
+  }
+
+  /** Stops the event stream. */
+  @PreDestroy
+  public void stop() {
+    if (stream != null) {
+      stream.close();
+    }
+  }
+
+  /** Counts a pinning event and logs the first one seen at each call site. */
+  void onPinned(RecordedEvent event) {
+    RecordedStackTrace stackTrace = event.getStackTrace();
+    List<RecordedFrame> frames = stackTrace == null ? List.of() : stackTrace.getFrames();
+    String cause = hasNative(frames) ? "native" : "monitor";
+    meterRegistry.counter("jvm.threads.virtual.pinned", "cause", cause).increment();
+
+    String site = callSite(frames);
+    if (reportedSites.size() < MAX_REPORTED_SITES && reportedSites.add(site)) {
+      logger.warn(
+          "Virtual thread pinned for {} ms ({}) at {}:\n\t{}",
+          event.getDuration().toMillis(),
+          cause,
+          site,
+          frames.stream()
+              .limit(LOGGED_FRAMES)
+              .map(VirtualThreadPinningMonitor::describe)
+              .collect(Collectors.joining("\n\t")));
+    } else {
+      logger.debug(
+          "Virtual thread pinned for {} ms ({}) at {}",
+          event.getDuration().toMillis(),
+          cause,
+          site);
+    }
+  }
+
+  /**
+   * Tells whether a native frame sits between the blocking call and the start of the virtual
+   * thread. The frames below that start belong to the continuation machinery, which always includes
+   * a native entry frame.
+   */
+  private static boolean hasNative(List<RecordedFrame> frames) {
+    for (RecordedFrame frame : frames) {
+      if (frame.getMethod().getType().getName().equals(CONTINUATION)) {
+        return false;
+      }
+      if ("Native".equals(frame.getType())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns the first frame outside the JDK, which is usually the code that needs changing. */
+  private static String callSite(List<RecordedFrame> frames) {
+    return frames.stream()
+        .filter(frame -> !isJdkFrame(frame))
+        .findFirst()
+        .or(() -> frames.stream().findFirst())
+        .map(VirtualThreadPinningMonitor::describe)
+        .orElse("unknown");
+  }
+
+  private static boolean isJdkFrame(RecordedFrame frame) {
+    String type = frame.getMethod().getType().getName();
+    return type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.");
+  }
+
+  private static String describe(RecordedFrame frame) {
+    return frame.getMethod().getType().getName()
+        + "."
+        + frame.getMethod().getName()
+        + ":"
+        + frame.getLineNumber();
+  }
+}
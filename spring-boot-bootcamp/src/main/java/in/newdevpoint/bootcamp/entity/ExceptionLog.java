@@ -1,18 +1,26 @@
 package in.newdevpoint.bootcamp.entity;
 
+import java.util.Date;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+/**
+ * One distinct failure. Exceptions with the same type and stack trace share a document, keyed by
+ * their fingerprint, and are counted in {@link #occurrences}.
+ */
 @Document(collection = "exception_logs")
 @Data
 public class ExceptionLog {
-  @Id private String id;
+  @Id private String id; // Fingerprint of the exception type and stack trace
+  private String exceptionClass;
   private String exceptionMessage;
   private String stackTrace;
   private String methodName;
   private String className;
-  private String timestamp;
+  private String timestamp; // First occurrence, ISO-8601
+  private Date lastSeen;
+  private long occurrences;
 
   // Getters and setters
 }
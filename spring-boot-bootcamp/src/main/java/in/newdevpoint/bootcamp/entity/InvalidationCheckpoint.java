@@ -0,0 +1,23 @@
+package in.newdevpoint.bootcamp.entity;
+
+import java.util.Date;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * The position in MongoDB's change stream up to which a node has invalidated its caches, so the
+ * node can resume from there after a restart. Stored under the node id.
+ */
+@Document(collection = "cache_invalidation_checkpoints")
+@Data
+@NoArgsConstructor
+public class InvalidationCheckpoint {
+  @Id private String id;
+
+  // Change stream resume token as extended JSON
+  private String resumeToken;
+
+  private Date updatedAt;
+}
@@ -0,0 +1,30 @@
+package in.newdevpoint.bootcamp.entity;
+
+import java.util.Date;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/** An email that could not be sent yet and is waiting for its next attempt. */
+@Document(collection = "mail_outbox")
+@Data
+@NoArgsConstructor
+public class MailOutboxEntry {
+  public enum Status {
+    PENDING,
+    DEAD
+  }
+
+  @Id private String id;
+  private String recipient;
+  private String subject;
+  private String body;
+  private Status status = Status.PENDING;
+  private int attempts;
+  private Date nextAttemptAt;
+  private String lastError;
+  private Date createdAt;
+  // Token of the poll that last claimed the entry
+  private String claimToken;
+}
@@ -0,0 +1,32 @@
+package in.newdevpoint.bootcamp.entity;
+
+import java.util.Date;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A revoked JWT, or every token of a user issued before a forced sign-out.
+ *
+ * <p>A single token is stored under its {@code jti} claim. A forced sign-out is stored under {@code
+ * sub:<username>} with {@link #notBefore} set. Both are removed by a TTL index on {@link
+ * #expiresAt} once the tokens they revoke have expired anyway.
+ */
+@Document(collection = "revoked_tokens")
+@Data
+@NoArgsConstructor
+public class RevokedToken {
+  public static final String SUBJECT_PREFIX = "sub:";
+
+  @Id private String id;
+
+  private String subject;
+
+  // Tokens of the subject issued before this instant are revoked; only set for forced sign-outs
+  private Date notBefore;
+
+  private Date revokedAt;
+
+  private Date expiresAt;
+}
@@ -26,7 +26,10 @@ public class User {
   @Size(max = 120)
   private String password;
 
-  @DBRef private Set<Role> roles = new HashSet<>();
+  @DBRef(lazy = true)
+  private Set<Role> roles = new HashSet<>();
+
+  private Set<ERole> roleNames = new HashSet<>();
 
   public User() {}
 
@@ -75,4 +78,12 @@ public class User {
   public void setRoles(Set<Role> roles) {
     this.roles = roles;
   }
+
+  public Set<ERole> getRoleNames() {
+    return roleNames;
+  }
+
+  public void setRoleNames(Set<ERole> roleNames) {
+    this.roleNames = roleNames;
+  }
 }
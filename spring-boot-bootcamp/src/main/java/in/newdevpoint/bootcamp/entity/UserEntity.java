@@ -2,6 +2,7 @@ package in.newdevpoint.bootcamp.entity;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.stream.Collectors;
 import lombok.Data;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
@@ -14,11 +15,43 @@ public class UserEntity {
   private String password;
   private String email;
   private String profileImage;
-  @DBRef private Set<Role> roles = new HashSet<>();
+
+  // SHA-256 of the profile image, which is also its content-addressed storage key
+  private String profileImageHash;
+
+  // Legacy role references; lazy so reads that never look at roles do not resolve them
+  @DBRef(lazy = true)
+  private Set<Role> roles = new HashSet<>();
+
+  // Role snapshot embedded in the user document (users.embeddedRoles=true)
+  private Set<ERole> roleNames = new HashSet<>();
+
+  // Optimistic lock version, incremented by every update; absent on documents written before it
+  private Long version;
+
+  // Version carried in stateless tokens, incremented only by changes to what a token asserts
+  // (username, email, roles) and by forced sign-outs; absent on documents written before it
+  private Long tokenVersion;
 
   public UserEntity(String username, String email, String password) {
     this.username = username;
     this.email = email;
     this.password = password;
   }
+
+  /**
+   * Returns the user's role names, preferring the embedded snapshot and falling back to the role
+   * references for documents written before roles were embedded.
+   *
+   * @return the role names of this user
+   */
+  public Set<ERole> resolveRoleNames() {
+    if (roleNames != null && !roleNames.isEmpty()) {
+      return roleNames;
+    }
+    if (roles == null) {
+      return Set.of();
+    }
+    return roles.stream().map(Role::getName).collect(Collectors.toSet());
+  }
 }
@@ -0,0 +1,21 @@
+package in.newdevpoint.bootcamp.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Application event published by the cache invalidation bus when a product document has changed on
+ * any node. In-memory views of products listen for it to drop their entries.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class ProductChangedEvent {
+
+  /** Id of the changed product, or null when any product may have changed. */
+  private final String productId;
+
+  /** Whether the write was observed in MongoDB's change stream rather than made by this node. */
+  private final boolean remote;
+}
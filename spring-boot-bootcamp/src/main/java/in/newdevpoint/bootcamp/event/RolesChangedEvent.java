@@ -0,0 +1,10 @@
+package in.newdevpoint.bootcamp.event;
+
+import lombok.ToString;
+
+/**
+ * Application event published after role documents have been (re)created. Anything that holds roles
+ * or authorities derived from them in memory should reload.
+ */
+@ToString
+public class RolesChangedEvent {}
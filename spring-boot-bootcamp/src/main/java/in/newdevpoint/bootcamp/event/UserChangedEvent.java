@@ -0,0 +1,48 @@
+package in.newdevpoint.bootcamp.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Application event published after a user document has been written. In-memory views of users
+ * (token versions, principal caches, indexes) listen for it to drop or refresh their entries.
+ *
+ * <p>Writes made on another node arrive through the cache invalidation bus as remote events. A
+ * remote event without user id and username means any user may have changed.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class UserChangedEvent {
+
+  /** Kind of write that produced the event. */
+  public enum Type {
+    CREATED,
+    UPDATED,
+    DELETED
+  }
+
+  private final Type type;
+
+  private final String userId;
+
+  /** Username after the write, or null when it is not known (for example on delete by id). */
+  private final String username;
+
+  /** Whether the write was observed in MongoDB's change stream rather than made by this node. */
+  private final boolean remote;
+
+  public UserChangedEvent(Type type, String userId, String username) {
+    this(type, userId, username, false);
+  }
+
+  /**
+   * Tells whether the event covers all users rather than a single one.
+   *
+   * @return true if neither a user id nor a username is known
+   */
+  public boolean isAllUsers() {
+    return userId == null && username == null;
+  }
+}
@@ -0,0 +1,25 @@
+package in.newdevpoint.bootcamp.exceptions;
+
+/**
+ * Exception thrown when an external dependency cannot be reached and no earlier response is
+ * available to fall back on. It is answered with HTTP 503 and a {@code Retry-After} header.
+ */
+public class DependencyUnavailableException extends RuntimeException {
+  private final String dependency;
+  private final long retryAfterSeconds;
+
+  public DependencyUnavailableException(
+      String dependency, String message, long retryAfterSeconds, Throwable cause) {
+    super(message, cause);
+    this.dependency = dependency;
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public String getDependency() {
+    return dependency;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
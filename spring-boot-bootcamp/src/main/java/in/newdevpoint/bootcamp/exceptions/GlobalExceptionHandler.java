@@ -1,6 +1,9 @@
 package in.newdevpoint.bootcamp.exceptions;
 
 import in.newdevpoint.bootcamp.entity.ErrorResponse;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -21,6 +24,56 @@ public class GlobalExceptionHandler {
         .body(new ErrorResponse(exception.getMessage()));
   }
 
+  @ExceptionHandler({ValidationException.class})
+  public ResponseEntity<Object> handleValidationException(ValidationException exception) {
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+        .body(new ErrorResponse(exception.getMessage()));
+  }
+
+  @ExceptionHandler({OptimisticLockingFailureException.class})
+  public ResponseEntity<Object> handleOptimisticLockingFailureException(
+      OptimisticLockingFailureException exception) {
+    return ResponseEntity.status(HttpStatus.CONFLICT)
+        .body(new ErrorResponse(exception.getMessage()));
+  }
+
+  // A unique index rejected the write, e.g. a patch to a username or email another user has
+  @ExceptionHandler({DuplicateKeyException.class})
+  public ResponseEntity<Object> handleDuplicateKeyException(DuplicateKeyException exception) {
+    return ResponseEntity.status(HttpStatus.CONFLICT)
+        .body(new ErrorResponse("Username or email is already in use"));
+  }
+
+  @ExceptionHandler({PreconditionFailedException.class})
+  public ResponseEntity<Object> handlePreconditionFailedException(
+      PreconditionFailedException exception) {
+    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+        .body(new ErrorResponse(exception.getMessage()));
+  }
+
+  @ExceptionHandler({PreconditionRequiredException.class})
+  public ResponseEntity<Object> handlePreconditionRequiredException(
+      PreconditionRequiredException exception) {
+    return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED)
+        .body(new ErrorResponse(exception.getMessage()));
+  }
+
+  @ExceptionHandler({ServiceOverloadedException.class})
+  public ResponseEntity<Object> handleServiceOverloadedException(
+      ServiceOverloadedException exception) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+        .body(new ErrorResponse(exception.getMessage()));
+  }
+
+  @ExceptionHandler({DependencyUnavailableException.class})
+  public ResponseEntity<Object> handleDependencyUnavailableException(
+      DependencyUnavailableException exception) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+        .body(new ErrorResponse(exception.getMessage()));
+  }
+
   @ExceptionHandler({RuntimeException.class})
   public ResponseEntity<Object> handleRuntimeException(RuntimeException exception) {
     return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,11 @@
+package in.newdevpoint.bootcamp.exceptions;
+
+/**
+ * Exception thrown when the ETag in {@code If-Match} no longer matches the resource, because
+ * another client changed it in the meantime. It is answered with HTTP 412.
+ */
+public class PreconditionFailedException extends RuntimeException {
+  public PreconditionFailedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,11 @@
+package in.newdevpoint.bootcamp.exceptions;
+
+/**
+ * Exception thrown when a write arrives without the {@code If-Match} header it requires. It is
+ * answered with HTTP 428 so clients learn to send the ETag they based the change on.
+ */
+public class PreconditionRequiredException extends RuntimeException {
+  public PreconditionRequiredException(String message) {
+    super(message);
+  }
+}
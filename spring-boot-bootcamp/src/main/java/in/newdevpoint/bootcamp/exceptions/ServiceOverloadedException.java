@@ -0,0 +1,18 @@
+package in.newdevpoint.bootcamp.exceptions;
+
+/**
+ * Exception thrown when a bounded resource cannot accept more work. It is answered with HTTP 503
+ * and a {@code Retry-After} header so callers back off instead of piling up.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+  private final long retryAfterSeconds;
+
+  public ServiceOverloadedException(String message, long retryAfterSeconds) {
+    super(message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
@@ -0,0 +1,190 @@
+package in.newdevpoint.bootcamp.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * A fully buffered upstream response together with the freshness information derived from its
+ * caching headers. Instances are immutable and can be replayed to any number of callers.
+ */
+class CachedResponse {
+  private final int status;
+  private final HttpHeaders headers;
+  private final byte[] body;
+  private final long storedAt;
+  private final long freshMs;
+  private final long staleWhileRevalidateMs;
+  private final boolean noStore;
+
+  private CachedResponse(
+      int status,
+      HttpHeaders headers,
+      byte[] body,
+      long storedAt,
+      HttpClientProperties.Cache cache) {
+    this.status = status;
+    this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+    this.body = body;
+    this.storedAt = storedAt;
+
+    long maxAgeMs = -1;
+    long swrMs = cache.getStaleWhileRevalidateMs();
+    boolean noStore = false;
+    List<String> directives = directives(headers);
+    for (String directive : directives) {
+      if (directive.equals("no-store")) {
+        noStore = true;
+      } else if (directive.equals("must-revalidate") || directive.equals("proxy-revalidate")) {
+        swrMs = 0;
+      } else if (directive.startsWith("max-age=")) {
+        maxAgeMs = Math.max(maxAgeMs, seconds(directive) * 1000);
+      } else if (directive.startsWith("stale-while-revalidate=")) {
+        swrMs = seconds(directive) * 1000;
+      }
+    }
+    if (directives.contains("no-cache")) {
+      maxAgeMs = 0;
+      swrMs = 0;
+    }
+    if (maxAgeMs < 0 && headers.getExpires() >= 0) {
+      long date = headers.getDate() >= 0 ? headers.getDate() : storedAt;
+      maxAgeMs = Math.max(0, headers.getExpires() - date);
+    }
+    if (maxAgeMs < 0) {
+      maxAgeMs = cache.getDefaultTtlMs();
+    }
+    String age = headers.getFirst(HttpHeaders.AGE);
+    if (age != null && age.matches("\\d+")) {
+      maxAgeMs = Math.max(0, maxAgeMs - Long.parseLong(age) * 1000);
+    }
+    this.freshMs = maxAgeMs;
+    this.staleWhileRevalidateMs = swrMs;
+    this.noStore = noStore || "*".equals(headers.getFirst(HttpHeaders.VARY));
+  }
+
+  /**
+   * Buffers an upstream response.
+   *
+   * @param status the status code
+   * @param headers the response headers
+   * @param body the complete body
+   * @param storedAt the time the request was sent, in epoch milliseconds
+   * @param cache the cache settings supplying defaults for missing headers
+   * @return the buffered response
+   */
+  static CachedResponse of(
+      HttpStatusCode status,
+      HttpHeaders headers,
+      byte[] body,
+      long storedAt,
+      HttpClientProperties.Cache cache) {
+    return new CachedResponse(status.value(), new HttpHeaders(headers), body, storedAt, cache);
+  }
+
+  /**
+   * Returns a copy updated with the headers of a {@code 304 Not Modified} revalidation response.
+   *
+   * @param notModified the headers of the 304 response
+   * @param storedAt the time the revalidation request was sent
+   * @param cache the cache settings
+   * @return the refreshed response with the original body
+   */
+  CachedResponse refresh(HttpHeaders notModified, long storedAt, HttpClientProperties.Cache cache) {
+    HttpHeaders merged = new HttpHeaders();
+    merged.putAll(headers);
+    notModified.forEach(
+        (name, values) -> {
+          if (!name.equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH)) {
+            merged.put(name, values);
+          }
+        });
+    return new CachedResponse(status, merged, body, storedAt, cache);
+  }
+
+  /** Tells whether the response may be stored, i.e. it is a cacheable 200 that is not too big. */
+  boolean isStorable(int maxEntryBytes) {
+    return status == HttpStatus.OK.value()
+        && !noStore
+        && body.length <= maxEntryBytes
+        && (freshMs > 0 || staleWhileRevalidateMs > 0 || hasValidators());
+  }
+
+  boolean isFresh(long now) {
+    return now < storedAt + freshMs;
+  }
+
+  boolean isServableWhileRevalidating(long now) {
+    return now < storedAt + freshMs + staleWhileRevalidateMs;
+  }
+
+  boolean hasValidators() {
+    return headers.getETag() != null || headers.getLastModified() >= 0;
+  }
+
+  /**
+   * Returns how long the response should stay in the cache: while fresh, while it may be served
+   * stale, and for responses with validators the extra time during which it can still be
+   * revalidated with a conditional request.
+   */
+  long retentionMs(long revalidationRetentionMs) {
+    return freshMs + staleWhileRevalidateMs + (hasValidators() ? revalidationRetentionMs : 0);
+  }
+
+  HttpHeaders headers() {
+    return headers;
+  }
+
+  int weight() {
+    return body.length + 1024;
+  }
+
+  /** Returns a new response over the buffered body for one caller. */
+  ClientHttpResponse toClientHttpResponse() {
+    return new ClientHttpResponse() {
+      @Override
+      public HttpStatusCode getStatusCode() {
+        return HttpStatusCode.valueOf(status);
+      }
+
+      @Override
+      public String getStatusText() {
+        HttpStatus resolved = HttpStatus.resolve(status);
+        return resolved == null ? "" : resolved.getReasonPhrase();
+      }
+
+      @Override
+      public HttpHeaders getHeaders() {
+        return headers;
+      }
+
+      @Override
+      public InputStream getBody() {
+        return new ByteArrayInputStream(body);
+      }
+
+      @Override
+      public void close() {}
+    };
+  }
+
+  private static List<String> directives(HttpHeaders headers) {
+    return headers.getValuesAsList(HttpHeaders.CACHE_CONTROL).stream()
+        .map(value -> value.trim().toLowerCase(Locale.ROOT))
+        .toList();
+  }
+
+  private static long seconds(String directive) {
+    String value = directive.substring(directive.indexOf('=') + 1).replace("\"", "");
+    try {
+      return Math.max(0, Long.parseLong(value));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+}
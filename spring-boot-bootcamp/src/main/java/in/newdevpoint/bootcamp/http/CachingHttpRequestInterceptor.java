@@ -0,0 +1,253 @@
+package in.newdevpoint.bootcamp.http;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.IOException;
+import java.time.Clock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+/**
+ * A {@link ClientHttpRequestInterceptor} that caches GET responses per URL and {@code Accept}
+ * header, following the response's {@code Cache-Control}, {@code Expires}, {@code ETag} and {@code
+ * Last-Modified} headers.
+ *
+ * <ul>
+ *   <li>Fresh responses are replayed without contacting the server.
+ *   <li>Stale responses inside their {@code stale-while-revalidate} window (or {@code
+ *       http.client.cache.staleWhileRevalidateMs} if the server sends none) are replayed at once
+ *       while a background request refreshes them.
+ *   <li>Older responses with an {@code ETag} or {@code Last-Modified} are revalidated with a
+ *       conditional request, so a {@code 304} only costs the headers.
+ *   <li>Concurrent requests for the same key share a single upstream call, waiting for it at most
+ *       {@code http.client.cache.collapsedWaitMs}.
+ * </ul>
+ *
+ * <p>Cached and upstream requests are sent through the given request factory rather than the
+ * remaining interceptor chain, so that a background revalidation looks exactly like a foreground
+ * one. Requests carrying an {@code Authorization} header are never cached. Lookups are counted
+ * under {@code http.client.cache.requests} with {@code result} hit, stale, miss, revalidated or
+ * collapsed; the cache itself is published under {@code cache.*} with {@code cache=httpResponses}.
+ */
+public class CachingHttpRequestInterceptor implements ClientHttpRequestInterceptor, AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(CachingHttpRequestInterceptor.class);
+
+  static final String CACHE_NAME = "httpResponses";
+
+  private final ClientHttpRequestFactory requestFactory;
+  private final HttpClientProperties.Cache properties;
+  private final MeterRegistry meterRegistry;
+  private final Clock clock;
+  private final Cache<String, CachedResponse> responses;
+  private final ConcurrentMap<String, CompletableFuture<CachedResponse>> inFlight =
+      new ConcurrentHashMap<>();
+  private final ExecutorService revalidator =
+      Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-revalidate-", 0).factory());
+
+  public CachingHttpRequestInterceptor(
+      ClientHttpRequestFactory requestFactory,
+      HttpClientProperties.Cache properties,
+      MeterRegistry meterRegistry,
+      Clock clock) {
+    this.requestFactory = requestFactory;
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    this.clock = clock;
+    this.responses =
+        Caffeine.newBuilder()
+            .maximumWeight(properties.getMaxBytes())
+            .weigher((String key, CachedResponse response) -> response.weight())
+            .expireAfter(new RetentionExpiry(properties.getRevalidationRetentionMs()))
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, responses, CACHE_NAME);
+  }
+
+  @Override
+  public ClientHttpResponse intercept(
+      HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+    if (!properties.isEnabled()
+        || request.getMethod() != HttpMethod.GET
+        || request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
+      return execution.execute(request, body);
+    }
+
+    String key = key(request);
+    CachedResponse cached = responses.getIfPresent(key);
+    long now = clock.millis();
+    if (cached != null && cached.isFresh(now)) {
+      count("hit");
+      return cached.toClientHttpResponse();
+    }
+    if (cached != null && cached.isServableWhileRevalidating(now)) {
+      count("stale");
+      fetch(key, request, cached, true);
+      return cached.toClientHttpResponse();
+    }
+    return await(fetch(key, request, cached, false)).toClientHttpResponse();
+  }
+
+  /** Stops background revalidations. */
+  @Override
+  public void close() {
+    revalidator.shutdownNow();
+  }
+
+  /**
+   * Starts an upstream request for the key unless one is already running, in which case the caller
+   * joins that one. Foreground requests run on the caller's thread.
+   */
+  private CompletableFuture<CachedResponse> fetch(
+      String key, HttpRequest request, CachedResponse previous, boolean background) {
+    CompletableFuture<CachedResponse> created = new CompletableFuture<>();
+    CompletableFuture<CachedResponse> running = inFlight.putIfAbsent(key, created);
+    if (running != null) {
+      count("collapsed");
+      return running;
+    }
+
+    Runnable exchange =
+        () -> {
+          try {
+            created.complete(exchange(key, request, previous));
+          } catch (Throwable e) {
+            // Errors too must complete the future, or requests sharing it would wait forever
+            if (background) {
+              logger.warn("Failed to revalidate {}: {}", request.getURI(), e.getMessage());
+            }
+            created.completeExceptionally(e);
+            if (e instanceof Error error) {
+              throw error;
+            }
+          } finally {
+            inFlight.remove(key, created);
+          }
+        };
+    if (background) {
+      try {
+        revalidator.execute(exchange);
+      } catch (RejectedExecutionException e) {
+        inFlight.remove(key, created);
+        created.completeExceptionally(e);
+      }
+    } else {
+      exchange.run();
+    }
+    return created;
+  }
+
+  /** Sends the request upstream, conditionally if the previous response has validators. */
+  private CachedResponse exchange(String key, HttpRequest request, CachedResponse previous)
+      throws IOException {
+    ClientHttpRequest upstream = requestFactory.createRequest(request.getURI(), HttpMethod.GET);
+    upstream.getHeaders().putAll(request.getHeaders());
+    if (previous != null && previous.hasValidators()) {
+      if (previous.headers().getETag() != null) {
+        upstream.getHeaders().setIfNoneMatch(previous.headers().getETag());
+      } else {
+        upstream.getHeaders().setIfModifiedSince(previous.headers().getLastModified());
+      }
+    }
+
+    long sentAt = clock.millis();
+    try (ClientHttpResponse response = upstream.execute()) {
+      boolean notModified =
+          previous != null && response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED);
+      CachedResponse fetched =
+          notModified
+              ? previous.refresh(response.getHeaders(), sentAt, properties)
+              : CachedResponse.of(
+                  response.getStatusCode(),
+                  response.getHeaders(),
+                  StreamUtils.copyToByteArray(response.getBody()),
+                  sentAt,
+                  properties);
+
+      if (fetched.isStorable(properties.getMaxEntryBytes())) {
+        responses.put(key, fetched);
+      } else {
+        responses.invalidate(key);
+      }
+      count(notModified ? "revalidated" : "miss");
+      return fetched;
+    }
+  }
+
+  private CachedResponse await(CompletableFuture<CachedResponse> future) throws IOException {
+    try {
+      return future.get(properties.getCollapsedWaitMs(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for a shared request", e);
+    } catch (TimeoutException e) {
+      throw new IOException("Timed out waiting for a shared request", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException io) {
+        throw io;
+      }
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new CompletionException(cause);
+    }
+  }
+
+  private static String key(HttpRequest request) {
+    String accept = request.getHeaders().getFirst(HttpHeaders.ACCEPT);
+    return request.getURI() + (accept == null ? "" : " " + accept);
+  }
+
+  private void count(String result) {
+    meterRegistry.counter("http.client.cache.requests", "result", result).increment();
+  }
+
+  /** Keeps a response for as long as it is fresh, servable while stale, or revalidatable. */
+  private static final class RetentionExpiry implements Expiry<String, CachedResponse> {
+    private final long revalidationRetentionMs;
+
+    private RetentionExpiry(long revalidationRetentionMs) {
+      this.revalidationRetentionMs = revalidationRetentionMs;
+    }
+
+    @Override
+    public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+      return TimeUnit.MILLISECONDS.toNanos(response.retentionMs(revalidationRetentionMs));
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        String key, CachedResponse response, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, response, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+        String key, CachedResponse response, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
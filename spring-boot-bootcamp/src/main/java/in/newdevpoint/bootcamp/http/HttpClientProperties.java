@@ -0,0 +1,73 @@
+package in.newdevpoint.bootcamp.http;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the outbound HTTP client and its response cache, bound from {@code http.client.*}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "http.client")
+public class HttpClientProperties {
+  /** Pooled connections across all hosts. */
+  private int maxTotal = 50;
+
+  /** Pooled connections to a single host. */
+  private int maxPerRoute = 10;
+
+  /** Time in milliseconds allowed to establish a connection. */
+  private long connectTimeoutMs = 2_000;
+
+  /** Time in milliseconds allowed between two packets of a response. */
+  private long readTimeoutMs = 5_000;
+
+  /** Time in milliseconds to wait for a free connection when the pool is exhausted. */
+  private long connectionRequestTimeoutMs = 2_000;
+
+  /** Time in milliseconds an idle connection is kept alive when the server does not say. */
+  private long keepAliveMs = 30_000;
+
+  /** Time in milliseconds after which idle connections are closed by the pool. */
+  private long idleEvictMs = 60_000;
+
+  /** Idle time in milliseconds after which a pooled connection is checked before reuse. */
+  private long validateAfterInactivityMs = 2_000;
+
+  private Cache cache = new Cache();
+
+  /** Settings of the per-URL response cache. */
+  @Data
+  public static class Cache {
+    /** Cache GET responses according to their Cache-Control, Expires, ETag and Last-Modified. */
+    private boolean enabled = true;
+
+    /** Total size of cached response bodies in bytes. */
+    private long maxBytes = 10 * 1024 * 1024;
+
+    /** Responses with a larger body are passed through without being stored. */
+    private int maxEntryBytes = 1024 * 1024;
+
+    /** Freshness in milliseconds of responses that carry no caching headers; 0 disables this. */
+    private long defaultTtlMs = 0;
+
+    /**
+     * Time in milliseconds a stale response is still served while it is revalidated in the
+     * background, unless the server sends its own {@code stale-while-revalidate} or forbids it.
+     */
+    private long staleWhileRevalidateMs = 30_000;
+
+    /**
+     * Time in milliseconds an expired response with an ETag or Last-Modified is kept for
+     * revalidation.
+     */
+    private long revalidationRetentionMs = 600_000;
+
+    /**
+     * Time in milliseconds a request waits for an identical request already in flight before it
+     * fails.
+     */
+    private long collapsedWaitMs = 30_000;
+  }
+}
@@ -0,0 +1,43 @@
+package in.newdevpoint.bootcamp.http;
+
+import java.time.Instant;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The body of an outbound call, either freshly fetched or, when the dependency is degraded, the
+ * last good response together with the reason it was served instead.
+ *
+ * @param <T> the type of the body
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class UpstreamResult<T> {
+  private final T body;
+  private final Instant fetchedAt;
+  private final boolean stale;
+  private final String degradedReason;
+
+  /**
+   * Wraps a response that was just received.
+   *
+   * @param body the response body
+   * @param fetchedAt when it was received
+   * @param <T> the type of the body
+   * @return a fresh result
+   */
+  public static <T> UpstreamResult<T> fresh(T body, Instant fetchedAt) {
+    return new UpstreamResult<>(body, fetchedAt, false, null);
+  }
+
+  /**
+   * Returns this result marked as served in place of a failed call.
+   *
+   * @param reason why the dependency could not be used
+   * @return a stale copy of this result
+   */
+  public UpstreamResult<T> asStale(String reason) {
+    return new UpstreamResult<>(body, fetchedAt, true, reason);
+  }
+}
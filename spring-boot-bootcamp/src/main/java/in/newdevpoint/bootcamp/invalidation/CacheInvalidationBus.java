@@ -0,0 +1,206 @@
+package in.newdevpoint.bootcamp.invalidation;
+
+import in.newdevpoint.bootcamp.entity.InvalidationCheckpoint;
+import in.newdevpoint.bootcamp.event.ProductChangedEvent;
+import in.newdevpoint.bootcamp.event.RolesChangedEvent;
+import in.newdevpoint.bootcamp.event.UserChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.BsonDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the in-process caches of every node consistent with writes made by other nodes.
+ *
+ * <p>Changes to the {@code users}, {@code roles} and {@code products} collections are read from an
+ * {@link InvalidationEventSource} and re-published as the application events that local caches
+ * already listen to, marked as remote: {@link UserChangedEvent}, {@link RolesChangedEvent} and
+ * {@link ProductChangedEvent}. A dropped collection, or a stream that lost its position, evicts
+ * everything.
+ *
+ * <p>The resume token of the last handled change is stored per node in {@code
+ * cache_invalidation_checkpoints}, at most every {@code cache.invalidation.checkpointIntervalMs},
+ * so a restarted node replays the changes it missed. Replays are harmless because evictions are
+ * idempotent. When the source is unsupported, for example on a standalone MongoDB server, the bus
+ * stays idle and caches fall back to their TTLs. The {@code cache.invalidation.streaming} gauge
+ * tells which mode a node is in, and {@code cache.invalidation.events} counts handled changes by
+ * collection.
+ */
+@Component
+public class CacheInvalidationBus {
+  private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+  static final String USERS = "users";
+  static final String ROLES = "roles";
+  static final String PRODUCTS = "products";
+  static final Set<String> COLLECTIONS = Set.of(USERS, ROLES, PRODUCTS);
+
+  private final InvalidationEventSource source;
+  private final MongoTemplate template;
+  private final ApplicationEventPublisher eventPublisher;
+  private final InvalidationProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final AtomicInteger streaming = new AtomicInteger();
+  private final String nodeId;
+
+  private volatile AutoCloseable subscription;
+  private BsonDocument pendingToken;
+  private long lastCheckpointAt;
+
+  public CacheInvalidationBus(
+      InvalidationEventSource source,
+      MongoTemplate template,
+      ApplicationEventPublisher eventPublisher,
+      InvalidationProperties properties,
+      MeterRegistry meterRegistry) {
+    this.source = source;
+    this.template = template;
+    this.eventPublisher = eventPublisher;
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    this.nodeId =
+        StringUtils.isNotBlank(properties.getNodeId()) ? properties.getNodeId() : hostName();
+    meterRegistry.gauge("cache.invalidation.streaming", streaming);
+  }
+
+  /** Starts following changes from the stored resume token, unless the deployment cannot. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!properties.isEnabled()) {
+      logger.info("Cache invalidation bus disabled; local caches rely on their TTLs");
+      return;
+    }
+    if (!source.isSupported()) {
+      logger.info(
+          "MongoDB change streams need a replica set; local caches rely on their TTLs instead");
+      return;
+    }
+    subscription = source.subscribe(COLLECTIONS, loadCheckpoint(), this::onChange);
+    streaming.set(1);
+  }
+
+  /** Stops following changes and stores the position reached. */
+  @PreDestroy
+  public void stop() throws Exception {
+    AutoCloseable current = subscription;
+    if (current != null) {
+      current.close();
+      subscription = null;
+      streaming.set(0);
+    }
+    checkpoint(true);
+  }
+
+  /**
+   * Evicts the local copies affected by a change and advances the stored resume token.
+   *
+   * @param notice the change
+   */
+  void onChange(ChangeNotice notice) {
+    try {
+      dispatch(notice);
+    } catch (RuntimeException e) {
+      logger.warn("Failed to apply {}: {}", notice, e.getMessage());
+    }
+    Counter.builder("cache.invalidation.events")
+        .description("Changes made by any node that evicted local caches")
+        .tag("collection", notice.getCollection() != null ? notice.getCollection() : "all")
+        .register(meterRegistry)
+        .increment();
+    if (notice.getResumeToken() != null) {
+      synchronized (this) {
+        pendingToken = notice.getResumeToken();
+      }
+      checkpoint(false);
+    }
+  }
+
+  private void dispatch(ChangeNotice notice) {
+    if (notice.getOperation() == ChangeNotice.Operation.RESET) {
+      publishUsers(UserChangedEvent.Type.UPDATED, null);
+      eventPublisher.publishEvent(new RolesChangedEvent());
+      eventPublisher.publishEvent(new ProductChangedEvent(null, true));
+      return;
+    }
+    String documentId =
+        notice.getOperation() == ChangeNotice.Operation.DROP ? null : notice.getDocumentId();
+    switch (notice.getCollection()) {
+      case USERS:
+        publishUsers(
+            notice.getOperation() == ChangeNotice.Operation.DELETE
+                ? UserChangedEvent.Type.DELETED
+                : UserChangedEvent.Type.UPDATED,
+            documentId);
+        break;
+      case ROLES:
+        eventPublisher.publishEvent(new RolesChangedEvent());
+        break;
+      case PRODUCTS:
+        eventPublisher.publishEvent(new ProductChangedEvent(documentId, true));
+        break;
+      default:
+        logger.debug("Ignoring change to unwatched collection {}", notice.getCollection());
+    }
+  }
+
+  private void publishUsers(UserChangedEvent.Type type, String userId) {
+    // The username is not part of the change, so caches keyed by username evict by id
+    eventPublisher.publishEvent(new UserChangedEvent(type, userId, null, true));
+  }
+
+  private BsonDocument loadCheckpoint() {
+    try {
+      InvalidationCheckpoint checkpoint = template.findById(nodeId, InvalidationCheckpoint.class);
+      if (checkpoint != null && checkpoint.getResumeToken() != null) {
+        logger.info("Resuming cache invalidation from {}", checkpoint.getUpdatedAt());
+        return BsonDocument.parse(checkpoint.getResumeToken());
+      }
+    } catch (DataAccessException e) {
+      logger.warn("Could not load the cache invalidation checkpoint: {}", e.getMessage());
+    }
+    return null;
+  }
+
+  private synchronized void checkpoint(boolean force) {
+    long now = System.currentTimeMillis();
+    if (pendingToken == null
+        || (!force && now - lastCheckpointAt < properties.getCheckpointIntervalMs())) {
+      return;
+    }
+    try {
+      template.upsert(
+          Query.query(Criteria.where("_id").is(nodeId)),
+          new Update().set("resumeToken", pendingToken.toJson()).set("updatedAt", new Date(now)),
+          InvalidationCheckpoint.class);
+      pendingToken = null;
+      lastCheckpointAt = now;
+    } catch (DataAccessException e) {
+      logger.warn("Could not store the cache invalidation checkpoint: {}", e.getMessage());
+    }
+  }
+
+  private static String hostName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      return "localhost";
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package in.newdevpoint.bootcamp.invalidation;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import org.bson.BsonDocument;
+
+/** A change to a watched collection, as delivered by an {@link InvalidationEventSource}. */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class ChangeNotice {
+
+  /** What the change means for cached copies. */
+  public enum Operation {
+    /** A document was inserted, updated or replaced. */
+    UPSERT,
+    /** A document was deleted. */
+    DELETE,
+    /** The whole collection was dropped or renamed. */
+    DROP,
+    /** Changes may have been missed, so every cached copy is suspect. */
+    RESET
+  }
+
+  private final Operation operation;
+
+  /** Collection the change applies to, or null for {@link Operation#RESET}. */
+  private final String collection;
+
+  /** Id of the changed document, or null for collection-wide operations. */
+  private final String documentId;
+
+  /** Token to resume after this change, or null if the source has none. */
+  private final BsonDocument resumeToken;
+
+  /**
+   * Creates a notice telling that changes may have been missed.
+   *
+   * @return the reset notice
+   */
+  public static ChangeNotice reset() {
+    return new ChangeNotice(Operation.RESET, null, null, null);
+  }
+}
@@ -0,0 +1,31 @@
+package in.newdevpoint.bootcamp.invalidation;
+
+import java.util.Set;
+import java.util.function.Consumer;
+import org.bson.BsonDocument;
+
+/**
+ * Source of changes made to MongoDB collections by any node. Production uses {@link
+ * MongoChangeStreamSource}; tests can feed changes from memory.
+ */
+public interface InvalidationEventSource {
+
+  /**
+   * Tells whether the deployment can deliver changes at all.
+   *
+   * @return false when changes cannot be followed, for example on a standalone MongoDB server
+   */
+  boolean isSupported();
+
+  /**
+   * Starts delivering changes to the given collections until the returned handle is closed. Changes
+   * are delivered one at a time, in the order they were made.
+   *
+   * @param collections the collections to follow
+   * @param resumeToken the token of the last change already handled, or null to start from now
+   * @param sink receives each change
+   * @return a handle that stops the delivery when closed
+   */
+  AutoCloseable subscribe(
+      Set<String> collections, BsonDocument resumeToken, Consumer<ChangeNotice> sink);
+}
@@ -0,0 +1,26 @@
+package in.newdevpoint.bootcamp.invalidation;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/** Settings of the {@link CacheInvalidationBus}, bound from {@code cache.invalidation.*}. */
+@Data
+@Component
+@ConfigurationProperties(prefix = "cache.invalidation")
+public class InvalidationProperties {
+  /** Follow MongoDB's change stream; when false, local caches rely on their TTLs alone. */
+  private boolean enabled = true;
+
+  /** Key under which this node's resume token is stored; defaults to the host name. */
+  private String nodeId;
+
+  /** Minimum interval in milliseconds between two writes of the resume token. */
+  private long checkpointIntervalMs = 1_000;
+
+  /** Delay in milliseconds before the change stream is reopened after an error. */
+  private long reconnectDelayMs = 5_000;
+
+  /** Longest wait in milliseconds for the next change, which bounds how long shutdown takes. */
+  private long maxAwaitMs = 1_000;
+}
@@ -0,0 +1,171 @@
+package in.newdevpoint.bootcamp.invalidation;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Follows a database-level MongoDB change stream filtered to the watched collections.
+ *
+ * <p>Change streams need a replica set or a sharded cluster. The stream runs on its own daemon
+ * thread and is reopened from the last delivered change after transient errors. If MongoDB can no
+ * longer resume from that point, because the oplog has rolled over or the stream was invalidated, a
+ * {@link ChangeNotice#reset()} is delivered and the stream restarts from now.
+ */
+@Component
+public class MongoChangeStreamSource implements InvalidationEventSource {
+  private static final Logger logger = LoggerFactory.getLogger(MongoChangeStreamSource.class);
+
+  // InvalidResumeToken, ChangeStreamFatalError and ChangeStreamHistoryLost
+  private static final Set<Integer> LOST_POSITION_CODES = Set.of(260, 280, 286);
+
+  private final MongoTemplate template;
+  private final InvalidationProperties properties;
+
+  public MongoChangeStreamSource(MongoTemplate template, InvalidationProperties properties) {
+    this.template = template;
+    this.properties = properties;
+  }
+
+  @Override
+  public boolean isSupported() {
+    try {
+      Document hello = template.getDb().runCommand(new Document("hello", 1));
+      return hello.containsKey("setName") || "isdbgrid".equals(hello.getString("msg"));
+    } catch (MongoException e) {
+      logger.warn("Could not determine the MongoDB topology: {}", e.getMessage());
+      return false;
+    }
+  }
+
+  @Override
+  public AutoCloseable subscribe(
+      Set<String> collections, BsonDocument resumeToken, Consumer<ChangeNotice> sink) {
+    Subscription subscription = new Subscription(collections, resumeToken, sink);
+    CustomizableThreadFactory factory = new CustomizableThreadFactory("cache-invalidation-");
+    factory.setDaemon(true);
+    factory.newThread(subscription).start();
+    return subscription;
+  }
+
+  private static ChangeNotice toNotice(ChangeStreamDocument<Document> change) {
+    String collection =
+        change.getNamespace() != null ? change.getNamespace().getCollectionName() : null;
+    BsonDocument token = change.getResumeToken();
+    switch (change.getOperationType()) {
+      case INSERT:
+      case UPDATE:
+      case REPLACE:
+        return new ChangeNotice(
+            ChangeNotice.Operation.UPSERT, collection, documentId(change), token);
+      case DELETE:
+        return new ChangeNotice(
+            ChangeNotice.Operation.DELETE, collection, documentId(change), token);
+      case DROP:
+      case RENAME:
+        return new ChangeNotice(ChangeNotice.Operation.DROP, collection, null, token);
+      default:
+        return new ChangeNotice(ChangeNotice.Operation.RESET, null, null, token);
+    }
+  }
+
+  private static String documentId(ChangeStreamDocument<Document> change) {
+    BsonValue id = change.getDocumentKey() != null ? change.getDocumentKey().get("_id") : null;
+    if (id == null) {
+      return null;
+    }
+    if (id.isObjectId()) {
+      return id.asObjectId().getValue().toHexString();
+    }
+    return id.isString() ? id.asString().getValue() : id.toString();
+  }
+
+  /** Reads the change stream on its own thread until closed. */
+  private final class Subscription implements Runnable, AutoCloseable {
+    private final Set<String> collections;
+    private final Consumer<ChangeNotice> sink;
+    private volatile boolean closed;
+    private BsonDocument resumeToken;
+
+    private Subscription(
+        Set<String> collections, BsonDocument resumeToken, Consumer<ChangeNotice> sink) {
+      this.collections = collections;
+      this.resumeToken = resumeToken;
+      this.sink = sink;
+    }
+
+    @Override
+    public void run() {
+      while (!closed) {
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = open()) {
+          logger.info("Following changes to {}", collections);
+          while (!closed) {
+            ChangeStreamDocument<Document> change = cursor.tryNext();
+            if (change != null) {
+              resumeToken = change.getResumeToken();
+              sink.accept(toNotice(change));
+            }
+          }
+        } catch (MongoCommandException e) {
+          if (LOST_POSITION_CODES.contains(e.getErrorCode())) {
+            logger.warn("Change stream cannot resume, starting from now: {}", e.getMessage());
+            resumeToken = null;
+            sink.accept(ChangeNotice.reset());
+          } else {
+            pauseAfter(e);
+          }
+        } catch (MongoException | IllegalStateException e) {
+          pauseAfter(e);
+        }
+      }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open() {
+      var stream =
+          template
+              .getDb()
+              .watch(List.of(Aggregates.match(Filters.in("ns.coll", collections))))
+              .maxAwaitTime(properties.getMaxAwaitMs(), TimeUnit.MILLISECONDS);
+      if (resumeToken != null) {
+        stream = stream.resumeAfter(resumeToken);
+      }
+      return stream.cursor();
+    }
+
+    private void pauseAfter(RuntimeException e) {
+      if (closed) {
+        return;
+      }
+      logger.warn(
+          "Change stream failed, reopening in {} ms: {}",
+          properties.getReconnectDelayMs(),
+          e.getMessage());
+      try {
+        Thread.sleep(properties.getReconnectDelayMs());
+      } catch (InterruptedException interrupted) {
+        Thread.currentThread().interrupt();
+        closed = true;
+      }
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package in.newdevpoint.bootcamp.mail;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/** Settings of the {@link MailDispatcher}, bound from {@code mail.dispatch.*}. */
+@Data
+@Component
+@ConfigurationProperties(prefix = "mail.dispatch")
+public class MailDispatchProperties {
+  /** Sender address of outgoing mail. */
+  private String from = "no-reply@newdevpoint.in";
+
+  /** Number of concurrent SMTP sessions. */
+  private int threads = 4;
+
+  /** Batches that may wait for a session before new ones are deferred to the outbox. */
+  private int queueCapacity = 500;
+
+  /** Run sessions on virtual threads instead of platform threads. */
+  private boolean virtualThreads = true;
+
+  /** Recipients sent per SMTP session. */
+  private int batchSize = 20;
+
+  /** Messages per second sent to a provider without its own entry in {@link #rateLimits}. */
+  private double defaultRatePerSecond = 10;
+
+  /** Messages per second by provider, i.e. recipient mail domain such as {@code gmail.com}. */
+  private Map<String, Double> rateLimits = new LinkedHashMap<>();
+
+  /** Interval in milliseconds at which the outbox is checked for due retries. */
+  private long retryPollMs = 10_000;
+
+  /** Batches of due retries claimed from the outbox per poll, at most. */
+  private int retryBatchesPerPoll = 5;
+
+  /** Delay in milliseconds before the first retry; doubled on every further attempt. */
+  private long retryBaseDelayMs = 30_000;
+
+  /** Upper bound in milliseconds of the delay between two retries. */
+  private long retryMaxDelayMs = 3_600_000;
+
+  /** Attempts after which a message is marked dead and no longer retried. */
+  private int maxAttempts = 8;
+
+  /** Time in milliseconds a claimed retry is hidden from other nodes while it is being sent. */
+  private long retryLeaseMs = 300_000;
+}
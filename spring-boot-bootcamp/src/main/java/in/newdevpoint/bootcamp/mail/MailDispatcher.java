@@ -0,0 +1,292 @@
+package in.newdevpoint.bootcamp.mail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Sends mail in parallel through a bounded pool of SMTP sessions.
+ *
+ * <p>Recipients are grouped by provider (their mail domain) and split into batches of {@code
+ * mail.dispatch.batchSize}; each batch is sent over a single SMTP connection. Before a batch is
+ * sent, the provider's {@link TokenBucket} is drained by the batch size, so no provider receives
+ * more than its configured messages per second. Messages the server refuses, and batches that do
+ * not fit into the dispatch queue, are handed to the {@link MailOutbox} and retried with backoff by
+ * a background poller.
+ *
+ * <p>Published metrics: {@code mail.send.duration} (per batch, tagged with {@code outcome}), {@code
+ * mail.sent}, {@code mail.failed}, {@code mail.dispatch.queue} (batches waiting for a session) and
+ * {@code mail.outbox.pending}.
+ */
+@Service
+public class MailDispatcher {
+  private static final Logger logger = LoggerFactory.getLogger(MailDispatcher.class);
+
+  private final JavaMailSender mailSender;
+  private final MailOutbox outbox;
+  private final MailDispatchProperties properties;
+  private final ThreadPoolExecutor executor;
+  private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+  private final MeterRegistry meterRegistry;
+  private final Counter sent;
+  private final Counter failed;
+  private final AtomicLong outboxPending = new AtomicLong();
+
+  private ScheduledExecutorService retryPoller;
+
+  public MailDispatcher(
+      JavaMailSender mailSender,
+      MailOutbox outbox,
+      MailDispatchProperties properties,
+      MeterRegistry meterRegistry) {
+    this.mailSender = mailSender;
+    this.outbox = outbox;
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    this.executor =
+        new ThreadPoolExecutor(
+            properties.getThreads(),
+            properties.getThreads(),
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(properties.getQueueCapacity()),
+            threadFactory(properties.isVirtualThreads()),
+            new ThreadPoolExecutor.AbortPolicy());
+    this.sent = meterRegistry.counter("mail.sent");
+    this.failed = meterRegistry.counter("mail.failed");
+    Gauge.builder("mail.dispatch.queue", executor, e -> e.getQueue().size())
+        .register(meterRegistry);
+    Gauge.builder("mail.outbox.pending", outboxPending, AtomicLong::get).register(meterRegistry);
+  }
+
+  /** Starts polling the outbox for due retries. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    retryPoller =
+        Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("mail-retry-"));
+    retryPoller.scheduleWithFixedDelay(
+        this::retryDue, 0, properties.getRetryPollMs(), TimeUnit.MILLISECONDS);
+  }
+
+  /** Stops the retry poller and lets queued batches finish for a few seconds. */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    if (retryPoller != null) {
+      retryPoller.shutdownNow();
+    }
+    executor.shutdown();
+    executor.awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Queues one message per recipient and returns without waiting for delivery.
+   *
+   * @param recipients the recipient addresses
+   * @param subject the subject line
+   * @param body the plain-text body
+   */
+  public void send(Collection<String> recipients, String subject, String body) {
+    List<OutgoingMail> mails = new ArrayList<>(recipients.size());
+    for (String recipient : recipients) {
+      mails.add(new OutgoingMail(null, recipient, subject, body, 0));
+    }
+    dispatch(mails);
+  }
+
+  /**
+   * Groups messages into per-provider batches and submits them to the session pool. Batches that do
+   * not fit into the queue are deferred to the outbox instead of blocking the caller.
+   */
+  void dispatch(List<OutgoingMail> mails) {
+    Map<String, List<OutgoingMail>> byProvider = new LinkedHashMap<>();
+    for (OutgoingMail mail : mails) {
+      byProvider.computeIfAbsent(mail.provider(), p -> new ArrayList<>()).add(mail);
+    }
+
+    int batchSize = Math.max(1, properties.getBatchSize());
+    byProvider.forEach(
+        (provider, providerMails) -> {
+          for (int from = 0; from < providerMails.size(); from += batchSize) {
+            List<OutgoingMail> batch =
+                providerMails.subList(from, Math.min(from + batchSize, providerMails.size()));
+            try {
+              executor.execute(() -> deliver(provider, batch));
+            } catch (RejectedExecutionException e) {
+              logger.warn("Mail dispatch queue is full; deferring {} message(s)", batch.size());
+              deferQuietly(batch, "Dispatch queue full");
+            }
+          }
+        });
+  }
+
+  /** Waits for the provider's rate limit, then sends the batch over one SMTP session. */
+  void deliver(String provider, List<OutgoingMail> batch) {
+    try {
+      bucket(provider).acquire(batch.size());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      deferQuietly(batch, "Interrupted before sending");
+      return;
+    }
+
+    Map<MimeMessage, OutgoingMail> messages = new LinkedHashMap<>();
+    for (OutgoingMail mail : batch) {
+      try {
+        messages.put(toMimeMessage(mail), mail);
+      } catch (MessagingException e) {
+        fail(mail, "Invalid message: " + e.getMessage());
+      }
+    }
+    if (messages.isEmpty()) {
+      return;
+    }
+
+    Map<Object, Exception> failures = new IdentityHashMap<>();
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = "success";
+    try {
+      mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+    } catch (MailSendException e) {
+      outcome = "partial";
+      if (e.getFailedMessages().isEmpty()) {
+        outcome = "failure";
+        messages.keySet().forEach(message -> failures.put(message, e));
+      } else {
+        failures.putAll(e.getFailedMessages());
+      }
+    } catch (MailException e) {
+      outcome = "failure";
+      messages.keySet().forEach(message -> failures.put(message, e));
+    }
+    sample.stop(
+        Timer.builder("mail.send.duration")
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry));
+
+    messages.forEach(
+        (message, mail) -> {
+          Exception failure = failures.get(message);
+          if (failure == null) {
+            succeed(mail);
+          } else {
+            fail(mail, String.valueOf(failure.getMessage()));
+          }
+        });
+  }
+
+  /**
+   * Claims due outbox entries and dispatches them again, at most {@code
+   * mail.dispatch.retryBatchesPerPoll} batches per poll and never more than the queue has room for.
+   */
+  void retryDue() {
+    try {
+      int batches =
+          Math.min(executor.getQueue().remainingCapacity(), properties.getRetryBatchesPerPoll());
+      int capacity = batches * properties.getBatchSize();
+      if (capacity > 0) {
+        List<OutgoingMail> due = outbox.claimDue(capacity);
+        if (!due.isEmpty()) {
+          logger.info("Retrying {} message(s) from the mail outbox", due.size());
+          dispatch(due);
+        }
+      }
+      outboxPending.set(outbox.pending());
+    } catch (DataAccessException e) {
+      logger.warn("Failed to poll the mail outbox: {}", e.getMessage());
+    }
+  }
+
+  private void succeed(OutgoingMail mail) {
+    sent.increment();
+    if (mail.getOutboxId() != null) {
+      try {
+        outbox.complete(mail.getOutboxId());
+      } catch (DataAccessException e) {
+        logger.warn("Failed to remove delivered mail {} from the outbox", mail.getOutboxId(), e);
+      }
+    }
+  }
+
+  private void fail(OutgoingMail mail, String error) {
+    failed.increment();
+    logger.warn("Failed to send mail to {}: {}", mail.getRecipient(), error);
+    try {
+      outbox.reschedule(mail, error);
+    } catch (DataAccessException e) {
+      logger.error("Failed to queue mail to {} for retry", mail.getRecipient(), e);
+    }
+  }
+
+  private void deferQuietly(List<OutgoingMail> batch, String reason) {
+    try {
+      outbox.defer(batch, reason);
+    } catch (DataAccessException e) {
+      failed.increment(batch.size());
+      logger.error("Failed to defer {} message(s) to the mail outbox", batch.size(), e);
+    }
+  }
+
+  private MimeMessage toMimeMessage(OutgoingMail mail) throws MessagingException {
+    MimeMessage message = mailSender.createMimeMessage();
+    MimeMessageHelper helper = new MimeMessageHelper(message, StandardCharsets.UTF_8.name());
+    helper.setFrom(properties.getFrom());
+    helper.setTo(mail.getRecipient());
+    helper.setSubject(mail.getSubject());
+    helper.setText(mail.getBody());
+    return message;
+  }
+
+  private TokenBucket bucket(String provider) {
+    return buckets.computeIfAbsent(
+        provider,
+        p ->
+            new TokenBucket(
+                properties.getRateLimits().getOrDefault(p, properties.getDefaultRatePerSecond())));
+  }
+
+  /**
+   * Returns a factory for virtual threads when requested, and for named daemon platform threads
+   * otherwise.
+   */
+  static ThreadFactory threadFactory(boolean virtualThreads) {
+    if (virtualThreads) {
+      return Thread.ofVirtual().name("mail-", 0).factory();
+    }
+    CustomizableThreadFactory factory = new CustomizableThreadFactory("mail-");
+    factory.setDaemon(true);
+    return factory;
+  }
+}
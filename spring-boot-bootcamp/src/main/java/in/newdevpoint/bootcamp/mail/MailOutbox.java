@@ -0,0 +1,193 @@
+package in.newdevpoint.bootcamp.mail;
+
+import in.newdevpoint.bootcamp.entity.MailOutboxEntry;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Persistent retry queue of mail that could not be sent, stored in the {@code mail_outbox}
+ * collection so that pending messages survive a restart.
+ *
+ * <p>Retries are scheduled with exponential backoff and jitter. Due entries are claimed in three
+ * round trips however many there are: their ids are read, one {@code updateMany} pushes their
+ * {@code nextAttemptAt} out by a lease and stamps them with a fresh claim token, and the entries
+ * carrying that token are read back. Entries another node claimed in between no longer match the
+ * update, so no message is sent twice.
+ */
+@Component
+public class MailOutbox {
+  private final MongoTemplate template;
+  private final MailDispatchProperties properties;
+
+  public MailOutbox(MongoTemplate template, MailDispatchProperties properties) {
+    this.template = template;
+    this.properties = properties;
+  }
+
+  /**
+   * Records a failed attempt. First attempts create a new entry; retries update theirs. Messages
+   * that have used up {@code mail.dispatch.maxAttempts} are marked {@code DEAD}.
+   *
+   * @param mail the message that failed
+   * @param error a short description of the failure
+   */
+  public void reschedule(OutgoingMail mail, String error) {
+    int attempts = mail.getAttempts() + 1;
+    MailOutboxEntry.Status status =
+        attempts >= properties.getMaxAttempts()
+            ? MailOutboxEntry.Status.DEAD
+            : MailOutboxEntry.Status.PENDING;
+    Date nextAttemptAt = new Date(System.currentTimeMillis() + backoffMs(attempts));
+
+    if (mail.getOutboxId() == null) {
+      MailOutboxEntry entry = new MailOutboxEntry();
+      entry.setRecipient(mail.getRecipient());
+      entry.setSubject(mail.getSubject());
+      entry.setBody(mail.getBody());
+      entry.setAttempts(attempts);
+      entry.setStatus(status);
+      entry.setNextAttemptAt(nextAttemptAt);
+      entry.setLastError(error);
+      entry.setCreatedAt(new Date());
+      template.insert(entry);
+      return;
+    }
+
+    template.updateFirst(
+        Query.query(Criteria.where("_id").is(mail.getOutboxId())),
+        new Update()
+            .set("attempts", attempts)
+            .set("status", status)
+            .set("nextAttemptAt", nextAttemptAt)
+            .set("lastError", error),
+        MailOutboxEntry.class);
+  }
+
+  /**
+   * Queues messages that were never attempted, e.g. because the dispatch queue was full. They are
+   * due immediately and do not count as an attempt.
+   *
+   * @param mails the messages to queue
+   * @param reason why they were not sent
+   */
+  public void defer(List<OutgoingMail> mails, String reason) {
+    List<MailOutboxEntry> entries = new ArrayList<>(mails.size());
+    Date now = new Date();
+    for (OutgoingMail mail : mails) {
+      if (mail.getOutboxId() != null) {
+        // Already persisted; its lease expires and it is claimed again.
+        continue;
+      }
+      MailOutboxEntry entry = new MailOutboxEntry();
+      entry.setRecipient(mail.getRecipient());
+      entry.setSubject(mail.getSubject());
+      entry.setBody(mail.getBody());
+      entry.setNextAttemptAt(now);
+      entry.setLastError(reason);
+      entry.setCreatedAt(now);
+      entries.add(entry);
+    }
+    if (!entries.isEmpty()) {
+      template.insertAll(entries);
+    }
+  }
+
+  /**
+   * Removes a retried message once it has been delivered.
+   *
+   * @param outboxId the id of the outbox entry
+   */
+  public void complete(String outboxId) {
+    template.remove(Query.query(Criteria.where("_id").is(outboxId)), MailOutboxEntry.class);
+  }
+
+  /**
+   * Claims up to {@code limit} due entries for sending.
+   *
+   * @param limit the maximum number of entries to claim
+   * @return the claimed messages, oldest due first
+   */
+  public List<OutgoingMail> claimDue(int limit) {
+    Date now = new Date();
+    Query due = Query.query(dueAt(now)).with(Sort.by("nextAttemptAt")).limit(limit);
+    due.fields().include("_id");
+    List<String> ids =
+        template.find(due, MailOutboxEntry.class).stream()
+            .map(MailOutboxEntry::getId)
+            .collect(Collectors.toList());
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+
+    String claimToken = UUID.randomUUID().toString();
+    template.updateMulti(
+        Query.query(dueAt(now).and("_id").in(ids)),
+        new Update()
+            .set("nextAttemptAt", new Date(now.getTime() + properties.getRetryLeaseMs()))
+            .set("claimToken", claimToken),
+        MailOutboxEntry.class);
+    Map<String, MailOutboxEntry> entries = new HashMap<>();
+    for (MailOutboxEntry entry :
+        template.find(
+            Query.query(Criteria.where("claimToken").is(claimToken)), MailOutboxEntry.class)) {
+      entries.put(entry.getId(), entry);
+    }
+
+    List<OutgoingMail> claimed = new ArrayList<>(entries.size());
+    for (String id : ids) {
+      MailOutboxEntry entry = entries.get(id);
+      if (entry != null) {
+        claimed.add(
+            new OutgoingMail(
+                entry.getId(),
+                entry.getRecipient(),
+                entry.getSubject(),
+                entry.getBody(),
+                entry.getAttempts()));
+      }
+    }
+    return claimed;
+  }
+
+  private static Criteria dueAt(Date now) {
+    return Criteria.where("status")
+        .is(MailOutboxEntry.Status.PENDING)
+        .and("nextAttemptAt")
+        .lte(now);
+  }
+
+  /**
+   * Counts the messages waiting for a retry.
+   *
+   * @return the number of pending outbox entries
+   */
+  public long pending() {
+    return template.count(
+        Query.query(Criteria.where("status").is(MailOutboxEntry.Status.PENDING)),
+        MailOutboxEntry.class);
+  }
+
+  /**
+   * Returns the delay before the given attempt: the base delay doubled per previous attempt, capped
+   * at the maximum, with the upper half randomised so that failed batches do not retry in step.
+   */
+  long backoffMs(int attempts) {
+    int shift = Math.min(Math.max(attempts - 1, 0), 30);
+    long delay =
+        Math.min(properties.getRetryMaxDelayMs(), properties.getRetryBaseDelayMs() << shift);
+    long half = delay / 2;
+    return half + ThreadLocalRandom.current().nextLong(half + 1);
+  }
+}
@@ -0,0 +1,29 @@
+package in.newdevpoint.bootcamp.mail;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** A single message addressed to one recipient, optionally backed by an outbox entry. */
+@Getter
+@AllArgsConstructor
+public class OutgoingMail {
+  /** Id of the outbox entry this message is a retry of, or null for a first attempt. */
+  private final String outboxId;
+
+  private final String recipient;
+  private final String subject;
+  private final String body;
+
+  /** Attempts already made, not counting the one in progress. */
+  private final int attempts;
+
+  /**
+   * Returns the provider the recipient belongs to, which is used for rate limiting and batching.
+   *
+   * @return the lower-cased mail domain of the recipient
+   */
+  public String provider() {
+    int at = recipient.lastIndexOf('@');
+    return at < 0 ? "" : recipient.substring(at + 1).toLowerCase();
+  }
+}
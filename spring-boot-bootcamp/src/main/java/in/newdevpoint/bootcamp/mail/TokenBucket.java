@@ -0,0 +1,49 @@
+package in.newdevpoint.bootcamp.mail;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket that limits how many messages per second are sent to one provider. The bucket
+ * holds at most one second's worth of tokens, so bursts never exceed the configured rate.
+ */
+class TokenBucket {
+  private final double ratePerNano;
+  private final double capacity;
+  private double tokens;
+  private long refilledAt;
+
+  TokenBucket(double ratePerSecond) {
+    this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+    this.capacity = Math.max(1, ratePerSecond);
+    this.tokens = capacity;
+    this.refilledAt = System.nanoTime();
+  }
+
+  /**
+   * Takes one token per message, waiting until enough have accumulated. Requests larger than the
+   * bucket are served in capacity-sized steps.
+   *
+   * @param permits the number of messages about to be sent
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  void acquire(int permits) throws InterruptedException {
+    double remaining = permits;
+    while (remaining > 0) {
+      double wanted = Math.min(remaining, capacity);
+      long waitNanos = reserve(wanted);
+      if (waitNanos > 0) {
+        TimeUnit.NANOSECONDS.sleep(waitNanos);
+      }
+      remaining -= wanted;
+    }
+  }
+
+  /** Takes the tokens, possibly going into debt, and returns how long to wait until they exist. */
+  private synchronized long reserve(double wanted) {
+    long now = System.nanoTime();
+    tokens = Math.min(capacity, tokens + (now - refilledAt) * ratePerNano);
+    refilledAt = now;
+    tokens -= wanted;
+    return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / ratePerNano);
+  }
+}
@@ -0,0 +1,161 @@
+package in.newdevpoint.bootcamp.migration;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import in.newdevpoint.bootcamp.entity.ERole;
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.service.RoleService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-shot online migration that replaces the {@code roles} references of every user document with
+ * embedded {@code roleNames}.
+ *
+ * <p>Enabled with {@code users.roleMigration.enabled}. Documents are read in {@code _id} order in
+ * batches of {@code users.roleMigration.batchSize} and rewritten with one unordered bulk write per
+ * batch, on a background thread so startup and traffic are not blocked. Each update only applies if
+ * the document's {@code roles} are still the ones that were read; a document changed in between
+ * keeps its references and is picked up by the next run. Re-running is safe because migrated
+ * documents no longer have a {@code roles} field.
+ *
+ * <p>References are never dropped without their name: a document with a reference that does not
+ * resolve gets the names that do resolve but keeps its {@code roles} field, so it can be retried
+ * once the role exists. The migration does not run at all if no roles can be loaded.
+ */
+@Component
+@RequiredArgsConstructor
+public class RoleEmbeddingMigration {
+  private static final Logger logger = LoggerFactory.getLogger(RoleEmbeddingMigration.class);
+
+  private final MongoTemplate template;
+  private final RoleService roleService;
+
+  @Value("${users.roleMigration.enabled:false}")
+  private boolean enabled;
+
+  @Value("${users.roleMigration.batchSize:500}")
+  private int batchSize;
+
+  /** Starts the migration once the application is ready, if enabled. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    if (!enabled) {
+      return;
+    }
+    Thread worker = new Thread(this::migrate, "role-embedding-migration");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /**
+   * Migrates all user documents that still carry role references.
+   *
+   * @return the number of documents rewritten
+   */
+  public long migrate() {
+    MongoCollection<Document> users =
+        template.getCollection(template.getCollectionName(UserEntity.class));
+    Map<String, ERole> roleNamesById = roleService.roleNamesById();
+    if (roleNamesById.isEmpty()) {
+      logger.error("Role embedding migration aborted: no roles found to resolve references");
+      return 0;
+    }
+    long migrated = 0;
+    long skipped = 0;
+    long unresolved = 0;
+    Object lastId = null;
+
+    try {
+      while (true) {
+        Bson filter =
+            lastId == null
+                ? Filters.exists("roles")
+                : Filters.and(Filters.exists("roles"), Filters.gt("_id", lastId));
+        List<Document> batch =
+            users
+                .find(filter)
+                .projection(Projections.include("roles"))
+                .sort(Sorts.ascending("_id"))
+                .limit(batchSize)
+                .into(new ArrayList<>());
+        if (batch.isEmpty()) {
+          break;
+        }
+
+        List<WriteModel<Document>> writes = new ArrayList<>(batch.size());
+        for (Document user : batch) {
+          Object roles = user.get("roles");
+          List<String> names = new ArrayList<>();
+          boolean complete = true;
+          if (roles instanceof List) {
+            for (Object ref : (List<?>) roles) {
+              ERole name =
+                  ref instanceof DBRef ? roleNamesById.get(((DBRef) ref).getId().toString()) : null;
+              if (name == null) {
+                logger.warn("User {} references unknown role {}", user.get("_id"), ref);
+                complete = false;
+              } else {
+                names.add(name.name());
+              }
+            }
+          }
+          Bson update;
+          if (complete) {
+            update =
+                Updates.combine(Updates.addEachToSet("roleNames", names), Updates.unset("roles"));
+          } else {
+            // Keep the references so the user can be migrated again once the role resolves
+            unresolved++;
+            if (names.isEmpty()) {
+              continue;
+            }
+            update = Updates.addEachToSet("roleNames", names);
+          }
+          writes.add(
+              new UpdateOneModel<>(
+                  Filters.and(Filters.eq("_id", user.get("_id")), Filters.eq("roles", roles)),
+                  update));
+        }
+
+        lastId = batch.get(batch.size() - 1).get("_id");
+        if (writes.isEmpty()) {
+          continue;
+        }
+        long modified =
+            users.bulkWrite(writes, new BulkWriteOptions().ordered(false)).getModifiedCount();
+        migrated += modified;
+        skipped += writes.size() - modified;
+        logger.info("Embedded roles for {} users so far", migrated);
+      }
+    } catch (RuntimeException e) {
+      logger.error("Role embedding migration stopped after {} users: {}", migrated, e.getMessage());
+      return migrated;
+    }
+
+    logger.info(
+        "Role embedding migration finished: {} migrated, {} skipped, {} kept for unresolved roles",
+        migrated,
+        skipped,
+        unresolved);
+    return migrated;
+  }
+}
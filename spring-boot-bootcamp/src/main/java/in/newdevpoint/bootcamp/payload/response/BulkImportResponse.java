@@ -0,0 +1,114 @@
+package in.newdevpoint.bootcamp.payload.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Per-row report of a bulk user import. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkImportResponse {
+  private int created;
+  private int failed;
+  private String error;
+  private List<RowResult> rows = new ArrayList<>();
+
+  /**
+   * Adds the outcome of one row to the report.
+   *
+   * @param row the outcome
+   */
+  public void add(RowResult row) {
+    rows.add(row);
+    if (row.getStatus() == Status.CREATED) {
+      created++;
+    } else {
+      failed++;
+    }
+  }
+
+  public int getCreated() {
+    return created;
+  }
+
+  public int getFailed() {
+    return failed;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+
+  public List<RowResult> getRows() {
+    return rows;
+  }
+
+  /** Outcome of a single import row. */
+  public enum Status {
+    CREATED,
+    INVALID,
+    DUPLICATE_IN_REQUEST,
+    USERNAME_TAKEN,
+    EMAIL_TAKEN,
+    FAILED
+  }
+
+  /** Result of importing the row at {@code row} (zero-based) of the request. */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public static class RowResult {
+    private final int row;
+    private final String username;
+    private Status status;
+    private String id;
+    private String message;
+
+    public RowResult(int row, String username) {
+      this.row = row;
+      this.username = username;
+    }
+
+    public int getRow() {
+      return row;
+    }
+
+    public String getUsername() {
+      return username;
+    }
+
+    public Status getStatus() {
+      return status;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    /**
+     * Marks the row as created.
+     *
+     * @param id the id of the new user
+     */
+    public void created(String id) {
+      this.status = Status.CREATED;
+      this.id = id;
+    }
+
+    /**
+     * Marks the row as rejected.
+     *
+     * @param status the reason
+     * @param message a human-readable explanation
+     */
+    public void rejected(Status status, String message) {
+      this.status = status;
+      this.message = message;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package in.newdevpoint.bootcamp.payload.response;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paged result. {@code nextCursor} is {@code null} on the last page and {@code
+ * totalElements} is {@code null} unless a total count was requested.
+ *
+ * @param <T> the element type
+ */
+public class CursorPageResponse<T> {
+  private List<T> content;
+  private int size;
+  private String nextCursor;
+  private Long totalElements;
+
+  public CursorPageResponse(List<T> content, int size, String nextCursor, Long totalElements) {
+    this.content = content;
+    this.size = size;
+    this.nextCursor = nextCursor;
+    this.totalElements = totalElements;
+  }
+
+  public List<T> getContent() {
+    return content;
+  }
+
+  public void setContent(List<T> content) {
+    this.content = content;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public void setSize(int size) {
+    this.size = size;
+  }
+
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  public void setNextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+
+  public boolean isHasNext() {
+    return nextCursor != null;
+  }
+
+  public Long getTotalElements() {
+    return totalElements;
+  }
+
+  public void setTotalElements(Long totalElements) {
+    this.totalElements = totalElements;
+  }
+}
@@ -0,0 +1,288 @@
+package in.newdevpoint.bootcamp.search;
+
+import in.newdevpoint.bootcamp.exceptions.ValidationException;
+import in.newdevpoint.bootcamp.search.RsqlScanner.Token;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * Compiled form of an RSQL query shape: a tree of AND/OR junctions over comparisons whose fields,
+ * operators and value types are already resolved. Binding the literal arguments of a concrete query
+ * to the plan produces its {@link Criteria} without parsing again.
+ */
+final class QueryPlan {
+  private static final Set<String> OPERATORS =
+      Set.of("==", "!=", "=gt=", "=ge=", "=lt=", "=le=", "=in=", "=out=", "=ex=");
+
+  private final Node root;
+
+  private QueryPlan(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * Compiles the tokens of a query shape against an entity.
+   *
+   * @param tokens the scanned tokens
+   * @param entity the entity the query filters
+   * @param maxDepth the maximum number of nested groups
+   * @param maxOrBranches the maximum number of OR operands in the whole query
+   * @return the compiled plan
+   * @throws ValidationException if the query is malformed, too deep, too wide or refers to unknown
+   *     fields or operators
+   */
+  static QueryPlan compile(
+      List<Token> tokens, MongoPersistentEntity<?> entity, int maxDepth, int maxOrBranches) {
+    Compiler compiler = new Compiler(tokens, entity, maxDepth, maxOrBranches);
+    Node root = compiler.or(0);
+    if (compiler.pos != tokens.size()) {
+      throw new ValidationException("Invalid query: unbalanced ')'");
+    }
+    return new QueryPlan(root);
+  }
+
+  /**
+   * Produces the criteria for a concrete query of this plan's shape.
+   *
+   * @param arguments the literal arguments of the query, in scan order
+   * @param maxInValues the maximum number of values in an {@code =in=} or {@code =out=} list
+   * @return the criteria
+   */
+  Criteria bind(List<Object> arguments, int maxInValues) {
+    return root.bind(arguments, maxInValues);
+  }
+
+  private abstract static class Node {
+    abstract Criteria bind(List<Object> arguments, int maxInValues);
+  }
+
+  private static final class Junction extends Node {
+    private final boolean or;
+    private final List<Node> children;
+
+    private Junction(boolean or, List<Node> children) {
+      this.or = or;
+      this.children = children;
+    }
+
+    @Override
+    Criteria bind(List<Object> arguments, int maxInValues) {
+      Criteria[] criteria = new Criteria[children.size()];
+      for (int i = 0; i < criteria.length; i++) {
+        criteria[i] = children.get(i).bind(arguments, maxInValues);
+      }
+      return or ? new Criteria().orOperator(criteria) : new Criteria().andOperator(criteria);
+    }
+  }
+
+  private static final class Comparison extends Node {
+    private final String field;
+    private final Class<?> type;
+    private final String operator;
+    private final int argument;
+
+    private Comparison(String field, Class<?> type, String operator, int argument) {
+      this.field = field;
+      this.type = type;
+      this.operator = operator;
+      this.argument = argument;
+    }
+
+    @Override
+    Criteria bind(List<Object> arguments, int maxInValues) {
+      Object argument = arguments.get(this.argument);
+      Criteria criteria = Criteria.where(field);
+      switch (operator) {
+        case "==":
+          return isWildcard(argument)
+              ? criteria.regex(wildcardPattern((String) argument))
+              : criteria.is(convert(argument));
+        case "!=":
+          return isWildcard(argument)
+              ? criteria.not().regex(wildcardPattern((String) argument))
+              : criteria.ne(convert(argument));
+        case "=gt=":
+          return criteria.gt(convert(argument));
+        case "=ge=":
+          return criteria.gte(convert(argument));
+        case "=lt=":
+          return criteria.lt(convert(argument));
+        case "=le=":
+          return criteria.lte(convert(argument));
+        case "=in=":
+          return criteria.in(convertAll(argument, maxInValues));
+        case "=out=":
+          return criteria.nin(convertAll(argument, maxInValues));
+        case "=ex=":
+          if (!"true".equals(argument) && !"false".equals(argument)) {
+            throw new ValidationException("=ex= expects true or false for " + field);
+          }
+          return criteria.exists(Boolean.parseBoolean((String) argument));
+        default:
+          throw new IllegalStateException("Unsupported operator " + operator);
+      }
+    }
+
+    private static boolean isWildcard(Object argument) {
+      return argument instanceof String && ((String) argument).indexOf('*') >= 0;
+    }
+
+    private List<Object> convertAll(Object argument, int maxInValues) {
+      List<?> values = argument instanceof List ? (List<?>) argument : List.of(argument);
+      if (values.size() > maxInValues) {
+        throw new ValidationException(
+            "Query lists more than " + maxInValues + " values for " + field);
+      }
+      List<Object> converted = new ArrayList<>(values.size());
+      for (Object value : values) {
+        converted.add(convert(value));
+      }
+      return converted;
+    }
+
+    private Object convert(Object value) {
+      if (type == String.class || type.isEnum()) {
+        return value;
+      }
+      try {
+        return DefaultConversionService.getSharedInstance().convert(value, type);
+      } catch (ConversionException e) {
+        throw new ValidationException("Invalid value for " + field + ": " + value, e);
+      }
+    }
+  }
+
+  /**
+   * Translates an argument with {@code *} wildcards into an anchored regular expression. Leading
+   * and trailing wildcards are dropped rather than turned into {@code .*}, so {@code a*} becomes
+   * the prefix expression {@code ^a} that MongoDB can answer from an index.
+   */
+  static String wildcardPattern(String argument) {
+    StringBuilder pattern = new StringBuilder("^");
+    for (int i = 0; i < argument.length(); i++) {
+      char c = argument.charAt(i);
+      if (c == '*') {
+        pattern.append(".*");
+      } else {
+        if ("\\^$.|?+()[]{}".indexOf(c) >= 0) {
+          pattern.append('\\');
+        }
+        pattern.append(c);
+      }
+    }
+    pattern.append('$');
+    String regex = pattern.toString();
+    while (regex.endsWith(".*$")) {
+      regex = regex.substring(0, regex.length() - 3);
+    }
+    while (regex.startsWith("^.*")) {
+      regex = regex.substring(3);
+    }
+    return regex;
+  }
+
+  /**
+   * Recursive-descent compiler over scanned tokens: or := and (',' and)*, and := term (';' term)*.
+   */
+  private static final class Compiler {
+    private final List<Token> tokens;
+    private final MongoPersistentEntity<?> entity;
+    private final int maxDepth;
+    private final int maxOrBranches;
+    private int pos;
+    private int orBranches;
+
+    private Compiler(
+        List<Token> tokens, MongoPersistentEntity<?> entity, int maxDepth, int maxOrBranches) {
+      this.tokens = tokens;
+      this.entity = entity;
+      this.maxDepth = maxDepth;
+      this.maxOrBranches = maxOrBranches;
+    }
+
+    private Node or(int depth) {
+      List<Node> children = new ArrayList<>();
+      children.add(and(depth));
+      while (accept(RsqlScanner.OR)) {
+        children.add(and(depth));
+      }
+      if (children.size() == 1) {
+        return children.get(0);
+      }
+      orBranches += children.size();
+      if (orBranches > maxOrBranches) {
+        throw new ValidationException("Query has more than " + maxOrBranches + " OR branches");
+      }
+      return new Junction(true, Collections.unmodifiableList(children));
+    }
+
+    private Node and(int depth) {
+      List<Node> children = new ArrayList<>();
+      children.add(term(depth));
+      while (accept(RsqlScanner.AND)) {
+        children.add(term(depth));
+      }
+      return children.size() == 1
+          ? children.get(0)
+          : new Junction(false, Collections.unmodifiableList(children));
+    }
+
+    private Node term(int depth) {
+      if (accept(RsqlScanner.GROUP_OPEN)) {
+        if (depth + 1 > maxDepth) {
+          throw new ValidationException("Query nests groups deeper than " + maxDepth);
+        }
+        Node group = or(depth + 1);
+        if (!accept(RsqlScanner.GROUP_CLOSE)) {
+          throw new ValidationException("Invalid query: ')' expected");
+        }
+        return group;
+      }
+      if (pos >= tokens.size() || tokens.get(pos).type != RsqlScanner.COMPARISON) {
+        throw new ValidationException("Invalid query: comparison expected");
+      }
+      return comparison(tokens.get(pos++));
+    }
+
+    private Node comparison(Token token) {
+      if (!OPERATORS.contains(token.operator)) {
+        throw new ValidationException("Unsupported operator " + token.operator);
+      }
+      boolean listOperator = token.operator.equals("=in=") || token.operator.equals("=out=");
+      if (token.list && !listOperator) {
+        throw new ValidationException(token.operator + " does not accept a value list");
+      }
+
+      String root = token.selector;
+      int dot = root.indexOf('.');
+      if (dot >= 0) {
+        root = root.substring(0, dot);
+      }
+      MongoPersistentProperty property = entity.getPersistentProperty(root);
+      if (property == null || property.isAssociation()) {
+        throw new ValidationException("Unknown search field " + token.selector);
+      }
+      Class<?> type = dot >= 0 ? String.class : property.getActualType();
+      if (property.isIdProperty()) {
+        // Ids are matched as strings and mapped to ObjectId by the query mapper
+        type = String.class;
+      }
+      return new Comparison(token.selector, type, token.operator, token.argument);
+    }
+
+    private boolean accept(char type) {
+      if (pos < tokens.size() && tokens.get(pos).type == type) {
+        pos++;
+        return true;
+      }
+      return false;
+    }
+  }
+}
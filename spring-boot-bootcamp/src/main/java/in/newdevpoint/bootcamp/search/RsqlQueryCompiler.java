@@ -0,0 +1,105 @@
+package in.newdevpoint.bootcamp.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import in.newdevpoint.bootcamp.exceptions.ValidationException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns RSQL search expressions into MongoDB {@link Criteria} through a cache of compiled plans.
+ *
+ * <p>A query is scanned once into its shape and literal arguments. Plans are cached per entity and
+ * shape, so {@code username==a*} and {@code username==b*} share one plan and only the first of them
+ * pays for parsing, field resolution and validation. Queries that nest groups deeper than {@code
+ * search.query.maxDepth}, have more than {@code search.query.maxOrBranches} OR operands or list
+ * more than {@code search.query.maxInValues} values are rejected with a {@link ValidationException}
+ * before they reach MongoDB.
+ *
+ * <p>Latency is published as the {@code search.query.plan} timer with {@code outcome} {@code hit},
+ * {@code compile} or {@code rejected}; cache statistics use {@code cache=rsqlQueryPlans}.
+ */
+@Component
+public class RsqlQueryCompiler {
+  static final String CACHE_NAME = "rsqlQueryPlans";
+
+  private final MongoConverter converter;
+  private final Cache<String, QueryPlan> plans;
+  private final int maxLength;
+  private final int maxDepth;
+  private final int maxOrBranches;
+  private final int maxInValues;
+  private final Timer hitTimer;
+  private final Timer compileTimer;
+  private final Timer rejectedTimer;
+
+  public RsqlQueryCompiler(
+      MongoConverter converter,
+      MeterRegistry meterRegistry,
+      @Value("${search.query.planCacheSize:1000}") long planCacheSize,
+      @Value("${search.query.maxLength:2000}") int maxLength,
+      @Value("${search.query.maxDepth:5}") int maxDepth,
+      @Value("${search.query.maxOrBranches:20}") int maxOrBranches,
+      @Value("${search.query.maxInValues:100}") int maxInValues) {
+    this.converter = converter;
+    this.plans = Caffeine.newBuilder().maximumSize(planCacheSize).recordStats().build();
+    this.maxLength = maxLength;
+    this.maxDepth = maxDepth;
+    this.maxOrBranches = maxOrBranches;
+    this.maxInValues = maxInValues;
+    CaffeineCacheMetrics.monitor(meterRegistry, plans, CACHE_NAME);
+    this.hitTimer = timer(meterRegistry, "hit");
+    this.compileTimer = timer(meterRegistry, "compile");
+    this.rejectedTimer = timer(meterRegistry, "rejected");
+  }
+
+  /**
+   * Converts an RSQL query into criteria on the given entity.
+   *
+   * @param query the RSQL query, e.g. {@code username==a*;email=in=(a@x.com,b@x.com)}
+   * @param entityType the entity the query filters
+   * @return the criteria
+   * @throws ValidationException if the query is invalid or exceeds the configured limits
+   */
+  public Criteria toCriteria(String query, Class<?> entityType) {
+    long start = System.nanoTime();
+    Timer timer = rejectedTimer;
+    try {
+      if (query.length() > maxLength) {
+        throw new ValidationException("Query is longer than " + maxLength + " characters");
+      }
+      RsqlScanner.Scanned scanned = RsqlScanner.scan(query);
+      String key = entityType.getName() + ':' + scanned.shape;
+
+      QueryPlan plan = plans.getIfPresent(key);
+      Timer outcome = hitTimer;
+      if (plan == null) {
+        MongoPersistentEntity<?> entity =
+            converter.getMappingContext().getRequiredPersistentEntity(entityType);
+        plan = QueryPlan.compile(scanned.tokens, entity, maxDepth, maxOrBranches);
+        plans.put(key, plan);
+        outcome = compileTimer;
+      }
+
+      Criteria criteria = plan.bind(scanned.arguments, maxInValues);
+      timer = outcome;
+      return criteria;
+    } finally {
+      timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private static Timer timer(MeterRegistry meterRegistry, String outcome) {
+    return Timer.builder("search.query.plan")
+        .description("Time to turn an RSQL query into MongoDB criteria")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+}
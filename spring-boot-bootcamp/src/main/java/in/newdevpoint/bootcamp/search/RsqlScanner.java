@@ -0,0 +1,232 @@
+package in.newdevpoint.bootcamp.search;
+
+import in.newdevpoint.bootcamp.exceptions.ValidationException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass scanner for RSQL query strings.
+ *
+ * <p>Splits a query into structural tokens and literal arguments. Every argument is replaced by a
+ * placeholder in the query's shape ({@code ?} for a single value, {@code ?*} for a value list), so
+ * {@code username==a*} and {@code username==b*} both have the shape {@code username==?}. The shape
+ * is what compiled plans are cached under; scanning is the only per-request parsing work.
+ */
+final class RsqlScanner {
+  static final char GROUP_OPEN = '(';
+  static final char GROUP_CLOSE = ')';
+  static final char AND = ';';
+  static final char OR = ',';
+  static final char COMPARISON = 'c';
+
+  private final String query;
+  private final List<Token> tokens = new ArrayList<>();
+  private final List<Object> arguments = new ArrayList<>();
+  private final StringBuilder shape;
+  private int pos;
+
+  private RsqlScanner(String query) {
+    this.query = query;
+    this.shape = new StringBuilder(query.length());
+  }
+
+  /**
+   * Scans a query string.
+   *
+   * @param query the RSQL query
+   * @return the tokens, shape and arguments of the query
+   * @throws ValidationException if the query is not valid RSQL
+   */
+  static Scanned scan(String query) {
+    return new RsqlScanner(query).scan();
+  }
+
+  private Scanned scan() {
+    boolean expectComparison = true;
+    while (skipWhitespace() < query.length()) {
+      char c = query.charAt(pos);
+      if (expectComparison) {
+        if (c == GROUP_OPEN) {
+          structural(GROUP_OPEN);
+          pos++;
+        } else {
+          comparison();
+          expectComparison = false;
+        }
+      } else if (c == GROUP_CLOSE) {
+        structural(GROUP_CLOSE);
+        pos++;
+      } else if (c == AND || c == OR) {
+        structural(c);
+        pos++;
+        expectComparison = true;
+      } else if (keyword("and")) {
+        structural(AND);
+        expectComparison = true;
+      } else if (keyword("or")) {
+        structural(OR);
+        expectComparison = true;
+      } else {
+        throw invalid("';', ',' or ')' expected");
+      }
+    }
+    if (expectComparison) {
+      throw invalid("comparison expected");
+    }
+    return new Scanned(shape.toString(), tokens, arguments);
+  }
+
+  private void comparison() {
+    int start = pos;
+    while (pos < query.length() && isUnreserved(query.charAt(pos))) {
+      pos++;
+    }
+    if (pos == start) {
+      throw invalid("selector expected");
+    }
+    String selector = query.substring(start, pos);
+    skipWhitespace();
+    String operator = operator();
+    skipWhitespace();
+
+    boolean list = pos < query.length() && query.charAt(pos) == GROUP_OPEN;
+    if (list) {
+      pos++;
+      List<String> values = new ArrayList<>();
+      do {
+        skipWhitespace();
+        values.add(value());
+        skipWhitespace();
+      } while (pos < query.length() && query.charAt(pos++) == OR);
+      if (query.charAt(pos - 1) != GROUP_CLOSE) {
+        throw invalid("')' expected");
+      }
+      arguments.add(values);
+    } else {
+      arguments.add(value());
+    }
+
+    tokens.add(new Token(COMPARISON, selector, operator, arguments.size() - 1, list));
+    shape.append(selector).append(operator).append(list ? "?*" : "?");
+  }
+
+  private String operator() {
+    if (query.startsWith("==", pos) || query.startsWith("!=", pos)) {
+      pos += 2;
+      return query.substring(pos - 2, pos);
+    }
+    if (query.startsWith("<=", pos) || query.startsWith(">=", pos)) {
+      pos += 2;
+      return query.charAt(pos - 2) == '<' ? "=le=" : "=ge=";
+    }
+    if (query.startsWith("<", pos) || query.startsWith(">", pos)) {
+      pos++;
+      return query.charAt(pos - 1) == '<' ? "=lt=" : "=gt=";
+    }
+    if (pos < query.length() && query.charAt(pos) == '=') {
+      int start = pos++;
+      while (pos < query.length() && Character.isLetter(query.charAt(pos))) {
+        pos++;
+      }
+      if (pos > start + 1 && pos < query.length() && query.charAt(pos) == '=') {
+        pos++;
+        return query.substring(start, pos);
+      }
+      pos = start;
+    }
+    throw invalid("comparison operator expected");
+  }
+
+  private String value() {
+    if (pos >= query.length()) {
+      throw invalid("argument expected");
+    }
+    char quote = query.charAt(pos);
+    if (quote == '\'' || quote == '"') {
+      StringBuilder value = new StringBuilder();
+      pos++;
+      while (pos < query.length() && query.charAt(pos) != quote) {
+        if (query.charAt(pos) == '\\' && pos + 1 < query.length()) {
+          pos++;
+        }
+        value.append(query.charAt(pos++));
+      }
+      if (pos >= query.length()) {
+        throw invalid("unterminated quoted argument");
+      }
+      pos++;
+      return value.toString();
+    }
+    int start = pos;
+    while (pos < query.length() && isUnreserved(query.charAt(pos))) {
+      pos++;
+    }
+    if (pos == start) {
+      throw invalid("argument expected");
+    }
+    return query.substring(start, pos);
+  }
+
+  private boolean keyword(String keyword) {
+    int end = pos + keyword.length();
+    if (pos > 0
+        && Character.isWhitespace(query.charAt(pos - 1))
+        && query.startsWith(keyword, pos)
+        && end < query.length()
+        && (Character.isWhitespace(query.charAt(end)) || query.charAt(end) == GROUP_OPEN)) {
+      pos = end;
+      return true;
+    }
+    return false;
+  }
+
+  private void structural(char type) {
+    tokens.add(new Token(type, null, null, -1, false));
+    shape.append(type);
+  }
+
+  private int skipWhitespace() {
+    while (pos < query.length() && Character.isWhitespace(query.charAt(pos))) {
+      pos++;
+    }
+    return pos;
+  }
+
+  private ValidationException invalid(String reason) {
+    return new ValidationException("Invalid query at position " + pos + ": " + reason);
+  }
+
+  private static boolean isUnreserved(char c) {
+    return !Character.isWhitespace(c) && "\"'();,=!~<>".indexOf(c) < 0;
+  }
+
+  /** A structural token or a comparison referring to its argument by index. */
+  static final class Token {
+    final char type;
+    final String selector;
+    final String operator;
+    final int argument;
+    final boolean list;
+
+    Token(char type, String selector, String operator, int argument, boolean list) {
+      this.type = type;
+      this.selector = selector;
+      this.operator = operator;
+      this.argument = argument;
+      this.list = list;
+    }
+  }
+
+  /** Result of scanning a query: its shape, its tokens and its literal arguments in order. */
+  static final class Scanned {
+    final String shape;
+    final List<Token> tokens;
+    final List<Object> arguments;
+
+    Scanned(String shape, List<Token> tokens, List<Object> arguments) {
+      this.shape = shape;
+      this.tokens = tokens;
+      this.arguments = arguments;
+    }
+  }
+}
@@ -32,7 +32,9 @@ public class WebSecurityConfig { // extends WebSecurityConfigurerAdapter {
     "/api/auth/**", "/system/**"
   }; // Other endpoints that are publicly accessible, such as authentication and test endpoints
 
-  private static final String[] ADMIN_RESTRICT = {"/admin/**"};
+  private static final String[] ADMIN_RESTRICT = {
+    "/admin/**", "/actuator/queryshapes", "/api/auth/signup/bulk"
+  }; // Admin-only endpoints, matched before the whitelists since some live under them
 
   // Injecting custom implementation of UserDetailsService for loading user-specific data
   @Autowired UserDetailsServiceImpl userDetailsService;
@@ -108,13 +110,13 @@ public class WebSecurityConfig { // extends WebSecurityConfigurerAdapter {
     // Configure authorization rules
     http.authorizeHttpRequests(
         auth ->
-            auth.requestMatchers(
+            auth.requestMatchers(ADMIN_RESTRICT)
+                .hasAnyAuthority("ROLE_ADMIN")
+                .requestMatchers(
                     OTHER_WHITELIST) // Allow access to endpoints in the OTHER_WHITELIST
                 .permitAll()
                 .requestMatchers(SWAGGER_WHITELIST) // Allow access to Swagger-related endpoints
                 .permitAll()
-                .requestMatchers(ADMIN_RESTRICT)
-                .hasAnyAuthority("ROLE_ADMIN")
                 .anyRequest() // All other requests must be authenticated
                 .authenticated());
 
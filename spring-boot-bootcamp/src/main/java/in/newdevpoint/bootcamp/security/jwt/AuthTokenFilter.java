@@ -1,11 +1,13 @@
 package in.newdevpoint.bootcamp.security.jwt;
 
 import in.newdevpoint.bootcamp.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,10 +19,14 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 public class AuthTokenFilter extends OncePerRequestFilter {
+  @Autowired private JwtVerifier jwtVerifier;
+
   @Autowired private JwtUtils jwtUtils;
 
   @Autowired private UserDetailsServiceImpl userDetailsService;
 
+  @Autowired private TokenRevocationRegistry revocationRegistry;
+
   private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
   @Override
@@ -31,13 +37,22 @@ public class AuthTokenFilter extends OncePerRequestFilter {
       // Extract JWT token from the Authorization header
       String jwt = parseJwt(request);
 
-      // If JWT token exists and is valid, authenticate the user
-      if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-        // Extract username from the JWT token
-        String username = jwtUtils.getUserNameFromJwtToken(jwt);
+      // Verify the token once and reuse its claims instead of parsing it again
+      Optional<Claims> claims = jwt != null ? jwtVerifier.verify(jwt) : Optional.empty();
+
+      // If JWT token exists, is valid, was issued after the user's last change and has not been
+      // revoked, authenticate
+      if (claims.isPresent()
+          && jwtUtils.isTokenVersionCurrent(claims.get())
+          && !revocationRegistry.isRevoked(claims.get())) {
+        // Extract username from the verified claims
+        String username = claims.get().getSubject();
 
-        // Load user details based on the extracted username
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        // Use the principal carried by the token in stateless mode, otherwise load it by username
+        UserDetails userDetails = jwtUtils.getUserDetailsFromClaims(claims.get()).orElse(null);
+        if (userDetails == null) {
+          userDetails = userDetailsService.loadUserByUsername(username);
+        }
 
         // Create an authentication token using the user details and set it in the security context
         UsernamePasswordAuthenticationToken authentication =
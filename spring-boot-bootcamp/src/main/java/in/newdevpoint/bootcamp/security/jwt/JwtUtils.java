@@ -2,31 +2,51 @@ package in.newdevpoint.bootcamp.security.jwt;
 
 import in.newdevpoint.bootcamp.security.services.UserDetailsImpl;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
-import java.security.Key;
+import java.util.Collection;
 import java.util.Date;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
 @Component
 public class JwtUtils {
-  private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
+  // Claim names used when the principal is carried inside the token
+  static final String CLAIM_USER_ID = "uid";
+  static final String CLAIM_EMAIL = "email";
+  static final String CLAIM_ROLES = "roles";
+  static final String CLAIM_VERSION = "ver";
+  // Issue time in milliseconds; iat only has second precision
+  static final String CLAIM_ISSUED_AT_MS = "iat_ms";
 
-  @Value("${auth.jwtSecret}")
-  private String jwtSecret; // Secret key used for signing and verifying JWT tokens
+  @Autowired private JwtVerifier jwtVerifier; // Holds the signing key and verified-token cache
+
+  @Autowired private TokenVersionRegistry tokenVersionRegistry;
 
   @Value("${auth.jwtExpirationMs}")
   private int jwtExpirationMs;
 
+  // When enabled, tokens carry the principal and the auth filter skips the user lookup
+  @Value("${auth.statelessPrincipal:false}")
+  private boolean statelessPrincipal;
+
+  @Value("${auth.statelessJwtExpirationMs:900000}")
+  private int statelessJwtExpirationMs;
+
   /**
    * Generates a JWT token for the authenticated user.
    *
    * <p>The token's subject is set to the user's username, with the issued and expiration dates
-   * determined by the current time and configured expiration period.
+   * determined by the current time and configured expiration period, and a random {@code jti} so
+   * the token can be revoked on its own. The issue time is also carried in milliseconds, so a token
+   * issued right after a forced sign-out is not mistaken for one issued before it. In stateless
+   * principal mode the token also carries the user id, email, authorities and current token
+   * version, and uses the shorter {@code auth.statelessJwtExpirationMs} lifetime.
    *
    * @param authentication the authentication object containing the user's details
    * @return a signed JWT token string
@@ -35,36 +55,80 @@ public class JwtUtils {
 
     UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
-    return Jwts.builder()
-        .setSubject((userPrincipal.getUsername()))
-        .setIssuedAt(new Date())
-        .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-        .signWith(key(), SignatureAlgorithm.HS256)
-        .compact();
+    Date issuedAt = new Date();
+    JwtBuilder builder =
+        Jwts.builder()
+            .setId(UUID.randomUUID().toString())
+            .setSubject((userPrincipal.getUsername()))
+            .setIssuedAt(issuedAt)
+            .claim(CLAIM_ISSUED_AT_MS, issuedAt.getTime());
+
+    if (statelessPrincipal) {
+      List<String> roles =
+          userPrincipal.getAuthorities().stream()
+              .map(GrantedAuthority::getAuthority)
+              .collect(Collectors.toList());
+      builder
+          .claim(CLAIM_USER_ID, userPrincipal.getId())
+          .claim(CLAIM_EMAIL, userPrincipal.getEmail())
+          .claim(CLAIM_ROLES, roles)
+          .claim(CLAIM_VERSION, tokenVersionRegistry.currentVersion(userPrincipal.getId()))
+          .setExpiration(new Date(issuedAt.getTime() + statelessJwtExpirationMs));
+    } else {
+      builder.setExpiration(new Date(issuedAt.getTime() + jwtExpirationMs));
+    }
+
+    return builder.signWith(jwtVerifier.signingKey(), SignatureAlgorithm.HS256).compact();
   }
 
   /**
-   * Decodes the base64-encoded JWT secret and returns an HMAC SHA-256 signing key.
+   * Builds the principal straight from verified token claims when stateless principal mode is
+   * enabled.
    *
-   * @return a cryptographic key for signing and verifying JWT tokens
+   * @param claims the verified claims of the token
+   * @return the principal, or empty if the mode is disabled or the token does not carry one
    */
-  private Key key() {
-    return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+  public Optional<UserDetailsImpl> getUserDetailsFromClaims(Claims claims) {
+    String userId = claims.get(CLAIM_USER_ID, String.class);
+    if (!statelessPrincipal || userId == null) {
+      return Optional.empty();
+    }
+
+    Collection<?> roles = claims.get(CLAIM_ROLES, List.class);
+    List<GrantedAuthority> authorities =
+        UserDetailsImpl.authoritiesFor(
+            roles == null
+                ? List.of()
+                : roles.stream().map(String::valueOf).collect(Collectors.toList()));
+
+    return Optional.of(
+        new UserDetailsImpl(
+            userId, claims.getSubject(), claims.get(CLAIM_EMAIL, String.class), null, authorities));
+  }
+
+  /**
+   * Checks that a token carrying a version claim was issued after the user's last change.
+   *
+   * @param claims the verified claims of the token
+   * @return false if the user changed after the token was issued; true otherwise
+   */
+  public boolean isTokenVersionCurrent(Claims claims) {
+    String userId = claims.get(CLAIM_USER_ID, String.class);
+    Number version = claims.get(CLAIM_VERSION, Number.class);
+    if (userId == null || version == null) {
+      return true;
+    }
+    return tokenVersionRegistry.isCurrent(userId, version.longValue());
   }
 
   /**
    * Extracts the username from the subject claim of a JWT token.
    *
    * @param token the JWT token to parse
-   * @return the username contained in the token's subject claim
+   * @return the username contained in the token's subject claim, or null if the token is invalid
    */
   public String getUserNameFromJwtToken(String token) {
-    return Jwts.parserBuilder()
-        .setSigningKey(key())
-        .build()
-        .parseClaimsJws(token)
-        .getBody()
-        .getSubject();
+    return jwtVerifier.verify(token).map(Claims::getSubject).orElse(null);
   }
 
   /**
@@ -74,19 +138,6 @@ public class JwtUtils {
    * @return true if the token is valid; false otherwise
    */
   public boolean validateJwtToken(String authToken) {
-    try {
-      Jwts.parserBuilder().setSigningKey(key()).build().parse(authToken);
-      return true;
-    } catch (MalformedJwtException e) {
-      logger.error("Invalid JWT token: {}", e.getMessage());
-    } catch (ExpiredJwtException e) {
-      logger.error("JWT token is expired: {}", e.getMessage());
-    } catch (UnsupportedJwtException e) {
-      logger.error("JWT token is unsupported: {}", e.getMessage());
-    } catch (IllegalArgumentException e) {
-      logger.error("JWT claims string is empty: {}", e.getMessage());
-    }
-
-    return false;
+    return jwtVerifier.verify(authToken).isPresent();
   }
 }
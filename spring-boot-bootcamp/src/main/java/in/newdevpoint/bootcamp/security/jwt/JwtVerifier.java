@@ -0,0 +1,154 @@
+package in.newdevpoint.bootcamp.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verifies JWT tokens with a signing key and parser that are built once at startup.
+ *
+ * <p>Successfully verified tokens are remembered in a bounded cache keyed by a SHA-256 digest of
+ * the token, so repeated requests carrying the same token skip the HMAC check. A cache entry never
+ * outlives the token's own {@code exp} claim or {@code auth.jwtVerifiedCacheTtlMs}, whichever comes
+ * first. Cache hits and misses are published under the {@code cache.gets} actuator metric with
+ * {@code cache=jwtVerifiedTokens}.
+ */
+@Component
+public class JwtVerifier {
+  private static final Logger logger = LoggerFactory.getLogger(JwtVerifier.class);
+
+  static final String CACHE_NAME = "jwtVerifiedTokens";
+
+  private final Key signingKey;
+  private final JwtParser parser;
+  private final Cache<String, Claims> verifiedTokens;
+
+  public JwtVerifier(
+      @Value("${auth.jwtSecret}") String jwtSecret,
+      @Value("${auth.jwtVerifiedCacheSize:10000}") long cacheSize,
+      @Value("${auth.jwtVerifiedCacheTtlMs:300000}") long cacheTtlMs,
+      MeterRegistry meterRegistry) {
+    this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    this.verifiedTokens =
+        Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfter(new ClaimsExpiry(TimeUnit.MILLISECONDS.toNanos(cacheTtlMs)))
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, CACHE_NAME);
+  }
+
+  /**
+   * Returns the HMAC SHA-256 key used for signing and verifying tokens.
+   *
+   * @return the signing key decoded from {@code auth.jwtSecret}
+   */
+  Key signingKey() {
+    return signingKey;
+  }
+
+  /**
+   * Verifies the signature and expiry of a JWT token and returns its claims from a single parse.
+   *
+   * @param token the compact JWT token
+   * @return the verified claims, or empty if the token is invalid, expired or unsigned
+   */
+  public Optional<Claims> verify(String token) {
+    String digest = digest(token);
+    Claims cached = verifiedTokens.getIfPresent(digest);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+
+    try {
+      Claims claims = parser.parseClaimsJws(token).getBody();
+      verifiedTokens.put(digest, claims);
+      return Optional.of(claims);
+    } catch (MalformedJwtException e) {
+      logger.error("Invalid JWT token: {}", e.getMessage());
+    } catch (ExpiredJwtException e) {
+      logger.error("JWT token is expired: {}", e.getMessage());
+    } catch (UnsupportedJwtException e) {
+      logger.error("JWT token is unsupported: {}", e.getMessage());
+    } catch (IllegalArgumentException e) {
+      logger.error("JWT claims string is empty: {}", e.getMessage());
+    } catch (JwtException e) {
+      logger.error("JWT token could not be verified: {}", e.getMessage());
+    }
+
+    return Optional.empty();
+  }
+
+  /**
+   * Computes the cache key for a token so the raw bearer token is never held as a map key.
+   *
+   * @param token the compact JWT token
+   * @return the Base64-encoded SHA-256 digest of the token
+   */
+  private static String digest(String token) {
+    if (token == null) {
+      return "";
+    }
+    try {
+      byte[] hash =
+          MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+      return Base64.getEncoder().withoutPadding().encodeToString(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /** Expires a cached token at its {@code exp} claim, capped by the configured maximum TTL. */
+  private static final class ClaimsExpiry implements Expiry<String, Claims> {
+    private final long maxTtlNanos;
+
+    private ClaimsExpiry(long maxTtlNanos) {
+      this.maxTtlNanos = maxTtlNanos;
+    }
+
+    @Override
+    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+      Date expiration = claims.getExpiration();
+      if (expiration == null) {
+        return maxTtlNanos;
+      }
+      long remainingMs = expiration.getTime() - System.currentTimeMillis();
+      return Math.max(0, Math.min(maxTtlNanos, TimeUnit.MILLISECONDS.toNanos(remainingMs)));
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        String key, Claims claims, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, claims, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
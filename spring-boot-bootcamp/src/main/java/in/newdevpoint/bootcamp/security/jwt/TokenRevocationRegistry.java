@@ -0,0 +1,232 @@
+package in.newdevpoint.bootcamp.security.jwt;
+
+import in.newdevpoint.bootcamp.entity.RevokedToken;
+import in.newdevpoint.bootcamp.utility.BloomFilter;
+import io.jsonwebtoken.Claims;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks revoked JWTs so that {@link AuthTokenFilter} can reject them before they expire.
+ *
+ * <p>Revocations are stored in the {@code revoked_tokens} collection, where a TTL index removes
+ * them once the revoked tokens would have expired anyway. Every node mirrors the collection in
+ * memory:
+ *
+ * <ul>
+ *   <li>a Bloom filter of revoked {@code jti} claims, which answers "not revoked" for almost every
+ *       token without touching the exact set
+ *   <li>an exact map of revoked {@code jti} claims, consulted only when the filter reports a match
+ *   <li>a map of forced sign-out instants by subject, usually empty
+ * </ul>
+ *
+ * <p>The mirror is loaded once the application is ready and then refreshed incrementally every
+ * {@code auth.revocation.pollMs}, so a revocation made on another node takes effect here within one
+ * poll interval. Checks never perform I/O.
+ */
+@Component
+public class TokenRevocationRegistry {
+  private static final Logger logger = LoggerFactory.getLogger(TokenRevocationRegistry.class);
+
+  // Re-read this much history on every poll so revocations from nodes with a lagging clock are seen
+  private static final long POLL_OVERLAP_MS = 5_000;
+
+  private final MongoTemplate template;
+  private final long pollMs;
+  private final long expectedRevocations;
+  private final double falsePositiveRate;
+  private final long maxTokenLifetimeMs;
+
+  private final Map<String, Long> revokedIds = new ConcurrentHashMap<>();
+  private final Map<String, Long> notBeforeBySubject = new ConcurrentHashMap<>();
+  private final Object writeLock = new Object();
+  private volatile BloomFilter revokedFilter;
+  private long watermark;
+  private ScheduledExecutorService poller;
+
+  public TokenRevocationRegistry(
+      MongoTemplate template,
+      @Value("${auth.revocation.pollMs:5000}") long pollMs,
+      @Value("${auth.revocation.expectedTokens:100000}") long expectedRevocations,
+      @Value("${auth.revocation.falsePositiveRate:0.01}") double falsePositiveRate,
+      @Value("${auth.jwtExpirationMs}") long jwtExpirationMs,
+      @Value("${auth.statelessJwtExpirationMs:900000}") long statelessJwtExpirationMs) {
+    this.template = template;
+    this.pollMs = pollMs;
+    this.expectedRevocations = expectedRevocations;
+    this.falsePositiveRate = falsePositiveRate;
+    this.maxTokenLifetimeMs = Math.max(jwtExpirationMs, statelessJwtExpirationMs);
+    this.revokedFilter = new BloomFilter(expectedRevocations, falsePositiveRate);
+  }
+
+  /** Loads the current revocations and starts polling for new ones. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    poll();
+    poller =
+        Executors.newSingleThreadScheduledExecutor(
+            new CustomizableThreadFactory("token-revocation-"));
+    poller.scheduleWithFixedDelay(this::poll, pollMs, pollMs, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void stop() {
+    if (poller != null) {
+      poller.shutdownNow();
+    }
+  }
+
+  /**
+   * Checks whether a verified token has been revoked, without any I/O.
+   *
+   * @param claims the verified claims of the token
+   * @return true if the token itself was revoked or its subject was signed out after it was issued
+   */
+  public boolean isRevoked(Claims claims) {
+    if (!notBeforeBySubject.isEmpty()) {
+      Long notBefore = notBeforeBySubject.get(claims.getSubject());
+      if (notBefore != null && issuedAtMillis(claims) < notBefore) {
+        return true;
+      }
+    }
+    String jti = claims.getId();
+    return jti != null && revokedFilter.mightContain(jti) && revokedIds.containsKey(jti);
+  }
+
+  /**
+   * Returns when a token was issued, in milliseconds. Tokens issued before the millisecond claim
+   * existed only carry {@code iat}, truncated to the second, and count as issued at its start.
+   */
+  private static long issuedAtMillis(Claims claims) {
+    Number issuedAtMs = claims.get(JwtUtils.CLAIM_ISSUED_AT_MS, Number.class);
+    if (issuedAtMs != null) {
+      return issuedAtMs.longValue();
+    }
+    Date issuedAt = claims.getIssuedAt();
+    return issuedAt != null ? issuedAt.getTime() : Long.MIN_VALUE;
+  }
+
+  /**
+   * Revokes a single token, for example on logout.
+   *
+   * @param claims the verified claims of the token
+   * @return false if the token carries no {@code jti} claim and cannot be revoked on its own
+   */
+  public boolean revoke(Claims claims) {
+    String jti = claims.getId();
+    if (jti == null) {
+      return false;
+    }
+    Date expiresAt =
+        claims.getExpiration() != null
+            ? claims.getExpiration()
+            : new Date(System.currentTimeMillis() + maxTokenLifetimeMs);
+    save(jti, claims.getSubject(), null, expiresAt);
+    addRevokedId(jti, expiresAt.getTime());
+    return true;
+  }
+
+  /**
+   * Revokes every token of a subject issued up to now, for example when an administrator forces a
+   * user to sign out. Tokens are compared by their millisecond issue time, so the user can sign in
+   * again right away. Older tokens without it are rejected if issued within the same second.
+   *
+   * @param subject the token subject, i.e. the username
+   */
+  public void revokeAll(String subject) {
+    long now = System.currentTimeMillis();
+    save(
+        RevokedToken.SUBJECT_PREFIX + subject,
+        subject,
+        new Date(now),
+        new Date(now + maxTokenLifetimeMs));
+    notBeforeBySubject.merge(subject, now, Math::max);
+  }
+
+  /** Applies revocations made since the last poll, on this node or another one. */
+  void poll() {
+    try {
+      long now = System.currentTimeMillis();
+      Query query =
+          new Query(Criteria.where("revokedAt").gte(new Date(watermark - POLL_OVERLAP_MS)))
+              .with(Sort.by("revokedAt"));
+      long latest = watermark;
+      for (RevokedToken revoked : template.find(query, RevokedToken.class)) {
+        apply(revoked, now);
+        if (revoked.getRevokedAt() != null) {
+          latest = Math.max(latest, revoked.getRevokedAt().getTime());
+        }
+      }
+      watermark = latest;
+      pruneExpired(now);
+    } catch (DataAccessException e) {
+      logger.warn("Token revocations could not be refreshed: {}", e.getMessage());
+    }
+  }
+
+  private void apply(RevokedToken revoked, long now) {
+    long expiresAt = revoked.getExpiresAt() != null ? revoked.getExpiresAt().getTime() : 0;
+    if (expiresAt <= now) {
+      return;
+    }
+    if (revoked.getNotBefore() != null) {
+      notBeforeBySubject.merge(revoked.getSubject(), revoked.getNotBefore().getTime(), Math::max);
+    } else if (!revokedIds.containsKey(revoked.getId())) {
+      addRevokedId(revoked.getId(), expiresAt);
+    }
+  }
+
+  private void addRevokedId(String jti, long expiresAt) {
+    synchronized (writeLock) {
+      revokedFilter.put(jti);
+      revokedIds.put(jti, expiresAt);
+    }
+  }
+
+  /**
+   * Drops revocations of tokens that have expired and rebuilds the Bloom filter without them, so
+   * its false positive rate does not creep up over time.
+   */
+  private void pruneExpired(long now) {
+    notBeforeBySubject.entrySet().removeIf(entry -> entry.getValue() + maxTokenLifetimeMs <= now);
+    synchronized (writeLock) {
+      if (!revokedIds.values().removeIf(expiresAt -> expiresAt <= now)) {
+        return;
+      }
+      BloomFilter rebuilt =
+          new BloomFilter(Math.max(expectedRevocations, revokedIds.size()), falsePositiveRate);
+      revokedIds.keySet().forEach(rebuilt::put);
+      revokedFilter = rebuilt;
+    }
+  }
+
+  private void save(String id, String subject, Date notBefore, Date expiresAt) {
+    Update update =
+        new Update()
+            .set("subject", subject)
+            .set("revokedAt", new Date())
+            .set("expiresAt", expiresAt);
+    if (notBefore != null) {
+      update.set("notBefore", notBefore);
+    }
+    template.upsert(Query.query(Criteria.where("_id").is(id)), update, RevokedToken.class);
+  }
+}
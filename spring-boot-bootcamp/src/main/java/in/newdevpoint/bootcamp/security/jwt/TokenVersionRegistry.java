@@ -0,0 +1,95 @@
+package in.newdevpoint.bootcamp.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.event.UserChangedEvent;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves per-user token versions for stateless principals.
+ *
+ * <p>The token version is the {@code tokenVersion} field of the user document. It is incremented
+ * only when something a token asserts changes (username, email or roles) or the user is signed out
+ * everywhere, and never decreases, so it is shared by all nodes and survives restarts while
+ * unrelated writes such as a new profile image leave tokens valid. Tokens carry the version current
+ * when they were issued in their {@code ver} claim and are rejected by {@link AuthTokenFilter} once
+ * it has been incremented since. Tokens of deleted users are never current. Versions are cached for
+ * {@code auth.tokenVersionCacheTtlMs} and evicted when a {@link UserChangedEvent} reports a write,
+ * whether made on this node or observed on another through the cache invalidation bus.
+ */
+@Component
+public class TokenVersionRegistry {
+
+  // Cached for users that no longer exist
+  private static final long DELETED = -1L;
+
+  private final MongoTemplate template;
+  private final LoadingCache<String, Long> versions;
+
+  public TokenVersionRegistry(
+      MongoTemplate template,
+      @Value("${auth.tokenVersionCacheSize:100000}") long cacheSize,
+      @Value("${auth.tokenVersionCacheTtlMs:5000}") long cacheTtlMs) {
+    this.template = template;
+    this.versions =
+        Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(cacheTtlMs, TimeUnit.MILLISECONDS)
+            .build(this::load);
+  }
+
+  /**
+   * Returns the version that newly issued tokens for the user must carry.
+   *
+   * @param userId the unique identifier of the user
+   * @return the stored token version of the user, 0 for documents written before it existed
+   */
+  public long currentVersion(String userId) {
+    return Math.max(versions.get(userId), 0L);
+  }
+
+  /**
+   * Checks whether a token version is still current for the user.
+   *
+   * @param userId the unique identifier of the user
+   * @param tokenVersion the {@code ver} claim carried by the token
+   * @return true if the user exists and its token version was not incremented after the token was
+   *     issued
+   */
+  public boolean isCurrent(String userId, long tokenVersion) {
+    long current = versions.get(userId);
+    return current != DELETED && tokenVersion >= current;
+  }
+
+  /**
+   * Drops the cached version of a written user, so the next check reads the new one. Writes made on
+   * other nodes arrive as remote events; when any user may have changed, every version is dropped.
+   *
+   * @param event the user change
+   */
+  @EventListener
+  public void onUserChanged(UserChangedEvent event) {
+    if (event.isAllUsers()) {
+      versions.invalidateAll();
+    } else if (event.getUserId() != null) {
+      versions.invalidate(event.getUserId());
+    }
+  }
+
+  private Long load(String userId) {
+    Query query = new Query(Criteria.where("_id").is(userId));
+    query.fields().include("tokenVersion");
+    UserEntity user = template.findOne(query, UserEntity.class);
+    if (user == null) {
+      return DELETED;
+    }
+    return user.getTokenVersion() != null ? user.getTokenVersion() : 0L;
+  }
+}
@@ -1,10 +1,14 @@
 package in.newdevpoint.bootcamp.security.services;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import in.newdevpoint.bootcamp.entity.ERole;
 import in.newdevpoint.bootcamp.entity.UserEntity;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import lombok.Data;
 import org.springframework.security.core.GrantedAuthority;
@@ -15,6 +19,10 @@ import org.springframework.security.core.userdetails.UserDetails;
 public class UserDetailsImpl implements UserDetails {
   private static final long serialVersionUID = 1L;
 
+  // Immutable authority lists shared by every principal with the same set of role names
+  private static final Map<Set<String>, List<GrantedAuthority>> INTERNED_AUTHORITIES =
+      new ConcurrentHashMap<>();
+
   private String id;
 
   private String username;
@@ -39,13 +47,31 @@ public class UserDetailsImpl implements UserDetails {
   }
 
   public static UserDetailsImpl build(UserEntity user) {
-    List<GrantedAuthority> authorities =
-        user.getRoles().stream()
-            .map(role -> new SimpleGrantedAuthority(role.getName().name()))
-            .collect(Collectors.toList());
+    Set<String> roleNames =
+        user.resolveRoleNames().stream().map(ERole::name).collect(Collectors.toSet());
 
     return new UserDetailsImpl(
-        user.getId(), user.getUsername(), user.getEmail(), user.getPassword(), authorities);
+        user.getId(),
+        user.getUsername(),
+        user.getEmail(),
+        user.getPassword(),
+        authoritiesFor(roleNames));
+  }
+
+  /**
+   * Returns the shared, immutable authority list for a set of role names.
+   *
+   * @param roleNames the role names, e.g. {@code ROLE_USER}
+   * @return an unmodifiable list of authorities, the same instance for equal sets of role names
+   */
+  public static List<GrantedAuthority> authoritiesFor(Collection<String> roleNames) {
+    return INTERNED_AUTHORITIES.computeIfAbsent(
+        Set.copyOf(roleNames),
+        names ->
+            names.stream()
+                .sorted()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toUnmodifiableList()));
   }
 
   @Override
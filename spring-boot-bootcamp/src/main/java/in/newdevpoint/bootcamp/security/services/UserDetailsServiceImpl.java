@@ -1,27 +1,143 @@
 package in.newdevpoint.bootcamp.security.services;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.event.RolesChangedEvent;
+import in.newdevpoint.bootcamp.event.UserChangedEvent;
 import in.newdevpoint.bootcamp.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Loads DB-backed principals through a bounded, expiring cache keyed by username.
+ *
+ * <p>Entries are dropped when a {@link UserChangedEvent} reports that the user was updated or
+ * deleted, and the whole cache is cleared on {@link RolesChangedEvent}. Hit/miss counts, load time
+ * and size/expiry evictions are published under the {@code cache.*} metrics with {@code
+ * cache=principals}; event-driven invalidations are counted by {@code
+ * auth.principal.cache.invalidations}.
+ */
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
+  static final String CACHE_NAME = "principals";
+
   @Autowired UserRepository userRepository;
 
+  @Autowired MeterRegistry meterRegistry;
+
+  @Value("${auth.principalCacheSize:10000}")
+  private long principalCacheSize;
+
+  @Value("${auth.principalCacheTtlMs:60000}")
+  private long principalCacheTtlMs;
+
+  private LoadingCache<String, UserDetailsImpl> principals;
+
+  // Username each cached principal was loaded under, so an id-only change evicts by key
+  private final Map<String, String> usernamesById = new ConcurrentHashMap<>();
+
+  private Counter invalidations;
+
+  /** Builds the principal cache and registers its metrics once the configuration is injected. */
+  @PostConstruct
+  public void init() {
+    principals =
+        Caffeine.newBuilder()
+            .maximumSize(principalCacheSize)
+            .expireAfterWrite(principalCacheTtlMs, TimeUnit.MILLISECONDS)
+            .recordStats()
+            .evictionListener(
+                (String username, UserDetailsImpl principal, RemovalCause cause) -> {
+                  if (principal != null) {
+                    usernamesById.remove(principal.getId(), username);
+                  }
+                })
+            .build(this::loadFromRepository);
+    CaffeineCacheMetrics.monitor(meterRegistry, principals, CACHE_NAME);
+    invalidations =
+        Counter.builder("auth.principal.cache.invalidations")
+            .description("Principals evicted because the user or roles changed")
+            .register(meterRegistry);
+  }
+
   @Override
   @Transactional
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+    return principals.get(username);
+  }
+
+  /**
+   * Evicts cached principals for a user that was updated or deleted. The user may have been
+   * renamed, so the username the principal was cached under is looked up by id as well. An event
+   * covering all users clears the cache.
+   *
+   * @param event the user change
+   */
+  @EventListener
+  public void onUserChanged(UserChangedEvent event) {
+    if (event.isAllUsers()) {
+      invalidateAll();
+      return;
+    }
+    if (event.getUsername() != null) {
+      evict(event.getUsername());
+    }
+    if (event.getUserId() != null) {
+      String cachedUsername = usernamesById.get(event.getUserId());
+      if (cachedUsername != null) {
+        evict(cachedUsername);
+      }
+    }
+  }
+
+  /**
+   * Clears all cached principals when role definitions change.
+   *
+   * @param event the role change
+   */
+  @EventListener
+  public void onRolesChanged(RolesChangedEvent event) {
+    invalidateAll();
+  }
+
+  private void evict(String username) {
+    UserDetailsImpl principal = principals.asMap().remove(username);
+    if (principal != null) {
+      usernamesById.remove(principal.getId(), username);
+      invalidations.increment();
+    }
+  }
+
+  private void invalidateAll() {
+    invalidations.increment(principals.estimatedSize());
+    principals.invalidateAll();
+    usernamesById.clear();
+  }
+
+  private UserDetailsImpl loadFromRepository(String username) {
     UserEntity user =
         userRepository
             .findByUsername(username)
             .orElseThrow(
                 () -> new UsernameNotFoundException("User Not Found with username: " + username));
 
-    return UserDetailsImpl.build(user);
+    UserDetailsImpl principal = UserDetailsImpl.build(user);
+    usernamesById.put(principal.getId(), username);
+    return principal;
   }
 }
@@ -1,5 +1,6 @@
 package in.newdevpoint.bootcamp.service;
 
+import in.newdevpoint.bootcamp.mail.MailDispatcher;
 import java.util.ArrayList;
 import java.util.Random;
 import org.slf4j.Logger;
@@ -12,30 +13,27 @@ public class OrderService {
 
   private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
 
+  private final MailDispatcher mailDispatcher;
+
+  public OrderService(MailDispatcher mailDispatcher) {
+    this.mailDispatcher = mailDispatcher;
+  }
+
   /**
-   * Asynchronously sends order confirmation emails to a list of recipients.
+   * Sends order confirmation emails to a list of recipients.
    *
-   * <p>Each email address in the provided list is processed in a separate thread, simulating a
-   * delay for sending.
+   * <p>The messages are handed to the {@link MailDispatcher}, which sends them in parallel,
+   * rate-limited per provider, and retries failed deliveries from its outbox. This method returns
+   * as soon as the messages are queued.
    *
    * @param emailList list of recipient email addresses
    * @param orderDetails details of the order to include in the confirmation
    */
-  @Async // This makes the method execute in a separate thread
   public void sendOrderConfirmationEmail(ArrayList<String> emailList, String orderDetails) {
-    // Simulate a long-running email sending process
-
-    emailList.forEach(
-        email -> {
-          try {
-            System.out.println(Thread.currentThread().getName());
-            Thread.sleep(1000);
-            System.out.println("Email sent to " + email);
-          } catch (InterruptedException e) {
-            logger.error("Exception occurred while sending order confirmation email", e);
-            e.printStackTrace();
-          }
-        });
+    mailDispatcher.send(
+        emailList,
+        "Order confirmation " + orderDetails,
+        "Thank you for your order. Your order number is " + orderDetails + ".");
   }
 
   /**
@@ -0,0 +1,195 @@
+package in.newdevpoint.bootcamp.service;
+
+import in.newdevpoint.bootcamp.exceptions.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs BCrypt hashing and verification on a bounded pool instead of the request threads.
+ *
+ * <p>Hashing is pure CPU work, so the pool has one thread per core by default ({@code
+ * auth.hashing.threads=0}) and at most {@code auth.hashing.queueCapacity} tasks waiting. When the
+ * queue is full, {@link #submit} fails fast with a {@link ServiceOverloadedException}, which keeps
+ * a login storm from occupying every Tomcat worker and starving unrelated endpoints.
+ *
+ * <p>Published metrics:
+ *
+ * <ul>
+ *   <li>{@code auth.hashing.queue} – tasks waiting for a thread
+ *   <li>{@code auth.hashing.active} – tasks currently hashing
+ *   <li>{@code auth.hashing.duration} – time spent hashing, with a percentile histogram
+ *   <li>{@code auth.hashing.rejected} – tasks refused because the queue was full
+ * </ul>
+ */
+@Service
+public class PasswordHashingService {
+  private final PasswordEncoder encoder;
+  private final ThreadPoolExecutor executor;
+  private final Timer hashTimer;
+  private final Counter rejections;
+  private final long retryAfterSeconds;
+  // Hash compared against when the user does not exist, created on first use
+  private volatile String unknownUserPassword;
+
+  public PasswordHashingService(
+      PasswordEncoder encoder,
+      MeterRegistry meterRegistry,
+      @Value("${auth.hashing.threads:0}") int threads,
+      @Value("${auth.hashing.queueCapacity:200}") int queueCapacity,
+      @Value("${auth.hashing.retryAfterSeconds:1}") long retryAfterSeconds) {
+    this.encoder = encoder;
+    this.retryAfterSeconds = retryAfterSeconds;
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.executor =
+        new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(queueCapacity),
+            new CustomizableThreadFactory("password-hashing-"),
+            new ThreadPoolExecutor.AbortPolicy());
+    this.hashTimer =
+        Timer.builder("auth.hashing.duration")
+            .description("Time spent hashing or verifying a password")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    this.rejections =
+        Counter.builder("auth.hashing.rejected")
+            .description("Hashing tasks refused because the queue was full")
+            .register(meterRegistry);
+    Gauge.builder("auth.hashing.queue", executor, pool -> pool.getQueue().size())
+        .description("Hashing tasks waiting for a thread")
+        .register(meterRegistry);
+    Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+        .description("Hashing tasks currently running")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Runs a task that hashes or verifies passwords on the hashing pool.
+   *
+   * <p>The returned future completes with the task's own exception, not a wrapping {@link
+   * java.util.concurrent.CompletionException}, so callers and exception handlers see the original
+   * error.
+   *
+   * @param task the work to run, for example an authentication attempt
+   * @param <T> the result type
+   * @return a future completed on the hashing pool
+   * @throws ServiceOverloadedException if the queue is full
+   */
+  public <T> CompletableFuture<T> submit(Supplier<T> task) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    try {
+      executor.execute(() -> run(task, result));
+    } catch (RejectedExecutionException e) {
+      rejections.increment();
+      throw new ServiceOverloadedException(
+          "Error: Too many authentication requests, please retry later", retryAfterSeconds);
+    }
+    return result;
+  }
+
+  /**
+   * Hashes a password on the hashing pool.
+   *
+   * @param rawPassword the password to hash
+   * @return a future completed with the encoded password
+   * @throws ServiceOverloadedException if the queue is full
+   */
+  public CompletableFuture<String> encode(String rawPassword) {
+    return submit(() -> encoder.encode(rawPassword));
+  }
+
+  /**
+   * Verifies a password against its stored hash on the hashing pool.
+   *
+   * <p>When there is no stored hash, as for an unknown username, the password is checked against a
+   * throwaway hash instead, so the response time does not reveal whether the user exists.
+   *
+   * @param rawPassword the password to verify
+   * @param encodedPassword the stored hash, or null if there is none
+   * @return a future completed with true if the password matches the stored hash
+   * @throws ServiceOverloadedException if the queue is full
+   */
+  public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+    return submit(
+        () -> {
+          if (encodedPassword == null) {
+            encoder.matches(rawPassword, unknownUserPassword());
+            return false;
+          }
+          return encoder.matches(rawPassword, encodedPassword);
+        });
+  }
+
+  /**
+   * Hashes many passwords, using the pool where it has room and the calling thread otherwise.
+   *
+   * <p>Meant for bulk callers that are already throttled, which should slow down rather than fail
+   * when the queue is full.
+   *
+   * @param rawPasswords the passwords to hash
+   * @return the encoded passwords, in the same order
+   */
+  public List<String> encodeAll(List<String> rawPasswords) {
+    List<CompletableFuture<String>> hashes = new ArrayList<>(rawPasswords.size());
+    for (String rawPassword : rawPasswords) {
+      CompletableFuture<String> hash;
+      try {
+        hash = encode(rawPassword);
+      } catch (ServiceOverloadedException e) {
+        hash =
+            CompletableFuture.completedFuture(hashTimer.record(() -> encoder.encode(rawPassword)));
+      }
+      hashes.add(hash);
+    }
+    List<String> encoded = new ArrayList<>(hashes.size());
+    hashes.forEach(hash -> encoded.add(hash.join()));
+    return encoded;
+  }
+
+  private String unknownUserPassword() {
+    String encoded = unknownUserPassword;
+    if (encoded == null) {
+      encoded = encoder.encode("unknown-user-password");
+      unknownUserPassword = encoded;
+    }
+    return encoded;
+  }
+
+  private <T> void run(Supplier<T> task, CompletableFuture<T> result) {
+    // The timer is stopped before the future completes so callers always see the recorded latency.
+    Timer.Sample sample = Timer.start();
+    T value;
+    try {
+      value = task.get();
+    } catch (Throwable e) {
+      sample.stop(hashTimer);
+      result.completeExceptionally(e);
+      return;
+    }
+    sample.stop(hashTimer);
+    result.complete(value);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdown();
+  }
+}
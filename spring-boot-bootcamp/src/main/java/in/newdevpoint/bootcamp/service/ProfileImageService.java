@@ -0,0 +1,224 @@
+package in.newdevpoint.bootcamp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+/**
+ * Serves stored profile images and their resized variants.
+ *
+ * <p>Variants are square-bounded PNGs of the sizes in {@code images.variantSizes}. They are
+ * generated in the background when an image is uploaded, and on first request if that has not
+ * happened yet, so list views never have to download the original. Recently served variants are
+ * kept in an in-memory LRU cache bounded to {@code images.thumbnailCacheBytes}, published under the
+ * {@code cache.gets} actuator metric with {@code cache=profileThumbnails}.
+ *
+ * <p>Images are only decoded when their header declares at most {@code images.maxPixels} pixels, so
+ * a small upload cannot expand into a huge bitmap. Images that are too large or cannot be decoded
+ * are remembered in the cache as well, so repeated requests for them do not read the file again.
+ */
+@Service
+public class ProfileImageService {
+  private static final Logger logger = LoggerFactory.getLogger(ProfileImageService.class);
+
+  static final String CACHE_NAME = "profileThumbnails";
+
+  // Cached in place of a variant that cannot be generated
+  private static final byte[] UNAVAILABLE = new byte[0];
+  // Weight given to cached entries smaller than this, so cached misses are bounded too
+  private static final int MIN_ENTRY_WEIGHT = 64;
+
+  private final ProfileStorageService storage;
+  private final List<Integer> variantSizes;
+  private final long maxPixels;
+  private final Cache<String, byte[]> thumbnails;
+
+  public ProfileImageService(
+      ProfileStorageService storage,
+      MeterRegistry meterRegistry,
+      @Value("${images.variantSizes:64,256}") List<Integer> variantSizes,
+      @Value("${images.thumbnailCacheBytes:16777216}") long thumbnailCacheBytes,
+      @Value("${images.maxPixels:40000000}") long maxPixels) {
+    this.storage = storage;
+    this.variantSizes = List.copyOf(variantSizes);
+    this.maxPixels = maxPixels;
+    this.thumbnails =
+        Caffeine.newBuilder()
+            .maximumWeight(thumbnailCacheBytes)
+            .<String, byte[]>weigher((key, bytes) -> Math.max(bytes.length, MIN_ENTRY_WEIGHT))
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, thumbnails, CACHE_NAME);
+  }
+
+  /**
+   * Returns the stored original image.
+   *
+   * @param hash the content hash of the image
+   * @return the image file, or empty if the hash is malformed or nothing is stored under it
+   */
+  public Optional<Path> original(String hash) {
+    try {
+      Path path = storage.resolve(hash);
+      return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Returns a resized variant of an image, generating it if needed.
+   *
+   * @param hash the content hash of the image
+   * @param size one of the configured variant sizes
+   * @return the PNG-encoded variant, or empty if the size is not offered or the image is missing or
+   *     cannot be decoded
+   */
+  public Optional<byte[]> variant(String hash, int size) {
+    if (!variantSizes.contains(size) || original(hash).isEmpty()) {
+      return Optional.empty();
+    }
+    byte[] bytes = thumbnails.get(hash + ":" + size, key -> loadVariant(hash, size));
+    return bytes != UNAVAILABLE ? Optional.of(bytes) : Optional.empty();
+  }
+
+  /**
+   * Generates every configured variant of a newly uploaded image in the background.
+   *
+   * @param hash the content hash of the image
+   */
+  @Async
+  public void generateVariants(String hash) {
+    for (int size : variantSizes) {
+      try {
+        if (!Files.exists(storage.resolveVariant(hash, size))) {
+          generateVariant(hash, size);
+        }
+      } catch (IOException | RuntimeException e) {
+        logger.warn("Could not generate {}px variant of {}: {}", size, hash, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Detects the media type of a stored image from its leading bytes.
+   *
+   * @param path the image file
+   * @return the detected image type, or {@code application/octet-stream} if it is not recognised
+   */
+  public MediaType contentType(Path path) {
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+      String type = URLConnection.guessContentTypeFromStream(in);
+      return type != null ? MediaType.parseMediaType(type) : MediaType.APPLICATION_OCTET_STREAM;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private byte[] loadVariant(String hash, int size) {
+    try {
+      Path variant = storage.resolveVariant(hash, size);
+      if (Files.exists(variant)) {
+        return Files.readAllBytes(variant);
+      }
+      return generateVariant(hash, size);
+    } catch (IOException e) {
+      logger.warn("Could not load {}px variant of {}: {}", size, hash, e.getMessage());
+      return UNAVAILABLE;
+    }
+  }
+
+  private byte[] generateVariant(String hash, int size) throws IOException {
+    BufferedImage source = decode(storage.resolve(hash));
+    if (source == null) {
+      return UNAVAILABLE;
+    }
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    ImageIO.write(resize(source, size), "png", encoded);
+    byte[] bytes = encoded.toByteArray();
+    storage.storeVariant(hash, size, bytes);
+    return bytes;
+  }
+
+  /**
+   * Decodes an image after checking the dimensions declared in its header.
+   *
+   * @return the image, or null if it is not a decodable image or has more than {@code maxPixels}
+   *     pixels
+   */
+  private BufferedImage decode(Path path) throws IOException {
+    try (ImageInputStream in = ImageIO.createImageInputStream(path.toFile())) {
+      Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+      if (readers == null || !readers.hasNext()) {
+        logger.info("Skipping variants of {}: not a decodable image", path.getFileName());
+        return null;
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(in, true, true);
+        long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+        if (pixels > maxPixels) {
+          logger.warn(
+              "Skipping variants of {}: {} pixels exceed the limit of {}",
+              path.getFileName(),
+              pixels,
+              maxPixels);
+          return null;
+        }
+        return reader.read(0);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * Scales an image to fit within a square of the given size, halving repeatedly with bilinear
+   * interpolation so large downscales keep their detail. Images already small enough are kept.
+   */
+  static BufferedImage resize(BufferedImage source, int size) {
+    double scale = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+    int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+    int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+    BufferedImage current = source;
+    int width = source.getWidth();
+    int height = source.getHeight();
+    do {
+      width = Math.max(targetWidth, width / 2);
+      height = Math.max(targetHeight, height / 2);
+      BufferedImage step = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+      Graphics2D graphics = step.createGraphics();
+      graphics.setRenderingHint(
+          RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      graphics.drawImage(current, 0, 0, width, height, null);
+      graphics.dispose();
+      current = step;
+    } while (width != targetWidth || height != targetHeight);
+    return current;
+  }
+}
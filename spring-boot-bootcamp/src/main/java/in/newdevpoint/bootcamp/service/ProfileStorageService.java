@@ -0,0 +1,465 @@
+package in.newdevpoint.bootcamp.service;
+
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Stores profile images under content-addressed paths below {@code file.upload.path}.
+ *
+ * <p>An upload is streamed into a temporary file through a {@link FileChannel} while its SHA-256 is
+ * computed, then moved atomically to {@code blobs/<first two hex digits>/<sha256>}. Identical
+ * images are therefore stored once, concurrent uploads never overwrite each other, and a reader
+ * never sees a partially written blob.
+ *
+ * <p>Derived variants of a blob, such as thumbnails, live under {@code variants/<size>/<first two
+ * hex digits>/<sha256>.png} and are written the same way.
+ *
+ * <p>A blob and its variants are deleted once no user's {@code profileImageHash} references it.
+ * Blobs younger than {@code file.storage.gcGraceMs} are kept, so an upload that has stored its blob
+ * but not yet saved the user is never collected. Before deleting, the collector moves the blob
+ * aside, so a concurrent upload of the same content stores a fresh copy instead of reusing it, and
+ * then checks again; a blob that has been referenced or reused in the meantime is put back.
+ * Collection runs at startup and every {@code file.storage.gcIntervalMs}.
+ */
+@Service
+public class ProfileStorageService {
+  private static final Logger logger = LoggerFactory.getLogger(ProfileStorageService.class);
+
+  private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+  private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+  // Suffix of blobs moved aside for deletion, named <sha256>-<uuid>.gc in the temporary directory
+  private static final String TOMBSTONE_SUFFIX = ".gc";
+
+  private final MongoTemplate template;
+  private final Path blobDir;
+  private final Path variantDir;
+  private final Path tmpDir;
+  private final long gcGraceMs;
+
+  @Value("${file.storage.gcOnStartup:true}")
+  private boolean gcOnStartup;
+
+  @Value("${file.storage.gcIntervalMs:3600000}")
+  private long gcIntervalMs;
+
+  private ScheduledExecutorService collector;
+
+  public ProfileStorageService(
+      MongoTemplate template,
+      @Value("${file.upload.path:uploads/}") String uploadPath,
+      @Value("${file.storage.gcGraceMs:3600000}") long gcGraceMs) {
+    this.template = template;
+    Path root = Paths.get(uploadPath).toAbsolutePath().normalize();
+    this.blobDir = root.resolve("blobs");
+    this.variantDir = root.resolve("variants");
+    this.tmpDir = root.resolve("tmp");
+    this.gcGraceMs = gcGraceMs;
+  }
+
+  /**
+   * Stores an uploaded file, or reuses the existing blob if the same content was stored before.
+   *
+   * @param file the uploaded file
+   * @return the stored blob
+   * @throws IOException if the file cannot be read or written
+   */
+  public StoredBlob store(MultipartFile file) throws IOException {
+    try (InputStream in = file.getInputStream()) {
+      return store(in);
+    }
+  }
+
+  /**
+   * Stores the content of a stream, or reuses the existing blob if the same content was stored
+   * before.
+   *
+   * @param in the content, read to the end but not closed
+   * @return the stored blob
+   * @throws IOException if the stream cannot be read or the blob cannot be written
+   */
+  public StoredBlob store(InputStream in) throws IOException {
+    Files.createDirectories(tmpDir);
+    Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+    try {
+      MessageDigest digest = sha256();
+      long size = 0;
+      try (ReadableByteChannel source = Channels.newChannel(new DigestInputStream(in, digest));
+          FileChannel target = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+        long transferred;
+        while ((transferred = target.transferFrom(source, size, TRANSFER_CHUNK)) > 0) {
+          size += transferred;
+        }
+        target.force(false);
+      }
+
+      String hash = String.format("%064x", new BigInteger(1, digest.digest()));
+      Path blob = resolve(hash);
+      if (!refreshIfExists(blob)) {
+        Files.createDirectories(blob.getParent());
+        moveAtomically(tmp, blob);
+      }
+      return new StoredBlob(hash, blob, size);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * Returns the location of the blob with the given hash.
+   *
+   * @param hash the SHA-256 of the content, in lower-case hex
+   * @return the blob path, whether or not it exists
+   * @throws IllegalArgumentException if the hash is malformed
+   */
+  public Path resolve(String hash) {
+    if (hash == null || !HASH.matcher(hash).matches()) {
+      throw new IllegalArgumentException("Invalid content hash: " + hash);
+    }
+    return blobDir.resolve(hash.substring(0, 2)).resolve(hash);
+  }
+
+  /**
+   * Returns the location of a derived variant of a blob, such as a thumbnail.
+   *
+   * @param hash the SHA-256 of the original content
+   * @param size the variant size
+   * @return the variant path, whether or not it exists
+   * @throws IllegalArgumentException if the hash is malformed
+   */
+  public Path resolveVariant(String hash, int size) {
+    return variantDir
+        .resolve(String.valueOf(size))
+        .resolve(resolve(hash).getParent().getFileName())
+        .resolve(hash + ".png");
+  }
+
+  /**
+   * Atomically writes a derived variant of a blob, replacing any previous version.
+   *
+   * @param hash the SHA-256 of the original content
+   * @param size the variant size
+   * @param content the encoded variant
+   * @return the variant path
+   * @throws IOException if the variant cannot be written
+   */
+  public Path storeVariant(String hash, int size, byte[] content) throws IOException {
+    Path variant = resolveVariant(hash, size);
+    Files.createDirectories(tmpDir);
+    Files.createDirectories(variant.getParent());
+    Path tmp = Files.createTempFile(tmpDir, "variant-", ".part");
+    try {
+      Files.write(tmp, content);
+      Files.move(tmp, variant, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+    return variant;
+  }
+
+  /**
+   * Deletes a blob that may have become unreferenced, for example after a user replaced their
+   * profile image.
+   *
+   * @param hash the SHA-256 of the content
+   * @return true if the blob was deleted
+   */
+  public boolean release(String hash) {
+    if (isReferenced(hash)) {
+      return false;
+    }
+    return deleteBlobIfStale(resolve(hash), System.currentTimeMillis());
+  }
+
+  /**
+   * Deletes every stale blob that no user references, and temporary files left by interrupted
+   * uploads.
+   *
+   * @return the number of files deleted
+   */
+  public int collectGarbage() {
+    long now = System.currentTimeMillis();
+    int deleted = 0;
+    try {
+      if (Files.isDirectory(tmpDir)) {
+        try (Stream<Path> leftovers = Files.list(tmpDir)) {
+          for (Path leftover : (Iterable<Path>) leftovers::iterator) {
+            // Blobs left aside by an interrupted collection are settled like new candidates
+            boolean removed =
+                leftover.getFileName().toString().endsWith(TOMBSTONE_SUFFIX)
+                    ? settle(leftover, now)
+                    : deleteIfStale(leftover, now);
+            if (removed) {
+              deleted++;
+            }
+          }
+        }
+      }
+      if (Files.isDirectory(blobDir)) {
+        Set<String> referenced = referencedHashes();
+        try (Stream<Path> blobs = Files.walk(blobDir, 2)) {
+          for (Path blob : (Iterable<Path>) blobs::iterator) {
+            String name = blob.getFileName().toString();
+            if (HASH.matcher(name).matches()
+                && !referenced.contains(name)
+                && deleteBlobIfStale(blob, now)) {
+              deleted++;
+            }
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    logger.info("Profile storage GC deleted {} files", deleted);
+    return deleted;
+  }
+
+  /**
+   * Starts collecting garbage in the background once the application is ready: right away if {@code
+   * file.storage.gcOnStartup} is set, and then every {@code file.storage.gcIntervalMs} if positive.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    if (!gcOnStartup && gcIntervalMs <= 0) {
+      return;
+    }
+    collector =
+        Executors.newSingleThreadScheduledExecutor(
+            new CustomizableThreadFactory("profile-storage-gc-"));
+    if (gcOnStartup) {
+      collector.execute(this::collectGarbageSafely);
+    }
+    if (gcIntervalMs > 0) {
+      collector.scheduleWithFixedDelay(
+          this::collectGarbageSafely, gcIntervalMs, gcIntervalMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @PreDestroy
+  void stop() {
+    if (collector != null) {
+      collector.shutdownNow();
+    }
+  }
+
+  private void collectGarbageSafely() {
+    try {
+      collectGarbage();
+    } catch (RuntimeException e) {
+      logger.error("Profile storage GC failed: {}", e.getMessage());
+    }
+  }
+
+  private boolean isReferenced(String hash) {
+    return template.exists(
+        Query.query(Criteria.where("profileImageHash").is(hash)), UserEntity.class);
+  }
+
+  private Set<String> referencedHashes() {
+    return new HashSet<>(
+        template.findDistinct(
+            new Query(Criteria.where("profileImageHash").ne(null)),
+            "profileImageHash",
+            UserEntity.class,
+            String.class));
+  }
+
+  /**
+   * Deletes a blob that was unreferenced when it was chosen, if it still is once moved aside.
+   *
+   * @return true if the blob was deleted
+   */
+  private boolean deleteBlobIfStale(Path blob, long now) {
+    if (!isStale(blob, now)) {
+      return false;
+    }
+    String hash = blob.getFileName().toString();
+    Path tombstone = tmpDir.resolve(hash + "-" + UUID.randomUUID() + TOMBSTONE_SUFFIX);
+    try {
+      Files.createDirectories(tmpDir);
+      Files.move(blob, tombstone, StandardCopyOption.ATOMIC_MOVE);
+    } catch (NoSuchFileException e) {
+      // Already deleted, or moved aside by another collector
+      return false;
+    } catch (IOException e) {
+      logger.warn("Could not move {} aside: {}", blob, e.getMessage());
+      return false;
+    }
+    return settle(tombstone, now);
+  }
+
+  /**
+   * Deletes a blob moved aside for deletion if no user references it and no upload has reused it
+   * within the grace period, and puts it back otherwise. Uploads of the same content that happen
+   * while the blob is aside store their own copy, so deleting it never breaks them.
+   *
+   * @return true if the blob was deleted
+   */
+  private boolean settle(Path tombstone, long now) {
+    String hash = tombstone.getFileName().toString().substring(0, 64);
+    boolean keep;
+    try {
+      keep = isReferenced(hash) || !isStale(tombstone, now);
+    } catch (RuntimeException e) {
+      restore(tombstone, hash);
+      throw e;
+    }
+    if (keep) {
+      restore(tombstone, hash);
+      return false;
+    }
+    try {
+      if (!Files.deleteIfExists(tombstone)) {
+        return false;
+      }
+    } catch (IOException e) {
+      logger.warn("Could not delete {}: {}", tombstone, e.getMessage());
+      return false;
+    }
+    deleteVariants(hash);
+    return true;
+  }
+
+  private void restore(Path tombstone, String hash) {
+    Path blob = resolve(hash);
+    try {
+      // Restart the grace period, so an upload reusing the blob has time to save its reference
+      Files.setLastModifiedTime(tombstone, FileTime.fromMillis(System.currentTimeMillis()));
+      Files.createDirectories(blob.getParent());
+      // If an upload stored the same content meanwhile, its copy is identical and is kept
+      moveAtomically(tombstone, blob);
+      Files.deleteIfExists(tombstone);
+    } catch (NoSuchFileException e) {
+      // Settled concurrently by another collector
+    } catch (IOException e) {
+      logger.warn("Could not restore {}: {}", blob, e.getMessage());
+    }
+  }
+
+  private void deleteVariants(String hash) {
+    if (Files.isDirectory(variantDir)) {
+      try (Stream<Path> sizes = Files.list(variantDir)) {
+        for (Path size : (Iterable<Path>) sizes::iterator) {
+          Files.deleteIfExists(size.resolve(hash.substring(0, 2)).resolve(hash + ".png"));
+        }
+      } catch (IOException e) {
+        logger.warn("Could not delete variants of {}: {}", hash, e.getMessage());
+      }
+    }
+  }
+
+  private boolean deleteIfStale(Path file, long now) {
+    try {
+      return isStale(file, now) && Files.deleteIfExists(file);
+    } catch (IOException e) {
+      logger.warn("Could not delete {}: {}", file, e.getMessage());
+      return false;
+    }
+  }
+
+  private boolean isStale(Path file, long now) {
+    try {
+      return now - Files.getLastModifiedTime(file).toMillis() >= gcGraceMs;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Refreshes the age of an existing blob so it survives the GC grace period.
+   *
+   * @return false if there is no blob, including one the collector has just moved aside
+   */
+  private static boolean refreshIfExists(Path blob) throws IOException {
+    if (!Files.exists(blob)) {
+      return false;
+    }
+    try {
+      Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+      return true;
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+  }
+
+  private static void moveAtomically(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (FileAlreadyExistsException e) {
+      // A concurrent upload of the same content won the race; its blob is identical
+    } catch (AtomicMoveNotSupportedException e) {
+      throw new IOException("Upload directory does not support atomic moves: " + target, e);
+    }
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /** A blob in the content-addressed store. */
+  public static final class StoredBlob {
+    private final String hash;
+    private final Path path;
+    private final long size;
+
+    public StoredBlob(String hash, Path path, long size) {
+      this.hash = hash;
+      this.path = path;
+      this.size = size;
+    }
+
+    public String getHash() {
+      return hash;
+    }
+
+    public Path getPath() {
+      return path;
+    }
+
+    public long getSize() {
+      return size;
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package in.newdevpoint.bootcamp.service;
+
+import in.newdevpoint.bootcamp.entity.ERole;
+import in.newdevpoint.bootcamp.entity.Role;
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.event.RolesChangedEvent;
+import in.newdevpoint.bootcamp.repository.RoleRepository;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Serves {@link Role} documents from an in-memory {@link EnumMap} so that signup and role
+ * assignment do not query the {@code roles} collection. The map is loaded once the application is
+ * ready and reloaded whenever roles are (re)created.
+ */
+@Service
+@RequiredArgsConstructor
+public class RoleService {
+  private static final Logger logger = LoggerFactory.getLogger(RoleService.class);
+
+  private final RoleRepository roleRepository;
+
+  @Value("${users.embeddedRoles:false}")
+  private boolean embeddedRoles;
+
+  private volatile Map<ERole, Role> roles;
+
+  /** Warms the role map at startup; a failure is logged and retried on first use. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    try {
+      reload();
+    } catch (RuntimeException e) {
+      logger.warn("Roles could not be loaded at startup: {}", e.getMessage());
+    }
+  }
+
+  /** Reloads the role map after roles were created or changed. */
+  @EventListener
+  public void onRolesChanged(RolesChangedEvent event) {
+    reload();
+  }
+
+  /**
+   * Returns the role document for the given name.
+   *
+   * @param name the role name
+   * @return the role
+   * @throws RuntimeException if the role does not exist
+   */
+  public Role getRole(ERole name) {
+    Role role = roles().get(name);
+    if (role == null) {
+      // Roles may have been created by another instance since the last load
+      role = reload().get(name);
+    }
+    if (role == null) {
+      throw new RuntimeException("Error: Role is not found.");
+    }
+    return role;
+  }
+
+  /**
+   * Maps the role names accepted at signup ({@code admin}, {@code mod}, anything else) to roles,
+   * defaulting to {@link ERole#ROLE_USER} when none are requested.
+   *
+   * @param strRoles the requested role names, may be {@code null}
+   * @return the resolved role names
+   */
+  public Set<ERole> resolveRoleNames(Set<String> strRoles) {
+    if (strRoles == null) {
+      return EnumSet.of(ERole.ROLE_USER);
+    }
+    Set<ERole> names = EnumSet.noneOf(ERole.class);
+    for (String role : strRoles) {
+      switch (role) {
+        case "admin":
+          names.add(ERole.ROLE_ADMIN);
+          break;
+        case "mod":
+          names.add(ERole.ROLE_MODERATOR);
+          break;
+        default:
+          names.add(ERole.ROLE_USER);
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Assigns roles to a user in the configured storage mode: embedded role names when {@code
+   * users.embeddedRoles} is enabled, role references otherwise. Every role must exist in either
+   * mode.
+   *
+   * @param user the user to update
+   * @param names the role names to assign
+   */
+  public void assignRoles(UserEntity user, Set<ERole> names) {
+    Set<Role> refs = new HashSet<>();
+    for (ERole name : names) {
+      refs.add(getRole(name));
+    }
+    if (embeddedRoles) {
+      user.setRoleNames(new HashSet<>(names));
+      user.setRoles(null);
+    } else {
+      user.setRoles(refs);
+    }
+  }
+
+  /**
+   * Returns the role names keyed by role document id, used to translate role references.
+   *
+   * @return the role names by id
+   */
+  public Map<String, ERole> roleNamesById() {
+    Map<String, ERole> byId = new HashMap<>();
+    roles().values().forEach(role -> byId.put(role.getId(), role.getName()));
+    return byId;
+  }
+
+  private Map<ERole, Role> roles() {
+    Map<ERole, Role> current = roles;
+    return current != null ? current : reload();
+  }
+
+  private synchronized Map<ERole, Role> reload() {
+    Map<ERole, Role> loaded = new EnumMap<>(ERole.class);
+    for (Role role : roleRepository.findAll()) {
+      loaded.put(role.getName(), role);
+    }
+    roles = Collections.unmodifiableMap(loaded);
+    logger.info("Loaded {} roles", loaded.size());
+    return roles;
+  }
+}
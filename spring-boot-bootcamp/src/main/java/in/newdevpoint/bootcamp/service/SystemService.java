@@ -1,61 +1,122 @@
 package in.newdevpoint.bootcamp.service;
 
 import in.newdevpoint.bootcamp.entity.CoffeeEntity;
+import in.newdevpoint.bootcamp.exceptions.DependencyUnavailableException;
+import in.newdevpoint.bootcamp.http.UpstreamResult;
 import in.newdevpoint.bootcamp.utility.Utility;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * Serves system endpoints, including the call to the external coffee API.
+ *
+ * <p>The coffee API is called through a Resilience4j bulkhead and circuit breaker, both named
+ * {@value #COFFEE_API} and configured under {@code resilience4j.*.instances.coffeeApi}. The
+ * bulkhead caps concurrent calls so a slow upstream cannot tie up every request thread, and the
+ * breaker opens on a high failure or slow-call rate so that later calls fail fast without touching
+ * the network. When a call is rejected or fails, the last good response is served as stale; only if
+ * there is none yet is a {@link DependencyUnavailableException} thrown.
+ */
 @Service
 public class SystemService {
   private static final Logger logger = LoggerFactory.getLogger(SystemService.class);
 
-  @Autowired RestTemplate restTemplate;
+  public static final String COFFEE_API = "coffeeApi";
+
+  private final RestTemplate restTemplate;
+  private final CircuitBreaker coffeeCircuitBreaker;
+  private final Bulkhead coffeeBulkhead;
+  private final String coffeeUrl;
+  private final AtomicReference<UpstreamResult<List<CoffeeEntity>>> lastGoodCoffees =
+      new AtomicReference<>();
+
+  public SystemService(
+      RestTemplate restTemplate,
+      CircuitBreakerRegistry circuitBreakerRegistry,
+      BulkheadRegistry bulkheadRegistry,
+      @Value("${external.coffee.url:https://api.sampleapis.com/coffee/hot}") String coffeeUrl) {
+    this.restTemplate = restTemplate;
+    this.coffeeCircuitBreaker = circuitBreakerRegistry.circuitBreaker(COFFEE_API);
+    this.coffeeBulkhead = bulkheadRegistry.bulkhead(COFFEE_API);
+    this.coffeeUrl = coffeeUrl;
+  }
 
   /**
    * Retrieves a list of coffee entities from an external API.
    *
-   * <p>Sends an HTTP GET request to a predefined coffee API endpoint and returns the deserialized
-   * response body as a list of {@code CoffeeEntity} objects.
+   * <p>Sends an HTTP GET request to the coffee API through the bulkhead and circuit breaker. If the
+   * call is rejected or fails, the last good response is returned marked as stale.
    *
-   * @return a list of {@code CoffeeEntity} objects retrieved from the external API, or {@code null}
-   *     if the response body is empty
+   * @return the coffee entities, fresh or stale
+   * @throws DependencyUnavailableException if the call fails and no earlier response exists
    */
-  public Object fetchExternalApi() {
+  public UpstreamResult<List<CoffeeEntity>> fetchExternalApi() {
+    try {
+      List<CoffeeEntity> coffees =
+          coffeeCircuitBreaker.executeSupplier(
+              () -> coffeeBulkhead.executeSupplier(this::requestCoffees));
+      UpstreamResult<List<CoffeeEntity>> result = UpstreamResult.fresh(coffees, Instant.now());
+      lastGoodCoffees.set(result);
+      return result;
+    } catch (CallNotPermittedException e) {
+      return lastGoodCoffees(
+          "Circuit breaker is open",
+          coffeeCircuitBreaker
+                  .getCircuitBreakerConfig()
+                  .getWaitIntervalFunctionInOpenState()
+                  .apply(1)
+              / 1000,
+          e);
+    } catch (BulkheadFullException e) {
+      return lastGoodCoffees("Too many concurrent calls", 1, e);
+    } catch (RestClientException e) {
+      logger.warn("Coffee API call failed: {}", e.getMessage());
+      return lastGoodCoffees("Upstream call failed", 1, e);
+    }
+  }
 
+  private List<CoffeeEntity> requestCoffees() {
     HttpHeaders headers = new HttpHeaders();
-    headers.setContentType(MediaType.APPLICATION_JSON);
-
-    HttpEntity<?> requestEntity = new HttpEntity<>(headers);
+    headers.setAccept(List.of(MediaType.APPLICATION_JSON));
 
-    Map<String, String> params = new HashMap<>();
-    //          params.put("key", "Value");
-
-    String url = "https://api.sampleapis.com/coffee/hot";
-
-    ResponseEntity<ArrayList<CoffeeEntity>> coffeeEntityResponseEntity =
+    ResponseEntity<List<CoffeeEntity>> response =
         restTemplate.exchange(
-            url, HttpMethod.GET, requestEntity, new ParameterizedTypeReference<>() {}, params);
-
-    /*ResponseEntity<String> coffeeEntityResponseEntity =
-    restTemplate.exchange(url, HttpMethod.GET, requestEntity, String.class, params);*/
-
-    //    restTemplate.getForEntity(url, String.class);
-    //    restTemplate.postForEntity(url, params, String.class);
-
-    System.out.println("API response code:");
-    System.out.println(coffeeEntityResponseEntity.getStatusCode());
+            coffeeUrl,
+            HttpMethod.GET,
+            new HttpEntity<>(headers),
+            new ParameterizedTypeReference<List<CoffeeEntity>>() {});
+    logger.debug("Coffee API responded with {}", response.getStatusCode());
+    return response.getBody();
+  }
 
-    return coffeeEntityResponseEntity.getBody();
+  private UpstreamResult<List<CoffeeEntity>> lastGoodCoffees(
+      String reason, long retryAfterSeconds, RuntimeException cause) {
+    UpstreamResult<List<CoffeeEntity>> lastGood = lastGoodCoffees.get();
+    if (lastGood == null) {
+      throw new DependencyUnavailableException(
+          COFFEE_API,
+          "Coffee API is unavailable: " + reason,
+          Math.max(1, retryAfterSeconds),
+          cause);
+    }
+    return lastGood.asStale(reason);
   }
 
   /**
@@ -0,0 +1,457 @@
+package in.newdevpoint.bootcamp.service;
+
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.event.UserChangedEvent;
+import in.newdevpoint.bootcamp.exceptions.ValidationException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory prefix index over usernames and emails for type-ahead lookups.
+ *
+ * <p>Users are held in parallel arrays, and each username and email is one {@code int} entry in an
+ * array sorted case-insensitively, so a lookup is a binary search followed by a short scan that
+ * allocates little beyond its results. The index is built from a MongoDB cursor when the
+ * application is ready. Writes reported by {@link UserChangedEvent} are re-read in batches and kept
+ * in a small overlay that hides the stale entries of the main arrays; once the overlay holds {@code
+ * users.autocomplete.overlaySize} users, both are merged into new arrays. All changes are applied
+ * on one background thread and published as an immutable state, so lookups never lock.
+ *
+ * <p>Until the first build completes, lookups fall back to an anchored regex query. The {@code
+ * users.autocomplete.bytes} gauge estimates the heap held by the index and {@code
+ * users.autocomplete.bytesPerMillionUsers} extrapolates it to a million users.
+ */
+@Component
+public class UserAutocompleteIndex {
+  private static final Logger logger = LoggerFactory.getLogger(UserAutocompleteIndex.class);
+
+  private final MongoTemplate template;
+  private final int maxResults;
+  private final int overlaySize;
+  private final int batchSize;
+  private final ExecutorService writer =
+      Executors.newSingleThreadExecutor(new CustomizableThreadFactory("user-autocomplete-"));
+  private final Set<String> pendingIds = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+  private final Timer indexLookups;
+  private final Timer queryLookups;
+
+  private volatile State state;
+
+  public UserAutocompleteIndex(
+      MongoTemplate template,
+      @Value("${users.autocomplete.maxResults:50}") int maxResults,
+      @Value("${users.autocomplete.overlaySize:4096}") int overlaySize,
+      @Value("${users.autocomplete.batchSize:1000}") int batchSize,
+      MeterRegistry meterRegistry) {
+    this.template = template;
+    this.maxResults = maxResults;
+    this.overlaySize = overlaySize;
+    this.batchSize = batchSize;
+    this.indexLookups = lookupTimer(meterRegistry, "index");
+    this.queryLookups = lookupTimer(meterRegistry, "query");
+    Gauge.builder("users.autocomplete.bytes", this, index -> index.estimatedBytes())
+        .description("Estimated heap held by the username and email prefix index")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder(
+            "users.autocomplete.bytesPerMillionUsers", this, index -> index.bytesPerMillionUsers())
+        .description("Estimated heap the prefix index needs per million users")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  /** Builds the index in the background once the application is ready. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    writer.execute(this::rebuild);
+  }
+
+  /** Stops applying changes. */
+  @PreDestroy
+  public void stop() {
+    writer.shutdownNow();
+  }
+
+  /**
+   * Finds the users whose username or email starts with a prefix, ignoring case.
+   *
+   * @param prefix the typed prefix
+   * @param limit the most users to return
+   * @return the matching users with id, username and email, ordered by the matched value
+   * @throws ValidationException if the prefix is blank or the limit is out of range
+   */
+  public List<UserEntity> suggest(String prefix, int limit) {
+    if (StringUtils.isBlank(prefix)) {
+      throw new ValidationException("A prefix is required");
+    }
+    if (limit < 1 || limit > maxResults) {
+      throw new ValidationException("The limit must be between 1 and " + maxResults);
+    }
+    State current = state;
+    if (current == null) {
+      return queryLookups.record(() -> query(prefix, limit));
+    }
+    return indexLookups.record(() -> current.suggest(prefix, limit));
+  }
+
+  /**
+   * Schedules a user to be re-read after a write, or the whole index to be rebuilt when any user
+   * may have changed.
+   *
+   * @param event the user change
+   */
+  @EventListener
+  public void onUserChanged(UserChangedEvent event) {
+    if (event.isAllUsers()) {
+      writer.execute(this::rebuild);
+      return;
+    }
+    if (event.getUserId() != null) {
+      pendingIds.add(event.getUserId());
+      if (refreshScheduled.compareAndSet(false, true)) {
+        writer.execute(this::refresh);
+      }
+    }
+  }
+
+  /** Reads all users with a cursor and replaces the index. Runs on the writer thread. */
+  void rebuild() {
+    long started = System.nanoTime();
+    List<String> ids = new ArrayList<>();
+    List<String> usernames = new ArrayList<>();
+    List<String> emails = new ArrayList<>();
+    Query query = new Query();
+    query.fields().include("username").include("email");
+    query.cursorBatchSize(batchSize);
+    try (Stream<UserEntity> users = template.stream(query, UserEntity.class)) {
+      users.forEach(
+          user -> {
+            ids.add(user.getId());
+            usernames.add(user.getUsername());
+            emails.add(user.getEmail());
+          });
+    } catch (DataAccessException e) {
+      logger.warn("Could not build the user autocomplete index: {}", e.getMessage());
+      return;
+    }
+    Snapshot base = Snapshot.of(ids, usernames, emails);
+    state = new State(base, Snapshot.EMPTY, Set.of());
+    logger.info(
+        "Indexed {} users for autocomplete in {} ms: about {} KB, {} MB per million users",
+        base.size(),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+        base.bytes() / 1024,
+        bytesPerMillionUsers() / (1024 * 1024));
+    refresh();
+  }
+
+  /** Re-reads the users written since the last refresh. Runs on the writer thread. */
+  void refresh() {
+    refreshScheduled.set(false);
+    State current = state;
+    if (current == null) {
+      // The pending users are picked up when the first build completes
+      return;
+    }
+    List<String> ids = new ArrayList<>();
+    for (Iterator<String> it = pendingIds.iterator(); it.hasNext(); ) {
+      ids.add(it.next());
+      it.remove();
+    }
+    for (int from = 0; from < ids.size(); from += batchSize) {
+      List<String> batch = ids.subList(from, Math.min(ids.size(), from + batchSize));
+      Query query = new Query(Criteria.where("_id").in(batch));
+      query.fields().include("username").include("email");
+      try {
+        current = current.apply(batch, template.find(query, UserEntity.class), overlaySize);
+      } catch (DataAccessException e) {
+        logger.warn("Could not refresh the user autocomplete index: {}", e.getMessage());
+        pendingIds.addAll(batch);
+        break;
+      }
+      state = current;
+    }
+  }
+
+  /** Answers a lookup from MongoDB while the index is not built yet. */
+  private List<UserEntity> query(String prefix, int limit) {
+    Pattern startsWith = Pattern.compile("^" + Pattern.quote(prefix), Pattern.CASE_INSENSITIVE);
+    Query query =
+        new Query(
+            new Criteria()
+                .orOperator(
+                    Criteria.where("username").regex(startsWith),
+                    Criteria.where("email").regex(startsWith)));
+    query.fields().include("username").include("email");
+    query.with(Sort.by("username")).limit(limit);
+    return template.find(query, UserEntity.class);
+  }
+
+  private long estimatedBytes() {
+    State current = state;
+    return current == null ? 0 : current.base.bytes() + current.overlay.bytes();
+  }
+
+  private long bytesPerMillionUsers() {
+    State current = state;
+    if (current == null || current.base.size() == 0) {
+      return 0;
+    }
+    return current.base.bytes() * 1_000_000L / current.base.size();
+  }
+
+  private static Timer lookupTimer(MeterRegistry meterRegistry, String source) {
+    return Timer.builder("users.autocomplete")
+        .description("Username and email prefix lookups")
+        .tag("source", source)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Immutable view of the index: the main arrays, an overlay with the users written since they were
+   * built, and the ids whose entries in the main arrays are stale.
+   */
+  private static final class State {
+    private final Snapshot base;
+    private final Snapshot overlay;
+    private final Set<String> replaced;
+
+    private State(Snapshot base, Snapshot overlay, Set<String> replaced) {
+      this.base = base;
+      this.overlay = overlay;
+      this.replaced = replaced;
+    }
+
+    private List<UserEntity> suggest(String prefix, int limit) {
+      List<Integer> fromBase = base.find(prefix, limit, replaced);
+      List<Integer> fromOverlay = overlay.find(prefix, limit, Set.of());
+      List<UserEntity> users =
+          new ArrayList<>(Math.min(limit, fromBase.size() + fromOverlay.size()));
+      int b = 0;
+      int o = 0;
+      while (users.size() < limit && (b < fromBase.size() || o < fromOverlay.size())) {
+        boolean takeBase =
+            o == fromOverlay.size()
+                || (b < fromBase.size()
+                    && Snapshot.compare(base, fromBase.get(b), overlay, fromOverlay.get(o)) <= 0);
+        users.add(takeBase ? base.user(fromBase.get(b++)) : overlay.user(fromOverlay.get(o++)));
+      }
+      return users;
+    }
+
+    /**
+     * Returns the state after re-reading some users.
+     *
+     * @param ids the users that were re-read
+     * @param found the users among them that still exist
+     * @param overlaySize the overlay size at which everything is merged into new main arrays
+     */
+    private State apply(List<String> ids, List<UserEntity> found, int overlaySize) {
+      Map<String, UserEntity> written = new LinkedHashMap<>(overlay.users());
+      ids.forEach(written::remove);
+      found.forEach(user -> written.put(user.getId(), user));
+      Set<String> stale = new HashSet<>(replaced);
+      stale.addAll(ids);
+
+      if (written.size() < overlaySize) {
+        return new State(base, Snapshot.of(written.values()), stale);
+      }
+      List<UserEntity> merged = new ArrayList<>(base.size() + written.size());
+      for (int slot = 0; slot < base.size(); slot++) {
+        if (!stale.contains(base.ids[slot])) {
+          merged.add(base.user(slot << 1));
+        }
+      }
+      merged.addAll(written.values());
+      return new State(Snapshot.of(merged), Snapshot.EMPTY, Set.of());
+    }
+  }
+
+  /**
+   * Users in parallel arrays, with their usernames and emails as entries sorted case-insensitively.
+   * An entry is {@code slot << 1} for a username and {@code slot << 1 | 1} for an email.
+   */
+  private static final class Snapshot {
+    private static final Snapshot EMPTY = of(List.of(), List.of(), List.of());
+
+    private final String[] ids;
+    private final String[] usernames;
+    private final String[] emails;
+    private final int[] entries;
+    private final long bytes;
+
+    private Snapshot(String[] ids, String[] usernames, String[] emails, int[] entries) {
+      this.ids = ids;
+      this.usernames = usernames;
+      this.emails = emails;
+      this.entries = entries;
+      this.bytes = estimateBytes();
+    }
+
+    private static Snapshot of(List<String> ids, List<String> usernames, List<String> emails) {
+      String[] idArray = ids.toArray(new String[0]);
+      String[] usernameArray = usernames.toArray(new String[0]);
+      String[] emailArray = emails.toArray(new String[0]);
+      List<Integer> entries = new ArrayList<>(idArray.length * 2);
+      for (int slot = 0; slot < idArray.length; slot++) {
+        if (usernameArray[slot] != null) {
+          entries.add(slot << 1);
+        }
+        if (emailArray[slot] != null) {
+          entries.add(slot << 1 | 1);
+        }
+      }
+      Integer[] sorted = entries.toArray(new Integer[0]);
+      Comparator<Integer> order =
+          (a, b) -> {
+            int byTerm =
+                String.CASE_INSENSITIVE_ORDER.compare(
+                    term(usernameArray, emailArray, a), term(usernameArray, emailArray, b));
+            return byTerm != 0 ? byTerm : idArray[a >> 1].compareTo(idArray[b >> 1]);
+          };
+      Arrays.sort(sorted, order);
+      return new Snapshot(
+          idArray,
+          usernameArray,
+          emailArray,
+          Arrays.stream(sorted).mapToInt(Integer::intValue).toArray());
+    }
+
+    private static Snapshot of(Iterable<UserEntity> users) {
+      List<String> ids = new ArrayList<>();
+      List<String> usernames = new ArrayList<>();
+      List<String> emails = new ArrayList<>();
+      for (UserEntity user : users) {
+        ids.add(user.getId());
+        usernames.add(user.getUsername());
+        emails.add(user.getEmail());
+      }
+      return of(ids, usernames, emails);
+    }
+
+    private int size() {
+      return ids.length;
+    }
+
+    private long bytes() {
+      return bytes;
+    }
+
+    /**
+     * Returns up to {@code limit} entries starting with the prefix, at most one per user and
+     * skipping the given ids, in sort order.
+     */
+    private List<Integer> find(String prefix, int limit, Set<String> skippedIds) {
+      int low = 0;
+      int high = entries.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (String.CASE_INSENSITIVE_ORDER.compare(term(entries[mid]), prefix) < 0) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      List<Integer> found = new ArrayList<>(Math.min(limit, 16));
+      Set<Integer> seenSlots = new HashSet<>();
+      for (int i = low; i < entries.length && found.size() < limit; i++) {
+        String term = term(entries[i]);
+        if (!term.regionMatches(true, 0, prefix, 0, prefix.length())) {
+          break;
+        }
+        int slot = entries[i] >> 1;
+        if (!skippedIds.contains(ids[slot]) && seenSlots.add(slot)) {
+          found.add(entries[i]);
+        }
+      }
+      return found;
+    }
+
+    private UserEntity user(int entry) {
+      int slot = entry >> 1;
+      UserEntity user = new UserEntity(usernames[slot], emails[slot], null);
+      user.setId(ids[slot]);
+      return user;
+    }
+
+    private Map<String, UserEntity> users() {
+      Map<String, UserEntity> users = new HashMap<>();
+      for (int slot = 0; slot < ids.length; slot++) {
+        users.put(ids[slot], user(slot << 1));
+      }
+      return users;
+    }
+
+    private String term(int entry) {
+      return term(usernames, emails, entry);
+    }
+
+    private static String term(String[] usernames, String[] emails, int entry) {
+      return (entry & 1) == 0 ? usernames[entry >> 1] : emails[entry >> 1];
+    }
+
+    private static int compare(Snapshot left, int leftEntry, Snapshot right, int rightEntry) {
+      int byTerm =
+          String.CASE_INSENSITIVE_ORDER.compare(left.term(leftEntry), right.term(rightEntry));
+      return byTerm != 0 ? byTerm : left.ids[leftEntry >> 1].compareTo(right.ids[rightEntry >> 1]);
+    }
+
+    /** Estimates the retained heap assuming compressed references and compact strings. */
+    private long estimateBytes() {
+      long total = arrayBytes(entries.length) + 3 * arrayBytes(ids.length);
+      for (int slot = 0; slot < ids.length; slot++) {
+        total += stringBytes(ids[slot]) + stringBytes(usernames[slot]) + stringBytes(emails[slot]);
+      }
+      return total;
+    }
+
+    private static long arrayBytes(int length) {
+      return align(16 + 4L * length);
+    }
+
+    private static long stringBytes(String value) {
+      if (value == null) {
+        return 0;
+      }
+      boolean latin1 = value.chars().allMatch(c -> c < 256);
+      return 24 + align(16 + (long) value.length() * (latin1 ? 1 : 2));
+    }
+
+    private static long align(long bytes) {
+      return (bytes + 7) & ~7L;
+    }
+  }
+}
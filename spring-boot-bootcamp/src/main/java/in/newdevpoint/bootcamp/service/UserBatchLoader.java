@@ -0,0 +1,196 @@
+package in.newdevpoint.bootcamp.service;
+
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.exceptions.ValidationException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves many users by id or username with a single {@code $in} query.
+ *
+ * <p>Lookups for the same key and field selection that are already in flight for another request
+ * are joined instead of queried again, so a burst of page renders resolving the same authors
+ * reaches MongoDB once. Keys fetched by this instance's own query are counted by {@code
+ * users.batch.keys{source=query}} and joined ones by {@code users.batch.keys{source=coalesced}}.
+ */
+@Component
+public class UserBatchLoader {
+
+  private final MongoTemplate template;
+  private final UserVersionIndex versionIndex;
+  private final int maxKeys;
+  private final ConcurrentMap<String, CompletableFuture<Optional<UserEntity>>> inFlight =
+      new ConcurrentHashMap<>();
+  private final Counter queriedKeys;
+  private final Counter coalescedKeys;
+
+  public UserBatchLoader(
+      MongoTemplate template,
+      UserVersionIndex versionIndex,
+      @Value("${users.batchGet.maxKeys:200}") int maxKeys,
+      MeterRegistry meterRegistry) {
+    this.template = template;
+    this.versionIndex = versionIndex;
+    this.maxKeys = maxKeys;
+    this.queriedKeys = keyCounter(meterRegistry, "query");
+    this.coalescedKeys = keyCounter(meterRegistry, "coalesced");
+  }
+
+  /**
+   * Loads users by id and by username.
+   *
+   * @param ids the user ids to resolve
+   * @param usernames the usernames to resolve
+   * @param fields comma-separated user fields to return, or blank for all
+   * @return the found users keyed by the requested id and by the requested username
+   * @throws ValidationException if more than {@code users.batchGet.maxKeys} keys are requested or a
+   *     field is unknown
+   */
+  public Result load(Collection<String> ids, Collection<String> usernames, String fields) {
+    Set<String> distinctIds = new LinkedHashSet<>(ids);
+    Set<String> distinctUsernames = new LinkedHashSet<>(usernames);
+    if (distinctIds.size() + distinctUsernames.size() > maxKeys) {
+      throw new ValidationException("At most " + maxKeys + " ids and usernames can be resolved");
+    }
+    Set<String> projection = new LinkedHashSet<>(UserProjection.resolve(fields));
+    if (!distinctUsernames.isEmpty()) {
+      // Username lookups are matched back to their key by the loaded username
+      projection.add("username");
+    }
+    String scope = String.join(",", projection);
+
+    Map<String, CompletableFuture<Optional<UserEntity>>> byId = new LinkedHashMap<>();
+    Map<String, CompletableFuture<Optional<UserEntity>>> byUsername = new LinkedHashMap<>();
+    Map<String, CompletableFuture<Optional<UserEntity>>> ownIds = new HashMap<>();
+    Map<String, CompletableFuture<Optional<UserEntity>>> ownUsernames = new HashMap<>();
+    distinctIds.forEach(id -> byId.put(id, claim(scope + "|id|" + id, id, ownIds)));
+    distinctUsernames.forEach(
+        username ->
+            byUsername.put(
+                username, claim(scope + "|username|" + username, username, ownUsernames)));
+
+    if (!ownIds.isEmpty() || !ownUsernames.isEmpty()) {
+      query(ownIds, ownUsernames, projection, scope);
+    }
+    return new Result(join(byId), join(byUsername));
+  }
+
+  /** Returns the in-flight lookup of a key, or registers a new one owned by the calling request. */
+  private CompletableFuture<Optional<UserEntity>> claim(
+      String key, String value, Map<String, CompletableFuture<Optional<UserEntity>>> owned) {
+    CompletableFuture<Optional<UserEntity>> created = new CompletableFuture<>();
+    CompletableFuture<Optional<UserEntity>> running = inFlight.putIfAbsent(key, created);
+    if (running != null) {
+      coalescedKeys.increment();
+      return running;
+    }
+    owned.put(value, created);
+    return created;
+  }
+
+  /** Resolves the keys owned by this request with one query and completes their lookups. */
+  private void query(
+      Map<String, CompletableFuture<Optional<UserEntity>>> ownIds,
+      Map<String, CompletableFuture<Optional<UserEntity>>> ownUsernames,
+      Set<String> projection,
+      String scope) {
+    queriedKeys.increment(ownIds.size() + ownUsernames.size());
+    try {
+      List<Criteria> criteria = new ArrayList<>();
+      if (!ownIds.isEmpty()) {
+        criteria.add(Criteria.where("_id").in(ownIds.keySet()));
+      }
+      if (!ownUsernames.isEmpty()) {
+        criteria.add(Criteria.where("username").in(ownUsernames.keySet()));
+      }
+      Query query =
+          new Query(
+              criteria.size() == 1
+                  ? criteria.get(0)
+                  : new Criteria().orOperator(criteria.toArray(new Criteria[0])));
+      UserProjection.apply(query, projection);
+
+      Map<String, UserEntity> foundById = new HashMap<>();
+      Map<String, UserEntity> foundByUsername = new HashMap<>();
+      for (UserEntity user : template.find(query, UserEntity.class)) {
+        foundById.put(user.getId(), user);
+        if (user.getUsername() != null) {
+          foundByUsername.put(user.getUsername(), user);
+        }
+        versionIndex.record(user.getId(), user.getUsername(), user.getVersion());
+      }
+      ownIds.forEach((id, lookup) -> lookup.complete(Optional.ofNullable(foundById.get(id))));
+      ownUsernames.forEach(
+          (username, lookup) ->
+              lookup.complete(Optional.ofNullable(foundByUsername.get(username))));
+    } catch (RuntimeException | Error e) {
+      // Complete the lookups other requests may be waiting on before giving up
+      ownIds.values().forEach(lookup -> lookup.completeExceptionally(e));
+      ownUsernames.values().forEach(lookup -> lookup.completeExceptionally(e));
+      throw e;
+    } finally {
+      ownIds.forEach((id, lookup) -> inFlight.remove(scope + "|id|" + id, lookup));
+      ownUsernames.forEach(
+          (username, lookup) -> inFlight.remove(scope + "|username|" + username, lookup));
+    }
+  }
+
+  private static Map<String, Optional<UserEntity>> join(
+      Map<String, CompletableFuture<Optional<UserEntity>>> lookups) {
+    Map<String, Optional<UserEntity>> results = new LinkedHashMap<>();
+    lookups.forEach(
+        (key, lookup) -> {
+          try {
+            results.put(key, lookup.join());
+          } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+          }
+        });
+    return results;
+  }
+
+  private static Counter keyCounter(MeterRegistry meterRegistry, String source) {
+    return Counter.builder("users.batch.keys")
+        .description("Keys resolved by batch user lookups")
+        .tag("source", source)
+        .register(meterRegistry);
+  }
+
+  /** Outcome of a batch lookup, in request order; an empty value marks a key that was not found. */
+  public static final class Result {
+    private final Map<String, Optional<UserEntity>> byId;
+    private final Map<String, Optional<UserEntity>> byUsername;
+
+    public Result(
+        Map<String, Optional<UserEntity>> byId, Map<String, Optional<UserEntity>> byUsername) {
+      this.byId = byId;
+      this.byUsername = byUsername;
+    }
+
+    public Map<String, Optional<UserEntity>> getById() {
+      return byId;
+    }
+
+    public Map<String, Optional<UserEntity>> getByUsername() {
+      return byUsername;
+    }
+  }
+}
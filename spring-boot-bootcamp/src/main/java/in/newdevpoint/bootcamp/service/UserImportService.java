@@ -0,0 +1,245 @@
+package in.newdevpoint.bootcamp.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.event.UserChangedEvent;
+import in.newdevpoint.bootcamp.payload.request.SignupRequest;
+import in.newdevpoint.bootcamp.payload.response.BulkImportResponse;
+import in.newdevpoint.bootcamp.payload.response.BulkImportResponse.RowResult;
+import in.newdevpoint.bootcamp.payload.response.BulkImportResponse.Status;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+/**
+ * Imports users in bulk, applying the same rules as a single signup.
+ *
+ * <p>Rows are processed in chunks of {@code users.import.chunkSize}. For each chunk:
+ *
+ * <ol>
+ *   <li>rows are validated, and a username or email repeated within the request is rejected
+ *   <li>taken usernames and emails are found with one {@code $in} query
+ *   <li>passwords are hashed in parallel on the password hashing pool
+ *   <li>the new users are written with one unordered bulk insert
+ * </ol>
+ *
+ * <p>A {@link UserChangedEvent} of type {@code CREATED} is published for every inserted user.
+ *
+ * <p>A row that fails never stops the others; its outcome is recorded in the returned report. When
+ * a chunk fails as a whole, for example because MongoDB is unreachable, its remaining rows are
+ * reported as {@code FAILED} and the import continues with the next chunk.
+ */
+@Service
+public class UserImportService {
+  private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+
+  private final MongoTemplate template;
+  private final PasswordHashingService hashingService;
+  private final RoleService roleService;
+  private final Validator validator;
+  private final ApplicationEventPublisher eventPublisher;
+
+  @Value("${users.import.chunkSize:500}")
+  private int chunkSize;
+
+  public UserImportService(
+      MongoTemplate template,
+      PasswordHashingService hashingService,
+      RoleService roleService,
+      Validator validator,
+      ApplicationEventPublisher eventPublisher) {
+    this.template = template;
+    this.hashingService = hashingService;
+    this.roleService = roleService;
+    this.validator = validator;
+    this.eventPublisher = eventPublisher;
+  }
+
+  /**
+   * Imports users read from the given rows.
+   *
+   * <p>A row that cannot be read is signalled by an {@link UncheckedIOException} from {@code
+   * next()}. It is reported as {@code INVALID} with the parse error and ends the import, after the
+   * rows read before it have been imported.
+   *
+   * @param rows the signup rows, consumed one chunk at a time
+   * @return the per-row report
+   */
+  public BulkImportResponse importUsers(Iterator<SignupRequest> rows) {
+    BulkImportResponse report = new BulkImportResponse();
+    Set<String> seenUsernames = new HashSet<>();
+    Set<String> seenEmails = new HashSet<>();
+    List<SignupRequest> chunk = new ArrayList<>(chunkSize);
+    int rowNumber = 0;
+    RowResult unreadable = null;
+    while (rows.hasNext()) {
+      try {
+        chunk.add(rows.next());
+      } catch (UncheckedIOException e) {
+        unreadable = new RowResult(rowNumber + chunk.size(), null);
+        unreadable.rejected(Status.INVALID, e.getMessage());
+        break;
+      }
+      if (chunk.size() == chunkSize) {
+        importChunk(rowNumber, chunk, seenUsernames, seenEmails, report);
+        rowNumber += chunk.size();
+        chunk.clear();
+      }
+    }
+    if (!chunk.isEmpty()) {
+      importChunk(rowNumber, chunk, seenUsernames, seenEmails, report);
+    }
+    if (unreadable != null) {
+      report.add(unreadable);
+    }
+    logger.info("Imported {} users, {} rows failed", report.getCreated(), report.getFailed());
+    return report;
+  }
+
+  private void importChunk(
+      int firstRow,
+      List<SignupRequest> chunk,
+      Set<String> seenUsernames,
+      Set<String> seenEmails,
+      BulkImportResponse report) {
+    List<RowResult> results = new ArrayList<>(chunk.size());
+    List<SignupRequest> accepted = new ArrayList<>();
+    List<RowResult> acceptedResults = new ArrayList<>();
+
+    for (int i = 0; i < chunk.size(); i++) {
+      SignupRequest request = chunk.get(i);
+      RowResult result =
+          new RowResult(firstRow + i, request == null ? null : request.getUsername());
+      results.add(result);
+      String violation = validate(request);
+      if (violation != null) {
+        result.rejected(Status.INVALID, violation);
+      } else if (!seenUsernames.add(request.getUsername())) {
+        result.rejected(Status.DUPLICATE_IN_REQUEST, "Username appears more than once");
+      } else if (!seenEmails.add(request.getEmail())) {
+        result.rejected(Status.DUPLICATE_IN_REQUEST, "Email appears more than once");
+      } else {
+        accepted.add(request);
+        acceptedResults.add(result);
+      }
+    }
+
+    if (!accepted.isEmpty()) {
+      try {
+        rejectTaken(accepted, acceptedResults);
+        insert(accepted, acceptedResults);
+      } catch (RuntimeException e) {
+        logger.error("Failed to import rows {} to {}", firstRow, firstRow + chunk.size() - 1, e);
+        for (RowResult result : acceptedResults) {
+          if (result.getStatus() == null) {
+            result.rejected(Status.FAILED, "Error: Could not import row: " + e.getMessage());
+          }
+        }
+      }
+    }
+    results.forEach(report::add);
+  }
+
+  private String validate(SignupRequest request) {
+    if (request == null) {
+      return "Row is empty";
+    }
+    Set<ConstraintViolation<SignupRequest>> violations = validator.validate(request);
+    if (violations.isEmpty()) {
+      return null;
+    }
+    return violations.stream()
+        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+        .sorted()
+        .collect(Collectors.joining("; "));
+  }
+
+  /** Rejects rows whose username or email already exists, using a single query for the chunk. */
+  private void rejectTaken(List<SignupRequest> accepted, List<RowResult> results) {
+    Set<String> usernames = new HashSet<>();
+    Set<String> emails = new HashSet<>();
+    accepted.forEach(
+        request -> {
+          usernames.add(request.getUsername());
+          emails.add(request.getEmail());
+        });
+    Query query =
+        new Query(
+            new Criteria()
+                .orOperator(
+                    Criteria.where("username").in(usernames), Criteria.where("email").in(emails)));
+    query.fields().include("username", "email");
+
+    Set<String> takenUsernames = new HashSet<>();
+    Set<String> takenEmails = new HashSet<>();
+    for (UserEntity existing : template.find(query, UserEntity.class)) {
+      takenUsernames.add(existing.getUsername());
+      takenEmails.add(existing.getEmail());
+    }
+    for (int i = accepted.size() - 1; i >= 0; i--) {
+      SignupRequest request = accepted.get(i);
+      if (takenUsernames.contains(request.getUsername())) {
+        results.remove(i).rejected(Status.USERNAME_TAKEN, "Error: Username is already taken!");
+        accepted.remove(i);
+      } else if (takenEmails.contains(request.getEmail())) {
+        results.remove(i).rejected(Status.EMAIL_TAKEN, "Error: Email is already in use!");
+        accepted.remove(i);
+      }
+    }
+  }
+
+  private void insert(List<SignupRequest> accepted, List<RowResult> results) {
+    if (accepted.isEmpty()) {
+      return;
+    }
+    List<String> hashes =
+        hashingService.encodeAll(
+            accepted.stream().map(SignupRequest::getPassword).collect(Collectors.toList()));
+
+    List<UserEntity> users = new ArrayList<>(accepted.size());
+    for (int i = 0; i < accepted.size(); i++) {
+      SignupRequest request = accepted.get(i);
+      UserEntity user = new UserEntity(request.getUsername(), request.getEmail(), hashes.get(i));
+      // Ids are assigned up front so every row of the report can name its user
+      user.setId(new ObjectId().toHexString());
+      roleService.assignRoles(user, roleService.resolveRoleNames(request.getRoles()));
+      users.add(user);
+    }
+
+    Set<Integer> failed = new HashSet<>();
+    try {
+      template.bulkOps(BulkOperations.BulkMode.UNORDERED, UserEntity.class).insert(users).execute();
+    } catch (BulkOperationException e) {
+      for (BulkWriteError error : e.getErrors()) {
+        // Typically E11000, when another request took the username or email in the meantime
+        failed.add(error.getIndex());
+        results.get(error.getIndex()).rejected(Status.FAILED, error.getMessage());
+      }
+    }
+    for (int i = 0; i < users.size(); i++) {
+      if (!failed.contains(i)) {
+        UserEntity user = users.get(i);
+        results.get(i).created(user.getId());
+        eventPublisher.publishEvent(
+            new UserChangedEvent(UserChangedEvent.Type.CREATED, user.getId(), user.getUsername()));
+      }
+    }
+  }
+}
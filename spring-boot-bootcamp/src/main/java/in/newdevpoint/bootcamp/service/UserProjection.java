@@ -0,0 +1,70 @@
+package in.newdevpoint.bootcamp.service;
+
+import in.newdevpoint.bootcamp.dto.UserReq;
+import in.newdevpoint.bootcamp.exceptions.ValidationException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Field projection for user reads, derived from the fields of {@link UserReq}. Reads only fetch
+ * what the API can return, so the password hash and role references never leave MongoDB.
+ */
+final class UserProjection {
+
+  /** The fields a user read can return, in {@link UserReq} declaration order. */
+  static final Set<String> FIELDS = responseFields();
+
+  private UserProjection() {}
+
+  /**
+   * Resolves a {@code fields} request parameter.
+   *
+   * @param fields comma-separated field names, or blank for all fields
+   * @return the requested fields, always including {@code id} and the {@code version} the ETag is
+   *     derived from
+   * @throws ValidationException if a field is not part of {@link UserReq}
+   */
+  static Set<String> resolve(String fields) {
+    if (StringUtils.isBlank(fields)) {
+      return FIELDS;
+    }
+    Set<String> selected = new LinkedHashSet<>();
+    selected.add("id");
+    selected.add("version");
+    for (String field : fields.split(",")) {
+      String name = field.trim();
+      if (!FIELDS.contains(name)) {
+        throw new ValidationException("Unknown user field: " + name);
+      }
+      selected.add(name);
+    }
+    return selected;
+  }
+
+  /**
+   * Restricts a query to the given fields.
+   *
+   * @param query the query to restrict
+   * @param fields the fields to fetch
+   * @return the query
+   */
+  static Query apply(Query query, Set<String> fields) {
+    fields.forEach(field -> query.fields().include(field));
+    return query;
+  }
+
+  private static Set<String> responseFields() {
+    Set<String> fields = new LinkedHashSet<>();
+    for (Field field : UserReq.class.getDeclaredFields()) {
+      if (!Modifier.isStatic(field.getModifiers())) {
+        fields.add(field.getName());
+      }
+    }
+    return Collections.unmodifiableSet(fields);
+  }
+}
@@ -1,26 +1,40 @@
 package in.newdevpoint.bootcamp.service;
 
-import com.github.rutledgepaulv.qbuilders.builders.GeneralQueryBuilder;
-import com.github.rutledgepaulv.qbuilders.conditions.Condition;
-import com.github.rutledgepaulv.qbuilders.visitors.MongoVisitor;
-import com.github.rutledgepaulv.rqe.pipes.QueryConversionPipeline;
 import in.newdevpoint.bootcamp.dto.UserReq;
 import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.event.UserChangedEvent;
+import in.newdevpoint.bootcamp.exceptions.UserNotFoundException;
+import in.newdevpoint.bootcamp.exceptions.ValidationException;
 import in.newdevpoint.bootcamp.mapper.UserMapper;
+import in.newdevpoint.bootcamp.payload.response.CursorPageResponse;
 import in.newdevpoint.bootcamp.repository.UserRepository;
-import in.newdevpoint.bootcamp.utility.FileUtility;
-import java.io.File;
+import in.newdevpoint.bootcamp.search.RsqlQueryCompiler;
+import in.newdevpoint.bootcamp.utility.SearchCursor;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.core.env.Environment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -32,18 +46,30 @@ import org.springframework.web.multipart.MultipartFile;
 @CrossOrigin(origins = "*")
 public class UserService {
 
-  private static final QueryConversionPipeline pipeline = QueryConversionPipeline.defaultPipeline();
-  private final Environment environment;
+  // Fields a merge patch may change; everything else goes through dedicated endpoints
+  private static final Set<String> PATCHABLE_FIELDS = Set.of("username", "email");
+  // Fields carried in issued tokens; changing any of them invalidates the user's tokens
+  private static final Set<String> TOKEN_FIELDS = Set.of("username", "email", "roles", "roleNames");
+
   private final MongoTemplate template;
   private final UserMapper userMapper; // @RequiredArgsConstructor will create constructor
   private final UserRepository userRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final RsqlQueryCompiler queryCompiler;
+  private final ProfileStorageService profileStorage;
+  private final ProfileImageService profileImages;
+  private final UserVersionIndex versionIndex;
+
+  @Value("${users.export.batchSize:500}")
+  private int exportBatchSize;
 
   /**
    * Searches for users with optional filtering, sorting, and pagination.
    *
    * <p>If a query string is provided, it is parsed into MongoDB criteria for advanced filtering.
    * Results can be sorted by a specified field and direction, and are paginated according to the
-   * provided page and size parameters.
+   * provided page and size parameters. The total count is only queried when it cannot be derived
+   * from the page itself, and is estimated from collection metadata when there is no filter.
    *
    * @param size the number of users per page
    * @param page the page number to retrieve (zero-based)
@@ -55,39 +81,251 @@ public class UserService {
    */
   public Page<UserReq> searchUser(
       Integer size, Integer page, String sortDir, String query, String sortBy) {
-    Criteria criteria;
-    Query dynamicQuery;
-    if (!StringUtils.isBlank(query)) {
-      Condition<GeneralQueryBuilder> condition = pipeline.apply(query, UserEntity.class);
-      criteria = condition.query(new MongoVisitor());
+    return searchUser(size, page, sortDir, query, sortBy, null);
+  }
 
-      dynamicQuery = new Query();
-      dynamicQuery.addCriteria(criteria);
+  /**
+   * Searches for users like {@link #searchUser(Integer, Integer, String, String, String)}, fetching
+   * only the requested fields.
+   *
+   * @param size the number of users per page
+   * @param page the page number to retrieve (zero-based)
+   * @param sortDir the sort direction ("ASC" or "DESC")
+   * @param query an optional query string for filtering users
+   * @param sortBy the field to sort by; defaults to "id" if not specified
+   * @param fields comma-separated user fields to return, or blank for all
+   * @return a paginated list of users matching the criteria
+   */
+  public Page<UserReq> searchUser(
+      Integer size, Integer page, String sortDir, String query, String sortBy, String fields) {
+    Criteria criteria = buildCriteria(query);
+    PageRequest pageable = pageRequest(size, page, sortDir, sortBy);
+    Query dynamicQuery = offsetQuery(criteria, pageable, sortBy);
+    UserProjection.apply(dynamicQuery, UserProjection.resolve(fields));
 
-    } else {
-      dynamicQuery = new Query();
+    List<UserEntity> orders = template.find(dynamicQuery, UserEntity.class);
+
+    List<UserReq> users = userMapper.mapToResponseEntityList(orders);
+
+    return PageableExecutionUtils.getPage(users, pageable, () -> countUsers(criteria));
+  }
+
+  /**
+   * Searches for users like {@link #searchUser} but without counting the matching users. One extra
+   * user is fetched to tell whether a next page exists.
+   *
+   * @param size the number of users per page
+   * @param page the page number to retrieve (zero-based)
+   * @param sortDir the sort direction ("ASC" or "DESC")
+   * @param query an optional query string for filtering users
+   * @param sortBy the field to sort by; defaults to "id" if not specified
+   * @param fields comma-separated user fields to return, or blank for all
+   * @return a slice of users matching the criteria
+   */
+  public Slice<UserReq> searchUserSlice(
+      Integer size, Integer page, String sortDir, String query, String sortBy, String fields) {
+    PageRequest pageable = pageRequest(size, page, sortDir, sortBy);
+    Query dynamicQuery = offsetQuery(buildCriteria(query), pageable, sortBy);
+    UserProjection.apply(dynamicQuery, UserProjection.resolve(fields));
+    dynamicQuery.limit(pageable.getPageSize() + 1);
+
+    List<UserEntity> found = template.find(dynamicQuery, UserEntity.class);
+    boolean hasNext = found.size() > pageable.getPageSize();
+    List<UserEntity> content = hasNext ? found.subList(0, pageable.getPageSize()) : found;
+
+    return new SliceImpl<>(userMapper.mapToResponseEntityList(content), pageable, hasNext);
+  }
+
+  /**
+   * Searches for users with keyset (cursor) pagination.
+   *
+   * <p>Users are ordered by the sort field and then by id. Instead of skipping over earlier pages,
+   * the cursor of the previous page is turned into a range predicate on the sort field (with the id
+   * breaking ties), so every page costs the same regardless of its depth. The cursor must be used
+   * with the same sort field and direction it was issued for.
+   *
+   * @param size the number of users per page
+   * @param sortDir the sort direction ("ASC" or "DESC"); defaults to ascending
+   * @param query an optional query string for filtering users
+   * @param sortBy the user field to sort by; defaults to "id" if not specified
+   * @param cursor the {@code nextCursor} of the previous page, or blank for the first page
+   * @param includeTotal whether to count all users matching the query
+   * @param fields comma-separated user fields to return, or blank for all
+   * @return the page of users and the cursor of the next page
+   * @throws ValidationException if the sort field, direction, size or cursor is invalid
+   */
+  public CursorPageResponse<UserReq> searchUserByCursor(
+      Integer size,
+      String sortDir,
+      String query,
+      String sortBy,
+      String cursor,
+      boolean includeTotal,
+      String fields) {
+    if (size == null || size < 1) {
+      throw new ValidationException("Page size must be greater than zero");
     }
+    String sortField = StringUtils.isBlank(sortBy) ? "id" : sortBy;
+    MongoPersistentProperty sortProperty = sortProperty(sortField);
+    Sort.Direction direction = sortDirection(sortDir);
+    Set<String> projection = UserProjection.resolve(fields);
+    Criteria criteria = buildCriteria(query);
 
-    long count = template.count(dynamicQuery, UserEntity.class);
-    PageRequest pageable;
+    List<Criteria> predicates = new ArrayList<>();
+    if (criteria != null) {
+      predicates.add(criteria);
+    }
+    if (StringUtils.isNotBlank(cursor)) {
+      SearchCursor position = SearchCursor.decode(cursor);
+      if (!position.getField().equals(sortField) || position.getDirection() != direction) {
+        throw new ValidationException("Cursor was issued for a different sort order");
+      }
+      predicates.add(after(position, sortProperty.isIdProperty()));
+    }
+
+    Query dynamicQuery = new Query();
+    if (predicates.size() == 1) {
+      dynamicQuery.addCriteria(predicates.get(0));
+    } else if (predicates.size() > 1) {
+      dynamicQuery.addCriteria(new Criteria().andOperator(predicates));
+    }
+    Sort sort = Sort.by(direction, "id");
+    if (!sortProperty.isIdProperty()) {
+      sort = Sort.by(direction, sortField).and(sort);
+    }
+    dynamicQuery.with(sort).limit(size + 1);
+    UserProjection.apply(dynamicQuery, projection);
+    // The sort key of the last user is needed for the cursor even if it was not requested
+    boolean sortKeyOnlyForCursor = !projection.contains(sortField);
+    if (sortKeyOnlyForCursor) {
+      dynamicQuery.fields().include(sortField);
+    }
+
+    List<UserEntity> found = template.find(dynamicQuery, UserEntity.class);
+    boolean hasNext = found.size() > size;
+    List<UserEntity> content = hasNext ? found.subList(0, size) : found;
+
+    String nextCursor = null;
+    if (hasNext) {
+      UserEntity last = content.get(content.size() - 1);
+      nextCursor =
+          new SearchCursor(sortField, direction, sortValue(sortProperty, last), last.getId())
+              .encode();
+    }
+    if (sortKeyOnlyForCursor) {
+      content.forEach(user -> userAccessor(user).setProperty(sortProperty, null));
+    }
+
+    Long total = includeTotal ? countUsers(criteria) : null;
+    return new CursorPageResponse<>(
+        userMapper.mapToResponseEntityList(content), size, nextCursor, total);
+  }
+
+  private Criteria buildCriteria(String query) {
+    if (StringUtils.isBlank(query)) {
+      return null;
+    }
+    return queryCompiler.toCriteria(query, UserEntity.class);
+  }
+
+  private PageRequest pageRequest(Integer size, Integer page, String sortDir, String sortBy) {
+    int pageNumber = page == null ? 0 : page;
     if (!StringUtils.isBlank(sortDir) && !StringUtils.isBlank(sortBy)) {
-      pageable = PageRequest.of(page, size, Sort.Direction.valueOf(sortDir.toUpperCase()), sortBy);
-    } else {
-      pageable = PageRequest.of(page, size, Sort.Direction.ASC, "id");
+      return PageRequest.of(
+          pageNumber, size, Sort.Direction.valueOf(sortDir.toUpperCase()), sortBy);
     }
+    return PageRequest.of(pageNumber, size, Sort.Direction.ASC, "id");
+  }
 
+  private Query offsetQuery(Criteria criteria, PageRequest pageable, String sortBy) {
+    Query dynamicQuery = new Query();
+    if (criteria != null) {
+      dynamicQuery.addCriteria(criteria);
+    }
     if (StringUtils.isBlank(sortBy)) {
       dynamicQuery.with(Sort.by(Sort.DEFAULT_DIRECTION, "id"));
     } else {
       dynamicQuery.with(Sort.by(sortBy));
     }
     dynamicQuery.with(pageable);
+    return dynamicQuery;
+  }
 
-    List<UserEntity> orders = template.find(dynamicQuery, UserEntity.class);
+  /**
+   * Counts the users matching the criteria, using the collection's estimated document count when
+   * there is no filter.
+   */
+  private long countUsers(Criteria criteria) {
+    if (criteria == null) {
+      return template.estimatedCount(UserEntity.class);
+    }
+    return template.count(new Query(criteria), UserEntity.class);
+  }
 
-    List<UserReq> users = userMapper.mapToResponseEntityList(orders);
+  /**
+   * Resolves the sort field of a cursor search. Only fields a user read can return are allowed,
+   * since the sort key of the last user is written into the cursor, which the client can decode.
+   */
+  private MongoPersistentProperty sortProperty(String sortField) {
+    if (!UserProjection.FIELDS.contains(sortField)) {
+      throw new ValidationException("Cannot sort users by " + sortField);
+    }
+    MongoPersistentProperty property =
+        template
+            .getConverter()
+            .getMappingContext()
+            .getRequiredPersistentEntity(UserEntity.class)
+            .getPersistentProperty(sortField);
+    if (property == null || property.isCollectionLike()) {
+      throw new ValidationException("Cannot sort users by " + sortField);
+    }
+    return property;
+  }
 
-    return PageableExecutionUtils.getPage(users, pageable, () -> count);
+  private Object sortValue(MongoPersistentProperty property, UserEntity user) {
+    Object value = userAccessor(user).getProperty(property);
+    return template.getConverter().convertToMongoType(value);
+  }
+
+  private PersistentPropertyAccessor<UserEntity> userAccessor(UserEntity user) {
+    return template
+        .getConverter()
+        .getMappingContext()
+        .getRequiredPersistentEntity(UserEntity.class)
+        .getPropertyAccessor(user);
+  }
+
+  private static Sort.Direction sortDirection(String sortDir) {
+    if (StringUtils.isBlank(sortDir)) {
+      return Sort.Direction.ASC;
+    }
+    return Sort.Direction.fromOptionalString(sortDir)
+        .orElseThrow(() -> new ValidationException("Invalid sort direction: " + sortDir));
+  }
+
+  /**
+   * Builds the range predicate selecting the users that come after the cursor position. Missing
+   * sort values sort before all others in MongoDB, so a {@code null} position is handled
+   * separately.
+   */
+  private static Criteria after(SearchCursor position, boolean sortedById) {
+    boolean ascending = position.getDirection().isAscending();
+    Criteria idAfter =
+        ascending
+            ? Criteria.where("id").gt(position.getId())
+            : Criteria.where("id").lt(position.getId());
+    if (sortedById) {
+      return idAfter;
+    }
+
+    String field = position.getField();
+    Object value = position.getValue();
+    Criteria tie = new Criteria().andOperator(Criteria.where(field).is(value), idAfter);
+    if (value == null) {
+      return ascending ? new Criteria().orOperator(Criteria.where(field).ne(null), tie) : tie;
+    }
+    Criteria beyond = ascending ? Criteria.where(field).gt(value) : Criteria.where(field).lt(value);
+    return new Criteria().orOperator(beyond, tie);
   }
 
   /**
@@ -99,36 +337,160 @@ public class UserService {
     return userRepository.findAll();
   }
 
+  /**
+   * Streams all users matching an optional RSQL query from a MongoDB cursor.
+   *
+   * <p>Users are fetched from the server {@code users.export.batchSize} at a time and only with the
+   * fields of {@link UserReq}, so memory stays constant regardless of the collection size. The
+   * returned stream holds an open cursor and must be closed by the caller.
+   *
+   * @param query an optional query string for filtering users
+   * @return a stream of users that must be closed after use
+   */
+  public Stream<UserEntity> streamUsers(String query) {
+    Criteria criteria = buildCriteria(query);
+    Query dynamicQuery = criteria == null ? new Query() : new Query(criteria);
+    UserProjection.apply(dynamicQuery, UserProjection.FIELDS);
+    dynamicQuery.cursorBatchSize(exportBatchSize);
+    return template.stream(dynamicQuery, UserEntity.class);
+  }
+
   /**
    * Updates an existing user's information with the provided non-blank fields.
    *
-   * <p>Only fields in {@code updatedUserEntity} that are not blank will overwrite the corresponding
-   * fields of the user identified by {@code id}.
+   * <p>Only fields in {@code updatedUserEntity} that are not blank are {@code $set} on the user
+   * identified by {@code id}, in a single {@code findAndModify} that also increments the user's
+   * version and returns the post-image. If {@code updatedUserEntity} carries a version, the update
+   * only applies while the stored version still matches it.
    *
    * @param id the unique identifier of the user to update
    * @param updatedUserEntity the user entity containing updated values
    * @return the updated user entity
-   * @throws UsernameNotFoundException if no user exists with the given id
+   * @throws UserNotFoundException if no user exists with the given id
+   * @throws OptimisticLockingFailureException if the user was modified since the given version
    */
   public UserEntity updateUser(String id, UserEntity updatedUserEntity) {
-    return userRepository
-        .findById(id)
-        .map(
-            existingUser -> {
-              // Update all relevant fields only if provided
-              if (StringUtils.isNotBlank(updatedUserEntity.getUsername())) {
-                existingUser.setUsername(updatedUserEntity.getUsername());
-              }
-              if (StringUtils.isNotBlank(updatedUserEntity.getEmail())) {
-                existingUser.setEmail(updatedUserEntity.getEmail());
-              }
-              // Add other fields as needed, e.g.:
-              // if (StringUtils.isNotBlank(updatedUserEntity.getPhone())) {
-              //     existingUser.setPhone(updatedUserEntity.getPhone());
-              // }
-              return userRepository.save(existingUser);
-            })
-        .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + id));
+    Update update = new Update();
+    if (StringUtils.isNotBlank(updatedUserEntity.getUsername())) {
+      update.set("username", updatedUserEntity.getUsername());
+    }
+    if (StringUtils.isNotBlank(updatedUserEntity.getEmail())) {
+      update.set("email", updatedUserEntity.getEmail());
+    }
+    return applyUpdate(id, updatedUserEntity.getVersion(), update);
+  }
+
+  /**
+   * Applies a JSON Merge Patch to a user in a single {@code findAndModify}.
+   *
+   * <p>Each entry of {@code changes} is a field that was present in the patch document: a non-null
+   * value is {@code $set}, a null value removes the field. Fields left out of the patch are not
+   * touched.
+   *
+   * @param id the unique identifier of the user to patch
+   * @param expectedVersion the version the client last read, or null to skip the version check
+   * @param changes the patched fields and their new values
+   * @return the updated user entity
+   * @throws ValidationException if a field cannot be patched or a required field would be removed
+   * @throws UserNotFoundException if no user exists with the given id
+   * @throws OptimisticLockingFailureException if the user was modified since the given version
+   */
+  public UserEntity patchUser(String id, Long expectedVersion, Map<String, Object> changes) {
+    Update update = new Update();
+    changes.forEach(
+        (field, value) -> {
+          if (!PATCHABLE_FIELDS.contains(field)) {
+            throw new ValidationException("Field cannot be patched: " + field);
+          }
+          if (value == null || (value instanceof String text && StringUtils.isBlank(text))) {
+            throw new ValidationException(field + " cannot be removed");
+          }
+          update.set(field, value);
+        });
+    return applyUpdate(id, expectedVersion, update);
+  }
+
+  /**
+   * Applies {@code update} to a user and increments its version, returning the post-image. When the
+   * update changes a field carried in tokens, the token version is incremented as well.
+   *
+   * <p>Documents written before versioning have no {@code version} field and count as version 0.
+   * The user is only looked up again when nothing matched, to tell a missing user from a stale
+   * version.
+   */
+  private UserEntity applyUpdate(String id, Long expectedVersion, Update update) {
+    Query query = versionedQuery(id, expectedVersion);
+
+    if (update.getUpdateObject().isEmpty()) {
+      // Nothing to write: an empty update would still bump the version and emit a change event
+      UserEntity current = template.findOne(query, UserEntity.class);
+      if (current == null) {
+        throw missingOrConflict(id, expectedVersion);
+      }
+      return current;
+    }
+
+    update.inc("version", 1);
+    if (TOKEN_FIELDS.stream().anyMatch(update::modifies)) {
+      update.inc("tokenVersion", 1);
+    }
+    UserEntity savedUser =
+        template.findAndModify(
+            query, update, FindAndModifyOptions.options().returnNew(true), UserEntity.class);
+    if (savedUser == null) {
+      throw missingOrConflict(id, expectedVersion);
+    }
+    eventPublisher.publishEvent(
+        new UserChangedEvent(
+            UserChangedEvent.Type.UPDATED, savedUser.getId(), savedUser.getUsername()));
+    versionIndex.record(savedUser.getId(), savedUser.getUsername(), savedUser.getVersion());
+    return savedUser;
+  }
+
+  /** Matches a user by id and, when given, by the version the client expects it to have. */
+  private static Query versionedQuery(String id, Long expectedVersion) {
+    Criteria criteria = Criteria.where("_id").is(id);
+    if (expectedVersion != null) {
+      criteria =
+          expectedVersion == 0
+              ? criteria.orOperator(
+                  Criteria.where("version").is(0L), Criteria.where("version").exists(false))
+              : criteria.and("version").is(expectedVersion);
+    }
+    return new Query(criteria);
+  }
+
+  private RuntimeException missingOrConflict(String id, Long expectedVersion) {
+    if (expectedVersion != null
+        && template.exists(Query.query(Criteria.where("_id").is(id)), UserEntity.class)) {
+      return new OptimisticLockingFailureException(
+          "User " + id + " was modified since version " + expectedVersion);
+    }
+    return new UserNotFoundException("User not found with id: " + id);
+  }
+
+  /**
+   * Invalidates every token issued to a user so far by incrementing its token version. The rest of
+   * the user, including the version its ETag is derived from, is left untouched.
+   *
+   * @param id the unique identifier of the user
+   * @return the user after the update
+   * @throws UserNotFoundException if no user exists with the given id
+   */
+  public UserEntity revokeTokens(String id) {
+    UserEntity savedUser =
+        template.findAndModify(
+            Query.query(Criteria.where("_id").is(id)),
+            new Update().inc("tokenVersion", 1),
+            FindAndModifyOptions.options().returnNew(true),
+            UserEntity.class);
+    if (savedUser == null) {
+      throw new UserNotFoundException("User not found with id: " + id);
+    }
+    eventPublisher.publishEvent(
+        new UserChangedEvent(
+            UserChangedEvent.Type.UPDATED, savedUser.getId(), savedUser.getUsername()));
+    return savedUser;
   }
 
   /****
@@ -138,6 +500,27 @@ public class UserService {
    */
   public void deleteUser(String id) {
     userRepository.deleteById(id);
+    eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.DELETED, id, null));
+  }
+
+  /**
+   * Deletes a user only while its stored version still matches the expected one.
+   *
+   * @param id the unique identifier of the user to delete
+   * @param expectedVersion the version the client last read, or null to skip the version check
+   * @throws UserNotFoundException if no user exists with the given id
+   * @throws OptimisticLockingFailureException if the user was modified since the given version
+   */
+  public void deleteUser(String id, Long expectedVersion) {
+    if (expectedVersion == null) {
+      deleteUser(id);
+      return;
+    }
+    if (template.remove(versionedQuery(id, expectedVersion), UserEntity.class).getDeletedCount()
+        == 0) {
+      throw missingOrConflict(id, expectedVersion);
+    }
+    eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.DELETED, id, null));
   }
 
   /****
@@ -150,6 +533,24 @@ public class UserService {
     return userRepository.findByUsername(username);
   }
 
+  /**
+   * Retrieves a user by username, fetching only the requested fields. The user's version is
+   * recorded in the {@link UserVersionIndex} for later conditional requests.
+   *
+   * @param username the username to search for
+   * @param fields comma-separated user fields to return, or blank for all
+   * @return an Optional containing the partially loaded user if found, or empty if not found
+   */
+  public Optional<UserEntity> getUser(String username, String fields) {
+    Query query = new Query(Criteria.where("username").is(username));
+    UserProjection.apply(query, UserProjection.resolve(fields));
+    UserEntity user = template.findOne(query, UserEntity.class);
+    if (user != null) {
+      versionIndex.record(user.getId(), username, user.getVersion());
+    }
+    return Optional.ofNullable(user);
+  }
+
   /**
    * Retrieves a user by their unique identifier.
    *
@@ -160,6 +561,24 @@ public class UserService {
     return userRepository.findById(id);
   }
 
+  /**
+   * Retrieves a user by their unique identifier, fetching only the requested fields. The user's
+   * version is recorded in the {@link UserVersionIndex} for later conditional requests.
+   *
+   * @param id the unique identifier of the user
+   * @param fields comma-separated user fields to return, or blank for all
+   * @return an Optional containing the partially loaded user if found, or empty if not found
+   */
+  public Optional<UserEntity> getUserById(String id, String fields) {
+    Query query = new Query(Criteria.where("id").is(id));
+    UserProjection.apply(query, UserProjection.resolve(fields));
+    UserEntity user = template.findOne(query, UserEntity.class);
+    if (user != null) {
+      versionIndex.record(user.getId(), user.getUsername(), user.getVersion());
+    }
+    return Optional.ofNullable(user);
+  }
+
   /**
    * Retrieves a user by username or throws an exception if not found.
    *
@@ -190,27 +609,56 @@ public class UserService {
    * Uploads a profile image for the specified user and updates the user's profile with the image
    * URL.
    *
+   * <p>The image is kept in content-addressed storage, so identical images are stored once, and is
+   * served from {@code /images/<sha256>}. Its thumbnails are generated in the background. The
+   * user's previous image is deleted if no other user references it. The user is updated with one
+   * atomic {@code findAndModify} that also increments its version, so concurrent patches are never
+   * overwritten.
+   *
    * @param file the profile image file to upload
    * @param username the username of the user whose profile image is to be updated
    * @return the updated UserEntity with the new profile image URL, or null if the user does not
    *     exist
    */
   public UserEntity uploadUserProfile(MultipartFile file, String username) {
-    String uploadPath = environment.getProperty("file.upload.path");
-    // Create upload directory if it doesn't exist
-    File uploadDir = new File(uploadPath);
-    if (!uploadDir.exists()) {
-      uploadDir.mkdirs();
+    Query byUsername = Query.query(Criteria.where("username").is(username));
+    if (!template.exists(byUsername, UserEntity.class)) {
+      return null;
     }
 
-    String uploadedFileUrl = FileUtility.fileUpload(file, uploadPath);
+    ProfileStorageService.StoredBlob blob;
+    try {
+      blob = profileStorage.store(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error: Profile image could not be stored", e);
+    }
 
-    UserEntity existingUserEntity = userRepository.findByUsername(username).orElse(null);
-    if (existingUserEntity != null) {
-      existingUserEntity.setProfileImage(uploadedFileUrl);
+    // The pre-image tells which image was replaced; the write itself is one atomic update
+    Update update =
+        new Update()
+            .set("profileImage", "/images/" + blob.getHash())
+            .set("profileImageHash", blob.getHash())
+            .inc("version", 1);
+    UserEntity savedUser =
+        template.findAndModify(
+            byUsername, update, FindAndModifyOptions.options().returnNew(false), UserEntity.class);
+    if (savedUser == null) {
+      // Deleted meanwhile; the unreferenced blob is collected later
+      return null;
+    }
+    String previousHash = savedUser.getProfileImageHash();
+    savedUser.setProfileImage("/images/" + blob.getHash());
+    savedUser.setProfileImageHash(blob.getHash());
+    savedUser.setVersion(savedUser.getVersion() == null ? 1 : savedUser.getVersion() + 1);
 
-      return userRepository.save(existingUserEntity);
+    eventPublisher.publishEvent(
+        new UserChangedEvent(
+            UserChangedEvent.Type.UPDATED, savedUser.getId(), savedUser.getUsername()));
+    versionIndex.record(savedUser.getId(), savedUser.getUsername(), savedUser.getVersion());
+    profileImages.generateVariants(blob.getHash());
+    if (previousHash != null && !previousHash.equals(blob.getHash())) {
+      profileStorage.release(previousHash);
     }
-    return null;
+    return savedUser;
   }
 }
@@ -0,0 +1,124 @@
+package in.newdevpoint.bootcamp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import in.newdevpoint.bootcamp.event.UserChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory index of the last known version of each user, so a conditional GET whose ETag is still
+ * current can be answered with 304 without reading MongoDB.
+ *
+ * <p>Versions are recorded from reads and from the post-image of writes, and only ever move
+ * forward, so a slow read cannot overwrite a newer version recorded by a write. Entries are dropped
+ * when a {@link UserChangedEvent} reports a write and expire after {@code
+ * users.versionIndex.ttlMs}, which bounds how long a write made by another instance can go
+ * unnoticed. Hit/miss counts are published under the {@code cache.*} metrics with {@code
+ * cache=userVersions}.
+ */
+@Component
+public class UserVersionIndex {
+  static final String CACHE_NAME = "userVersions";
+
+  private final Cache<String, Long> versionsById;
+  private final Cache<String, String> idsByUsername;
+  // Reverse of idsByUsername, so a change reported by id drops the username entry by key
+  private final Cache<String, String> usernamesById;
+
+  public UserVersionIndex(
+      @Value("${users.versionIndex.size:100000}") long size,
+      @Value("${users.versionIndex.ttlMs:30000}") long ttlMs,
+      MeterRegistry meterRegistry) {
+    this.versionsById =
+        Caffeine.newBuilder()
+            .maximumSize(size)
+            .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build();
+    this.idsByUsername =
+        Caffeine.newBuilder()
+            .maximumSize(size)
+            .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+            .build();
+    this.usernamesById =
+        Caffeine.newBuilder()
+            .maximumSize(size)
+            .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, versionsById, CACHE_NAME);
+  }
+
+  /**
+   * Returns the last known version of a user.
+   *
+   * @param id the user id
+   * @return the version, or empty if the user is not indexed
+   */
+  public Optional<Long> versionOf(String id) {
+    return Optional.ofNullable(versionsById.getIfPresent(id));
+  }
+
+  /**
+   * Returns the last known version of a user looked up by username.
+   *
+   * @param username the username
+   * @return the version, or empty if the user is not indexed
+   */
+  public Optional<Long> versionOfUsername(String username) {
+    return Optional.ofNullable(idsByUsername.getIfPresent(username)).flatMap(this::versionOf);
+  }
+
+  /**
+   * Records the version of a user that was just read or written.
+   *
+   * @param id the user id
+   * @param username the username, or null if it was not loaded
+   * @param version the stored version, or null for documents written before versioning
+   */
+  public void record(String id, String username, Long version) {
+    if (id == null) {
+      return;
+    }
+    versionsById.asMap().merge(id, version == null ? 0L : version, Math::max);
+    if (username != null) {
+      idsByUsername.put(username, id);
+      String previous = usernamesById.asMap().put(id, username);
+      if (previous != null && !previous.equals(username)) {
+        idsByUsername.asMap().remove(previous, id);
+      }
+    }
+  }
+
+  /**
+   * Drops the indexed version of a user that was updated or deleted. The user may have been
+   * renamed, so the username it was indexed under is looked up by id as well. An event covering all
+   * users clears the index.
+   *
+   * @param event the user change
+   */
+  @EventListener
+  public void onUserChanged(UserChangedEvent event) {
+    if (event.isAllUsers()) {
+      versionsById.invalidateAll();
+      idsByUsername.invalidateAll();
+      usernamesById.invalidateAll();
+      return;
+    }
+    if (event.getUserId() != null) {
+      versionsById.invalidate(event.getUserId());
+      String indexedUsername = usernamesById.asMap().remove(event.getUserId());
+      if (indexedUsername != null) {
+        idsByUsername.asMap().remove(indexedUsername, event.getUserId());
+      }
+    }
+    if (event.getUsername() != null) {
+      idsByUsername.invalidate(event.getUsername());
+    }
+  }
+}
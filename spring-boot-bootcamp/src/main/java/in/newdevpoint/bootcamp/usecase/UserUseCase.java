@@ -1,17 +1,29 @@
 package in.newdevpoint.bootcamp.usecase;
 
+import in.newdevpoint.bootcamp.dto.UserBatchGetReq;
+import in.newdevpoint.bootcamp.dto.UserBatchGetRes;
+import in.newdevpoint.bootcamp.dto.UserPatch;
 import in.newdevpoint.bootcamp.dto.UserReq;
 import in.newdevpoint.bootcamp.entity.UserEntity;
 import in.newdevpoint.bootcamp.exceptions.UserNotFoundException;
 import in.newdevpoint.bootcamp.mapper.UserMapper;
+import in.newdevpoint.bootcamp.payload.response.CursorPageResponse;
+import in.newdevpoint.bootcamp.service.UserAutocompleteIndex;
+import in.newdevpoint.bootcamp.service.UserBatchLoader;
 import in.newdevpoint.bootcamp.service.UserService;
+import in.newdevpoint.bootcamp.service.UserVersionIndex;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -44,6 +56,24 @@ public class UserUseCase {
    */
   private final UserService userService;
 
+  /**
+   * UserVersionIndex answering conditional reads without MongoDB. Injected via constructor (created
+   * by @RequiredArgsConstructor)
+   */
+  private final UserVersionIndex versionIndex;
+
+  /**
+   * UserBatchLoader resolving many users with one query. Injected via constructor (created
+   * by @RequiredArgsConstructor)
+   */
+  private final UserBatchLoader userBatchLoader;
+
+  /**
+   * UserAutocompleteIndex answering prefix lookups from memory. Injected via constructor (created
+   * by @RequiredArgsConstructor)
+   */
+  private final UserAutocompleteIndex autocompleteIndex;
+
   /**
    * Lifecycle method called after dependency injection is complete. This is where you can perform
    * any initialization that requires the injected dependencies to be ready.
@@ -74,6 +104,18 @@ public class UserUseCase {
     return userMapper.mapToResponseEntityList(userEntityList);
   }
 
+  /**
+   * Streams all users matching an optional search query as DTOs. Users are mapped one at a time as
+   * they are read from the database cursor; closing the returned stream closes the cursor.
+   *
+   * @param query Optional search query to filter users
+   * @return Stream of UserReq DTOs that must be closed after use
+   */
+  public Stream<UserReq> streamUsers(String query) {
+    log.debug("Streaming users matching {}", query);
+    return userService.streamUsers(query).map(userMapper::mapToResponseEntity);
+  }
+
   /**
    * Performs a paginated search for users with filtering and sorting. This operation supports: -
    * Pagination (size and page number) - Sorting (direction and field) - Filtering (search query)
@@ -91,6 +133,68 @@ public class UserUseCase {
     return userService.searchUser(size, page, sortDir, query, sortBy);
   }
 
+  /**
+   * Performs a paginated search for users returning only the requested fields. Unrequested fields
+   * are not fetched from the database and are left out of the response.
+   *
+   * @param size Number of items per page
+   * @param page Page number (0-based)
+   * @param sortDir Sort direction ("asc" or "desc")
+   * @param query Optional search query to filter users
+   * @param sortBy Field to sort by
+   * @param fields Comma-separated fields to return, or null for all
+   * @return Page of UserReq DTOs matching the search criteria
+   */
+  public Page<UserReq> searchUser(
+      Integer size, Integer page, String sortDir, String query, String sortBy, String fields) {
+    log.debug("Searching users with pagination, filters and fields {}", fields);
+    return userService.searchUser(size, page, sortDir, query, sortBy, fields);
+  }
+
+  /**
+   * Performs a paginated search for users like {@link #searchUser} without counting the matching
+   * users, for clients that only need to know whether a next page exists.
+   *
+   * @param size Number of items per page
+   * @param page Page number (0-based)
+   * @param sortDir Sort direction ("asc" or "desc")
+   * @param query Optional search query to filter users
+   * @param sortBy Field to sort by
+   * @param fields Comma-separated fields to return, or null for all
+   * @return Slice of UserReq DTOs matching the search criteria
+   */
+  public Slice<UserReq> searchUserSlice(
+      Integer size, Integer page, String sortDir, String query, String sortBy, String fields) {
+    log.debug("Searching users with pagination and filters, without total count");
+    return userService.searchUserSlice(size, page, sortDir, query, sortBy, fields);
+  }
+
+  /**
+   * Performs a cursor-paginated search for users. Each page carries an opaque cursor that is passed
+   * back to fetch the following page; the cost of a page does not grow with its depth.
+   *
+   * @param size Number of items per page
+   * @param sortDir Sort direction ("asc" or "desc")
+   * @param query Optional search query to filter users
+   * @param sortBy Field to sort by
+   * @param cursor Cursor of the previous page, or null for the first page
+   * @param includeTotal Whether to count all users matching the query
+   * @param fields Comma-separated fields to return, or null for all
+   * @return Page of UserReq DTOs with the cursor of the next page
+   */
+  public CursorPageResponse<UserReq> searchUserByCursor(
+      Integer size,
+      String sortDir,
+      String query,
+      String sortBy,
+      String cursor,
+      boolean includeTotal,
+      String fields) {
+    log.debug("Searching users with cursor pagination and filters");
+    return userService.searchUserByCursor(
+        size, sortDir, query, sortBy, cursor, includeTotal, fields);
+  }
+
   /**
    * Updates an existing user's information. This operation: 1. Converts the request DTO to an
    * entity 2. Updates the user in the service layer 3. Converts the updated entity back to a DTO
@@ -105,6 +209,27 @@ public class UserUseCase {
     return userMapper.mapToResponseEntity(updateUser);
   }
 
+  /**
+   * Applies a JSON Merge Patch to a user. Only the fields present in the patch document are
+   * changed; a field sent as {@code null} is a request to remove it.
+   *
+   * @param id ID of the user to patch
+   * @param userPatch the merge-patch document
+   * @return Updated user information as UserReq DTO
+   */
+  public UserReq patchUser(String id, UserPatch userPatch) {
+    log.debug("Patching user with ID: {}", id);
+    Map<String, Object> changes = new LinkedHashMap<>();
+    if (userPatch.getUsername() != null && userPatch.getUsername().isPresent()) {
+      changes.put("username", userPatch.getUsername().get());
+    }
+    if (userPatch.getEmail() != null && userPatch.getEmail().isPresent()) {
+      changes.put("email", userPatch.getEmail().get());
+    }
+    UserEntity patchedUser = userService.patchUser(id, userPatch.getVersion(), changes);
+    return userMapper.mapToResponseEntity(patchedUser);
+  }
+
   /**
    * Deletes a user from the system. This operation permanently removes the user and all associated
    * data.
@@ -116,6 +241,105 @@ public class UserUseCase {
     userService.deleteUser(id);
   }
 
+  /**
+   * Invalidates every token issued to a user so far.
+   *
+   * @param id ID of the user to sign out
+   * @return the user whose tokens were invalidated
+   */
+  public UserReq revokeTokens(String id) {
+    log.debug("Revoking tokens of user with ID: {}", id);
+    return userMapper.mapToResponseEntity(userService.revokeTokens(id));
+  }
+
+  /**
+   * Deletes a user only if it has not changed since the given version.
+   *
+   * @param id ID of the user to delete
+   * @param expectedVersion the version the client last read, or null to skip the check
+   */
+  public void deleteUser(String id, Long expectedVersion) {
+    log.debug("Deleting user with ID: {} at version {}", id, expectedVersion);
+    userService.deleteUser(id, expectedVersion);
+  }
+
+  /**
+   * Resolves many users by id or username in one query. Found users are keyed by id; ids and
+   * usernames that match no user are listed separately.
+   *
+   * @param batchGetReq the ids and usernames to resolve
+   * @param fields Comma-separated fields to return, or null for all
+   * @return the found users and the keys that were not found
+   */
+  public UserBatchGetRes batchGetUsers(UserBatchGetReq batchGetReq, String fields) {
+    List<String> ids = batchGetReq.getIds() == null ? List.of() : batchGetReq.getIds();
+    List<String> usernames =
+        batchGetReq.getUsernames() == null ? List.of() : batchGetReq.getUsernames();
+    log.debug("Batch resolving {} ids and {} usernames", ids.size(), usernames.size());
+    UserBatchLoader.Result result = userBatchLoader.load(ids, usernames, fields);
+
+    UserBatchGetRes response =
+        new UserBatchGetRes()
+            .users(new LinkedHashMap<>())
+            .usernames(new LinkedHashMap<>())
+            .notFoundIds(new ArrayList<>())
+            .notFoundUsernames(new ArrayList<>());
+    result
+        .getById()
+        .forEach(
+            (id, user) -> {
+              if (user.isPresent()) {
+                response.putUsersItem(id, userMapper.mapToResponseEntity(user.get()));
+              } else {
+                response.addNotFoundIdsItem(id);
+              }
+            });
+    result
+        .getByUsername()
+        .forEach(
+            (username, user) -> {
+              if (user.isPresent()) {
+                response.putUsersItem(
+                    user.get().getId(), userMapper.mapToResponseEntity(user.get()));
+                response.putUsernamesItem(username, user.get().getId());
+              } else {
+                response.addNotFoundUsernamesItem(username);
+              }
+            });
+    return response;
+  }
+
+  /**
+   * Suggests users whose username or email starts with a prefix, ignoring case.
+   *
+   * @param prefix the typed prefix
+   * @param limit the most users to return
+   * @return the matching users with only id, username and email set
+   */
+  public List<UserReq> autocompleteUsers(String prefix, int limit) {
+    return userMapper.mapToResponseEntityList(autocompleteIndex.suggest(prefix, limit));
+  }
+
+  /**
+   * Returns the last known version of a user without reading MongoDB.
+   *
+   * @param id Unique identifier of the user
+   * @return the indexed version, or empty if the user has not been read or written recently
+   */
+  public Optional<Long> knownVersionById(String id) {
+    return versionIndex.versionOf(id);
+  }
+
+  /**
+   * Returns the last known version of a user looked up by username without reading MongoDB.
+   *
+   * @param username Username of the user
+   * @return the indexed version, or empty if the user has not been read or written recently
+   */
+  public Optional<Long> knownVersionByUsername(String username) {
+    return versionIndex.versionOfUsername(username);
+  }
+
   /**
    * Retrieves a user by their username. This operation: 1. Searches for the user by username 2.
    * Throws UserNotFoundException if not found 3. Maps the found user to a DTO
@@ -131,6 +355,21 @@ public class UserUseCase {
         .orElseThrow(() -> new UserNotFoundException("User not found."));
   }
 
+  /**
+   * Retrieves a user by their username with only the requested fields loaded.
+   *
+   * @param username Username to search for
+   * @param fields Comma-separated fields to return, or null for all
+   * @return User information as UserReq DTO
+   * @throws UserNotFoundException if no user is found with the given username
+   */
+  public UserReq getUser(String username, String fields) {
+    log.debug("Fetching user by username: {} with fields {}", username, fields);
+    Optional<UserEntity> user = userService.getUser(username, fields);
+    return user.map(userMapper::mapToResponseEntity)
+        .orElseThrow(() -> new UserNotFoundException("User not found."));
+  }
+
   /**
    * Retrieves a user by their unique ID. This operation: 1. Searches for the user by ID 2. Throws
    * UserNotFoundException if not found 3. Maps the found user to a DTO
@@ -146,6 +385,21 @@ public class UserUseCase {
         .orElseThrow(() -> new UserNotFoundException("User not found with the given ID."));
   }
 
+  /**
+   * Retrieves a user by their unique ID with only the requested fields loaded.
+   *
+   * @param id Unique identifier of the user
+   * @param fields Comma-separated fields to return, or null for all
+   * @return User information as UserReq DTO
+   * @throws UserNotFoundException if no user is found with the given ID
+   */
+  public UserReq getUserById(String id, String fields) {
+    log.debug("Fetching user by ID: {} with fields {}", id, fields);
+    Optional<UserEntity> user = userService.getUserById(id, fields);
+    return user.map(userMapper::mapToResponseEntity)
+        .orElseThrow(() -> new UserNotFoundException("User not found with the given ID."));
+  }
+
   /**
    * Updates a user's profile with a new file. This operation: 1. Uploads the profile file 2.
    * Updates the user's profile information 3. Returns the updated user information
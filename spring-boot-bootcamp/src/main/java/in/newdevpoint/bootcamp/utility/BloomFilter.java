@@ -0,0 +1,93 @@
+package in.newdevpoint.bootcamp.utility;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size Bloom filter over strings.
+ *
+ * <p>{@link #mightContain} never returns false for a key that was added, and returns true for a key
+ * that was not added with roughly the false positive rate the filter was sized for. Bits are set
+ * with atomic operations, so concurrent reads and writes are safe without locking.
+ */
+public class BloomFilter {
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+
+  /**
+   * Creates a filter sized for the expected number of keys and false positive rate.
+   *
+   * @param expectedInsertions the number of keys the filter is expected to hold
+   * @param falsePositiveRate the acceptable false positive rate at that size, between 0 and 1
+   */
+  public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+    long n = Math.max(1, expectedInsertions);
+    double p = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+    long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+    this.bitCount = Math.max(64, (m + 63) / 64 * 64);
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    this.bits = new AtomicLongArray((int) (bitCount / 64));
+  }
+
+  /**
+   * Adds a key to the filter.
+   *
+   * @param key the key
+   */
+  public void put(String key) {
+    long hash = hash(key);
+    for (int i = 1; i <= hashCount; i++) {
+      long bit = bitIndex(hash, i, bitCount);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current;
+      do {
+        current = bits.get(word);
+      } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  /**
+   * Checks whether a key may have been added.
+   *
+   * @param key the key
+   * @return false if the key was definitely never added; true if it probably was
+   */
+  public boolean mightContain(String key) {
+    long hash = hash(key);
+    for (int i = 1; i <= hashCount; i++) {
+      long bit = bitIndex(hash, i, bitCount);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the bit probed by the i-th hash function, by double hashing with the two halves of the
+   * key's hash. The step is forced odd, so a zero upper half cannot make every probe hit the same
+   * bit.
+   */
+  static long bitIndex(long hash, int i, long bitCount) {
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32) | 1;
+    return Math.floorMod(h1 + (long) i * h2, bitCount);
+  }
+
+  /** 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer. */
+  private static long hash(String key) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
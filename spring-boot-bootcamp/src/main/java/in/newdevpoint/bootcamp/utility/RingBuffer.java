@@ -0,0 +1,109 @@
+package in.newdevpoint.bootcamp.utility;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free multi-producer multi-consumer queue backed by a ring of slots.
+ *
+ * <p>Each slot carries a sequence number that tells producers and consumers whose turn it is, so
+ * {@link #offer} and {@link #poll} only ever compete on a compare-and-set and never block. When the
+ * ring is full, {@link #offer} fails immediately instead of waiting for space.
+ *
+ * @param <E> the element type
+ */
+public class RingBuffer<E> {
+  private final int capacity;
+  private final int mask;
+  private final AtomicLongArray sequences;
+  private final AtomicReferenceArray<E> slots;
+  private final AtomicLong producerPosition = new AtomicLong();
+  private final AtomicLong consumerPosition = new AtomicLong();
+
+  /**
+   * Creates a ring holding at least the requested number of elements.
+   *
+   * @param requestedCapacity the minimum capacity, rounded up to a power of two
+   */
+  public RingBuffer(int requestedCapacity) {
+    int size = Integer.highestOneBit(Math.max(2, requestedCapacity) - 1) << 1;
+    this.capacity = size;
+    this.mask = size - 1;
+    this.sequences = new AtomicLongArray(size);
+    this.slots = new AtomicReferenceArray<>(size);
+    for (int i = 0; i < size; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  /**
+   * Adds an element if there is room.
+   *
+   * @param element the element, not null
+   * @return false if the ring is full
+   */
+  public boolean offer(E element) {
+    long position = producerPosition.get();
+    while (true) {
+      int index = (int) position & mask;
+      long distance = sequences.get(index) - position;
+      if (distance == 0) {
+        if (producerPosition.compareAndSet(position, position + 1)) {
+          slots.set(index, element);
+          sequences.set(index, position + 1);
+          return true;
+        }
+        position = producerPosition.get();
+      } else if (distance < 0) {
+        return false;
+      } else {
+        position = producerPosition.get();
+      }
+    }
+  }
+
+  /**
+   * Removes the oldest element.
+   *
+   * @return the oldest element, or null if the ring is empty
+   */
+  public E poll() {
+    long position = consumerPosition.get();
+    while (true) {
+      int index = (int) position & mask;
+      long distance = sequences.get(index) - (position + 1);
+      if (distance == 0) {
+        if (consumerPosition.compareAndSet(position, position + 1)) {
+          E element = slots.getAndSet(index, null);
+          sequences.set(index, position + capacity);
+          return element;
+        }
+        position = consumerPosition.get();
+      } else if (distance < 0) {
+        return null;
+      } else {
+        position = consumerPosition.get();
+      }
+    }
+  }
+
+  /**
+   * Returns the approximate number of queued elements.
+   *
+   * @return the number of elements, exact only while no other thread is offering or polling
+   */
+  public int size() {
+    long size = producerPosition.get() - consumerPosition.get();
+    return (int) Math.max(0, Math.min(capacity, size));
+  }
+
+  /**
+   * Returns the number of elements the ring can hold.
+   *
+   * @return the capacity
+   */
+  public int capacity() {
+    return capacity;
+  }
+}
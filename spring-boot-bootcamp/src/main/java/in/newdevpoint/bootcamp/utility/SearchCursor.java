@@ -0,0 +1,83 @@
+package in.newdevpoint.bootcamp.utility;
+
+import in.newdevpoint.bootcamp.exceptions.ValidationException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Position of the last element of a cursor-paged search: the sort field and direction it was
+ * produced for, the sort key of the last element and its id as a tiebreaker.
+ *
+ * <p>The token handed to clients is the Base64url-encoded extended JSON of these values, so it
+ * keeps BSON types such as dates and object ids across requests. It is opaque to clients but not
+ * signed; it only narrows a query the caller is already allowed to run.
+ */
+public class SearchCursor {
+  private final String field;
+  private final Sort.Direction direction;
+  private final Object value;
+  private final String id;
+
+  public SearchCursor(String field, Sort.Direction direction, Object value, String id) {
+    this.field = field;
+    this.direction = direction;
+    this.value = value;
+    this.id = id;
+  }
+
+  /**
+   * Decodes a continuation token.
+   *
+   * @param token the token returned as {@code nextCursor}
+   * @return the decoded cursor
+   * @throws ValidationException if the token is malformed
+   */
+  public static SearchCursor decode(String token) {
+    try {
+      String json = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      Document document = Document.parse(json);
+      String field = document.getString("f");
+      String id = document.getString("id");
+      if (field == null || id == null) {
+        throw new ValidationException("Invalid cursor");
+      }
+      return new SearchCursor(
+          field, Sort.Direction.fromString(document.getString("d")), document.get("v"), id);
+    } catch (ValidationException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      throw new ValidationException("Invalid cursor", e);
+    }
+  }
+
+  /**
+   * Encodes this cursor as an opaque, URL-safe continuation token.
+   *
+   * @return the token
+   */
+  public String encode() {
+    Document document =
+        new Document("f", field).append("d", direction.name()).append("v", value).append("id", id);
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(document.toJson().getBytes(StandardCharsets.UTF_8));
+  }
+
+  public String getField() {
+    return field;
+  }
+
+  public Sort.Direction getDirection() {
+    return direction;
+  }
+
+  public Object getValue() {
+    return value;
+  }
+
+  public String getId() {
+    return id;
+  }
+}
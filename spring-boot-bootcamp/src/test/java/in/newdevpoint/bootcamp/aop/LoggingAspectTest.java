@@ -0,0 +1,129 @@
+package in.newdevpoint.bootcamp.aop;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import in.newdevpoint.bootcamp.controller.AdminController;
+import in.newdevpoint.bootcamp.diagnostics.ExceptionLogPipeline;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link LoggingAspect}. Verifies that calls are recorded as tagged timers, that
+ * asynchronous results are timed on completion, that sampling can switch timing off, and that
+ * exceptions are captured once.
+ */
+public class LoggingAspectTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private AopMetricsProperties properties;
+  private LoggingAspect aspect;
+
+  /** Creates the aspect with an in-memory registry before each test. */
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    properties = new AopMetricsProperties();
+    aspect = new LoggingAspect(mock(ExceptionLogPipeline.class), meterRegistry, properties);
+  }
+
+  /** Tests that successful and failing calls land in timers tagged by outcome. */
+  @Test
+  void logExecutionTime_recordsTimersByOutcome() throws Throwable {
+    ProceedingJoinPoint joinPoint = joinPoint("exportUsers");
+    when(joinPoint.proceed()).thenReturn("ok").thenThrow(new IllegalStateException("boom"));
+
+    assertEquals("ok", aspect.logExecutionTime(joinPoint));
+    assertThrows(IllegalStateException.class, () -> aspect.logExecutionTime(joinPoint));
+
+    assertEquals(1, timer("exportUsers", "success").count());
+    assertEquals(1, timer("exportUsers", "IllegalStateException").count());
+  }
+
+  /** Tests that a method returning a future is timed when the future completes. */
+  @Test
+  void logExecutionTime_timesAsyncResultsOnCompletion() throws Throwable {
+    ProceedingJoinPoint joinPoint = joinPoint("forceSignOut");
+    CompletableFuture<String> result = new CompletableFuture<>();
+    when(joinPoint.proceed()).thenReturn(result);
+
+    aspect.logExecutionTime(joinPoint);
+    assertEquals(0, timer("forceSignOut", "success").count());
+    result.complete("done");
+
+    assertEquals(1, timer("forceSignOut", "success").count());
+  }
+
+  /** Tests that a failed future is tagged with its cause rather than the completion wrapper. */
+  @Test
+  void logExecutionTime_tagsFailedFuturesWithTheirCause() throws Throwable {
+    ProceedingJoinPoint joinPoint = joinPoint("forceSignOut");
+    CompletableFuture<String> source = new CompletableFuture<>();
+    when(joinPoint.proceed())
+        .thenReturn(
+            source.thenApply(
+                value -> {
+                  throw new IllegalStateException("boom");
+                }));
+
+    aspect.logExecutionTime(joinPoint);
+    source.complete("done");
+
+    assertEquals(1, timer("forceSignOut", "IllegalStateException").count());
+    assertNull(
+        meterRegistry.find("controller.duration").tag("outcome", "CompletionException").timer());
+  }
+
+  /** Tests that a package with a zero sample rate is not timed at all. */
+  @Test
+  void logExecutionTime_skipsPackagesSampledAtZero() throws Throwable {
+    properties.getPackages().put("in.newdevpoint.bootcamp.controller", 0.0);
+    properties.getPackages().put("in.newdevpoint", 1.0);
+    ProceedingJoinPoint joinPoint = joinPoint("getActiveProfile");
+    when(joinPoint.proceed()).thenReturn("ok");
+
+    assertEquals("ok", aspect.logExecutionTime(joinPoint));
+
+    assertTrue(meterRegistry.find("controller.duration").timers().isEmpty());
+  }
+
+  /** Tests that an exception propagating through several advised methods is captured once. */
+  @Test
+  void logException_capturesEachExceptionOnce() {
+    ExceptionLogPipeline pipeline = mock(ExceptionLogPipeline.class);
+    aspect = new LoggingAspect(pipeline, meterRegistry, properties);
+    IllegalStateException exception = new IllegalStateException("boom");
+
+    aspect.logException(joinPoint("exportUsers"), exception);
+    aspect.logException(joinPoint("getActiveProfile"), exception);
+
+    verify(pipeline, times(1)).capture(exception, "AdminController", "exportUsers");
+  }
+
+  private Timer timer(String method, String outcome) {
+    return meterRegistry
+        .get("controller.duration")
+        .tag("controller", "AdminController")
+        .tag("method", method)
+        .tag("outcome", outcome)
+        .timer();
+  }
+
+  private static ProceedingJoinPoint joinPoint(String methodName) {
+    Signature signature = mock(Signature.class);
+    doReturn(AdminController.class).when(signature).getDeclaringType();
+    when(signature.getDeclaringTypeName()).thenReturn(AdminController.class.getName());
+    when(signature.getName()).thenReturn(methodName);
+    JoinPoint.StaticPart staticPart = mock(JoinPoint.StaticPart.class);
+    when(staticPart.getSignature()).thenReturn(signature);
+    ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+    when(joinPoint.getStaticPart()).thenReturn(staticPart);
+    return joinPoint;
+  }
+}
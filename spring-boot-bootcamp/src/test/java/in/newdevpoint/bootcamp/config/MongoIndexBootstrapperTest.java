@@ -0,0 +1,123 @@
+package in.newdevpoint.bootcamp.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import in.newdevpoint.bootcamp.entity.MailOutboxEntry;
+import in.newdevpoint.bootcamp.entity.Product;
+import in.newdevpoint.bootcamp.entity.RevokedToken;
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Test class for {@link MongoIndexBootstrapper}. Verifies that all expected indexes are created,
+ * that indexes which could not be created are reported as missing, and that an unreachable MongoDB
+ * ends the bootstrap at the first failure.
+ */
+@ExtendWith(MockitoExtension.class)
+public class MongoIndexBootstrapperTest {
+
+  @Mock private MongoTemplate template;
+
+  @Mock private IndexOperations userIndexes;
+
+  @Mock private IndexOperations productIndexes;
+
+  @Mock private IndexOperations revokedTokenIndexes;
+
+  @Mock private IndexOperations mailOutboxIndexes;
+
+  private MongoIndexBootstrapper bootstrapper;
+
+  /** Creates the bootstrapper with one user sort field before each test. */
+  @BeforeEach
+  void setUp() {
+    bootstrapper = new MongoIndexBootstrapper(template);
+    ReflectionTestUtils.setField(bootstrapper, "userSortFields", List.of("username"));
+    when(template.indexOps(UserEntity.class)).thenReturn(userIndexes);
+    when(template.indexOps(Product.class)).thenReturn(productIndexes);
+    // Not reached when the bootstrap stops early
+    lenient().when(template.indexOps(RevokedToken.class)).thenReturn(revokedTokenIndexes);
+    lenient()
+        .when(revokedTokenIndexes.getIndexInfo())
+        .thenReturn(List.of(index(false, "expiresAt"), index(false, "revokedAt")));
+    lenient().when(template.indexOps(MailOutboxEntry.class)).thenReturn(mailOutboxIndexes);
+    lenient()
+        .when(mailOutboxIndexes.getIndexInfo())
+        .thenReturn(List.of(index(false, "status", "nextAttemptAt"), index(false, "claimToken")));
+  }
+
+  /** Tests that unique, sort and TTL indexes are created and verified. */
+  @Test
+  void ensureIndexes_createsAndVerifiesIndexes() {
+    when(userIndexes.getIndexInfo())
+        .thenReturn(
+            List.of(
+                index(true, "username"), index(true, "email"), index(false, "username", "_id")));
+    when(productIndexes.getIndexInfo()).thenReturn(List.of(index(true, "name")));
+
+    List<String> missing = bootstrapper.ensureIndexes();
+
+    assertTrue(missing.isEmpty());
+    verify(userIndexes, times(3)).ensureIndex(any());
+    verify(productIndexes).ensureIndex(any());
+    verify(revokedTokenIndexes, times(2)).ensureIndex(any());
+    verify(mailOutboxIndexes, times(2)).ensureIndex(any());
+  }
+
+  /** Tests that a unique index blocked by duplicates is reported without failing the others. */
+  @Test
+  void ensureIndexes_reportsIndexesThatCouldNotBeCreated() {
+    when(template.getCollectionName(UserEntity.class)).thenReturn("users");
+    when(productIndexes.ensureIndex(any())).thenThrow(new DuplicateKeyException("E11000"));
+    when(userIndexes.getIndexInfo())
+        .thenReturn(
+            List.of(
+                index(true, "username"), index(false, "email"), index(false, "username", "_id")));
+    when(template.getCollectionName(Product.class)).thenReturn("products");
+    when(productIndexes.getIndexInfo()).thenReturn(List.of());
+
+    List<String> missing = bootstrapper.ensureIndexes();
+
+    assertEquals(List.of("users {\"email\": 1} unique", "products {\"name\": 1} unique"), missing);
+    assertEquals(missing, bootstrapper.getMissingIndexes());
+    verify(userIndexes, times(3)).ensureIndex(any());
+  }
+
+  /** Tests that an unreachable MongoDB stops the bootstrap instead of timing out per index. */
+  @Test
+  void ensureIndexes_stopsWhenMongoIsUnreachable() {
+    when(productIndexes.ensureIndex(any()))
+        .thenThrow(new DataAccessResourceFailureException("Timed out after 30000 ms"));
+
+    assertThrows(DataAccessResourceFailureException.class, bootstrapper::ensureIndexes);
+
+    verify(userIndexes, times(2)).ensureIndex(any());
+    verifyNoInteractions(revokedTokenIndexes, mailOutboxIndexes);
+    verify(userIndexes, never()).getIndexInfo();
+  }
+
+  private static IndexInfo index(boolean unique, String... keys) {
+    List<IndexField> fields =
+        Arrays.stream(keys)
+            .map(key -> IndexField.create(key, Sort.Direction.ASC))
+            .collect(Collectors.toList());
+    return new IndexInfo(fields, String.join("_", keys), unique, false, null);
+  }
+}
@@ -0,0 +1,103 @@
+package in.newdevpoint.bootcamp.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.newdevpoint.bootcamp.dto.UserReq;
+import in.newdevpoint.bootcamp.usecase.UserUseCase;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Test class for {@link AdminController}. Verifies that the user export streams one JSON object per
+ * line as NDJSON and closes its MongoDB cursor whether it completes or the client disconnects.
+ */
+public class AdminControllerTest {
+
+  private final UserUseCase userUseCase = mock(UserUseCase.class);
+  private final AtomicBoolean cursorClosed = new AtomicBoolean();
+  private final AtomicInteger usersRead = new AtomicInteger();
+
+  private AdminController controller;
+
+  /** Wires the controller with a use case streaming three users. */
+  @BeforeEach
+  void setUp() {
+    controller = new AdminController();
+    controller.userUseCase = userUseCase;
+    controller.objectMapper = new ObjectMapper();
+    when(userUseCase.streamUsers("username==a*"))
+        .thenReturn(
+            IntStream.range(0, 3)
+                .mapToObj(i -> new UserReq().id(String.valueOf(i)).username("user" + i))
+                .peek(user -> usersRead.incrementAndGet())
+                .onClose(() -> cursorClosed.set(true)));
+  }
+
+  /** Tests that every user is written as one JSON object on its own line. */
+  @Test
+  void exportUsers_writesOneJsonObjectPerLine() throws Exception {
+    ResponseEntity<StreamingResponseBody> response = controller.exportUsers("username==a*");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    response.getBody().writeTo(out);
+
+    assertEquals(
+        MediaType.parseMediaType("application/x-ndjson"), response.getHeaders().getContentType());
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+    assertEquals(4, lines.length);
+    assertEquals("", lines[3]);
+    for (int i = 0; i < 3; i++) {
+      JsonNode user = controller.objectMapper.readTree(lines[i]);
+      assertTrue(user.isObject());
+      assertEquals("user" + i, user.get("username").asText());
+    }
+    assertTrue(cursorClosed.get());
+  }
+
+  /** Tests that a client disconnect ends the export quietly and closes the cursor. */
+  @Test
+  void exportUsers_closesCursorWhenClientDisconnects() throws Exception {
+    OutputStream disconnected =
+        new OutputStream() {
+          private int written;
+
+          @Override
+          public void write(int b) throws IOException {
+            if (++written > 10) {
+              throw new IOException("Broken pipe");
+            }
+          }
+        };
+
+    assertDoesNotThrow(
+        () -> controller.exportUsers("username==a*").getBody().writeTo(disconnected));
+
+    assertEquals(1, usersRead.get(), "the export should stop at the failed write");
+    assertTrue(cursorClosed.get());
+  }
+
+  /** Tests that an export without matches writes an empty body. */
+  @Test
+  void exportUsers_writesNothingWithoutMatches() throws Exception {
+    when(userUseCase.streamUsers(null)).thenReturn(Stream.empty());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    controller.exportUsers(null).getBody().writeTo(out);
+
+    assertEquals(0, out.size());
+  }
+}
@@ -0,0 +1,160 @@
+package in.newdevpoint.bootcamp.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.payload.request.LoginRequest;
+import in.newdevpoint.bootcamp.payload.request.SignupRequest;
+import in.newdevpoint.bootcamp.payload.response.JwtResponse;
+import in.newdevpoint.bootcamp.repository.UserRepository;
+import in.newdevpoint.bootcamp.security.jwt.JwtUtils;
+import in.newdevpoint.bootcamp.security.services.UserDetailsImpl;
+import in.newdevpoint.bootcamp.service.PasswordHashingService;
+import in.newdevpoint.bootcamp.service.RoleService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Test class for {@link AuthController}. Drives signin and signup through the controller and
+ * records which threads do the work, to verify that only password hashing runs on the hashing pool
+ * and that MongoDB is never called from it.
+ */
+public class AuthControllerTest {
+
+  private final Map<String, String> threads = new ConcurrentHashMap<>();
+  private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+  private final UserRepository userRepository = mock(UserRepository.class);
+  private final RoleService roleService = mock(RoleService.class);
+  private final JwtUtils jwtUtils = mock(JwtUtils.class);
+
+  private PasswordHashingService hashingService;
+  private ExecutorService ioExecutor;
+  private AuthController controller;
+
+  /** Wires the controller with a one-thread hashing pool and a named I/O executor. */
+  @BeforeEach
+  void setUp() {
+    hashingService =
+        new PasswordHashingService(new RecordingEncoder(), new SimpleMeterRegistry(), 1, 4, 1);
+    ioExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("io-"));
+    controller = new AuthController();
+    controller.userDetailsService = userDetailsService;
+    controller.userRepository = userRepository;
+    controller.roleService = roleService;
+    controller.hashingService = hashingService;
+    controller.jwtUtils = jwtUtils;
+    controller.eventPublisher = event -> {};
+    controller.ioExecutor = ioExecutor;
+  }
+
+  /** Stops the I/O executor after each test. */
+  @AfterEach
+  void tearDown() {
+    ioExecutor.shutdown();
+  }
+
+  /** Tests that the user is loaded on the request thread and the token issued off the pool. */
+  @Test
+  void authenticateUser_hashesOnPoolOnly() {
+    when(userDetailsService.loadUserByUsername("alice"))
+        .thenAnswer(invocation -> record("load", user()));
+    when(jwtUtils.generateJwtToken(any(Authentication.class)))
+        .thenAnswer(invocation -> record("jwt", "token"));
+
+    ResponseEntity<?> response = controller.authenticateUser(login("secret")).join();
+
+    assertEquals("token", ((JwtResponse) response.getBody()).getAccessToken());
+    assertEquals(Thread.currentThread().getName(), threads.get("load"));
+    assertTrue(threads.get("matches").startsWith("password-hashing-"));
+    assertTrue(threads.get("jwt").startsWith("io-"));
+  }
+
+  /** Tests that wrong passwords and unknown users fail alike, after a hash on the pool. */
+  @Test
+  void authenticateUser_rejectsBadCredentials() {
+    when(userDetailsService.loadUserByUsername("alice")).thenReturn(user());
+
+    CompletionException wrongPassword =
+        assertThrows(
+            CompletionException.class, () -> controller.authenticateUser(login("wrong")).join());
+    assertInstanceOf(BadCredentialsException.class, wrongPassword.getCause());
+
+    when(userDetailsService.loadUserByUsername("alice"))
+        .thenThrow(new UsernameNotFoundException("alice"));
+    threads.clear();
+    CompletionException unknownUser =
+        assertThrows(
+            CompletionException.class, () -> controller.authenticateUser(login("secret")).join());
+    assertInstanceOf(BadCredentialsException.class, unknownUser.getCause());
+    assertTrue(threads.get("matches").startsWith("password-hashing-"));
+    verifyNoInteractions(jwtUtils);
+  }
+
+  /** Tests that signup saves the user off the hashing pool. */
+  @Test
+  void registerUser_savesOffThePool() {
+    when(userRepository.save(any(UserEntity.class)))
+        .thenAnswer(invocation -> record("save", invocation.getArgument(0)));
+    SignupRequest request = new SignupRequest();
+    request.setUsername("alice");
+    request.setEmail("alice@example.com");
+    request.setPassword("secret");
+
+    controller.registerUser(request).join();
+
+    assertTrue(threads.get("encode").startsWith("password-hashing-"));
+    assertTrue(threads.get("save").startsWith("io-"));
+  }
+
+  private <T> T record(String step, T value) {
+    threads.put(step, Thread.currentThread().getName());
+    return value;
+  }
+
+  private static LoginRequest login(String password) {
+    LoginRequest request = new LoginRequest();
+    request.setUsername("alice");
+    request.setPassword(password);
+    return request;
+  }
+
+  private static UserDetailsImpl user() {
+    return new UserDetailsImpl(
+        "1",
+        "alice",
+        "alice@example.com",
+        "hashed:secret",
+        Set.of(new SimpleGrantedAuthority("ROLE_USER")));
+  }
+
+  /** Records the thread each hash runs on. */
+  private final class RecordingEncoder implements PasswordEncoder {
+    @Override
+    public String encode(CharSequence rawPassword) {
+      return record("encode", "hashed:" + rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+      return record("matches", ("hashed:" + rawPassword).equals(encodedPassword));
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package in.newdevpoint.bootcamp.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import in.newdevpoint.bootcamp.exceptions.PreconditionFailedException;
+import in.newdevpoint.bootcamp.exceptions.PreconditionRequiredException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link UserETags}. Verifies how ETags are built from versions and fieldsets and
+ * how {@code If-None-Match} and {@code If-Match} are evaluated against them.
+ */
+public class UserETagsTest {
+
+  /** Tests that the ETag depends on the version and the field selection, but not field order. */
+  @Test
+  void of_derivesETagFromVersionAndFields() {
+    assertEquals("\"3\"", UserETags.of(3L, null));
+    assertEquals("\"0\"", UserETags.of(null, ""));
+    assertEquals(UserETags.of(3L, "email,username"), UserETags.of(3L, "username, email"));
+    assertNotEquals(UserETags.of(3L, null), UserETags.of(3L, "username"));
+    assertNotEquals(UserETags.of(3L, "username"), UserETags.of(4L, "username"));
+  }
+
+  /** Tests that If-None-Match matches listed, weak and wildcard ETags. */
+  @Test
+  void matchesAny_usesWeakComparison() {
+    assertTrue(UserETags.matchesAny("\"2\", \"3\"", "\"3\""));
+    assertTrue(UserETags.matchesAny("W/\"3\"", "\"3\""));
+    assertTrue(UserETags.matchesAny("*", "\"3\""));
+    assertFalse(UserETags.matchesAny("\"2\"", "\"3\""));
+    assertFalse(UserETags.matchesAny(null, "\"3\""));
+  }
+
+  /** Tests that If-Match yields the expected version and rejects missing or unusable values. */
+  @Test
+  void requiredVersion_readsVersionFromStrongETag() {
+    assertEquals(3L, UserETags.requiredVersion("\"3\""));
+    assertEquals(3L, UserETags.requiredVersion(UserETags.of(3L, "username")));
+    assertNull(UserETags.requiredVersion("*"));
+
+    assertThrows(PreconditionRequiredException.class, () -> UserETags.requiredVersion(null));
+    assertThrows(PreconditionRequiredException.class, () -> UserETags.requiredVersion(" "));
+    assertThrows(PreconditionFailedException.class, () -> UserETags.requiredVersion("W/\"3\""));
+    assertThrows(
+        PreconditionFailedException.class, () -> UserETags.requiredVersion("\"2\", \"3\""));
+  }
+}
@@ -0,0 +1,152 @@
+package in.newdevpoint.bootcamp.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import in.newdevpoint.bootcamp.service.OrderService;
+import in.newdevpoint.bootcamp.service.SystemService;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.core.env.Environment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Benchmark for {@link SystemController#processRequest()} on an embedded Tomcat, once with a
+ * bounded platform-thread worker pool and once with the virtual-thread executor that {@code
+ * spring.threads.virtual.enabled=true} installs. Reports throughput, peak platform threads and heap
+ * growth of both modes.
+ */
+public class VirtualThreadBenchmarkTest {
+  private static final Logger logger = LoggerFactory.getLogger(VirtualThreadBenchmarkTest.class);
+
+  private static final int REQUESTS = 200;
+  private static final int PLATFORM_THREADS = 10;
+  private static final long DELAY_MS = 200;
+
+  private SystemController controller;
+
+  /** Creates a controller whose simulated blocking call takes {@value #DELAY_MS} ms. */
+  @BeforeEach
+  void setUp() {
+    controller =
+        new SystemController(
+            mock(Environment.class), mock(SystemService.class), mock(OrderService.class));
+    ReflectionTestUtils.setField(controller, "processDelayMs", DELAY_MS);
+  }
+
+  /** Benchmark: virtual threads are not capped by the worker pool size. */
+  @Test
+  void processRequest_benchmarksPlatformAgainstVirtualThreads() throws Exception {
+    Result platform = run(false);
+    Result virtual = run(true);
+
+    logger.info("Platform threads (max {}): {}", PLATFORM_THREADS, platform);
+    logger.info("Virtual threads: {}", virtual);
+    assertTrue(
+        virtual.requestsPerSecond > 2 * platform.requestsPerSecond,
+        "virtual " + virtual + " vs platform " + platform);
+  }
+
+  private Result run(boolean virtualThreads) throws Exception {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    System.gc();
+    int threadsBefore = threads.getThreadCount();
+    threads.resetPeakThreadCount();
+    long heapBefore = memory.getHeapMemoryUsage().getUsed();
+
+    TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+    if (virtualThreads) {
+      factory.addProtocolHandlerCustomizers(
+          handler -> handler.setExecutor(new VirtualThreadExecutor("tomcat-handler-")));
+    } else {
+      factory.addConnectorCustomizers(
+          connector ->
+              ((AbstractProtocol<?>) connector.getProtocolHandler())
+                  .setMaxThreads(PLATFORM_THREADS));
+    }
+    WebServer server =
+        factory.getWebServer(
+            servletContext ->
+                servletContext
+                    .addServlet("process", new ProcessServlet(controller))
+                    .addMapping("/system/process"));
+    server.start();
+
+    try (ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+      HttpClient client = HttpClient.newBuilder().executor(clientExecutor).build();
+      HttpRequest request =
+          HttpRequest.newBuilder(
+                  URI.create("http://localhost:" + server.getPort() + "/system/process"))
+              .build();
+      // Warm up the connector before measuring.
+      client.send(request, HttpResponse.BodyHandlers.ofString());
+
+      long started = System.nanoTime();
+
+      List<CompletableFuture<HttpResponse<String>>> responses =
+          IntStream.range(0, REQUESTS)
+              .mapToObj(i -> client.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+              .toList();
+      for (CompletableFuture<HttpResponse<String>> response : responses) {
+        assertEquals(200, response.join().statusCode());
+      }
+
+      double seconds = (System.nanoTime() - started) / 1e9;
+      return new Result(
+          REQUESTS / seconds,
+          threads.getPeakThreadCount() - threadsBefore,
+          (memory.getHeapMemoryUsage().getUsed() - heapBefore) / (1024 * 1024));
+    } finally {
+      server.stop();
+    }
+  }
+
+  /** Measurements of one benchmark run. */
+  private record Result(double requestsPerSecond, int extraPlatformThreads, long heapGrowthMb) {
+    @Override
+    public String toString() {
+      return String.format(
+          "%.0f req/s, %d extra platform threads, %d MB heap growth",
+          requestsPerSecond, extraPlatformThreads, heapGrowthMb);
+    }
+  }
+
+  /** Exposes the controller method the way the dispatcher servlet would. */
+  private static final class ProcessServlet extends HttpServlet {
+    private final transient SystemController controller;
+
+    private ProcessServlet(SystemController controller) {
+      this.controller = controller;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+        throws IOException {
+      response.setContentType("text/plain");
+      response.getWriter().write(controller.processRequest());
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package in.newdevpoint.bootcamp.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import in.newdevpoint.bootcamp.entity.ExceptionLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Test class for {@link ExceptionLogPipeline}. Verifies that identical exceptions are folded into
+ * one counted upsert and that a full buffer drops events instead of blocking.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ExceptionLogPipelineTest {
+
+  @Mock private MongoTemplate template;
+
+  @Mock private BulkOperations bulkOperations;
+
+  private SimpleMeterRegistry meterRegistry;
+  private ExceptionLogPipeline pipeline;
+
+  /** Creates a pipeline with a four-slot buffer whose drain thread is not started. */
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    pipeline = new ExceptionLogPipeline(template, meterRegistry, true, 4, 100, 1000);
+  }
+
+  /** Tests that identical stack traces become one upsert that increments the occurrences. */
+  @Test
+  void drainBatch_foldsIdenticalExceptionsByFingerprint() {
+    when(template.bulkOps(BulkOperations.BulkMode.UNORDERED, ExceptionLog.class))
+        .thenReturn(bulkOperations);
+    for (int i = 0; i < 3; i++) {
+      pipeline.capture(failure("attempt " + i), "UserService", "findById");
+    }
+    pipeline.capture(new IllegalArgumentException("other"), "UserService", "findById");
+
+    assertEquals(4, pipeline.drainBatch());
+
+    ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+    verify(bulkOperations, times(2)).upsert(any(Query.class), updates.capture());
+    verify(bulkOperations).execute();
+    Document first = updates.getAllValues().get(0).getUpdateObject();
+    assertEquals(3L, ((Document) first.get("$inc")).get("occurrences"));
+    assertEquals("attempt 2", ((Document) first.get("$set")).get("exceptionMessage"));
+  }
+
+  /** Tests that captures beyond the buffer capacity are dropped and counted. */
+  @Test
+  void capture_dropsWhenBufferIsFull() {
+    for (int i = 0; i < 4; i++) {
+      assertTrue(pipeline.capture(failure("x"), "UserService", "findById"));
+    }
+
+    assertFalse(pipeline.capture(failure("x"), "UserService", "findById"));
+    assertEquals(1.0, meterRegistry.get("exceptions.capture.dropped").counter().count());
+    assertEquals(4.0, meterRegistry.get("exceptions.capture.queue").gauge().value());
+    verifyNoInteractions(template);
+  }
+
+  // Every call returns an exception with the same stack trace
+  private static IllegalStateException failure(String message) {
+    return new IllegalStateException(message);
+  }
+}
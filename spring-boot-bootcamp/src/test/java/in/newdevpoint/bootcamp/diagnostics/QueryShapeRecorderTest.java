@@ -0,0 +1,66 @@
+package in.newdevpoint.bootcamp.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandStartedEvent;
+import in.newdevpoint.bootcamp.diagnostics.QueryShapeRecorder.QueryShape;
+import java.util.List;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link QueryShapeRecorder}. Verifies that queries differing only in literals are
+ * recorded as one shape, that non-query commands are ignored and that the number of shapes is
+ * bounded.
+ */
+public class QueryShapeRecorderTest {
+
+  private static final ConnectionDescription CONNECTION =
+      new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+  /** Tests that finds with different literals share one shape and keep the first sample. */
+  @Test
+  void commandStarted_groupsQueriesByShape() {
+    QueryShapeRecorder recorder = new QueryShapeRecorder(10);
+
+    recorder.commandStarted(find("{find: 'users', filter: {username: 'a'}, sort: {_id: 1}}"));
+    recorder.commandStarted(find("{find: 'users', filter: {username: 'b'}, sort: {_id: 1}}"));
+    recorder.commandStarted(
+        find("{find: 'users', filter: {$or: [{email: {$in: ['x', 'y']}}, {username: 'c'}]}}"));
+    recorder.commandStarted(command("insert", "{insert: 'users', documents: []}"));
+
+    List<QueryShape> shapes = recorder.top(10);
+    assertEquals(2, shapes.size());
+    assertEquals("test.users {username: ?} sort {\"_id\": 1}", shapes.get(0).getShape());
+    assertEquals(2, shapes.get(0).getExecutions());
+    assertEquals(new Document("username", "a"), shapes.get(0).getSampleFilter());
+    assertEquals(
+        "test.users {$or: [{email: {$in: [?]}}, {username: ?}]}", shapes.get(1).getShape());
+  }
+
+  /** Tests that new shapes beyond the limit are counted as dropped instead of recorded. */
+  @Test
+  void commandStarted_boundsNumberOfShapes() {
+    QueryShapeRecorder recorder = new QueryShapeRecorder(1);
+
+    recorder.commandStarted(find("{find: 'users', filter: {username: 'a'}}"));
+    recorder.commandStarted(find("{find: 'users', filter: {email: 'a'}}"));
+
+    assertEquals(1, recorder.top(10).size());
+    assertEquals(1, recorder.getDropped());
+  }
+
+  private static CommandStartedEvent find(String command) {
+    return command("find", command);
+  }
+
+  private static CommandStartedEvent command(String name, String command) {
+    return new CommandStartedEvent(
+        null, 1, 1, CONNECTION, "test", name, BsonDocument.parse(command));
+  }
+}
@@ -0,0 +1,63 @@
+package in.newdevpoint.bootcamp.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link VirtualThreadPinningMonitor}. Verifies that a virtual thread sleeping
+ * inside a {@code synchronized} block is reported through the JFR event stream.
+ */
+public class VirtualThreadPinningMonitorTest {
+
+  private final Object lock = new Object();
+
+  private SimpleMeterRegistry meterRegistry;
+  private VirtualThreadPinningMonitor monitor;
+
+  /** Starts a monitor with a 10 ms threshold before each test. */
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    monitor = new VirtualThreadPinningMonitor(meterRegistry, true, 10);
+    monitor.start();
+  }
+
+  /** Stops the monitor after each test. */
+  @AfterEach
+  void tearDown() {
+    monitor.stop();
+  }
+
+  /** Tests that blocking while holding a monitor is counted as a monitor pinning. */
+  @Test
+  void onPinned_countsVirtualThreadBlockedInsideSynchronized() throws Exception {
+    Thread.ofVirtual().start(this::sleepWhileHoldingLock).join();
+
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (pinned() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(50);
+    }
+    assertEquals(1.0, pinned());
+  }
+
+  private void sleepWhileHoldingLock() {
+    synchronized (lock) {
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private double pinned() {
+    Counter counter =
+        meterRegistry.find("jvm.threads.virtual.pinned").tag("cause", "monitor").counter();
+    return counter == null ? 0 : counter.count();
+  }
+}
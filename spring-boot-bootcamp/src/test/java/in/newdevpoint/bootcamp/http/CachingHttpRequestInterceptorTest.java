@@ -0,0 +1,315 @@
+package in.newdevpoint.bootcamp.http;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import in.newdevpoint.bootcamp.config.RestTemplateConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Test class for {@link CachingHttpRequestInterceptor}. Sends requests through the pooled client to
+ * a local stub server and verifies freshness, ETag revalidation, stale-while-revalidate and request
+ * collapsing, including shared calls that fail or hang.
+ */
+public class CachingHttpRequestInterceptorTest {
+
+  private final AtomicReference<String> cacheControl = new AtomicReference<>("max-age=60");
+  private final AtomicReference<String> body = new AtomicReference<>("v1");
+  private final List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+  private final TestClock clock = new TestClock();
+
+  private HttpServer server;
+  private CountDownLatch release;
+  private CloseableHttpClient httpClient;
+  private CachingHttpRequestInterceptor cache;
+  private RestTemplate restTemplate;
+  private SimpleMeterRegistry meterRegistry;
+
+  /** Starts a stub server whose body, ETag and Cache-Control can be changed by each test. */
+  @BeforeEach
+  void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.createContext("/coffee", this::handle);
+    server.start();
+
+    HttpClientProperties properties = new HttpClientProperties();
+    properties.getCache().setStaleWhileRevalidateMs(0);
+    meterRegistry = new SimpleMeterRegistry();
+    httpClient = new RestTemplateConfig().outboundHttpClient(properties, meterRegistry);
+    cache =
+        new CachingHttpRequestInterceptor(
+            new HttpComponentsClientHttpRequestFactory(httpClient),
+            properties.getCache(),
+            meterRegistry,
+            clock);
+    restTemplate = new RestTemplateConfig().getRestTemplate(httpClient, cache);
+  }
+
+  /** Stops the stub server and the client after each test. */
+  @AfterEach
+  void tearDown() throws IOException {
+    cache.close();
+    httpClient.close();
+    server.stop(0);
+  }
+
+  /** Tests that a fresh response is replayed without another upstream request. */
+  @Test
+  void intercept_servesFreshResponsesFromCache() {
+    assertEquals("v1", get());
+    body.set("v2");
+
+    assertEquals("v1", get());
+    assertEquals(1, upstreamRequests());
+    assertEquals(1.0, requests("hit"));
+  }
+
+  /** Tests that an expired response is revalidated with If-None-Match and kept on a 304. */
+  @Test
+  void intercept_revalidatesExpiredResponsesWithETag() {
+    cacheControl.set("max-age=1");
+    assertEquals("v1", get());
+    clock.advance(2_000);
+
+    assertEquals("v1", get());
+    assertEquals(List.of("\"v1\""), ifNoneMatch);
+    assertEquals(1.0, requests("revalidated"));
+  }
+
+  /** Tests that a stale response is served at once and refreshed in the background. */
+  @Test
+  void intercept_servesStaleWhileRevalidating() throws Exception {
+    cacheControl.set("max-age=1, stale-while-revalidate=60");
+    assertEquals("v1", get());
+    body.set("v2");
+    clock.advance(2_000);
+
+    assertEquals("v1", get());
+
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (requests("miss") < 2 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+    }
+    assertEquals("v2", get());
+    assertEquals(2, upstreamRequests());
+  }
+
+  /** Tests that concurrent requests for the same URL share one upstream call. */
+  @Test
+  void intercept_collapsesConcurrentRequests() throws Exception {
+    release = new CountDownLatch(1);
+    ExecutorService callers = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> results = new CopyOnWriteArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(callers.submit(this::get));
+      }
+      long deadline = System.currentTimeMillis() + 5_000;
+      while (requests("collapsed") < 7 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(20);
+      }
+      release.countDown();
+
+      for (Future<String> result : results) {
+        assertEquals("v1", result.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      callers.shutdownNow();
+    }
+    assertEquals(1, upstreamRequests());
+    assertEquals(7.0, requests("collapsed"));
+  }
+
+  /** Tests that an Error in the shared call fails the requests waiting on it instead of hanging. */
+  @Test
+  void intercept_failsCollapsedRequestsWhenTheSharedCallErrs() throws Exception {
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch fail = new CountDownLatch(1);
+    HttpClientProperties.Cache properties = new HttpClientProperties.Cache();
+    ExecutorService callers = Executors.newFixedThreadPool(2);
+    try (CachingHttpRequestInterceptor failing =
+        new CachingHttpRequestInterceptor(
+            (uri, method) -> {
+              entered.countDown();
+              await(fail);
+              throw new StackOverflowError("simulated");
+            },
+            properties,
+            meterRegistry,
+            clock)) {
+      Future<?> owner = callers.submit(() -> intercept(failing));
+      assertTrue(entered.await(5, TimeUnit.SECONDS));
+      Future<?> waiter = callers.submit(() -> intercept(failing));
+      long deadline = System.currentTimeMillis() + 5_000;
+      while (requests("collapsed") < 1 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(20);
+      }
+      fail.countDown();
+
+      ExecutionException ownerError =
+          assertThrows(ExecutionException.class, () -> owner.get(5, TimeUnit.SECONDS));
+      assertInstanceOf(StackOverflowError.class, ownerError.getCause());
+      ExecutionException waiterError =
+          assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+      assertInstanceOf(StackOverflowError.class, waiterError.getCause().getCause());
+    } finally {
+      callers.shutdownNow();
+    }
+  }
+
+  /** Tests that a request waiting on a shared call gives up after the configured time. */
+  @Test
+  void intercept_boundsTheWaitForCollapsedRequests() throws Exception {
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(1);
+    HttpClientProperties.Cache properties = new HttpClientProperties.Cache();
+    properties.setCollapsedWaitMs(100);
+    ExecutorService callers = Executors.newFixedThreadPool(1);
+    try (CachingHttpRequestInterceptor slow =
+        new CachingHttpRequestInterceptor(
+            (uri, method) -> {
+              entered.countDown();
+              await(done);
+              throw new IOException("gave up");
+            },
+            properties,
+            meterRegistry,
+            clock)) {
+      callers.submit(() -> intercept(slow));
+      assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+      IOException timeout = assertThrows(IOException.class, () -> intercept(slow));
+      assertEquals("Timed out waiting for a shared request", timeout.getMessage());
+    } finally {
+      done.countDown();
+      callers.shutdownNow();
+    }
+  }
+
+  /** Tests that no-store responses are never cached. */
+  @Test
+  void intercept_doesNotStoreNoStoreResponses() {
+    cacheControl.set("no-store");
+    assertEquals("v1", get());
+    body.set("v2");
+
+    assertEquals("v2", get());
+    assertEquals(2, upstreamRequests());
+  }
+
+  private static ClientHttpResponse intercept(CachingHttpRequestInterceptor interceptor)
+      throws IOException {
+    return interceptor.intercept(
+        new MockClientHttpRequest(HttpMethod.GET, URI.create("http://localhost/coffee")),
+        new byte[0],
+        (request, body) -> {
+          throw new AssertionError("cacheable requests must not reach the chain");
+        });
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private String get() {
+    return restTemplate.getForObject(
+        "http://localhost:" + server.getAddress().getPort() + "/coffee", String.class);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      if (release != null) {
+        release.await(5, TimeUnit.SECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    String current = body.get();
+    String etag = "\"" + current + "\"";
+    String condition = exchange.getRequestHeaders().getFirst("If-None-Match");
+    if (condition != null) {
+      ifNoneMatch.add(condition);
+    }
+    exchange.getResponseHeaders().add("Cache-Control", cacheControl.get());
+    exchange.getResponseHeaders().add("ETag", etag);
+    if (etag.equals(condition)) {
+      exchange.sendResponseHeaders(304, -1);
+      exchange.close();
+      return;
+    }
+    byte[] bytes = current.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "text/plain");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private long upstreamRequests() {
+    return (long) (requests("miss") + requests("revalidated"));
+  }
+
+  private double requests(String result) {
+    var counter = meterRegistry.find("http.client.cache.requests").tag("result", result).counter();
+    return counter == null ? 0 : counter.count();
+  }
+
+  /** A clock that only moves when told to. */
+  private static final class TestClock extends Clock {
+    private final AtomicLong millis = new AtomicLong(System.currentTimeMillis());
+
+    void advance(long deltaMs) {
+      millis.addAndGet(deltaMs);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis.get());
+    }
+  }
+}
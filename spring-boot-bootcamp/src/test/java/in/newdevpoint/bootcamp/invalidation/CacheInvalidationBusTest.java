@@ -0,0 +1,138 @@
+package in.newdevpoint.bootcamp.invalidation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import in.newdevpoint.bootcamp.entity.InvalidationCheckpoint;
+import in.newdevpoint.bootcamp.event.ProductChangedEvent;
+import in.newdevpoint.bootcamp.event.RolesChangedEvent;
+import in.newdevpoint.bootcamp.event.UserChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Test class for {@link CacheInvalidationBus}. Uses an in-memory event source to verify that
+ * changes become typed eviction events, that the resume token is stored and reused, and that the
+ * bus stays idle when change streams are not available.
+ */
+@ExtendWith(MockitoExtension.class)
+public class CacheInvalidationBusTest {
+
+  @Mock private MongoTemplate template;
+
+  private final List<Object> published = new ArrayList<>();
+  private final ApplicationEventPublisher eventPublisher = published::add;
+  private InvalidationProperties properties;
+  private SimpleMeterRegistry meterRegistry;
+
+  /** Configures a node id and an immediate checkpoint before each test. */
+  @BeforeEach
+  void setUp() {
+    properties = new InvalidationProperties();
+    properties.setNodeId("node-1");
+    properties.setCheckpointIntervalMs(0);
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  /** Tests that changes to each watched collection are published as remote typed events. */
+  @Test
+  void onChange_publishesTypedRemoteEvents() {
+    InMemoryInvalidationEventSource source = new InMemoryInvalidationEventSource(true);
+    bus(source).start();
+
+    source.emit(ChangeNotice.Operation.UPSERT, "users", "u1");
+    source.emit(ChangeNotice.Operation.DELETE, "users", "u2");
+    source.emit(ChangeNotice.Operation.UPSERT, "roles", "r1");
+    source.emit(ChangeNotice.Operation.DROP, "products", null);
+
+    assertEquals(CacheInvalidationBus.COLLECTIONS, source.collections());
+    assertEquals(4, published.size());
+    UserChangedEvent updated = (UserChangedEvent) published.get(0);
+    assertEquals(UserChangedEvent.Type.UPDATED, updated.getType());
+    assertEquals("u1", updated.getUserId());
+    assertTrue(updated.isRemote());
+    assertEquals(UserChangedEvent.Type.DELETED, ((UserChangedEvent) published.get(1)).getType());
+    assertInstanceOf(RolesChangedEvent.class, published.get(2));
+    ProductChangedEvent products = (ProductChangedEvent) published.get(3);
+    assertNull(products.getProductId());
+    assertEquals(
+        2.0,
+        meterRegistry
+            .get("cache.invalidation.events")
+            .tag("collection", "users")
+            .counter()
+            .count());
+  }
+
+  /** Tests that a lost stream position evicts every kind of cached copy. */
+  @Test
+  void onChange_resetEvictsEverything() {
+    InMemoryInvalidationEventSource source = new InMemoryInvalidationEventSource(true);
+    bus(source).start();
+
+    source.reset();
+
+    assertEquals(3, published.size());
+    assertTrue(((UserChangedEvent) published.get(0)).isAllUsers());
+    assertInstanceOf(RolesChangedEvent.class, published.get(1));
+    assertInstanceOf(ProductChangedEvent.class, published.get(2));
+  }
+
+  /** Tests that the resume token is stored per node and used when the node starts again. */
+  @Test
+  void start_resumesFromStoredToken() throws Exception {
+    InMemoryInvalidationEventSource first = new InMemoryInvalidationEventSource(true);
+    CacheInvalidationBus bus = bus(first);
+    bus.start();
+    BsonDocument token = first.emit(ChangeNotice.Operation.UPSERT, "users", "u1");
+    bus.stop();
+
+    ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+    verify(template)
+        .upsert(any(Query.class), updateCaptor.capture(), eq(InvalidationCheckpoint.class));
+    InvalidationCheckpoint stored = new InvalidationCheckpoint();
+    stored.setId("node-1");
+    stored.setResumeToken(
+        (String)
+            updateCaptor
+                .getValue()
+                .getUpdateObject()
+                .get("$set", org.bson.Document.class)
+                .get("resumeToken"));
+    when(template.findById("node-1", InvalidationCheckpoint.class)).thenReturn(stored);
+
+    InMemoryInvalidationEventSource second = new InMemoryInvalidationEventSource(true);
+    bus(second).start();
+
+    assertEquals(token, second.subscribedFrom());
+  }
+
+  /** Tests that the bus stays idle in TTL-only mode when change streams are unsupported. */
+  @Test
+  void start_fallsBackToTtlOnlyWithoutReplicaSet() {
+    InMemoryInvalidationEventSource source = new InMemoryInvalidationEventSource(false);
+    bus(source).start();
+
+    assertFalse(source.isSubscribed());
+    assertEquals(0.0, meterRegistry.get("cache.invalidation.streaming").gauge().value());
+    verifyNoInteractions(template);
+  }
+
+  private CacheInvalidationBus bus(InvalidationEventSource source) {
+    return new CacheInvalidationBus(source, template, eventPublisher, properties, meterRegistry);
+  }
+}
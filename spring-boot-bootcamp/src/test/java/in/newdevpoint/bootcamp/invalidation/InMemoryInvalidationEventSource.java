@@ -0,0 +1,71 @@
+package in.newdevpoint.bootcamp.invalidation;
+
+import java.util.Set;
+import java.util.function.Consumer;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+
+/**
+ * {@link InvalidationEventSource} fed from memory, standing in for a MongoDB change stream in
+ * tests. Changes passed to {@link #emit} are delivered synchronously on the calling thread.
+ */
+class InMemoryInvalidationEventSource implements InvalidationEventSource {
+
+  private final boolean supported;
+  private volatile Consumer<ChangeNotice> sink;
+  private volatile BsonDocument subscribedFrom;
+  private volatile Set<String> collections;
+  private long sequence;
+
+  InMemoryInvalidationEventSource(boolean supported) {
+    this.supported = supported;
+  }
+
+  @Override
+  public boolean isSupported() {
+    return supported;
+  }
+
+  @Override
+  public AutoCloseable subscribe(
+      Set<String> collections, BsonDocument resumeToken, Consumer<ChangeNotice> sink) {
+    this.collections = collections;
+    this.subscribedFrom = resumeToken;
+    this.sink = sink;
+    return () -> this.sink = null;
+  }
+
+  /**
+   * Delivers a change to the subscriber, if any, with a fresh resume token.
+   *
+   * @return the resume token of the change
+   */
+  BsonDocument emit(ChangeNotice.Operation operation, String collection, String documentId) {
+    BsonDocument token = new BsonDocument("_data", new BsonString("token-" + ++sequence));
+    Consumer<ChangeNotice> current = sink;
+    if (current != null) {
+      current.accept(new ChangeNotice(operation, collection, documentId, token));
+    }
+    return token;
+  }
+
+  /** Delivers a notice that changes may have been missed. */
+  void reset() {
+    Consumer<ChangeNotice> current = sink;
+    if (current != null) {
+      current.accept(ChangeNotice.reset());
+    }
+  }
+
+  boolean isSubscribed() {
+    return sink != null;
+  }
+
+  BsonDocument subscribedFrom() {
+    return subscribedFrom;
+  }
+
+  Set<String> collections() {
+    return collections;
+  }
+}
@@ -0,0 +1,120 @@
+package in.newdevpoint.bootcamp.mail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal local SMTP sink for tests. It accepts every message, except that recipients in {@code
+ * rejected} are refused with {@code 550}, and records the accepted recipients and the number of
+ * SMTP sessions.
+ */
+class FakeSmtpServer implements AutoCloseable {
+  private final ServerSocket serverSocket;
+  private final ExecutorService sessions = Executors.newCachedThreadPool();
+  private final Set<String> rejected;
+  private final List<String> delivered = new CopyOnWriteArrayList<>();
+  private final AtomicInteger sessionCount = new AtomicInteger();
+
+  FakeSmtpServer(Set<String> rejected) throws IOException {
+    this.rejected = rejected;
+    this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    Thread acceptor = new Thread(this::acceptLoop, "fake-smtp");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  int port() {
+    return serverSocket.getLocalPort();
+  }
+
+  /** Recipients of the messages accepted so far. */
+  List<String> delivered() {
+    return delivered;
+  }
+
+  /** Number of SMTP connections opened so far. */
+  int sessions() {
+    return sessionCount.get();
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    sessions.shutdownNow();
+  }
+
+  private void acceptLoop() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket socket = serverSocket.accept();
+        sessionCount.incrementAndGet();
+        sessions.execute(() -> serve(socket));
+      } catch (IOException e) {
+        return;
+      }
+    }
+  }
+
+  private void serve(Socket socket) {
+    try (socket;
+        BufferedReader in =
+            new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+      reply(out, "220 localhost fake SMTP");
+      List<String> recipients = new CopyOnWriteArrayList<>();
+      String line;
+      while ((line = in.readLine()) != null) {
+        String command = line.toUpperCase(Locale.ROOT);
+        if (command.startsWith("EHLO")) {
+          reply(out, "250-localhost\r\n250 8BITMIME");
+        } else if (command.startsWith("MAIL FROM")) {
+          recipients.clear();
+          reply(out, "250 OK");
+        } else if (command.startsWith("RCPT TO")) {
+          String recipient = line.substring(line.indexOf('<') + 1, line.lastIndexOf('>'));
+          if (rejected.contains(recipient)) {
+            reply(out, "550 No such user");
+          } else {
+            recipients.add(recipient);
+            reply(out, "250 OK");
+          }
+        } else if (command.equals("DATA")) {
+          reply(out, "354 End data with <CR><LF>.<CR><LF>");
+          while ((line = in.readLine()) != null && !line.equals(".")) {
+            // The message content is not needed by the tests.
+          }
+          delivered.addAll(recipients);
+          reply(out, "250 OK");
+        } else if (command.equals("QUIT")) {
+          reply(out, "221 Bye");
+          return;
+        } else {
+          // HELO, RSET, NOOP and anything else are accepted.
+          reply(out, "250 OK");
+        }
+      }
+    } catch (IOException e) {
+      // The client went away.
+    }
+  }
+
+  private static void reply(Writer out, String response) throws IOException {
+    out.write(response + "\r\n");
+    out.flush();
+  }
+}
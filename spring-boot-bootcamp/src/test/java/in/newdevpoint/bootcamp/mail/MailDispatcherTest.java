@@ -0,0 +1,137 @@
+package in.newdevpoint.bootcamp.mail;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/**
+ * Test class for {@link MailDispatcher}. Sends through a {@link FakeSmtpServer} and verifies
+ * batching per SMTP session, retry of refused recipients, outbox redelivery and rate limiting.
+ */
+@ExtendWith(MockitoExtension.class)
+public class MailDispatcherTest {
+
+  @Mock private MailOutbox outbox;
+
+  private FakeSmtpServer smtpServer;
+  private SimpleMeterRegistry meterRegistry;
+  private MailDispatcher dispatcher;
+
+  /** Starts a fake SMTP server that refuses one recipient and a dispatcher sending to it. */
+  @BeforeEach
+  void setUp() throws Exception {
+    smtpServer = new FakeSmtpServer(Set.of("unknown@example.com"));
+    JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+    mailSender.setHost("localhost");
+    mailSender.setPort(smtpServer.port());
+
+    MailDispatchProperties properties = new MailDispatchProperties();
+    properties.setBatchSize(10);
+    properties.setDefaultRatePerSecond(1000);
+    meterRegistry = new SimpleMeterRegistry();
+    dispatcher = new MailDispatcher(mailSender, outbox, properties, meterRegistry);
+  }
+
+  /** Stops the dispatcher and the fake SMTP server after each test. */
+  @AfterEach
+  void tearDown() throws Exception {
+    dispatcher.stop();
+    smtpServer.close();
+  }
+
+  /** Tests that recipients are grouped by domain and sent ten per SMTP session. */
+  @Test
+  void send_batchesRecipientsPerProviderAndSession() throws Exception {
+    List<String> recipients = new ArrayList<>();
+    for (int i = 0; i < 15; i++) {
+      recipients.add("user" + i + "@example.com");
+    }
+    for (int i = 0; i < 10; i++) {
+      recipients.add("user" + i + "@example.org");
+    }
+
+    dispatcher.send(recipients, "Order confirmation", "Thank you");
+
+    await(() -> meterRegistry.counter("mail.sent").count() == 25);
+    assertEquals(25, smtpServer.delivered().size());
+    assertEquals(3, smtpServer.sessions());
+    assertEquals(
+        3, meterRegistry.get("mail.send.duration").tag("outcome", "success").timer().count());
+    verifyNoInteractions(outbox);
+  }
+
+  /** Tests that a refused recipient is rescheduled while the rest of its batch is delivered. */
+  @Test
+  void send_reschedulesRefusedRecipients() throws Exception {
+    dispatcher.send(
+        List.of("first@example.com", "unknown@example.com", "second@example.com"),
+        "Order confirmation",
+        "Thank you");
+
+    await(() -> meterRegistry.counter("mail.failed").count() == 1);
+    ArgumentCaptor<OutgoingMail> retried = ArgumentCaptor.forClass(OutgoingMail.class);
+    verify(outbox, timeout(5_000)).reschedule(retried.capture(), anyString());
+    assertEquals("unknown@example.com", retried.getValue().getRecipient());
+    await(() -> smtpServer.delivered().size() == 2);
+    assertEquals(List.of("first@example.com", "second@example.com"), smtpServer.delivered());
+  }
+
+  /**
+   * Tests that due outbox entries are sent again and removed once delivered, claiming at most the
+   * configured batches per poll.
+   */
+  @Test
+  void retryDue_redeliversClaimedEntries() throws Exception {
+    when(outbox.claimDue(anyInt()))
+        .thenReturn(
+            List.of(new OutgoingMail("entry-1", "late@example.com", "Order", "Thank you", 2)));
+
+    dispatcher.retryDue();
+
+    verify(outbox).claimDue(50);
+    await(() -> smtpServer.delivered().contains("late@example.com"));
+    verify(outbox, timeout(5_000)).complete("entry-1");
+    verify(outbox, never()).reschedule(any(), anyString());
+  }
+
+  /** Tests that the token bucket lets a burst through and then paces at the configured rate. */
+  @Test
+  void tokenBucket_pacesRequestsBeyondTheBurst() throws Exception {
+    TokenBucket bucket = new TokenBucket(20);
+
+    long start = System.nanoTime();
+    bucket.acquire(20);
+    long burstMs = (System.nanoTime() - start) / 1_000_000;
+    bucket.acquire(10);
+    long pacedMs = (System.nanoTime() - start) / 1_000_000;
+
+    assertTrue(burstMs < 100, "burst took " + burstMs + " ms");
+    assertTrue(pacedMs >= 400, "ten more tokens at 20/s took only " + pacedMs + " ms");
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) {
+        fail("Condition not met within 10 seconds");
+      }
+      Thread.sleep(20);
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package in.newdevpoint.bootcamp.mail;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import in.newdevpoint.bootcamp.entity.MailOutboxEntry;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Test class for {@link MailOutbox}. Verifies that due entries are claimed with a fixed number of
+ * round trips and that entries claimed by another node in between are skipped.
+ */
+@ExtendWith(MockitoExtension.class)
+public class MailOutboxTest {
+
+  @Mock private MongoTemplate template;
+
+  private MailOutbox outbox;
+
+  /** Creates an outbox with the default lease before each test. */
+  @BeforeEach
+  void setUp() {
+    outbox = new MailOutbox(template, new MailDispatchProperties());
+  }
+
+  /** Tests that a claim reads ids, leases them in one update and returns those it won. */
+  @Test
+  void claimDue_leasesWithOneUpdateAndSkipsEntriesClaimedElsewhere() {
+    when(template.find(any(Query.class), eq(MailOutboxEntry.class)))
+        .thenReturn(List.of(entry("a"), entry("b"), entry("c")))
+        .thenReturn(List.of(entry("c"), entry("a")));
+
+    List<OutgoingMail> claimed = outbox.claimDue(3);
+
+    assertEquals(
+        List.of("a", "c"),
+        claimed.stream().map(OutgoingMail::getOutboxId).collect(Collectors.toList()));
+    ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<Update> lease = ArgumentCaptor.forClass(Update.class);
+    verify(template).updateMulti(queries.capture(), lease.capture(), eq(MailOutboxEntry.class));
+    verify(template, times(2)).find(queries.capture(), eq(MailOutboxEntry.class));
+    assertEquals(3, queries.getAllValues().get(1).getLimit());
+    Document set = lease.getValue().getUpdateObject().get("$set", Document.class);
+    assertEquals(
+        set.get("claimToken"), queries.getAllValues().get(2).getQueryObject().get("claimToken"));
+    verify(template, never()).findAndModify(any(Query.class), any(Update.class), any(Class.class));
+  }
+
+  /** Tests that nothing is written when no entry is due. */
+  @Test
+  void claimDue_returnsEmptyWithoutUpdateWhenNothingIsDue() {
+    when(template.find(any(Query.class), eq(MailOutboxEntry.class))).thenReturn(List.of());
+
+    assertTrue(outbox.claimDue(10).isEmpty());
+    verify(template, never()).updateMulti(any(Query.class), any(Update.class), any(Class.class));
+  }
+
+  private static MailOutboxEntry entry(String id) {
+    MailOutboxEntry entry = new MailOutboxEntry();
+    entry.setId(id);
+    entry.setRecipient(id + "@example.com");
+    return entry;
+  }
+}
@@ -0,0 +1,116 @@
+package in.newdevpoint.bootcamp.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.exceptions.ValidationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+/**
+ * Test class for {@link RsqlQueryCompiler}. Verifies the criteria produced for RSQL queries, that
+ * queries of the same shape share one compiled plan, and that pathological queries are rejected.
+ */
+public class RsqlQueryCompilerTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private RsqlQueryCompiler compiler;
+
+  /** Creates a compiler with small limits before each test. */
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    compiler =
+        new RsqlQueryCompiler(
+            new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()),
+            meterRegistry,
+            100,
+            200,
+            2,
+            4,
+            3);
+  }
+
+  /** Tests that comparisons, wildcards, lists and junctions are translated to MongoDB criteria. */
+  @Test
+  void toCriteria_translatesComparisonsAndJunctions() {
+    Criteria criteria =
+        compiler.toCriteria(
+            "username==jo* and (email=in=('a@x.com',b@x.com) or profileImage=ex=false)",
+            UserEntity.class);
+
+    assertEquals(
+        Document.parse(
+            "{$and: [{username: {$regularExpression: {pattern: '^jo', options: ''}}},"
+                + " {$or: [{email: {$in: ['a@x.com', 'b@x.com']}},"
+                + " {profileImage: {$exists: false}}]}]}"),
+        Document.parse(criteria.getCriteriaObject().toJson()));
+  }
+
+  /** Tests that queries differing only in their literals share one compiled plan. */
+  @Test
+  void toCriteria_reusesPlanForSameShape() {
+    compiler.toCriteria("username==a*;email!=x@y.com", UserEntity.class);
+    Criteria second = compiler.toCriteria("username == b* ; email != z@y.com", UserEntity.class);
+
+    assertEquals(1, timerCount("compile"));
+    assertEquals(1, timerCount("hit"));
+    assertEquals(
+        Document.parse(
+            "{$and: [{username: {$regularExpression: {pattern: '^b', options: ''}}},"
+                + " {email: {$ne: 'z@y.com'}}]}"),
+        Document.parse(second.getCriteriaObject().toJson()));
+  }
+
+  /** Tests that deep nesting, wide OR fan-out and long value lists are rejected. */
+  @Test
+  void toCriteria_rejectsPathologicalQueries() {
+    assertThrows(
+        ValidationException.class,
+        () -> compiler.toCriteria("((username==a;(email==b)))", UserEntity.class));
+    assertThrows(
+        ValidationException.class,
+        () ->
+            compiler.toCriteria(
+                "username==a,username==b,username==c,username==d,username==e", UserEntity.class));
+    assertThrows(
+        ValidationException.class,
+        () -> compiler.toCriteria("username=in=(a,b,c,d)", UserEntity.class));
+    assertEquals(3, timerCount("rejected"));
+  }
+
+  /** Tests that malformed queries, unknown fields and unsupported operators are rejected. */
+  @Test
+  void toCriteria_rejectsInvalidQueries() {
+    assertThrows(
+        ValidationException.class, () -> compiler.toCriteria("username==", UserEntity.class));
+    assertThrows(
+        ValidationException.class, () -> compiler.toCriteria("(username==a", UserEntity.class));
+    assertThrows(
+        ValidationException.class, () -> compiler.toCriteria("unknown==a", UserEntity.class));
+    assertThrows(
+        ValidationException.class, () -> compiler.toCriteria("roles==a", UserEntity.class));
+    assertThrows(
+        ValidationException.class, () -> compiler.toCriteria("username=foo=a", UserEntity.class));
+    assertThrows(
+        ValidationException.class, () -> compiler.toCriteria("username==(a,b)", UserEntity.class));
+  }
+
+  /** Tests that wildcard arguments become anchored, index-friendly regular expressions. */
+  @Test
+  void wildcardPattern_anchorsAndEscapes() {
+    assertEquals("^jo", QueryPlan.wildcardPattern("jo*"));
+    assertEquals("doe$", QueryPlan.wildcardPattern("*doe"));
+    assertEquals("^a\\.b.*c$", QueryPlan.wildcardPattern("a.b*c"));
+  }
+
+  private long timerCount(String outcome) {
+    return meterRegistry.get("search.query.plan").tag("outcome", outcome).timer().count();
+  }
+}
@@ -0,0 +1,86 @@
+package in.newdevpoint.bootcamp.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Date;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link JwtVerifier}. Verifies that tokens are parsed once, that repeated
+ * verifications are served from the verified-token cache, and that invalid tokens are rejected.
+ */
+public class JwtVerifierTest {
+
+  private static final String SECRET =
+      "NTJmN2EwOWJhNDA3MGM1Y2I2MGIxZWNmNzgwNjIzYzVmOGY4YzQwZjFlMWFlZjQ2MGU5MWFlNGVhNWIzOGQyOA==";
+
+  private SimpleMeterRegistry meterRegistry;
+  private JwtVerifier jwtVerifier;
+
+  /** Creates a verifier backed by a simple in-memory meter registry before each test. */
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    jwtVerifier = new JwtVerifier(SECRET, 100, 60_000, meterRegistry);
+  }
+
+  /**
+   * Tests that a valid token returns its claims and that the second verification is a cache hit.
+   */
+  @Test
+  void verify_returnsClaimsAndCachesVerifiedToken() {
+    String token = token(60_000);
+
+    Optional<Claims> first = jwtVerifier.verify(token);
+    Optional<Claims> second = jwtVerifier.verify(token);
+
+    assertTrue(first.isPresent());
+    assertEquals("testUser", first.get().getSubject());
+    assertSame(first.get(), second.get());
+    assertEquals(1.0, cacheGets("hit"));
+    assertEquals(1.0, cacheGets("miss"));
+  }
+
+  /** Tests that a token signed with a different key is rejected and never cached. */
+  @Test
+  void verify_rejectsTamperedToken() {
+    String token = token(60_000);
+    String tampered = token.substring(0, token.length() - 2) + "xx";
+
+    assertTrue(jwtVerifier.verify(tampered).isEmpty());
+    assertTrue(jwtVerifier.verify(tampered).isEmpty());
+    assertEquals(0.0, cacheGets("hit"));
+  }
+
+  /** Tests that expired and empty tokens are rejected. */
+  @Test
+  void verify_rejectsExpiredAndEmptyTokens() {
+    assertTrue(jwtVerifier.verify(token(-1_000)).isEmpty());
+    assertTrue(jwtVerifier.verify("").isEmpty());
+    assertTrue(jwtVerifier.verify(null).isEmpty());
+  }
+
+  private String token(long expiresInMs) {
+    return Jwts.builder()
+        .setSubject("testUser")
+        .setIssuedAt(new Date())
+        .setExpiration(new Date(System.currentTimeMillis() + expiresInMs))
+        .signWith(jwtVerifier.signingKey(), SignatureAlgorithm.HS256)
+        .compact();
+  }
+
+  private double cacheGets(String result) {
+    return meterRegistry
+        .get("cache.gets")
+        .tag("cache", JwtVerifier.CACHE_NAME)
+        .tag("result", result)
+        .functionCounter()
+        .count();
+  }
+}
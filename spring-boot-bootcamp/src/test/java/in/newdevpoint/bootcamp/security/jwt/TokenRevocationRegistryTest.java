@@ -0,0 +1,130 @@
+package in.newdevpoint.bootcamp.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import in.newdevpoint.bootcamp.entity.RevokedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * Test class for {@link TokenRevocationRegistry}. Verifies that revocations made locally and on
+ * other nodes are honoured, and that checks never touch MongoDB.
+ */
+@ExtendWith(MockitoExtension.class)
+public class TokenRevocationRegistryTest {
+
+  @Mock private MongoTemplate template;
+
+  private TokenRevocationRegistry registry;
+
+  /** Creates a registry sized for a handful of revocations before each test. */
+  @BeforeEach
+  void setUp() {
+    registry = new TokenRevocationRegistry(template, 5_000, 100, 0.01, 86_400_000, 900_000);
+  }
+
+  /** Tests that a revoked token is rejected, persisted once, and other tokens are unaffected. */
+  @Test
+  void revoke_rejectsOnlyTheRevokedToken() {
+    Claims revoked = claims("jti-1", "alice", System.currentTimeMillis());
+    Claims other = claims("jti-2", "alice", System.currentTimeMillis());
+
+    assertTrue(registry.revoke(revoked));
+
+    assertTrue(registry.isRevoked(revoked));
+    assertFalse(registry.isRevoked(other));
+    verify(template).upsert(any(Query.class), any(Update.class), eq(RevokedToken.class));
+    verifyNoMoreInteractions(template);
+  }
+
+  /** Tests that a forced sign-out rejects earlier tokens of the user but not later ones. */
+  @Test
+  void revokeAll_rejectsTokensIssuedBeforeSignOut() {
+    long now = System.currentTimeMillis();
+    Claims before = claims("jti-1", "alice", now - 60_000);
+    Claims otherUser = claims("jti-2", "bob", now - 60_000);
+
+    registry.revokeAll("alice");
+
+    assertTrue(registry.isRevoked(before));
+    assertFalse(registry.isRevoked(otherUser));
+    assertFalse(registry.isRevoked(claims("jti-3", "alice", now + 60_000)));
+  }
+
+  /**
+   * Tests that a forced sign-out is compared with the millisecond issue time, so a token issued in
+   * the same second but after the sign-out is accepted, while one without it is rejected.
+   */
+  @Test
+  void revokeAll_comparesMillisecondIssueTimeWithinTheSameSecond() {
+    long second = (System.currentTimeMillis() / 1000) * 1000;
+    when(template.find(any(Query.class), eq(RevokedToken.class)))
+        .thenReturn(
+            List.of(
+                revoked(
+                    RevokedToken.SUBJECT_PREFIX + "alice",
+                    new Date(second + 500),
+                    second + 60_000)));
+    registry.poll();
+
+    // As parsed from a real token: iat truncated to the second, iat_ms exact
+    Claims signedInAgain = claims("jti-1", "alice", second);
+    signedInAgain.put(JwtUtils.CLAIM_ISSUED_AT_MS, second + 700);
+    Claims signedOut = claims("jti-2", "alice", second);
+    signedOut.put(JwtUtils.CLAIM_ISSUED_AT_MS, second + 300);
+
+    assertFalse(registry.isRevoked(signedInAgain));
+    assertTrue(registry.isRevoked(signedOut));
+    assertTrue(registry.isRevoked(claims("jti-3", "alice", second)));
+  }
+
+  /** Tests that polling applies revocations made on other nodes and skips expired ones. */
+  @Test
+  void poll_appliesRevocationsFromOtherNodes() {
+    long now = System.currentTimeMillis();
+    when(template.find(any(Query.class), eq(RevokedToken.class)))
+        .thenReturn(
+            List.of(
+                revoked("jti-remote", null, now + 60_000),
+                revoked("jti-expired", null, now - 1_000),
+                revoked(RevokedToken.SUBJECT_PREFIX + "bob", new Date(now), now + 60_000)));
+
+    registry.poll();
+
+    assertTrue(registry.isRevoked(claims("jti-remote", "alice", now)));
+    assertFalse(registry.isRevoked(claims("jti-expired", "alice", now)));
+    assertTrue(registry.isRevoked(claims("jti-4", "bob", now - 1_000)));
+  }
+
+  private static Claims claims(String jti, String subject, long issuedAt) {
+    return Jwts.claims()
+        .setId(jti)
+        .setSubject(subject)
+        .setIssuedAt(new Date(issuedAt))
+        .setExpiration(new Date(issuedAt + 60_000));
+  }
+
+  private static RevokedToken revoked(String id, Date notBefore, long expiresAt) {
+    RevokedToken revoked = new RevokedToken();
+    revoked.setId(id);
+    revoked.setSubject(
+        notBefore != null ? id.substring(RevokedToken.SUBJECT_PREFIX.length()) : null);
+    revoked.setNotBefore(notBefore);
+    revoked.setRevokedAt(new Date());
+    revoked.setExpiresAt(new Date(expiresAt));
+    return revoked;
+  }
+}
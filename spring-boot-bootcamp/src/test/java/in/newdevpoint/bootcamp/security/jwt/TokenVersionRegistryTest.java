@@ -0,0 +1,91 @@
+package in.newdevpoint.bootcamp.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.event.UserChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Test class for {@link TokenVersionRegistry}. Verifies that token versions come from the user
+ * document's {@code tokenVersion}, are re-read after a write and never fall back to an older value.
+ */
+@ExtendWith(MockitoExtension.class)
+public class TokenVersionRegistryTest {
+
+  @Mock private MongoTemplate template;
+
+  private TokenVersionRegistry registry;
+
+  /** Creates a registry whose cache outlives each test before each test. */
+  @BeforeEach
+  void setUp() {
+    registry = new TokenVersionRegistry(template, 100, 60_000);
+  }
+
+  /** Tests that a write rejects tokens issued before it, however long ago the write happened. */
+  @Test
+  void isCurrent_rejectsTokensIssuedBeforeTheStoredVersion() {
+    when(template.findOne(any(Query.class), eq(UserEntity.class)))
+        .thenReturn(user(0L), user(1L), user(1L));
+    assertEquals(0L, registry.currentVersion("1"));
+    assertTrue(registry.isCurrent("1", 0L));
+
+    registry.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED, "1", "alice"));
+    assertFalse(registry.isCurrent("1", 0L));
+
+    // A fresh registry, as after a restart or on another node, reads the same version
+    TokenVersionRegistry restarted = new TokenVersionRegistry(template, 100, 60_000);
+    assertFalse(restarted.isCurrent("1", 0L));
+    assertTrue(restarted.isCurrent("1", 1L));
+  }
+
+  /** Tests that versions are cached between writes. */
+  @Test
+  void isCurrent_readsEachUserOnceBetweenWrites() {
+    when(template.findOne(any(Query.class), eq(UserEntity.class))).thenReturn(user(2L));
+
+    assertTrue(registry.isCurrent("1", 2L));
+    assertTrue(registry.isCurrent("1", 3L));
+
+    verify(template, times(1)).findOne(any(Query.class), eq(UserEntity.class));
+  }
+
+  /** Tests that writes made on other nodes, and resets of all users, evict cached versions. */
+  @Test
+  void onUserChanged_evictsOnRemoteWrites() {
+    when(template.findOne(any(Query.class), eq(UserEntity.class)))
+        .thenReturn(user(0L), user(1L), user(2L));
+    assertTrue(registry.isCurrent("1", 0L));
+
+    registry.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED, "1", null, true));
+    assertFalse(registry.isCurrent("1", 0L));
+
+    registry.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED, null, null, true));
+    assertFalse(registry.isCurrent("1", 1L));
+  }
+
+  /** Tests that tokens of a deleted user are never current. */
+  @Test
+  void isCurrent_rejectsTokensOfDeletedUsers() {
+    when(template.findOne(any(Query.class), eq(UserEntity.class))).thenReturn(null);
+
+    assertFalse(registry.isCurrent("1", 0L));
+  }
+
+  private static UserEntity user(Long tokenVersion) {
+    UserEntity user = new UserEntity("alice", "alice@example.com", null);
+    user.setId("1");
+    user.setTokenVersion(tokenVersion);
+    return user;
+  }
+}
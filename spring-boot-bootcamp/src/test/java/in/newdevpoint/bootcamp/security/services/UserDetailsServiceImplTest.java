@@ -0,0 +1,102 @@
+package in.newdevpoint.bootcamp.security.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import in.newdevpoint.bootcamp.entity.ERole;
+import in.newdevpoint.bootcamp.entity.Role;
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.event.UserChangedEvent;
+import in.newdevpoint.bootcamp.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Test class for {@link UserDetailsServiceImpl}. Verifies that principals are served from the
+ * cache, evicted on user changes, and share interned authority lists.
+ */
+@ExtendWith(MockitoExtension.class)
+public class UserDetailsServiceImplTest {
+
+  @Mock private UserRepository userRepository;
+
+  private UserDetailsServiceImpl userDetailsService;
+
+  /** Creates the service with a small cache before each test. */
+  @BeforeEach
+  void setUp() {
+    userDetailsService = new UserDetailsServiceImpl();
+    userDetailsService.userRepository = userRepository;
+    userDetailsService.meterRegistry = new SimpleMeterRegistry();
+    ReflectionTestUtils.setField(userDetailsService, "principalCacheSize", 100L);
+    ReflectionTestUtils.setField(userDetailsService, "principalCacheTtlMs", 60_000L);
+    userDetailsService.init();
+  }
+
+  /** Tests that a second lookup of the same username does not hit the repository. */
+  @Test
+  void loadUserByUsername_servesRepeatedLookupsFromCache() {
+    when(userRepository.findByUsername("testUser")).thenReturn(Optional.of(user("1", "testUser")));
+
+    UserDetails first = userDetailsService.loadUserByUsername("testUser");
+    UserDetails second = userDetailsService.loadUserByUsername("testUser");
+
+    assertSame(first, second);
+    verify(userRepository, times(1)).findByUsername("testUser");
+  }
+
+  /** Tests that a user change evicts the cached principal even when only the id is known. */
+  @Test
+  void onUserChanged_evictsCachedPrincipalById() {
+    when(userRepository.findByUsername("testUser")).thenReturn(Optional.of(user("1", "testUser")));
+    userDetailsService.loadUserByUsername("testUser");
+
+    userDetailsService.onUserChanged(
+        new UserChangedEvent(UserChangedEvent.Type.DELETED, "1", null));
+    userDetailsService.loadUserByUsername("testUser");
+
+    verify(userRepository, times(2)).findByUsername("testUser");
+  }
+
+  /** Tests that renaming a user evicts the principal cached under the old username. */
+  @Test
+  void onUserChanged_evictsPrincipalCachedUnderOldUsername() {
+    when(userRepository.findByUsername("oldName")).thenReturn(Optional.of(user("1", "oldName")));
+    when(userRepository.findByUsername("other")).thenReturn(Optional.of(user("2", "other")));
+    userDetailsService.loadUserByUsername("oldName");
+    userDetailsService.loadUserByUsername("other");
+
+    userDetailsService.onUserChanged(
+        new UserChangedEvent(UserChangedEvent.Type.UPDATED, "1", "newName"));
+    userDetailsService.loadUserByUsername("oldName");
+    userDetailsService.loadUserByUsername("other");
+
+    verify(userRepository, times(2)).findByUsername("oldName");
+    verify(userRepository, times(1)).findByUsername("other");
+  }
+
+  /** Tests that users with the same roles share one immutable authority list. */
+  @Test
+  void build_sharesAuthorityListsForEqualRoles() {
+    UserDetailsImpl first = UserDetailsImpl.build(user("1", "first"));
+    UserDetailsImpl second = UserDetailsImpl.build(user("2", "second"));
+
+    assertSame(first.getAuthorities(), second.getAuthorities());
+    assertThrows(UnsupportedOperationException.class, () -> first.getAuthorities().clear());
+  }
+
+  private UserEntity user(String id, String username) {
+    UserEntity user = new UserEntity(username, username + "@example.com", "password");
+    user.setId(id);
+    user.setRoles(Set.of(new Role(ERole.ROLE_USER)));
+    return user;
+  }
+}
@@ -0,0 +1,189 @@
+package in.newdevpoint.bootcamp.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import in.newdevpoint.bootcamp.exceptions.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Test class for {@link PasswordHashingService}. Verifies admission control, the published metrics,
+ * and that a login flood does not slow down requests that never hash a password.
+ */
+public class PasswordHashingServiceTest {
+
+  /** Stands in for BCrypt: a fixed amount of CPU-bound work per call. */
+  private static final long HASH_MILLIS = 20;
+
+  private SimpleMeterRegistry meterRegistry;
+  private PasswordHashingService hashingService;
+
+  /** Creates a service with two hashing threads and room for four waiting tasks. */
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    hashingService = new PasswordHashingService(new SlowEncoder(), meterRegistry, 2, 4, 3);
+  }
+
+  /** Shuts the hashing pool down after each test. */
+  @AfterEach
+  void tearDown() {
+    hashingService.shutdown();
+  }
+
+  /** Tests that hashing completes on the pool and is timed. */
+  @Test
+  void encode_hashesOnPoolAndRecordsLatency() {
+    assertEquals("hashed:secret", hashingService.encode("secret").join());
+    assertEquals(1, meterRegistry.get("auth.hashing.duration").timer().count());
+  }
+
+  /** Tests that a full queue is refused immediately with a retry hint, and counted. */
+  @Test
+  void submit_rejectsWhenQueueIsFull() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    for (int i = 0; i < 6; i++) {
+      hashingService.submit(() -> await(release));
+    }
+
+    ServiceOverloadedException rejected =
+        assertThrows(ServiceOverloadedException.class, () -> hashingService.encode("secret"));
+
+    assertEquals(3, rejected.getRetryAfterSeconds());
+    assertEquals(1.0, meterRegistry.get("auth.hashing.rejected").counter().count());
+    assertEquals(4.0, meterRegistry.get("auth.hashing.queue").gauge().value());
+    release.countDown();
+  }
+
+  /** Tests that verification runs on the pool and still hashes when there is no stored hash. */
+  @Test
+  void matches_verifiesOnPoolEvenWithoutStoredHash() {
+    assertTrue(hashingService.matches("secret", "hashed:secret").join());
+    assertFalse(hashingService.matches("wrong", "hashed:secret").join());
+    assertFalse(hashingService.matches("secret", null).join());
+    assertEquals(3, meterRegistry.get("auth.hashing.duration").timer().count());
+  }
+
+  /** Tests that a failing task surfaces its own exception rather than a wrapper. */
+  @Test
+  void submit_completesWithTaskException() {
+    CompletableFuture<Object> result =
+        hashingService.submit(
+            () -> {
+              throw new IllegalStateException("bad credentials");
+            });
+
+    Exception error = assertThrows(Exception.class, result::get);
+    assertInstanceOf(IllegalStateException.class, error.getCause());
+  }
+
+  /** Tests that bulk hashing falls back to the calling thread instead of failing. */
+  @Test
+  void encodeAll_hashesEveryPasswordWhenQueueIsFull() {
+    List<String> passwords = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      passwords.add("p" + i);
+    }
+
+    List<String> hashes = hashingService.encodeAll(passwords);
+
+    assertEquals(20, hashes.size());
+    assertEquals("hashed:p19", hashes.get(19));
+  }
+
+  /**
+   * Load test: a small "Tomcat" pool serves a flood of logins alongside light requests. Logins hand
+   * their hashing to the pool and return, or are refused with 503, so the light requests never wait
+   * behind BCrypt and their p99 stays close to their own service time.
+   */
+  @Test
+  void loginFlood_doesNotStarveOtherRequests() throws Exception {
+    ExecutorService requestThreads = Executors.newFixedThreadPool(4);
+    AtomicBoolean flooding = new AtomicBoolean(true);
+    AtomicInteger rejectedLogins = new AtomicInteger();
+    List<Long> latenciesNanos = Collections.synchronizedList(new ArrayList<>());
+    try {
+      Thread flood =
+          new Thread(
+              () -> {
+                while (flooding.get()) {
+                  requestThreads.submit(
+                      () -> {
+                        try {
+                          hashingService.encode("password");
+                        } catch (ServiceOverloadedException e) {
+                          rejectedLogins.incrementAndGet();
+                        }
+                      });
+                  sleep(1);
+                }
+              });
+      flood.start();
+
+      for (int i = 0; i < 200; i++) {
+        long enqueued = System.nanoTime();
+        Future<?> light = requestThreads.submit(() -> sleep(1));
+        light.get(5, TimeUnit.SECONDS);
+        latenciesNanos.add(System.nanoTime() - enqueued);
+      }
+      flooding.set(false);
+      flood.join();
+    } finally {
+      requestThreads.shutdownNow();
+    }
+
+    List<Long> sorted = new ArrayList<>(latenciesNanos);
+    Collections.sort(sorted);
+    long p99Millis = TimeUnit.NANOSECONDS.toMillis(sorted.get((int) (sorted.size() * 0.99) - 1));
+    assertTrue(rejectedLogins.get() > 0, "the flood should overflow the hashing queue");
+    // Had logins hashed on the request threads, light requests would queue behind 20 ms hashes
+    assertTrue(p99Millis < HASH_MILLIS * 5, "p99 of light requests was " + p99Millis + " ms");
+  }
+
+  private static Object await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return null;
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static final class SlowEncoder implements PasswordEncoder {
+    @Override
+    public String encode(CharSequence rawPassword) {
+      long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(HASH_MILLIS);
+      while (System.nanoTime() < end) {
+        Thread.onSpinWait();
+      }
+      return "hashed:" + rawPassword;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+      return encode(rawPassword).equals(encodedPassword);
+    }
+  }
+}
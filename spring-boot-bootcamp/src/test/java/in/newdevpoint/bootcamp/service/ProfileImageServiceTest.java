@@ -0,0 +1,110 @@
+package in.newdevpoint.bootcamp.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.MediaType;
+
+/**
+ * Test class for {@link ProfileImageService}. Verifies that thumbnails keep their aspect ratio, are
+ * stored once generated, and are served from the in-memory cache afterwards, and that oversized or
+ * undecodable images are refused once and then remembered.
+ */
+public class ProfileImageServiceTest {
+
+  @TempDir Path uploadDir;
+
+  private ProfileStorageService storage;
+  private ProfileImageService imageService;
+
+  /** Creates the services on a temporary upload directory before each test. */
+  @BeforeEach
+  void setUp() {
+    storage = spy(new ProfileStorageService(mock(MongoTemplate.class), uploadDir.toString(), 0));
+    imageService =
+        new ProfileImageService(
+            storage, new SimpleMeterRegistry(), List.of(64, 256), 1_000_000, 1_000_000);
+  }
+
+  /** Tests that background generation writes every configured variant, bounded by its size. */
+  @Test
+  void generateVariants_writesEveryConfiguredSize() throws Exception {
+    String hash = storePng(800, 400);
+
+    imageService.generateVariants(hash);
+
+    BufferedImage small = ImageIO.read(storage.resolveVariant(hash, 64).toFile());
+    BufferedImage large = ImageIO.read(storage.resolveVariant(hash, 256).toFile());
+    assertEquals(64, small.getWidth());
+    assertEquals(32, small.getHeight());
+    assertEquals(256, large.getWidth());
+  }
+
+  /** Tests that a variant is generated once and then served from memory. */
+  @Test
+  void variant_isGeneratedOnceThenCached() throws Exception {
+    String hash = storePng(100, 100);
+
+    byte[] first = imageService.variant(hash, 64).orElseThrow();
+    byte[] second = imageService.variant(hash, 64).orElseThrow();
+
+    assertSame(first, second);
+    assertTrue(Files.exists(storage.resolveVariant(hash, 64)));
+    verify(storage, times(1)).storeVariant(eq(hash), eq(64), any());
+  }
+
+  /** Tests that sizes that are not offered and unknown images are not served. */
+  @Test
+  void variant_rejectsUnknownSizesAndImages() throws Exception {
+    String hash = storePng(10, 10);
+
+    assertTrue(imageService.variant(hash, 100).isEmpty());
+    assertTrue(imageService.variant("0".repeat(64), 64).isEmpty());
+    assertTrue(imageService.original("not-a-hash").isEmpty());
+    assertEquals(MediaType.IMAGE_PNG, imageService.contentType(storage.resolve(hash)));
+  }
+
+  /** Tests that an image above the pixel limit is not decoded, and the refusal is cached. */
+  @Test
+  void variant_refusesOversizedImagesOnce() throws Exception {
+    String hash = storePng(2000, 1000);
+
+    assertTrue(imageService.variant(hash, 64).isEmpty());
+    assertTrue(imageService.variant(hash, 64).isEmpty());
+
+    verify(storage, times(1)).resolveVariant(hash, 64);
+    verify(storage, never()).storeVariant(any(), anyInt(), any());
+  }
+
+  /** Tests that a file that is not an image is refused once, and the refusal is cached. */
+  @Test
+  void variant_remembersUndecodableImages() throws Exception {
+    String hash = storage.store(new ByteArrayInputStream("not an image".getBytes())).getHash();
+
+    assertTrue(imageService.variant(hash, 64).isEmpty());
+    assertTrue(imageService.variant(hash, 64).isEmpty());
+
+    verify(storage, times(1)).resolveVariant(hash, 64);
+  }
+
+  private String storePng(int width, int height) throws Exception {
+    ByteArrayOutputStream png = new ByteArrayOutputStream();
+    ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", png);
+    return storage.store(new ByteArrayInputStream(png.toByteArray())).getHash();
+  }
+}
@@ -0,0 +1,192 @@
+package in.newdevpoint.bootcamp.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Test class for {@link ProfileStorageService}. Verifies content addressing, deduplication,
+ * concurrent uploads, garbage collection racing with uploads, and measures the throughput of 10 MB
+ * uploads.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ProfileStorageServiceTest {
+  private static final Logger logger = LoggerFactory.getLogger(ProfileStorageServiceTest.class);
+
+  @Mock private MongoTemplate template;
+
+  @TempDir Path uploadDir;
+
+  private ProfileStorageService storage;
+
+  /** Creates a storage service without a GC grace period below a temporary directory. */
+  @BeforeEach
+  void setUp() {
+    storage = new ProfileStorageService(template, uploadDir.toString(), 0);
+  }
+
+  /** Tests that identical content is stored once under its SHA-256 and no temp file remains. */
+  @Test
+  void store_deduplicatesIdenticalContent() throws Exception {
+    ProfileStorageService.StoredBlob first =
+        storage.store(new MockMultipartFile("file", "avatar.png", "image/png", bytes(1_000, 1)));
+    ProfileStorageService.StoredBlob second =
+        storage.store(new MockMultipartFile("file", "other.png", "image/png", bytes(1_000, 1)));
+
+    assertEquals(first.getHash(), second.getHash());
+    assertEquals(storage.resolve(first.getHash()), first.getPath());
+    assertArrayEquals(bytes(1_000, 1), Files.readAllBytes(first.getPath()));
+    assertEquals(1_000, first.getSize());
+    try (var tmp = Files.list(uploadDir.resolve("tmp"))) {
+      assertEquals(0, tmp.count());
+    }
+  }
+
+  /** Tests that concurrent uploads with the same file name but different content both survive. */
+  @Test
+  void store_keepsConcurrentUploadsApart() throws Exception {
+    ExecutorService uploaders = Executors.newFixedThreadPool(4);
+    try {
+      Future<ProfileStorageService.StoredBlob> a =
+          uploaders.submit(() -> storage.store(new ByteArrayInputStream(bytes(100_000, 2))));
+      Future<ProfileStorageService.StoredBlob> b =
+          uploaders.submit(() -> storage.store(new ByteArrayInputStream(bytes(100_000, 3))));
+
+      assertArrayEquals(bytes(100_000, 2), Files.readAllBytes(a.get().getPath()));
+      assertArrayEquals(bytes(100_000, 3), Files.readAllBytes(b.get().getPath()));
+    } finally {
+      uploaders.shutdownNow();
+    }
+  }
+
+  /** Tests that only unreferenced blobs are released and collected. */
+  @Test
+  void collectGarbage_deletesOnlyUnreferencedBlobs() throws Exception {
+    ProfileStorageService.StoredBlob kept = storage.store(new ByteArrayInputStream(bytes(10, 4)));
+    ProfileStorageService.StoredBlob orphan = storage.store(new ByteArrayInputStream(bytes(10, 5)));
+    Files.setLastModifiedTime(orphan.getPath(), FileTime.fromMillis(0));
+    when(template.findDistinct(
+            any(Query.class), eq("profileImageHash"), eq(UserEntity.class), eq(String.class)))
+        .thenReturn(List.of(kept.getHash()));
+    referenced(kept.getHash());
+
+    assertFalse(storage.release(kept.getHash()));
+    assertEquals(1, storage.collectGarbage());
+
+    assertTrue(Files.exists(kept.getPath()));
+    assertFalse(Files.exists(orphan.getPath()));
+  }
+
+  /** Tests that a blob referenced after it was chosen for deletion is put back. */
+  @Test
+  void collectGarbage_keepsBlobReferencedMeanwhile() throws Exception {
+    ProfileStorageService.StoredBlob blob = storage.store(new ByteArrayInputStream(bytes(10, 6)));
+    Files.setLastModifiedTime(blob.getPath(), FileTime.fromMillis(0));
+    when(template.findDistinct(
+            any(Query.class), eq("profileImageHash"), eq(UserEntity.class), eq(String.class)))
+        .thenReturn(List.of());
+    referenced(blob.getHash());
+
+    assertEquals(0, storage.collectGarbage());
+
+    assertArrayEquals(bytes(10, 6), Files.readAllBytes(blob.getPath()));
+    try (var tmp = Files.list(uploadDir.resolve("tmp"))) {
+      assertEquals(0, tmp.count());
+    }
+  }
+
+  /** Tests that an upload of the same content while its blob is being deleted keeps its copy. */
+  @Test
+  void release_doesNotDeleteBlobReusedByConcurrentUpload() throws Exception {
+    ProfileStorageService.StoredBlob blob = storage.store(new ByteArrayInputStream(bytes(10, 7)));
+    Files.setLastModifiedTime(blob.getPath(), FileTime.fromMillis(0));
+    // The second reference check runs while the blob is aside; an upload of it lands right then
+    when(template.exists(any(Query.class), eq(UserEntity.class)))
+        .thenReturn(false)
+        .thenAnswer(
+            call -> {
+              storage.store(new ByteArrayInputStream(bytes(10, 7)));
+              return false;
+            });
+
+    assertTrue(storage.release(blob.getHash()));
+
+    assertArrayEquals(bytes(10, 7), Files.readAllBytes(blob.getPath()));
+  }
+
+  /** Tests that collection is scheduled to repeat and stops with the service. */
+  @Test
+  void onApplicationReady_collectsPeriodically() throws Exception {
+    ReflectionTestUtils.setField(storage, "gcOnStartup", false);
+    ReflectionTestUtils.setField(storage, "gcIntervalMs", 10L);
+    Path leftover = Files.createDirectories(uploadDir.resolve("tmp")).resolve("upload-1.part");
+    try {
+      storage.onApplicationReady();
+      for (int i = 0; i < 3; i++) {
+        Files.write(leftover, bytes(10, i));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (Files.exists(leftover) && System.currentTimeMillis() < deadline) {
+          Thread.sleep(10);
+        }
+        assertFalse(Files.exists(leftover), "leftover should be collected on every run");
+      }
+    } finally {
+      storage.stop();
+    }
+  }
+
+  /** Benchmark: stores 10 MB uploads and reports the sustained throughput. */
+  @Test
+  void store_benchmarksTenMegabyteUploads() throws Exception {
+    int size = 10 * 1024 * 1024;
+    int runs = 10;
+    long started = System.nanoTime();
+    for (int i = 0; i < runs; i++) {
+      ProfileStorageService.StoredBlob blob =
+          storage.store(new MockMultipartFile("file", "big.png", "image/png", bytes(size, i)));
+      assertEquals(size, Files.size(blob.getPath()));
+    }
+    double seconds = (System.nanoTime() - started) / (double) TimeUnit.SECONDS.toNanos(1);
+    logger.info(
+        "Stored {} x 10 MB uploads at {} MB/s", runs, String.format("%.1f", runs * 10 / seconds));
+  }
+
+  private void referenced(String hash) {
+    when(template.exists(any(Query.class), eq(UserEntity.class)))
+        .thenAnswer(
+            call ->
+                hash.equals(
+                    call.getArgument(0, Query.class).getQueryObject().get("profileImageHash")));
+  }
+
+  private static byte[] bytes(int size, long seed) {
+    byte[] bytes = new byte[size];
+    new Random(seed).nextBytes(bytes);
+    return bytes;
+  }
+}
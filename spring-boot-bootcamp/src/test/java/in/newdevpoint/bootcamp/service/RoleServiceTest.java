@@ -0,0 +1,97 @@
+package in.newdevpoint.bootcamp.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import in.newdevpoint.bootcamp.entity.ERole;
+import in.newdevpoint.bootcamp.entity.Role;
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.repository.RoleRepository;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Test class for {@link RoleService}. Verifies that roles are served from the in-memory map and
+ * assigned in both storage modes.
+ */
+@ExtendWith(MockitoExtension.class)
+public class RoleServiceTest {
+
+  @Mock private RoleRepository roleRepository;
+
+  @InjectMocks private RoleService roleService;
+
+  /** Stubs the repository with one document per role before each test. */
+  @BeforeEach
+  void setUp() {
+    lenient()
+        .when(roleRepository.findAll())
+        .thenReturn(List.of(role("1", ERole.ROLE_USER), role("2", ERole.ROLE_ADMIN)));
+  }
+
+  /** Tests that repeated lookups load the roles collection only once. */
+  @Test
+  void getRole_servesLookupsFromMemory() {
+    roleService.onApplicationReady();
+
+    assertEquals("1", roleService.getRole(ERole.ROLE_USER).getId());
+    assertEquals("2", roleService.getRole(ERole.ROLE_ADMIN).getId());
+    verify(roleRepository, times(1)).findAll();
+  }
+
+  /** Tests that a missing role is reloaded once and then reported as not found. */
+  @Test
+  void getRole_throwsWhenRoleDoesNotExist() {
+    roleService.onApplicationReady();
+
+    assertThrows(RuntimeException.class, () -> roleService.getRole(ERole.ROLE_MODERATOR));
+    verify(roleRepository, times(2)).findAll();
+  }
+
+  /** Tests that signup role names map to roles and default to the user role. */
+  @Test
+  void resolveRoleNames_mapsSignupRoles() {
+    assertEquals(Set.of(ERole.ROLE_USER), roleService.resolveRoleNames(null));
+    assertEquals(
+        Set.of(ERole.ROLE_ADMIN, ERole.ROLE_MODERATOR, ERole.ROLE_USER),
+        roleService.resolveRoleNames(Set.of("admin", "mod", "other")));
+  }
+
+  /** Tests that embedded mode stores role names and no role references. */
+  @Test
+  void assignRoles_embedsRoleNamesWhenEnabled() {
+    ReflectionTestUtils.setField(roleService, "embeddedRoles", true);
+    UserEntity user = new UserEntity("testUser", "test@example.com", "password");
+
+    roleService.assignRoles(user, Set.of(ERole.ROLE_ADMIN));
+
+    assertEquals(Set.of(ERole.ROLE_ADMIN), user.getRoleNames());
+    assertNull(user.getRoles());
+    assertEquals(Set.of(ERole.ROLE_ADMIN), user.resolveRoleNames());
+  }
+
+  /** Tests that reference mode keeps storing role references. */
+  @Test
+  void assignRoles_storesReferencesByDefault() {
+    UserEntity user = new UserEntity("testUser", "test@example.com", "password");
+
+    roleService.assignRoles(user, Set.of(ERole.ROLE_USER));
+
+    assertEquals(1, user.getRoles().size());
+    assertTrue(user.getRoleNames().isEmpty());
+    assertEquals(Set.of(ERole.ROLE_USER), user.resolveRoleNames());
+  }
+
+  private Role role(String id, ERole name) {
+    Role role = new Role(name);
+    role.setId(id);
+    return role;
+  }
+}
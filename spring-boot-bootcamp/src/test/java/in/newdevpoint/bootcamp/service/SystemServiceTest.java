@@ -0,0 +1,160 @@
+package in.newdevpoint.bootcamp.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import in.newdevpoint.bootcamp.entity.CoffeeEntity;
+import in.newdevpoint.bootcamp.exceptions.DependencyUnavailableException;
+import in.newdevpoint.bootcamp.http.UpstreamResult;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.OngoingStubbing;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Test class for {@link SystemService}. Verifies the stale fallback, the circuit breaker failing
+ * fast once open, and the bulkhead rejecting calls beyond its limit.
+ */
+@ExtendWith(MockitoExtension.class)
+public class SystemServiceTest {
+
+  private static final String URL = "http://coffee.test/hot";
+
+  @Mock private RestTemplate restTemplate;
+
+  private CircuitBreakerRegistry circuitBreakerRegistry;
+  private SystemService systemService;
+
+  /** Creates the service with a small breaker window and a one-call bulkhead before each test. */
+  @BeforeEach
+  void setUp() {
+    circuitBreakerRegistry =
+        CircuitBreakerRegistry.of(
+            CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofSeconds(30))
+                .ignoreExceptions(BulkheadFullException.class)
+                .build());
+    BulkheadRegistry bulkheadRegistry =
+        BulkheadRegistry.of(
+            BulkheadConfig.custom().maxConcurrentCalls(1).maxWaitDuration(Duration.ZERO).build());
+    systemService = new SystemService(restTemplate, circuitBreakerRegistry, bulkheadRegistry, URL);
+  }
+
+  /** Tests that a failed call serves the last good response marked as stale. */
+  @Test
+  void fetchExternalApi_servesLastGoodResponseWhenUpstreamFails() {
+    whenExchange().thenReturn(ResponseEntity.ok(List.of(coffee("Latte"))));
+    UpstreamResult<List<CoffeeEntity>> fresh = systemService.fetchExternalApi();
+
+    whenExchange().thenThrow(new ResourceAccessException("Read timed out"));
+    UpstreamResult<List<CoffeeEntity>> stale = systemService.fetchExternalApi();
+
+    assertFalse(fresh.isStale());
+    assertTrue(stale.isStale());
+    assertEquals("Latte", stale.getBody().get(0).getTitle());
+    assertEquals(fresh.getFetchedAt(), stale.getFetchedAt());
+  }
+
+  /** Tests that a failure without an earlier response is reported as unavailable. */
+  @Test
+  void fetchExternalApi_throwsWhenNothingToFallBackOn() {
+    whenExchange().thenThrow(new ResourceAccessException("Connection refused"));
+
+    DependencyUnavailableException exception =
+        assertThrows(DependencyUnavailableException.class, systemService::fetchExternalApi);
+    assertEquals(SystemService.COFFEE_API, exception.getDependency());
+  }
+
+  /** Tests that an open breaker answers from the fallback without calling the upstream. */
+  @Test
+  void fetchExternalApi_failsFastOnceTheCircuitIsOpen() {
+    whenExchange()
+        .thenReturn(ResponseEntity.ok(List.of(coffee("Latte"))))
+        .thenThrow(new ResourceAccessException("Read timed out"));
+    for (int i = 0; i < 4; i++) {
+      systemService.fetchExternalApi();
+    }
+    assertEquals(
+        CircuitBreaker.State.OPEN,
+        circuitBreakerRegistry.circuitBreaker(SystemService.COFFEE_API).getState());
+
+    UpstreamResult<List<CoffeeEntity>> result = systemService.fetchExternalApi();
+
+    assertTrue(result.isStale());
+    assertEquals("Circuit breaker is open", result.getDegradedReason());
+    verify(restTemplate, times(4))
+        .exchange(
+            anyString(),
+            eq(HttpMethod.GET),
+            any(HttpEntity.class),
+            any(ParameterizedTypeReference.class));
+  }
+
+  /** Tests that a call beyond the bulkhead limit is rejected while the first one is in flight. */
+  @Test
+  void fetchExternalApi_rejectsCallsBeyondTheBulkhead() throws Exception {
+    whenExchange().thenReturn(ResponseEntity.ok(List.of(coffee("Latte"))));
+    systemService.fetchExternalApi();
+
+    CountDownLatch inFlight = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    whenExchange()
+        .thenAnswer(
+            invocation -> {
+              inFlight.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return ResponseEntity.ok(List.of(coffee("Mocha")));
+            });
+    CompletableFuture<UpstreamResult<List<CoffeeEntity>>> slow =
+        CompletableFuture.supplyAsync(systemService::fetchExternalApi);
+    assertTrue(inFlight.await(5, TimeUnit.SECONDS));
+
+    UpstreamResult<List<CoffeeEntity>> rejected = systemService.fetchExternalApi();
+    release.countDown();
+
+    assertEquals("Too many concurrent calls", rejected.getDegradedReason());
+    assertEquals("Latte", rejected.getBody().get(0).getTitle());
+    assertEquals("Mocha", slow.get(5, TimeUnit.SECONDS).getBody().get(0).getTitle());
+  }
+
+  @SuppressWarnings("unchecked")
+  private OngoingStubbing<ResponseEntity<List<CoffeeEntity>>> whenExchange() {
+    return when(
+        restTemplate.exchange(
+            eq(URL),
+            eq(HttpMethod.GET),
+            any(HttpEntity.class),
+            any(ParameterizedTypeReference.class)));
+  }
+
+  private static CoffeeEntity coffee(String title) {
+    CoffeeEntity coffee = new CoffeeEntity();
+    coffee.setTitle(title);
+    return coffee;
+  }
+}
@@ -0,0 +1,124 @@
+package in.newdevpoint.bootcamp.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.event.UserChangedEvent;
+import in.newdevpoint.bootcamp.exceptions.ValidationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Test class for {@link UserAutocompleteIndex}. Verifies prefix lookups over usernames and emails,
+ * that writes reported by events reach the index, and the MongoDB fallback before the first build.
+ */
+@ExtendWith(MockitoExtension.class)
+public class UserAutocompleteIndexTest {
+
+  @Mock private MongoTemplate template;
+
+  private SimpleMeterRegistry meterRegistry;
+  private UserAutocompleteIndex index;
+
+  /** Creates an index returning at most five users before each test. */
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    index = new UserAutocompleteIndex(template, 5, 4096, 100, meterRegistry);
+  }
+
+  /** Stops the writer thread after each test. */
+  @AfterEach
+  void tearDown() {
+    index.stop();
+  }
+
+  /** Tests that usernames and emails match ignoring case, once per user and in sorted order. */
+  @Test
+  void suggest_matchesUsernamesAndEmailsIgnoringCase() {
+    build(user("1", "alice", "alice@example.com"), user("2", "Alfred", "al@zeta.io"));
+
+    assertEquals(List.of("2", "1"), ids(index.suggest("AL", 5)));
+    assertEquals(List.of("2"), ids(index.suggest("al", 1)));
+    assertEquals(List.of("1"), ids(index.suggest("alice@", 5)));
+    assertEquals(List.of(), ids(index.suggest("bob", 5)));
+    assertTrue(
+        meterRegistry.get("users.autocomplete.bytesPerMillionUsers").gauge().value() > 0,
+        "memory footprint should be reported");
+    verify(template, never()).find(any(Query.class), eq(UserEntity.class));
+  }
+
+  /** Tests that updated, created and deleted users are re-read after their events. */
+  @Test
+  void onUserChanged_appliesWrites() throws InterruptedException {
+    build(user("1", "alice", "alice@example.com"), user("2", "bob", "bob@example.com"));
+    when(template.find(any(Query.class), eq(UserEntity.class)))
+        .thenReturn(
+            List.of(
+                user("1", "zed", "alice@example.com"), user("3", "alina", "alina@example.com")));
+
+    index.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED, "1", "zed"));
+    index.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.CREATED, "3", "alina"));
+    index.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.DELETED, "2", null));
+    awaitIds("z", List.of("1"));
+    awaitIds("b", List.of());
+
+    assertEquals(List.of("1", "3"), ids(index.suggest("ali", 5)));
+  }
+
+  /** Tests that lookups are answered by MongoDB until the index has been built. */
+  @Test
+  void suggest_queriesMongoBeforeTheFirstBuild() {
+    when(template.find(any(Query.class), eq(UserEntity.class)))
+        .thenReturn(List.of(user("1", "alice", "alice@example.com")));
+
+    assertEquals(List.of("1"), ids(index.suggest("al", 5)));
+    assertEquals(
+        1.0, meterRegistry.get("users.autocomplete").tag("source", "query").timer().count());
+  }
+
+  /** Tests that a blank prefix or a limit above the maximum is rejected. */
+  @Test
+  void suggest_rejectsInvalidRequests() {
+    assertThrows(ValidationException.class, () -> index.suggest(" ", 5));
+    assertThrows(ValidationException.class, () -> index.suggest("al", 6));
+    verifyNoInteractions(template);
+  }
+
+  private void build(UserEntity... users) {
+    when(template.stream(any(Query.class), eq(UserEntity.class))).thenReturn(Stream.of(users));
+    index.rebuild();
+  }
+
+  private void awaitIds(String prefix, List<String> expected) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!ids(index.suggest(prefix, 5)).equals(expected)
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(expected, ids(index.suggest(prefix, 5)));
+  }
+
+  private static List<String> ids(List<UserEntity> users) {
+    return users.stream().map(UserEntity::getId).collect(Collectors.toList());
+  }
+
+  private static UserEntity user(String id, String username, String email) {
+    UserEntity user = new UserEntity(username, email, null);
+    user.setId(id);
+    return user;
+  }
+}
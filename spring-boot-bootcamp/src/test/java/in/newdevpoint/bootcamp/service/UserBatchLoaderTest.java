@@ -0,0 +1,108 @@
+package in.newdevpoint.bootcamp.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.exceptions.ValidationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Test class for {@link UserBatchLoader}. Verifies that ids and usernames are resolved with one
+ * query, that missing keys are reported, and that concurrent lookups of the same key share a query.
+ */
+@ExtendWith(MockitoExtension.class)
+public class UserBatchLoaderTest {
+
+  @Mock private MongoTemplate template;
+
+  @Mock private UserVersionIndex versionIndex;
+
+  private SimpleMeterRegistry meterRegistry;
+  private UserBatchLoader batchLoader;
+
+  /** Creates a loader accepting up to three keys before each test. */
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    batchLoader = new UserBatchLoader(template, versionIndex, 3, meterRegistry);
+  }
+
+  /** Tests that ids and usernames are resolved by a single $in query with the projection. */
+  @Test
+  void load_resolvesIdsAndUsernamesWithOneQuery() {
+    when(template.find(any(Query.class), eq(UserEntity.class)))
+        .thenReturn(List.of(user("1", "first"), user("2", "second")));
+
+    UserBatchLoader.Result result = batchLoader.load(List.of("1", "9"), List.of("second"), "email");
+
+    assertEquals("first", result.getById().get("1").orElseThrow().getUsername());
+    assertEquals(Optional.empty(), result.getById().get("9"));
+    assertEquals("2", result.getByUsername().get("second").orElseThrow().getId());
+    ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+    verify(template, times(1)).find(queryCaptor.capture(), eq(UserEntity.class));
+    assertEquals(
+        Document.parse("{id: 1, version: 1, email: 1, username: 1}"),
+        queryCaptor.getValue().getFieldsObject());
+    assertTrue(queryCaptor.getValue().getQueryObject().containsKey("$or"));
+  }
+
+  /** Tests that a request for a key already being loaded joins that lookup instead of querying. */
+  @Test
+  void load_coalescesConcurrentLookupsOfTheSameId() throws Exception {
+    CountDownLatch queryStarted = new CountDownLatch(1);
+    CountDownLatch releaseQuery = new CountDownLatch(1);
+    when(template.find(any(Query.class), eq(UserEntity.class)))
+        .thenAnswer(
+            invocation -> {
+              queryStarted.countDown();
+              releaseQuery.await(5, TimeUnit.SECONDS);
+              return List.of(user("1", "first"));
+            });
+
+    CompletableFuture<UserBatchLoader.Result> first =
+        CompletableFuture.supplyAsync(() -> batchLoader.load(List.of("1"), List.of(), null));
+    assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+    CompletableFuture<UserBatchLoader.Result> second =
+        CompletableFuture.supplyAsync(() -> batchLoader.load(List.of("1"), List.of(), null));
+    while (meterRegistry.get("users.batch.keys").tag("source", "coalesced").counter().count() < 1) {
+      Thread.sleep(10);
+    }
+    releaseQuery.countDown();
+
+    assertEquals("first", first.get(5, TimeUnit.SECONDS).getById().get("1").get().getUsername());
+    assertEquals("first", second.get(5, TimeUnit.SECONDS).getById().get("1").get().getUsername());
+    verify(template, times(1)).find(any(Query.class), eq(UserEntity.class));
+  }
+
+  /** Tests that requests for more keys than allowed are rejected before querying. */
+  @Test
+  void load_rejectsTooManyKeys() {
+    assertThrows(
+        ValidationException.class,
+        () -> batchLoader.load(List.of("1", "2"), List.of("a", "b"), null));
+    verifyNoInteractions(template);
+  }
+
+  private UserEntity user(String id, String username) {
+    UserEntity user = new UserEntity(username, username + "@example.com", null);
+    user.setId(id);
+    return user;
+  }
+}
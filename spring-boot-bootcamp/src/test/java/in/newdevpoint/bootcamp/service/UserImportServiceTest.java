@@ -0,0 +1,181 @@
+package in.newdevpoint.bootcamp.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.event.UserChangedEvent;
+import in.newdevpoint.bootcamp.payload.request.SignupRequest;
+import in.newdevpoint.bootcamp.payload.response.BulkImportResponse;
+import in.newdevpoint.bootcamp.payload.response.BulkImportResponse.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Test class for {@link UserImportService}. Verifies that rows are deduplicated with one query per
+ * chunk, hashed on the hashing pool and written with one unordered bulk insert per chunk, and that
+ * failed chunks and unreadable rows are reported.
+ */
+@ExtendWith(MockitoExtension.class)
+public class UserImportServiceTest {
+
+  @Mock private MongoTemplate template;
+
+  @Mock private PasswordEncoder encoder;
+
+  @Mock private RoleService roleService;
+
+  @Mock private BulkOperations bulkOperations;
+
+  @Mock private ApplicationEventPublisher eventPublisher;
+
+  private PasswordHashingService hashingService;
+
+  private UserImportService importService;
+
+  /** Creates the service with a real validator and a small hashing pool before each test. */
+  @BeforeEach
+  void setUp() {
+    hashingService = new PasswordHashingService(encoder, new SimpleMeterRegistry(), 2, 10, 1);
+    importService =
+        new UserImportService(
+            template,
+            hashingService,
+            roleService,
+            Validation.buildDefaultValidatorFactory().getValidator(),
+            eventPublisher);
+    ReflectionTestUtils.setField(importService, "chunkSize", 2);
+    lenient().when(encoder.encode(anyString())).thenAnswer(call -> "hashed:" + call.getArgument(0));
+    lenient()
+        .when(template.bulkOps(BulkOperations.BulkMode.UNORDERED, UserEntity.class))
+        .thenReturn(bulkOperations);
+    lenient().when(bulkOperations.insert(any(List.class))).thenReturn(bulkOperations);
+  }
+
+  /** Shuts the hashing pool down after each test. */
+  @AfterEach
+  void tearDown() {
+    hashingService.shutdown();
+  }
+
+  /** Tests that each chunk costs one lookup and one bulk insert, and every row is reported. */
+  @Test
+  @SuppressWarnings("unchecked")
+  void importUsers_insertsEachChunkInOneBulkWrite() {
+    when(template.find(any(Query.class), eq(UserEntity.class))).thenReturn(List.of());
+
+    BulkImportResponse report =
+        importService.importUsers(List.of(row("alice"), row("bob"), row("carol")).iterator());
+
+    assertEquals(3, report.getCreated());
+    assertEquals(0, report.getFailed());
+    assertNotNull(report.getRows().get(2).getId());
+    verify(template, times(2)).find(any(Query.class), eq(UserEntity.class));
+    ArgumentCaptor<List<UserEntity>> inserted = ArgumentCaptor.forClass(List.class);
+    verify(bulkOperations, times(2)).insert(inserted.capture());
+    assertEquals("hashed:password-alice", inserted.getAllValues().get(0).get(0).getPassword());
+    assertEquals(1, inserted.getAllValues().get(1).size());
+    verify(eventPublisher, times(3)).publishEvent(any(UserChangedEvent.class));
+  }
+
+  /** Tests that invalid, repeated and already registered rows are rejected without an insert. */
+  @Test
+  void importUsers_reportsRejectedRows() {
+    UserEntity existing = new UserEntity("taken", "someone@example.com", null);
+    when(template.find(any(Query.class), eq(UserEntity.class))).thenReturn(List.of(existing));
+    SignupRequest invalid = row("x");
+
+    BulkImportResponse report =
+        importService.importUsers(
+            List.of(row("taken"), row("dave"), row("dave"), invalid).iterator());
+
+    List<BulkImportResponse.RowResult> rows = report.getRows();
+    assertEquals(Status.USERNAME_TAKEN, rows.get(0).getStatus());
+    assertEquals(Status.CREATED, rows.get(1).getStatus());
+    assertEquals(Status.DUPLICATE_IN_REQUEST, rows.get(2).getStatus());
+    assertEquals(Status.INVALID, rows.get(3).getStatus());
+    assertEquals(1, report.getCreated());
+    assertEquals(3, report.getFailed());
+    verify(encoder, times(1)).encode(anyString());
+  }
+
+  /** Tests that a chunk failing as a whole is reported and does not stop the next chunk. */
+  @Test
+  void importUsers_reportsFailedChunkAndContinues() {
+    when(template.find(any(Query.class), eq(UserEntity.class)))
+        .thenThrow(new DataAccessResourceFailureException("connection reset"))
+        .thenReturn(List.of());
+
+    BulkImportResponse report =
+        importService.importUsers(List.of(row("alice"), row("bob"), row("carol")).iterator());
+
+    List<BulkImportResponse.RowResult> rows = report.getRows();
+    assertEquals(Status.FAILED, rows.get(0).getStatus());
+    assertEquals("Error: Could not import row: connection reset", rows.get(1).getMessage());
+    assertEquals(Status.CREATED, rows.get(2).getStatus());
+    assertEquals(1, report.getCreated());
+    assertEquals(2, report.getFailed());
+  }
+
+  /** Tests that an unreadable row is reported with its parse error after the rows before it. */
+  @Test
+  void importUsers_reportsUnreadableRow() {
+    when(template.find(any(Query.class), eq(UserEntity.class))).thenReturn(List.of());
+    Iterator<SignupRequest> rows =
+        new Iterator<>() {
+          private int read;
+
+          @Override
+          public boolean hasNext() {
+            return true;
+          }
+
+          @Override
+          public SignupRequest next() {
+            if (read++ == 1) {
+              throw new UncheckedIOException(
+                  "Error: Could not read row: Unexpected character", new IOException());
+            }
+            return row("alice");
+          }
+        };
+
+    BulkImportResponse report = importService.importUsers(rows);
+
+    assertEquals(2, report.getRows().size());
+    assertEquals(Status.CREATED, report.getRows().get(0).getStatus());
+    BulkImportResponse.RowResult unreadable = report.getRows().get(1);
+    assertEquals(1, unreadable.getRow());
+    assertEquals(Status.INVALID, unreadable.getStatus());
+    assertEquals("Error: Could not read row: Unexpected character", unreadable.getMessage());
+  }
+
+  private SignupRequest row(String username) {
+    SignupRequest request = new SignupRequest();
+    request.setUsername(username);
+    request.setEmail(username + "@example.com");
+    request.setPassword("password-" + username);
+    return request;
+  }
+}
@@ -7,23 +7,42 @@ import static org.mockito.Mockito.*;
 
 import in.newdevpoint.bootcamp.dto.UserReq;
 import in.newdevpoint.bootcamp.entity.UserEntity;
+import in.newdevpoint.bootcamp.event.UserChangedEvent;
+import in.newdevpoint.bootcamp.exceptions.UserNotFoundException;
+import in.newdevpoint.bootcamp.exceptions.ValidationException;
 import in.newdevpoint.bootcamp.mapper.UserMapper;
+import in.newdevpoint.bootcamp.payload.response.CursorPageResponse;
 import in.newdevpoint.bootcamp.repository.UserRepository;
+import in.newdevpoint.bootcamp.utility.SearchCursor;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.core.env.Environment;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 /**
@@ -36,8 +55,9 @@ import org.springframework.web.multipart.MultipartFile;
  * Integrates Mockito with JUnit 5's extension mechanism - Required for using Mockito annotations
  * like @Mock and @InjectMocks
  *
- * <p>{@code @Mock} - Creates mock objects for dependencies - Used for: Environment, MongoTemplate,
- * UserMapper, and UserRepository - Allows controlling the behavior of these dependencies in tests
+ * <p>{@code @Mock} - Creates mock objects for dependencies - Used for: MongoTemplate, UserMapper,
+ * UserRepository, ApplicationEventPublisher, ProfileStorageService, ProfileImageService and
+ * UserVersionIndex - Allows controlling the behavior of these dependencies in tests
  *
  * <p>{@code @InjectMocks} - Creates an instance of UserService - Automatically injects all @Mock
  * fields into the service - Used for the class under test (UserService)
@@ -51,14 +71,20 @@ import org.springframework.web.multipart.MultipartFile;
 @ExtendWith(MockitoExtension.class)
 public class UserServiceTest {
 
-  @Mock private Environment environment;
-
   @Mock private MongoTemplate template;
 
   @Mock private UserMapper userMapper;
 
   @Mock private UserRepository userRepository;
 
+  @Mock private ApplicationEventPublisher eventPublisher;
+
+  @Mock private ProfileStorageService profileStorage;
+
+  @Mock private ProfileImageService profileImages;
+
+  @Mock private UserVersionIndex versionIndex;
+
   @InjectMocks private UserService userService;
 
   private UserEntity userEntity;
@@ -91,8 +117,6 @@ public class UserServiceTest {
     List<UserReq> userReqs = new ArrayList<>();
     userReqs.add(userReq);
 
-    Page<UserEntity> page = new PageImpl<>(userEntities);
-    when(template.count(any(), eq(UserEntity.class))).thenReturn((long) userEntities.size());
     when(template.find(any(), eq(UserEntity.class))).thenReturn(userEntities);
     when(userMapper.mapToResponseEntityList(any())).thenReturn(userReqs);
 
@@ -100,12 +124,158 @@ public class UserServiceTest {
 
     assertNotNull(result);
     assertEquals(1, result.getContent().size());
+    assertEquals(1, result.getTotalElements());
     assertEquals("testUser", result.getContent().get(0).getUsername());
-    verify(template).count(any(), eq(UserEntity.class));
+    // A partial first page already tells the total, so no count query is issued
+    verify(template, never()).count(any(), eq(UserEntity.class));
     verify(template).find(any(), eq(UserEntity.class));
     verify(userMapper).mapToResponseEntityList(any());
   }
 
+  /**
+   * Tests the searchUser method to verify that a full page without a filter is counted from the
+   * estimated collection size instead of a count query.
+   */
+  @Test
+  void searchUser_usesEstimatedCountWithoutFilter() {
+    when(template.find(any(), eq(UserEntity.class))).thenReturn(List.of(userEntity));
+    when(userMapper.mapToResponseEntityList(any())).thenReturn(List.of(userReq));
+    when(template.estimatedCount(UserEntity.class)).thenReturn(42L);
+
+    Page<UserReq> result = userService.searchUser(1, 0, "ASC", null, "id");
+
+    assertEquals(42, result.getTotalElements());
+    verify(template, never()).count(any(), eq(UserEntity.class));
+  }
+
+  /**
+   * Tests the searchUserByCursor method to verify that a full page returns a cursor and that the
+   * cursor is turned into a range predicate on the sort field with the id as tiebreaker.
+   */
+  @Test
+  void searchUserByCursor_continuesAfterLastSortKey() {
+    UserEntity second = new UserEntity("user2", "user2@example.com", "123456");
+    second.setId("2");
+    UserEntity third = new UserEntity("user3", "user3@example.com", "123456");
+    third.setId("3");
+    when(template.getConverter())
+        .thenReturn(
+            new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+    when(template.find(any(), eq(UserEntity.class)))
+        .thenReturn(List.of(userEntity, second, third), List.of(third));
+    when(userMapper.mapToResponseEntityList(any())).thenReturn(List.of(userReq));
+
+    CursorPageResponse<UserReq> first =
+        userService.searchUserByCursor(2, "ASC", null, "username", null, false, null);
+
+    assertNotNull(first.getNextCursor());
+    assertNull(first.getTotalElements());
+
+    CursorPageResponse<UserReq> next =
+        userService.searchUserByCursor(
+            2, "ASC", null, "username", first.getNextCursor(), false, null);
+
+    assertNull(next.getNextCursor());
+    ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+    verify(template, times(2)).find(queryCaptor.capture(), eq(UserEntity.class));
+    Query continued = queryCaptor.getAllValues().get(1);
+    assertEquals(
+        Document.parse(
+            "{$or: [{username: {$gt: 'user2'}}, {$and: [{username: 'user2'}, {id: {$gt: '2'}}]}]}"),
+        continued.getQueryObject());
+    assertEquals(Document.parse("{username: 1, id: 1}"), continued.getSortObject());
+    assertEquals(3, continued.getLimit());
+    verify(template, never()).count(any(), eq(UserEntity.class));
+  }
+
+  /**
+   * Tests the searchUser method to verify that only the fields of UserReq are fetched, so the
+   * password hash and role references are never loaded.
+   */
+  @Test
+  void searchUser_projectsResponseFields() {
+    when(template.find(any(), eq(UserEntity.class))).thenReturn(List.of(userEntity));
+    when(userMapper.mapToResponseEntityList(any())).thenReturn(List.of(userReq));
+
+    userService.searchUser(10, 0, "ASC", null, "id");
+
+    ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+    verify(template).find(queryCaptor.capture(), eq(UserEntity.class));
+    assertEquals(
+        Document.parse("{id: 1, username: 1, email: 1, profileImage: 1, version: 1}"),
+        queryCaptor.getValue().getFieldsObject());
+  }
+
+  /**
+   * Tests the streamUsers method to verify that users are streamed from a cursor with the
+   * configured batch size and only the response fields.
+   */
+  @Test
+  void streamUsers_streamsFromBatchedCursor() {
+    ReflectionTestUtils.setField(userService, "exportBatchSize", 250);
+    when(template.stream(any(Query.class), eq(UserEntity.class))).thenReturn(Stream.of(userEntity));
+
+    try (Stream<UserEntity> users = userService.streamUsers(null)) {
+      assertEquals(1, users.count());
+    }
+
+    ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+    verify(template).stream(queryCaptor.capture(), eq(UserEntity.class));
+    assertEquals(250, queryCaptor.getValue().getMeta().getCursorBatchSize());
+    assertFalse(queryCaptor.getValue().getFieldsObject().containsKey("password"));
+    verify(userRepository, never()).findAll();
+  }
+
+  /**
+   * Tests the getUserById method with a fields list to verify that only the requested fields, the
+   * id and the version are fetched, that the version is indexed, and that unknown fields are
+   * rejected.
+   */
+  @Test
+  void getUserById_fetchesRequestedFields() {
+    when(template.findOne(any(), eq(UserEntity.class))).thenReturn(userEntity);
+
+    Optional<UserEntity> result = userService.getUserById("1", "username");
+
+    assertTrue(result.isPresent());
+    ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+    verify(template).findOne(queryCaptor.capture(), eq(UserEntity.class));
+    assertEquals(
+        Document.parse("{id: 1, version: 1, username: 1}"),
+        queryCaptor.getValue().getFieldsObject());
+    verify(versionIndex).record(userEntity.getId(), userEntity.getUsername(), null);
+    assertThrows(ValidationException.class, () -> userService.getUserById("1", "password"));
+  }
+
+  /**
+   * Tests the searchUserByCursor method to verify that a cursor issued for another sort order is
+   * rejected.
+   */
+  @Test
+  void searchUserByCursor_rejectsCursorForDifferentSort() {
+    when(template.getConverter())
+        .thenReturn(
+            new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+    String cursor = new SearchCursor("email", Sort.Direction.ASC, "a@example.com", "1").encode();
+
+    assertThrows(
+        ValidationException.class,
+        () -> userService.searchUserByCursor(2, "ASC", null, "username", cursor, false, null));
+    verify(template, never()).find(any(), eq(UserEntity.class));
+  }
+
+  /**
+   * Tests the searchUserByCursor method to verify that fields a user read cannot return, such as
+   * the password hash, cannot be sorted by and so never end up in a cursor.
+   */
+  @Test
+  void searchUserByCursor_rejectsSortByNonResponseField() {
+    assertThrows(
+        ValidationException.class,
+        () -> userService.searchUserByCursor(2, "ASC", null, "password", null, false, null));
+    verify(template, never()).find(any(), eq(UserEntity.class));
+  }
+
   /**
    * Tests the getUsers method to verify it returns all users from the repository. Verifies that the
    * method correctly retrieves and returns the list of users.
@@ -125,41 +295,128 @@ public class UserServiceTest {
   }
 
   /**
-   * Tests the updateUser method to verify it successfully updates an existing user. Verifies that
-   * the method correctly updates user information and returns the updated user.
+   * Tests the updateUser method to verify it updates an existing user in a single findAndModify.
+   * Verifies that only non-blank fields are set, the version and token version are incremented and
+   * the post-image is returned without a separate read.
    */
   @Test
   void updateUser_updatesExistingUser() {
-    UserEntity existingUser = new UserEntity("oldUser", "test@example.com", "123456");
-    existingUser.setId("1");
-
-    UserEntity updatedUser = new UserEntity("newUser", "test@example.com", "123456");
+    UserEntity updatedUser = new UserEntity("newUser", "", "123456");
     updatedUser.setId("1");
-
-    when(userRepository.findById("1")).thenReturn(Optional.of(existingUser));
-    when(userRepository.save(any(UserEntity.class))).thenReturn(updatedUser);
+    UserEntity postImage = new UserEntity("newUser", "test@example.com", "123456");
+    postImage.setId("1");
+    postImage.setVersion(1L);
+
+    ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+    when(template.findAndModify(
+            any(Query.class),
+            updateCaptor.capture(),
+            any(FindAndModifyOptions.class),
+            eq(UserEntity.class)))
+        .thenReturn(postImage);
 
     UserEntity result = userService.updateUser("1", updatedUser);
 
-    assertNotNull(result);
-    assertEquals("newUser", result.getUsername());
-    assertEquals("test@example.com", result.getEmail());
-    verify(userRepository).findById("1");
-    verify(userRepository).save(any(UserEntity.class));
+    assertSame(postImage, result);
+    Document update = updateCaptor.getValue().getUpdateObject();
+    assertEquals(new Document("username", "newUser"), update.get("$set"));
+    // The username is carried in tokens, so the token version moves with it
+    assertEquals(new Document("version", 1).append("tokenVersion", 1), update.get("$inc"));
+    verify(userRepository, never()).findById(any());
+    verify(userRepository, never()).save(any(UserEntity.class));
+    verify(eventPublisher).publishEvent(any(UserChangedEvent.class));
   }
 
   /**
    * Tests the updateUser method to verify it throws an exception when the user is not found.
-   * Verifies that the method throws UsernameNotFoundException for non-existent users.
+   * Verifies that the method throws UserNotFoundException for non-existent users.
    */
   @Test
   void updateUser_throwsExceptionWhenUserNotFound() {
     UserEntity updatedUser = new UserEntity("newUser", "test@example.com", "123456");
-    when(userRepository.findById("1")).thenReturn(Optional.empty());
+    updatedUser.setVersion(3L);
+    when(template.findAndModify(
+            any(Query.class), any(Update.class), any(FindAndModifyOptions.class), any()))
+        .thenReturn(null);
+    when(template.exists(any(Query.class), eq(UserEntity.class))).thenReturn(false);
+
+    assertThrows(UserNotFoundException.class, () -> userService.updateUser("1", updatedUser));
+    verify(eventPublisher, never()).publishEvent(any());
+  }
 
-    assertThrows(UsernameNotFoundException.class, () -> userService.updateUser("1", updatedUser));
-    verify(userRepository).findById("1");
-    verify(userRepository, never()).save(any(UserEntity.class));
+  /**
+   * Tests the updateUser method to verify a stale version is rejected. Verifies that the query is
+   * guarded by the expected version and that a mismatch on an existing user is a conflict.
+   */
+  @Test
+  void updateUser_rejectsStaleVersion() {
+    UserEntity updatedUser = new UserEntity("newUser", "test@example.com", "123456");
+    updatedUser.setVersion(3L);
+    ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+    when(template.findAndModify(
+            queryCaptor.capture(), any(Update.class), any(FindAndModifyOptions.class), any()))
+        .thenReturn(null);
+    when(template.exists(any(Query.class), eq(UserEntity.class))).thenReturn(true);
+
+    assertThrows(
+        OptimisticLockingFailureException.class, () -> userService.updateUser("1", updatedUser));
+    assertEquals(3L, queryCaptor.getValue().getQueryObject().get("version"));
+    verify(eventPublisher, never()).publishEvent(any());
+  }
+
+  /**
+   * Tests the patchUser method to verify only the fields present in the patch are set, and that a
+   * patch removing a required field is rejected before reaching MongoDB.
+   */
+  @Test
+  void patchUser_setsPresentFieldsAndRejectsRemovals() {
+    UserEntity postImage = new UserEntity("testUser", "new@example.com", "123456");
+    ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+    when(template.findAndModify(
+            any(Query.class),
+            updateCaptor.capture(),
+            any(FindAndModifyOptions.class),
+            eq(UserEntity.class)))
+        .thenReturn(postImage);
+
+    UserEntity result = userService.patchUser("1", null, Map.of("email", "new@example.com"));
+
+    assertSame(postImage, result);
+    assertEquals(
+        new Document("email", "new@example.com"),
+        updateCaptor.getValue().getUpdateObject().get("$set"));
+
+    Map<String, Object> removal = new HashMap<>();
+    removal.put("username", null);
+    assertThrows(ValidationException.class, () -> userService.patchUser("1", null, removal));
+    assertThrows(
+        ValidationException.class,
+        () -> userService.patchUser("1", null, Map.of("password", "secret")));
+    verify(template, times(1))
+        .findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), any());
+  }
+
+  /**
+   * Tests the revokeTokens method to verify it increments only the token version, leaving the
+   * version the ETag is derived from untouched, and reports the change.
+   */
+  @Test
+  void revokeTokens_incrementsOnlyTokenVersion() {
+    ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+    when(template.findAndModify(
+            any(Query.class),
+            updateCaptor.capture(),
+            any(FindAndModifyOptions.class),
+            eq(UserEntity.class)))
+        .thenReturn(userEntity)
+        .thenReturn(null);
+
+    assertSame(userEntity, userService.revokeTokens("1"));
+    assertEquals(
+        new Document("$inc", new Document("tokenVersion", 1)),
+        updateCaptor.getValue().getUpdateObject());
+    verify(eventPublisher).publishEvent(any(UserChangedEvent.class));
+    assertThrows(UserNotFoundException.class, () -> userService.revokeTokens("2"));
   }
 
   /**
@@ -171,6 +428,7 @@ public class UserServiceTest {
     String userId = "1";
     userService.deleteUser(userId);
     verify(userRepository).deleteById(userId);
+    verify(eventPublisher).publishEvent(any(UserChangedEvent.class));
   }
 
   /**
@@ -263,19 +521,37 @@ public class UserServiceTest {
    * that the method correctly handles file upload and updates the user's profile.
    */
   @Test
-  void uploadUserProfile_updatesUserProfile() {
+  void uploadUserProfile_updatesUserProfile() throws Exception {
     MultipartFile file =
         new MockMultipartFile("file", "test.jpg", "image/jpeg", "test image content".getBytes());
-    when(userRepository.findByUsername("testUser")).thenReturn(Optional.of(userEntity));
-    when(userRepository.save(any(UserEntity.class))).thenReturn(userEntity);
-    when(environment.getProperty("file.upload.path")).thenReturn("uploads/");
+    String hash = "a".repeat(64);
+    userEntity.setProfileImageHash("b".repeat(64));
+    userEntity.setVersion(4L);
+    when(template.exists(any(Query.class), eq(UserEntity.class))).thenReturn(true);
+    when(profileStorage.store(file))
+        .thenReturn(
+            new ProfileStorageService.StoredBlob(hash, Paths.get("uploads/blobs/aa", hash), 18));
+    ArgumentCaptor<Update> updateCaptor = ArgumentCaptor.forClass(Update.class);
+    when(template.findAndModify(
+            any(Query.class),
+            updateCaptor.capture(),
+            any(FindAndModifyOptions.class),
+            eq(UserEntity.class)))
+        .thenReturn(userEntity);
 
     UserEntity result = userService.uploadUserProfile(file, "testUser");
 
     assertNotNull(result);
     assertEquals("testUser", result.getUsername());
-    verify(userRepository).findByUsername("testUser");
-    verify(userRepository).save(any(UserEntity.class));
+    assertEquals(hash, result.getProfileImageHash());
+    assertEquals("/images/" + hash, result.getProfileImage());
+    assertEquals(5L, result.getVersion());
+    Document update = updateCaptor.getValue().getUpdateObject();
+    assertEquals(hash, ((Document) update.get("$set")).get("profileImageHash"));
+    assertEquals(new Document("version", 1), update.get("$inc"));
+    verify(userRepository, never()).save(any(UserEntity.class));
+    verify(profileImages).generateVariants(hash);
+    verify(profileStorage).release("b".repeat(64));
   }
 
   /**
@@ -286,12 +562,17 @@ public class UserServiceTest {
   void uploadUserProfile_returnsNullWhenUserNotFound() {
     MultipartFile file =
         new MockMultipartFile("file", "test.jpg", "image/jpeg", "test image content".getBytes());
-    when(userRepository.findByUsername("testUser")).thenReturn(Optional.empty());
+    when(template.exists(any(Query.class), eq(UserEntity.class))).thenReturn(false);
 
     UserEntity result = userService.uploadUserProfile(file, "testUser");
 
     assertNull(result);
-    verify(userRepository).findByUsername("testUser");
-    verify(userRepository, never()).save(any(UserEntity.class));
+    verify(template, never())
+        .findAndModify(
+            any(Query.class),
+            any(Update.class),
+            any(FindAndModifyOptions.class),
+            eq(UserEntity.class));
+    verifyNoInteractions(profileStorage);
   }
 }
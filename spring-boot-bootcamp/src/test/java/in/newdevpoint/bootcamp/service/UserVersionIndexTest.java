@@ -0,0 +1,71 @@
+package in.newdevpoint.bootcamp.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import in.newdevpoint.bootcamp.event.UserChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link UserVersionIndex}. Verifies that versions are looked up by id and username,
+ * never move backwards and are dropped when the user changes.
+ */
+public class UserVersionIndexTest {
+
+  private UserVersionIndex versionIndex;
+
+  /** Creates a small index before each test. */
+  @BeforeEach
+  void setUp() {
+    versionIndex = new UserVersionIndex(100, 60_000, new SimpleMeterRegistry());
+  }
+
+  /** Tests that a recorded version is found by id and username, and legacy users count as 0. */
+  @Test
+  void record_indexesVersionByIdAndUsername() {
+    versionIndex.record("1", "testUser", 4L);
+    versionIndex.record("2", null, null);
+
+    assertEquals(Optional.of(4L), versionIndex.versionOf("1"));
+    assertEquals(Optional.of(4L), versionIndex.versionOfUsername("testUser"));
+    assertEquals(Optional.of(0L), versionIndex.versionOf("2"));
+    assertTrue(versionIndex.versionOfUsername("other").isEmpty());
+  }
+
+  /** Tests that a late read of an older version does not replace a newer one. */
+  @Test
+  void record_keepsNewestVersion() {
+    versionIndex.record("1", "testUser", 5L);
+    versionIndex.record("1", "testUser", 4L);
+
+    assertEquals(Optional.of(5L), versionIndex.versionOf("1"));
+  }
+
+  /** Tests that a change event drops the version and the username mapping, even after a rename. */
+  @Test
+  void onUserChanged_evictsByIdAndUsername() {
+    versionIndex.record("1", "oldName", 4L);
+
+    versionIndex.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED, "1", "newName"));
+
+    assertTrue(versionIndex.versionOf("1").isEmpty());
+    assertTrue(versionIndex.versionOfUsername("oldName").isEmpty());
+
+    // Once the user is indexed again, the old username must not resolve to it
+    versionIndex.record("1", "newName", 5L);
+    assertTrue(versionIndex.versionOfUsername("oldName").isEmpty());
+    assertEquals(Optional.of(5L), versionIndex.versionOfUsername("newName"));
+  }
+
+  /** Tests that recording a user under a new username drops its old username. */
+  @Test
+  void record_dropsPreviousUsername() {
+    versionIndex.record("1", "oldName", 4L);
+    versionIndex.record("1", "newName", 5L);
+
+    assertTrue(versionIndex.versionOfUsername("oldName").isEmpty());
+    assertEquals(Optional.of(5L), versionIndex.versionOfUsername("newName"));
+  }
+}
@@ -3,13 +3,18 @@ package in.newdevpoint.bootcamp.usecase;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.newdevpoint.bootcamp.dto.UserPatch;
 import in.newdevpoint.bootcamp.dto.UserReq;
 import in.newdevpoint.bootcamp.entity.UserEntity;
 import in.newdevpoint.bootcamp.exceptions.UserNotFoundException;
 import in.newdevpoint.bootcamp.mapper.UserMapper;
 import in.newdevpoint.bootcamp.service.UserService;
+import in.newdevpoint.bootcamp.service.UserVersionIndex;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +22,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.openapitools.jackson.nullable.JsonNullableModule;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.mock.web.MockMultipartFile;
@@ -32,8 +38,8 @@ import org.springframework.web.multipart.MultipartFile;
  * Integrates Mockito with JUnit 5's extension mechanism - Required for using Mockito annotations
  * like @Mock and @InjectMocks
  *
- * <p>{@code @Mock} - Creates mock objects for dependencies - Used for: UserService and UserMapper -
- * Allows controlling the behavior of these dependencies in tests
+ * <p>{@code @Mock} - Creates mock objects for dependencies - Used for: UserService, UserMapper and
+ * UserVersionIndex - Allows controlling the behavior of these dependencies in tests
  *
  * <p>{@code @InjectMocks} - Creates an instance of UserUseCase - Automatically injects all @Mock
  * fields into the use case - Used for the class under test (UserUseCase)
@@ -51,6 +57,8 @@ public class UserUseCaseTest {
 
   @Mock private UserMapper userMapper;
 
+  @Mock private UserVersionIndex versionIndex;
+
   @InjectMocks private UserUseCase userUseCase;
 
   private UserEntity userEntity;
@@ -121,6 +129,26 @@ public class UserUseCaseTest {
     assertEquals("testUser", result.getUsername());
   }
 
+  /**
+   * Tests the patchUser method to verify that only fields present in the merge-patch document are
+   * passed on, with explicit nulls kept so the service can reject the removal.
+   */
+  @Test
+  void patchUser_passesOnlyPresentFields() throws Exception {
+    UserPatch patch =
+        new ObjectMapper()
+            .registerModule(new JsonNullableModule())
+            .readValue("{\"email\": null, \"version\": 4}", UserPatch.class);
+    Map<String, Object> expected = new HashMap<>();
+    expected.put("email", null);
+    when(userService.patchUser("1", 4L, expected)).thenReturn(userEntity);
+    when(userMapper.mapToResponseEntity(userEntity)).thenReturn(userReq);
+
+    UserReq result = userUseCase.patchUser("1", patch);
+
+    assertEquals("testUser", result.getUsername());
+  }
+
   /**
    * Tests the deleteUser method to verify it successfully deletes a user. Verifies that the method
    * correctly calls the service layer.
@@ -0,0 +1,43 @@
+package in.newdevpoint.bootcamp.utility;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link BloomFilter}. Verifies that added keys are always found, that the false
+ * positive rate stays near the configured one, and that every hash function probes its own bit.
+ */
+public class BloomFilterTest {
+
+  /** Tests that added keys are found and unknown keys mostly are not. */
+  @Test
+  void mightContain_findsAddedKeysAndFewOthers() {
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      filter.put("jti-" + i);
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 10_000; i++) {
+      assertTrue(filter.mightContain("jti-" + i));
+      if (filter.mightContain("other-" + i)) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 300, falsePositives + " false positives");
+  }
+
+  /** Tests that a hash with a zero upper half still spreads its probes over distinct bits. */
+  @Test
+  void bitIndex_probesDistinctBitsWhenUpperHalfIsZero() {
+    Set<Long> probed = new HashSet<>();
+    for (int i = 1; i <= 7; i++) {
+      probed.add(BloomFilter.bitIndex(0x12345678L, i, 1024));
+    }
+
+    assertEquals(7, probed.size());
+  }
+}
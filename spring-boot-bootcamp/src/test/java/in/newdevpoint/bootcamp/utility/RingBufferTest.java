@@ -0,0 +1,72 @@
+package in.newdevpoint.bootcamp.utility;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for {@link RingBuffer}. Verifies FIFO order, the capacity bound, and that concurrent
+ * producers never lose or duplicate an element.
+ */
+public class RingBufferTest {
+
+  /** Tests that elements come out in order and a full ring refuses new ones. */
+  @Test
+  void offer_refusesWhenFullAndPollKeepsOrder() {
+    RingBuffer<Integer> ring = new RingBuffer<>(3);
+
+    assertEquals(4, ring.capacity());
+    for (int i = 0; i < 4; i++) {
+      assertTrue(ring.offer(i));
+    }
+    assertFalse(ring.offer(4));
+    assertEquals(0, ring.poll());
+    assertTrue(ring.offer(4));
+    for (int i = 1; i <= 4; i++) {
+      assertEquals(i, ring.poll());
+    }
+    assertNull(ring.poll());
+    assertEquals(0, ring.size());
+  }
+
+  /** Tests that every element offered by concurrent producers is polled exactly once. */
+  @Test
+  void offer_isSafeForConcurrentProducers() throws Exception {
+    RingBuffer<Integer> ring = new RingBuffer<>(64);
+    int producers = 4;
+    int perProducer = 10_000;
+    ExecutorService executor = Executors.newFixedThreadPool(producers);
+    CountDownLatch done = new CountDownLatch(producers);
+    AtomicInteger next = new AtomicInteger();
+    for (int p = 0; p < producers; p++) {
+      executor.submit(
+          () -> {
+            for (int i = 0; i < perProducer; i++) {
+              int value = next.getAndIncrement();
+              while (!ring.offer(value)) {
+                Thread.onSpinWait();
+              }
+            }
+            done.countDown();
+          });
+    }
+
+    Set<Integer> seen = new HashSet<>();
+    while (seen.size() < producers * perProducer) {
+      Integer value = ring.poll();
+      if (value != null) {
+        assertTrue(seen.add(value), "duplicate " + value);
+      }
+    }
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    executor.shutdown();
+    assertNull(ring.poll());
+  }
+}